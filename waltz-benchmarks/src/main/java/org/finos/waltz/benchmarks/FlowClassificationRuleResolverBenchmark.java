@@ -0,0 +1,115 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Constructing the flow classification rule resolver from expanded vantage
+ * points and resolving ratings against it, the inner loop of the flow
+ * classification recalculation.
+ *
+ * A quarter of the lookups are for vantage point / data type / source
+ * combinations which have a rule, the remainder are random.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class FlowClassificationRuleResolverBenchmark {
+
+    private static final int LOOKUPS = 100_000;
+    private static final int DATA_TYPE_COUNT = 1_000;
+
+    @Param({"10000", "100000"})
+    public int appCount;
+
+    private List<FlowClassificationRuleVantagePoint> vantagePoints;
+    private FlowClassificationRuleResolver resolver;
+    private EntityReference[] lookupVantagePoints;
+    private EntityReference[] lookupSources;
+    private Long[] lookupDataTypeIds;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticEstate estate = new SyntheticEstate();
+        int orgUnitCount = appCount / 20;
+
+        vantagePoints = estate.mkVantagePoints(appCount * 5, orgUnitCount, DATA_TYPE_COUNT, appCount);
+        resolver = new FlowClassificationRuleResolver(vantagePoints);
+
+        lookupVantagePoints = new EntityReference[LOOKUPS];
+        lookupSources = new EntityReference[LOOKUPS];
+        lookupDataTypeIds = new Long[LOOKUPS];
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (i % 4 == 0) {
+                FlowClassificationRuleVantagePoint vp = vantagePoints.get(i % vantagePoints.size());
+                lookupVantagePoints[i] = vp.vantagePoint();
+                lookupSources[i] = vp.subjectReference();
+                lookupDataTypeIds[i] = vp.dataType().id();
+            } else {
+                lookupVantagePoints[i] = estate.pickRef(EntityKind.ORG_UNIT, orgUnitCount);
+                lookupSources[i] = estate.pickRef(EntityKind.APPLICATION, appCount);
+                lookupDataTypeIds[i] = estate.pickId(DATA_TYPE_COUNT);
+            }
+        }
+    }
+
+
+    @Benchmark
+    public FlowClassificationRuleResolver construct() {
+        return new FlowClassificationRuleResolver(vantagePoints);
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void resolve(Blackhole bh) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            bh.consume(resolver.resolve(lookupVantagePoints[i], lookupSources[i], lookupDataTypeIds[i]));
+        }
+    }
+
+}
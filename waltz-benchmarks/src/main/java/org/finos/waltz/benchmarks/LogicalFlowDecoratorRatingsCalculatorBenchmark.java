@@ -0,0 +1,127 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import org.finos.waltz.data.data_type.DataTypeDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowDao;
+import org.finos.waltz.model.application.Application;
+import org.finos.waltz.model.datatype.DataType;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.service.application.ApplicationService;
+import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Rating a batch of decorators, as done when flows are decorated in bulk or
+ * the flow classification rules are recalculated.
+ *
+ * The daos and application service are replaced by stubs returning the
+ * synthetic estate, so only the in-memory work (indexing, building the
+ * resolver and rating each decorator) is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 2, jvmArgsAppend = "-Xmx6g")
+public class LogicalFlowDecoratorRatingsCalculatorBenchmark {
+
+    private static final int DATA_TYPE_COUNT = 1_000;
+
+    @Param({"10000", "100000"})
+    public int appCount;
+
+    @Param({"100000", "1000000"})
+    public int decoratorCount;
+
+    private LogicalFlowDecoratorRatingsCalculator calculator;
+    private List<DataTypeDecorator> decorators;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticEstate estate = new SyntheticEstate();
+        int orgUnitCount = appCount / 20;
+        int flowCount = decoratorCount / 2;
+
+        List<Application> apps = estate.mkApplications(appCount, orgUnitCount);
+        List<DataType> dataTypes = estate.mkDataTypes(DATA_TYPE_COUNT);
+        List<LogicalFlow> flows = estate.mkFlows(flowCount, appCount);
+        List<FlowClassificationRuleVantagePoint> vantagePoints = estate.mkVantagePoints(appCount * 5, orgUnitCount, DATA_TYPE_COUNT, appCount);
+        Set<FlowClassification> classifications = estate.mkFlowClassifications();
+        decorators = estate.mkDecorators(decoratorCount, flowCount, DATA_TYPE_COUNT);
+
+        ApplicationService applicationService = mock(ApplicationService.class);
+        when(applicationService.findByIds(anyCollection())).thenReturn(apps);
+
+        FlowClassificationDao flowClassificationDao = mock(FlowClassificationDao.class);
+        when(flowClassificationDao.findAll()).thenReturn(classifications);
+
+        FlowClassificationRuleDao flowClassificationRuleDao = mock(FlowClassificationRuleDao.class);
+        when(flowClassificationRuleDao.findExpandedFlowClassificationRuleVantagePoints(any())).thenReturn(vantagePoints);
+
+        LogicalFlowDao logicalFlowDao = mock(LogicalFlowDao.class);
+        when(logicalFlowDao.findActiveByFlowIds(anyCollection())).thenReturn(flows);
+
+        DataTypeDao dataTypeDao = mock(DataTypeDao.class);
+        when(dataTypeDao.findAll()).thenReturn(dataTypes);
+
+        calculator = new LogicalFlowDecoratorRatingsCalculator(
+                applicationService,
+                flowClassificationDao,
+                flowClassificationRuleDao,
+                logicalFlowDao,
+                dataTypeDao);
+    }
+
+
+    @Benchmark
+    public Collection<DataTypeDecorator> calculate() {
+        return calculator.calculate(decorators);
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import org.finos.waltz.common.MapUtilities;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Grouping decorators by flow and by data type with
+ * {@link MapUtilities#groupBy}, used throughout the service layer when
+ * stitching flows to their decorations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class MapUtilitiesBenchmark {
+
+    private static final int DATA_TYPE_COUNT = 1_000;
+
+    @Param({"100000", "1000000"})
+    public int decoratorCount;
+
+    private List<DataTypeDecorator> decorators;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        decorators = new SyntheticEstate().mkDecorators(decoratorCount, decoratorCount / 2, DATA_TYPE_COUNT);
+    }
+
+
+    @Benchmark
+    public Map<Long, Collection<DataTypeDecorator>> groupByFlow() {
+        return MapUtilities.groupBy(decorators, DataTypeDecorator::dataFlowId);
+    }
+
+
+    @Benchmark
+    public Map<Long, Collection<Long>> groupDataTypeIdsByFlow() {
+        return MapUtilities.groupBy(decorators, DataTypeDecorator::dataFlowId, DataTypeDecorator::dataTypeId);
+    }
+
+
+    @Benchmark
+    public Map<Long, Collection<DataTypeDecorator>> groupByDataType() {
+        return MapUtilities.groupBy(decorators, DataTypeDecorator::dataTypeId);
+    }
+
+}
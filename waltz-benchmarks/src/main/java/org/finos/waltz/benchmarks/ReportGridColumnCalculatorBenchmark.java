@@ -0,0 +1,172 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCell;
+import org.finos.waltz.model.report_grid.ImmutableReportGridDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridDerivedColumnDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportSubject;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridDefinition;
+import org.finos.waltz.model.report_grid.ReportGridDerivedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.service.report_grid.ReportGridColumnCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityReference.mkRef;
+
+
+/**
+ * Evaluating the derived columns of a report grid.  Each row has values for
+ * most of the fixed columns, the derived columns use the common namespace
+ * functions and include a chain of columns which reference each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class ReportGridColumnCalculatorBenchmark {
+
+    private static final List<String> FIXED_COLUMNS = asList("A", "B", "C", "D", "E");
+
+    @Param({"10000", "100000"})
+    public int subjectCount;
+
+    private ReportGridInstance instance;
+    private ReportGridDefinition definition;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        definition = mkDefinition();
+        instance = mkInstance();
+    }
+
+
+    @Benchmark
+    public Set<ReportGridCell> calculate() {
+        return ReportGridColumnCalculator.calculate(instance, definition);
+    }
+
+
+    // -- helpers
+
+    private ReportGridDefinition mkDefinition() {
+        ImmutableReportGridDefinition.Builder builder = ImmutableReportGridDefinition
+                .builder()
+                .name("benchmark")
+                .subjectKind(EntityKind.APPLICATION)
+                .lastUpdatedAt(LocalDateTime.now())
+                .lastUpdatedBy("benchmark")
+                .provenance("benchmark");
+
+        for (int i = 0; i < FIXED_COLUMNS.size(); i++) {
+            builder.addFixedColumnDefinitions(mkFixedCol(i + 1L, FIXED_COLUMNS.get(i), i));
+        }
+
+        int position = FIXED_COLUMNS.size();
+        return builder
+                .addDerivedColumnDefinitions(
+                        mkDerivedCol(101L, "ANY", position++, "anyCellsProvided('A', 'B', 'C') ? 'yes' : 'no'"),
+                        mkDerivedCol(102L, "ALL", position++, "allCellsProvided('A', 'B', 'C', 'D', 'E') ? 'complete' : 'partial'"),
+                        mkDerivedCol(103L, "COALESCE", position++, "coalesceCells('E', 'D', 'C')"),
+                        mkDerivedCol(104L, "PCT", position++, "percentageProvided('A', 'B', 'C', 'D', 'E')"),
+                        mkDerivedCol(105L, "LABEL", position++, "cell('A') == null ? 'missing' : 'A:' + cell('A').textValue()"),
+                        mkDerivedCol(106L, "CHAINED", position, "cell('LABEL') == null ? 'missing' : cell('LABEL').textValue() + '/' + cell('ANY').textValue()"))
+                .build();
+    }
+
+
+    private ReportGridInstance mkInstance() {
+        Random random = new Random(SyntheticEstate.SEED);
+        ImmutableReportGridInstance.Builder builder = ImmutableReportGridInstance.builder();
+
+        for (long subjectId = 1; subjectId <= subjectCount; subjectId++) {
+            builder.addSubjects(ImmutableReportSubject
+                    .builder()
+                    .entityReference(mkRef(EntityKind.APPLICATION, subjectId, "app" + subjectId))
+                    .lifecyclePhase(LifecyclePhase.PRODUCTION)
+                    .build());
+
+            for (int col = 0; col < FIXED_COLUMNS.size(); col++) {
+                if (random.nextInt(10) < 8) {
+                    builder.addCellData(ImmutableReportGridCell
+                            .builder()
+                            .subjectId(subjectId)
+                            .columnDefinitionId(col + 1L)
+                            .textValue(FIXED_COLUMNS.get(col) + random.nextInt(100))
+                            .build());
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+
+    private static ReportGridFixedColumnDefinition mkFixedCol(long id, String extId, int position) {
+        return ImmutableReportGridFixedColumnDefinition
+                .builder()
+                .gridColumnId(id)
+                .columnEntityKind(EntityKind.ASSESSMENT_DEFINITION)
+                .columnEntityId(id)
+                .displayName(extId)
+                .externalId(extId)
+                .position(position)
+                .build();
+    }
+
+
+    private static ReportGridDerivedColumnDefinition mkDerivedCol(long id, String extId, int position, String script) {
+        return ImmutableReportGridDerivedColumnDefinition
+                .builder()
+                .gridColumnId(id)
+                .displayName(extId)
+                .externalId(extId)
+                .position(position)
+                .derivationScript(script)
+                .build();
+    }
+
+}
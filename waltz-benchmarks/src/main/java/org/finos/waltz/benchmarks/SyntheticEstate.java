@@ -0,0 +1,271 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import org.finos.waltz.common.hierarchy.FlatNode;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.application.Application;
+import org.finos.waltz.model.application.ApplicationKind;
+import org.finos.waltz.model.application.ImmutableApplication;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.datatype.DataType;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.datatype.ImmutableDataType;
+import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
+import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.model.flow_classification.ImmutableFlowClassification;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.model.rating.RagRating;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+
+
+/**
+ * Generates synthetic estates for the benchmarks.
+ *
+ * Every generator draws from a single seeded random source, so a given
+ * sequence of calls always produces the same data and results from different
+ * runs (or branches) can be compared.
+ *
+ * Ids are dense and start at 1: org units <code>1..orgUnitCount</code>,
+ * data types <code>1..dataTypeCount</code>, applications
+ * <code>1..appCount</code> and flows <code>1..flowCount</code>.
+ */
+public class SyntheticEstate {
+
+    public static final long SEED = 20_190_301L;
+
+    private static final String[] WORDS = {
+            "trade", "settlement", "risk", "ledger", "payments", "client", "reference", "market",
+            "pricing", "collateral", "treasury", "reporting", "onboarding", "limits", "fx", "equity",
+            "credit", "liquidity", "finance", "hub", "gateway", "engine", "store", "portal"
+    };
+
+    public static final AuthoritativenessRatingValue PRIMARY = AuthoritativenessRatingValue.of("PRIMARY");
+    public static final AuthoritativenessRatingValue SECONDARY = AuthoritativenessRatingValue.of("SECONDARY");
+
+    private final Random random = new Random(SEED);
+
+
+    /**
+     * Builds a forest of the given size.  Each node picks its parent from the
+     * nodes created before it, giving the logarithmic depth typical of org
+     * unit, data type and measurable trees.
+     */
+    public List<FlatNode<String, Long>> mkHierarchy(int size, int rootCount) {
+        List<FlatNode<String, Long>> nodes = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            Optional<Long> parentId = id <= rootCount
+                    ? Optional.empty()
+                    : Optional.of(1L + random.nextInt((int) id - 1));
+            nodes.add(new FlatNode<>(id, parentId, "node-" + id));
+        }
+        return nodes;
+    }
+
+
+    public List<DataType> mkDataTypes(int count) {
+        List<DataType> dataTypes = new ArrayList<>(count);
+        for (FlatNode<String, Long> node : mkHierarchy(count, Math.max(1, count / 100))) {
+            dataTypes.add(ImmutableDataType
+                    .builder()
+                    .id(node.getId())
+                    .parentId(node.getParentId())
+                    .code("DT_" + node.getId())
+                    .name(node.getData())
+                    .description(node.getData())
+                    .build());
+        }
+        return dataTypes;
+    }
+
+
+    public List<Application> mkApplications(int count, int orgUnitCount) {
+        List<Application> apps = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            apps.add(ImmutableApplication
+                    .builder()
+                    .id(id)
+                    .name(mkName(3))
+                    .description("synthetic application " + id)
+                    .organisationalUnitId(1L + random.nextInt(orgUnitCount))
+                    .applicationKind(ApplicationKind.IN_HOUSE)
+                    .lifecyclePhase(LifecyclePhase.PRODUCTION)
+                    .overallRating(RagRating.G)
+                    .provenance("benchmark")
+                    .build());
+        }
+        return apps;
+    }
+
+
+    /**
+     * @return flows between distinct, randomly chosen applications
+     */
+    public List<LogicalFlow> mkFlows(int flowCount, int appCount) {
+        List<LogicalFlow> flows = new ArrayList<>(flowCount);
+        for (long id = 1; id <= flowCount; id++) {
+            long source = 1L + random.nextInt(appCount);
+            long target = 1L + random.nextInt(appCount - 1);
+            if (target >= source) {
+                target++;
+            }
+            flows.add(ImmutableLogicalFlow
+                    .builder()
+                    .id(id)
+                    .source(mkRef(EntityKind.APPLICATION, source))
+                    .target(mkRef(EntityKind.APPLICATION, target))
+                    .lastUpdatedBy("benchmark")
+                    .provenance("benchmark")
+                    .build());
+        }
+        return flows;
+    }
+
+
+    /**
+     * @return decorators spread evenly over the given flows, each with a random data type
+     */
+    public List<DataTypeDecorator> mkDecorators(int count, int flowCount, int dataTypeCount) {
+        List<DataTypeDecorator> decorators = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            long flowId = 1L + (id - 1) % flowCount;
+            decorators.add(ImmutableDataTypeDecorator
+                    .builder()
+                    .id(id)
+                    .entityReference(mkRef(EntityKind.LOGICAL_DATA_FLOW, flowId))
+                    .decoratorEntity(mkRef(EntityKind.DATA_TYPE, 1L + random.nextInt(dataTypeCount)))
+                    .rating(AuthoritativenessRatingValue.NO_OPINION)
+                    .lastUpdatedBy("benchmark")
+                    .provenance("benchmark")
+                    .build());
+        }
+        return decorators;
+    }
+
+
+    /**
+     * @return expanded vantage points, i.e. one per (org unit, data type, source app)
+     *   combination, as produced by the flow classification rule dao
+     */
+    public List<FlowClassificationRuleVantagePoint> mkVantagePoints(int count,
+                                                                    int orgUnitCount,
+                                                                    int dataTypeCount,
+                                                                    int appCount) {
+        List<FlowClassificationRuleVantagePoint> vantagePoints = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            vantagePoints.add(ImmutableFlowClassificationRuleVantagePoint
+                    .builder()
+                    .ruleId(id)
+                    .vantagePoint(mkRef(EntityKind.ORG_UNIT, 1L + random.nextInt(orgUnitCount)))
+                    .vantagePointRank(random.nextInt(6))
+                    .dataType(mkRef(EntityKind.DATA_TYPE, 1L + random.nextInt(dataTypeCount)))
+                    .dataTypeRank(random.nextInt(4))
+                    .subjectReference(mkRef(EntityKind.APPLICATION, 1L + random.nextInt(appCount)))
+                    .classificationCode(random.nextBoolean()
+                            ? PRIMARY.value()
+                            : SECONDARY.value())
+                    .build());
+        }
+        return vantagePoints;
+    }
+
+
+    public Set<FlowClassification> mkFlowClassifications() {
+        return asSet(
+                mkFlowClassification(1L, PRIMARY.value(), 1),
+                mkFlowClassification(2L, SECONDARY.value(), 2),
+                mkFlowClassification(3L, AuthoritativenessRatingValue.DISCOURAGED.value(), 3),
+                mkFlowClassification(4L, AuthoritativenessRatingValue.NO_OPINION.value(), 4));
+    }
+
+
+    /**
+     * @return application-like names of the given number of words, e.g. "Trade Risk Hub"
+     */
+    public List<String> mkNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(mkName(2 + random.nextInt(3)));
+        }
+        return names;
+    }
+
+
+    public EntityReference pickRef(EntityKind kind, int count) {
+        return mkRef(kind, 1L + random.nextInt(count));
+    }
+
+
+    public long pickId(int count) {
+        return 1L + random.nextInt(count);
+    }
+
+
+    public Set<Long> pickIds(int howMany, int count) {
+        Set<Long> ids = new HashSet<>();
+        while (ids.size() < Math.min(howMany, count)) {
+            ids.add(pickId(count));
+        }
+        return ids;
+    }
+
+
+    // -- helpers
+
+    private String mkName(int wordCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+        }
+        return sb.toString();
+    }
+
+
+    private static FlowClassification mkFlowClassification(long id, String code, int position) {
+        return ImmutableFlowClassification
+                .builder()
+                .id(id)
+                .name(code)
+                .code(code)
+                .color("#ccc")
+                .position(position)
+                .isCustom(false)
+                .userSelectable(true)
+                .build();
+    }
+
+}
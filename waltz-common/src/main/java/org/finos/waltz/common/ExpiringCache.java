@@ -0,0 +1,287 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * A simple, thread safe, in-memory cache which bounds entries by both
+ * count (least recently used entries are evicted first) and age.
+ *
+ * Values are computed outside of the cache lock, so concurrent misses for the
+ * same key may both invoke the loader.  If an invalidation which matches a
+ * value is made whilst that value is being loaded, the value is returned to
+ * the caller but is not stored.  This prevents stale data being reinstated by
+ * a slow load, while unrelated invalidations do not stop values being cached.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    // guarded by entries, invalidations made whilst loads are in flight, checked before a loaded value is stored
+    private final Deque<Invalidation<K, V>> recentInvalidations = new ArrayDeque<>();
+    private final TreeMap<Long, Integer> loadsInFlightBySeq = new TreeMap<>();
+    private long invalidationSeq = 0;
+
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+
+    public ExpiringCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        checkTrue(maxSize > 0, "maxSize must be positive");
+        checkNotNull(ttl, "ttl cannot be null");
+        checkNotNull(ticker, "ticker cannot be null");
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean shouldEvict = size() > ExpiringCache.this.maxSize;
+                if (shouldEvict) {
+                    evictionCount.incrementAndGet();
+                }
+                return shouldEvict;
+            }
+        };
+    }
+
+
+    /**
+     * Returns the cached value for the key, computing (and storing) it via the
+     * loader if it is absent or has expired.  Null values are not cached.
+     */
+    public V get(K key, Function<K, V> loader) {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(loader, "loader cannot be null");
+
+        Optional<V> existing = getIfPresent(key);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        long startSeq;
+        synchronized (entries) {
+            startSeq = invalidationSeq;
+            loadsInFlightBySeq.merge(startSeq, 1, Integer::sum);
+        }
+
+        V value = null;
+        try {
+            value = loader.apply(key);
+            return value;
+        } finally {
+            synchronized (entries) {
+                if (value != null && !isInvalidatedSince(startSeq, key, value)) {
+                    entries.put(key, new Entry<>(value, ticker.getAsLong()));
+                }
+                completeLoad(startSeq);
+            }
+        }
+    }
+
+
+    public Optional<V> getIfPresent(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                missCount.incrementAndGet();
+                return Optional.empty();
+            } else if (isExpired(entry)) {
+                entries.remove(key);
+                evictionCount.incrementAndGet();
+                missCount.incrementAndGet();
+                return Optional.empty();
+            } else {
+                hitCount.incrementAndGet();
+                return Optional.of(entry.value);
+            }
+        }
+    }
+
+
+    public void put(K key, V value) {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(value, "value cannot be null");
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, ticker.getAsLong()));
+        }
+    }
+
+
+    public void invalidate(K key) {
+        checkNotNull(key, "key cannot be null");
+        synchronized (entries) {
+            entries.remove(key);
+            recordInvalidation((k, v) -> k.equals(key));
+        }
+    }
+
+
+    /**
+     * Removes all entries which satisfy the given predicate.
+     *
+     * @param predicate  test against the key and value of each entry
+     * @return number of entries removed
+     */
+    public int invalidateIf(BiPredicate<K, V> predicate) {
+        checkNotNull(predicate, "predicate cannot be null");
+        synchronized (entries) {
+            int before = entries.size();
+            entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().value));
+            recordInvalidation(predicate);
+            return before - entries.size();
+        }
+    }
+
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            recordInvalidation((k, v) -> true);
+        }
+    }
+
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+
+    public long missCount() {
+        return missCount.get();
+    }
+
+
+    public long evictionCount() {
+        return evictionCount.get();
+    }
+
+
+    public long invalidationCount() {
+        return invalidationCount.get();
+    }
+
+
+    /**
+     * Remembers the invalidation for as long as a load which started before it
+     * is still in flight.  Callers must hold the entries lock.
+     */
+    private void recordInvalidation(BiPredicate<K, V> predicate) {
+        invalidationCount.incrementAndGet();
+        if (!loadsInFlightBySeq.isEmpty()) {
+            invalidationSeq++;
+            recentInvalidations.addLast(new Invalidation<>(invalidationSeq, predicate));
+        }
+    }
+
+
+    /**
+     * @return true if an invalidation made after the load started applies to the loaded value.
+     * Callers must hold the entries lock.
+     */
+    private boolean isInvalidatedSince(long startSeq, K key, V value) {
+        return recentInvalidations
+                .stream()
+                .anyMatch(i -> i.seq > startSeq && i.predicate.test(key, value));
+    }
+
+
+    /**
+     * Discards invalidations which no remaining load can be affected by.
+     * Callers must hold the entries lock.
+     */
+    private void completeLoad(long startSeq) {
+        loadsInFlightBySeq.computeIfPresent(startSeq, (seq, count) -> count > 1 ? count - 1 : null);
+
+        if (loadsInFlightBySeq.isEmpty()) {
+            recentInvalidations.clear();
+        } else {
+            long oldestLoadSeq = loadsInFlightBySeq.firstKey();
+            while (!recentInvalidations.isEmpty() && recentInvalidations.peekFirst().seq <= oldestLoadSeq) {
+                recentInvalidations.removeFirst();
+            }
+        }
+    }
+
+
+    private boolean isExpired(Entry<V> entry) {
+        return ticker.getAsLong() - entry.loadedAt >= ttlNanos;
+    }
+
+
+    private static class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+
+    private static class Invalidation<K, V> {
+        private final long seq;
+        private final BiPredicate<K, V> predicate;
+
+        private Invalidation(long seq, BiPredicate<K, V> predicate) {
+            this.seq = seq;
+            this.predicate = predicate;
+        }
+    }
+
+}
@@ -27,6 +27,7 @@ import java.util.function.Predicate;
 
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 
 
 public class ListUtilities {
@@ -166,6 +167,35 @@ public class ListUtilities {
     }
 
 
+    /**
+     * Splits the elements of <code>ts</code> into consecutive lists of at most <code>size</code> elements
+     * @param ts elements to split, iteration order is preserved
+     * @param size maximum number of elements in each partition, must be positive
+     * @param <T> type of elements
+     * @return list of partitions, empty if <code>ts</code> is empty
+     */
+    public static <T> List<List<T>> partition(Collection<T> ts, int size) {
+        checkNotNull(ts, "ts cannot be null");
+        checkTrue(size > 0, "size must be positive");
+
+        List<List<T>> partitions = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(size, ts.size()));
+        for (T t : ts) {
+            current.add(t);
+            if (current.size() == size) {
+                partitions.add(current);
+                current = new ArrayList<>(size);
+            }
+        }
+
+        if (! current.isEmpty()) {
+            partitions.add(current);
+        }
+
+        return partitions;
+    }
+
+
     public static <T> boolean containsDuplicates(List<T> ts) {
         HashSet<T> seen = new HashSet<>();
 
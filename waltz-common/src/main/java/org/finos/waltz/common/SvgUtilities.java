@@ -18,83 +18,398 @@
 
 package org.finos.waltz.common;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
-import static org.finos.waltz.common.XmlUtilities.*;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.StringUtilities.mkSafe;
 
+
+/**
+ * Rewrites svg diagrams (typically Visio exports, which can be several MB) in a single
+ * streaming pass.  Documents are read with StAX and written straight back out, no DOM is
+ * built.  Names are handled as raw qualified names (e.g. <code>v:cp</code>), the documents
+ * are not namespace processed and DTDs are neither loaded nor copied to the output.
+ */
 public class SvgUtilities {
 
-    public static String convertVisioSvg(String key, String svgStr) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException, TransformerException {
-        DocumentBuilder builder = createNonValidatingDocumentBuilderFactory().newDocumentBuilder();
-        InputSource svgSource = new InputSource(new ByteArrayInputStream(svgStr.getBytes()));
-        Document svg = builder.parse(svgSource);
-
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xpath.evaluate("//*", svg, XPathConstants.NODESET);
-
-        stream(nodes)
-                .forEach(n -> stream(n.getChildNodes())
-                        .filter(c -> c.getNodeName().contains("custProps"))
-                        .forEach(c -> stream(c.getChildNodes())
-                                .filter(cp -> cp.getNodeName().contains("cp"))
-                                .map(cp -> (Element) cp)
-                                .filter(cp -> key.equals(cp.getAttribute("v:lbl")))
-                                .map(cp -> cp.getAttribute("v:val"))
-                                .map(v -> v.replaceAll("^.*\\((.*)\\)$", "$1"))
-                                .forEach(v -> ((Element) n).setAttribute("data-"+key, v))
-                        )
-                );
-
-        return printDocument(svg, false); // do NOT toPrettyString print visio
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+
+    // keeps css in style blocks as CDATA, without this the JDK parser reports it as plain text
+    private static final String REPORT_CDATA_PROPERTY = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    // strips the Visio type wrapper from a custom property value, e.g. VT4(APP-123)
+    private static final Pattern VISIO_VALUE_WRAPPER = Pattern.compile("^.*\\((.*)\\)$");
+
+    private static final XMLInputFactory INPUT_FACTORY = mkInputFactory();
+
+
+    /**
+     * Copies Visio custom property values onto the shapes that own them.
+     *
+     * A shape (any element) with a <code>custProps</code> child containing a <code>cp</code>
+     * whose <code>v:lbl</code> equals the key is given a <code>data-{key}</code> attribute.  The
+     * attribute value is taken from the <code>v:val</code> of the property with any Visio type
+     * wrapper removed, e.g. <code>VT4(APP-123)</code> becomes <code>APP-123</code>.
+     *
+     * As the custom properties are only seen after the shape's start tag has been written, the
+     * position of the attribute is remembered and the values are spliced in once the shape closes.
+     */
+    public static String convertVisioSvg(String key, String svgStr) throws XMLStreamException {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(svgStr, "svgStr cannot be null");
+
+        String dataAttr = "data-" + key;
+        SvgStreamWriter writer = new SvgStreamWriter(svgStr.length());
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(svgStr));
+
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        SvgElement element = writer.writeStartElement(reader, dataAttr);
+                        if (element.name.contains("cp")) {
+                            writer.ancestor(1)
+                                    .filter(custProps -> custProps.name.contains("custProps"))
+                                    .flatMap(custProps -> writer.ancestor(2))
+                                    .filter(shape -> key.equals(attributeValue(reader, "v:lbl")))
+                                    .ifPresent(shape -> shape.dataValue = VISIO_VALUE_WRAPPER
+                                            .matcher(mkSafe(attributeValue(reader, "v:val")))
+                                            .replaceAll("$1"));
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        SvgElement closed = writer.writeEndElement();
+                        if (closed.dataValue != null) {
+                            writer.spliceDataAttribute(closed, dataAttr);
+                        }
+                        break;
+                    default:
+                        writer.writeEvent(reader);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return writer.toString();
     }
 
 
+    /**
+     * Wraps every element (other than the root) which has a <code>data-{keyProp}</code> attribute
+     * in an <code>a</code> element, provided <code>keyToUrl</code> gives a url for the attribute
+     * value.  Links are opened in a new window.
+     */
     public static String addWaltzEntityLinks(String svgStr,
                                              String keyProp,
-                                             Function<String, Optional<String>> keyToUrl) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException, TransformerException {
-        DocumentBuilder builder = createNonValidatingDocumentBuilderFactory().newDocumentBuilder();
-        InputSource svgSource = new InputSource(new ByteArrayInputStream(svgStr.getBytes()));
-        Document svg = builder.parse(svgSource);
-
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xpath.evaluate("//*", svg, XPathConstants.NODESET);
-
-        stream(nodes)
-                .forEach(n -> stream(n.getChildNodes())
-                        .filter(c -> c.hasAttributes() && c.getAttributes().getNamedItem("data-" + keyProp) != null)
-                        .forEach(c -> {
-                            String keyVal = c.getAttributes()
-                                                .getNamedItem("data-" + keyProp)
-                                                .getNodeValue();
-
-                            keyToUrl.apply(keyVal)
-                                    .ifPresent(url -> {
-                                        Element linkNode = svg.createElement("a");
-                                        linkNode.setAttribute("href", url);
-                                        linkNode.setAttribute("target", "_blank");
-                                        c.getParentNode().appendChild(linkNode);
-                                        linkNode.appendChild(c);
-                                    });
-                        })
-                );
-
-        return printDocument(svg, false);
+                                             Function<String, Optional<String>> keyToUrl) throws XMLStreamException {
+        checkNotNull(svgStr, "svgStr cannot be null");
+        checkNotNull(keyProp, "keyProp cannot be null");
+        checkNotNull(keyToUrl, "keyToUrl cannot be null");
+
+        String dataAttr = "data-" + keyProp;
+        SvgStreamWriter writer = new SvgStreamWriter(svgStr.length());
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(svgStr));
+
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        String keyVal = attributeValue(reader, dataAttr);
+                        Optional<String> url = writer.depth() > 0 && keyVal != null
+                                ? keyToUrl.apply(keyVal)
+                                : Optional.empty();
+                        url.ifPresent(writer::writeLinkStart);
+                        SvgElement element = writer.writeStartElement(reader, null);
+                        element.linked = url.isPresent();
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        SvgElement closed = writer.writeEndElement();
+                        if (closed.linked) {
+                            writer.writeLinkEnd();
+                        }
+                        break;
+                    default:
+                        writer.writeEvent(reader);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return writer.toString();
+    }
+
+
+    // -- HELPERS
+
+    private static XMLInputFactory mkInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        if (factory.isPropertySupported(REPORT_CDATA_PROPERTY)) {
+            factory.setProperty(REPORT_CDATA_PROPERTY, true);
+        }
+        return factory;
+    }
+
+
+    private static String attributeName(XMLStreamReader reader, int idx) {
+        String prefix = reader.getAttributePrefix(idx);
+        String localName = reader.getAttributeLocalName(idx);
+        return StringUtilities.isEmpty(prefix)
+                ? localName
+                : prefix + ":" + localName;
+    }
+
+
+    /**
+     * @return the value of the attribute on the current element, or null if it is absent
+     */
+    private static String attributeValue(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (name.equals(attributeName(reader, i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+
+    private static class SvgElement {
+        private final String name;
+        private int attributeInsertPos;
+        private int existingDataAttrStart = -1;
+        private int existingDataAttrEnd = -1;
+        private String dataValue;
+        private boolean linked;
+
+        private SvgElement(String name) {
+            this.name = name;
+        }
+    }
+
+
+    private static class Splice {
+        private final int start;
+        private final int end;
+        private final String text;
+
+        private Splice(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+
+
+    /**
+     * Serialises StAX events to a string buffer.  Start tags are left open until the next event
+     * so that empty elements can be written as <code>&lt;x/&gt;</code>.
+     */
+    private static class SvgStreamWriter {
+
+        private final StringBuilder out;
+        private final List<SvgElement> openElements = new ArrayList<>();
+        private final List<Splice> splices = new ArrayList<>();
+        private boolean startTagOpen = false;
+
+
+        private SvgStreamWriter(int expectedLength) {
+            this.out = new StringBuilder(expectedLength + expectedLength / 8);
+            this.out.append(XML_DECLARATION);
+        }
+
+
+        private int depth() {
+            return openElements.size();
+        }
+
+
+        /**
+         * @param generation  1 for the parent of the current element, 2 for its grandparent etc.
+         */
+        private Optional<SvgElement> ancestor(int generation) {
+            int idx = openElements.size() - 1 - generation;
+            return idx >= 0
+                    ? Optional.of(openElements.get(idx))
+                    : Optional.empty();
+        }
+
+
+        private SvgElement writeStartElement(XMLStreamReader reader, String trackedAttr) {
+            closeStartTag();
+            SvgElement element = new SvgElement(reader.getLocalName());
+            out.append('<').append(element.name);
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String attrName = attributeName(reader, i);
+                boolean isTracked = attrName.equals(trackedAttr);
+                if (isTracked) {
+                    element.existingDataAttrStart = out.length();
+                }
+                out.append(' ').append(attrName).append("=\"");
+                appendEscaped(reader.getAttributeValue(i), true);
+                out.append('"');
+                if (isTracked) {
+                    element.existingDataAttrEnd = out.length();
+                }
+            }
+            element.attributeInsertPos = out.length();
+            openElements.add(element);
+            startTagOpen = true;
+            return element;
+        }
+
+
+        private SvgElement writeEndElement() {
+            SvgElement element = openElements.remove(openElements.size() - 1);
+            if (startTagOpen) {
+                out.append("/>");
+                startTagOpen = false;
+            } else {
+                out.append("</").append(element.name).append('>');
+            }
+            return element;
+        }
+
+
+        private void writeLinkStart(String url) {
+            closeStartTag();
+            out.append("<a href=\"");
+            appendEscaped(url, true);
+            out.append("\" target=\"_blank\">");
+        }
+
+
+        private void writeLinkEnd() {
+            out.append("</a>");
+        }
+
+
+        private void writeEvent(XMLStreamReader reader) {
+            switch (reader.getEventType()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    closeStartTag();
+                    appendEscaped(reader.getText(), false);
+                    break;
+                case XMLStreamConstants.CDATA:
+                    closeStartTag();
+                    out.append("<![CDATA[").append(reader.getText()).append("]]>");
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    closeStartTag();
+                    out.append("<!--").append(reader.getText()).append("-->");
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    closeStartTag();
+                    out.append("<?").append(reader.getPITarget());
+                    if (!StringUtilities.isEmpty(reader.getPIData())) {
+                        out.append(' ').append(reader.getPIData());
+                    }
+                    out.append("?>");
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    closeStartTag();
+                    out.append('&').append(reader.getLocalName()).append(';');
+                    break;
+                default:
+                    // start/end document and the DTD are not copied
+            }
+        }
+
+
+        /**
+         * Registers a <code>data-*</code> attribute to be added to (or replaced on) the
+         * start tag of the given element.  Splices are applied when the output is rendered.
+         */
+        private void spliceDataAttribute(SvgElement element, String dataAttr) {
+            String attr = " " + dataAttr + "=\"" + escape(element.dataValue, true) + "\"";
+
+            Splice splice = element.existingDataAttrStart >= 0
+                    ? new Splice(element.existingDataAttrStart, element.existingDataAttrEnd, attr)
+                    : new Splice(element.attributeInsertPos, element.attributeInsertPos, attr);
+
+            splices.add(splice);
+        }
+
+
+        @Override
+        public String toString() {
+            if (splices.isEmpty()) {
+                return out.toString();
+            }
+
+            splices.sort(Comparator.comparingInt(s -> s.start));
+
+            StringBuilder result = new StringBuilder(out.length() + splices.size() * 32);
+            int pos = 0;
+            for (Splice splice : splices) {
+                result.append(out, pos, splice.start).append(splice.text);
+                pos = splice.end;
+            }
+            result.append(out, pos, out.length());
+            return result.toString();
+        }
+
+
+        private void closeStartTag() {
+            if (startTagOpen) {
+                out.append('>');
+                startTagOpen = false;
+            }
+        }
+
+
+        private void appendEscaped(String str, boolean isAttribute) {
+            out.append(escape(str, isAttribute));
+        }
+    }
+
+
+    private static CharSequence escape(String str, boolean isAttribute) {
+        StringBuilder sb = null;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            String replacement = escapeChar(c, isAttribute);
+            if (replacement != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(str.length() + 16).append(str, 0, i);
+                }
+                sb.append(replacement);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null
+                ? str
+                : sb;
+    }
+
+
+    private static String escapeChar(char c, boolean isAttribute) {
+        switch (c) {
+            case '&': return "&amp;";
+            case '<': return "&lt;";
+            case '>': return "&gt;";
+            case '"': return isAttribute ? "&quot;" : null;
+            case '\n': return isAttribute ? "&#10;" : null;
+            case '\r': return "&#13;";
+            case '\t': return isAttribute ? "&#9;" : null;
+            default: return null;
+        }
     }
 
 }
@@ -0,0 +1,334 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static java.util.Collections.singletonList;
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * A bounded, in-process queue which hands records to a writer in batches
+ * on a dedicated background thread.  Intended for append-only records
+ * (e.g. audit and access logs) where the caller does not need to wait for
+ * the record to be persisted.
+ *
+ * Until the queue is started, and after it has been closed, records are
+ * written by the calling thread.  If the queue is full the configured
+ * {@link OverflowPolicy} decides whether the record is dropped, the caller
+ * waits for space or the caller writes the record itself.
+ *
+ * The writer may be called concurrently (e.g. by the background thread and a
+ * caller flushing the queue) so must be thread safe.  If the writer fails on
+ * a batch each record in it is retried on its own, so one bad record does not
+ * lose the rest of the batch.  Records which still fail are logged, counted
+ * and discarded.
+ *
+ * @param <T> record type
+ */
+public class WriteBehindQueue<T> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 200;
+
+    public enum OverflowPolicy {
+        /** discard the new record */
+        DROP,
+        /** wait for the background thread to make space */
+        BLOCK,
+        /** write the record on the calling thread */
+        CALLER_WRITES
+    }
+
+    private final String name;
+    private final int maxBatchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Consumer<List<T>> writer;
+    private final BlockingQueue<T> queue;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+
+    private volatile Thread worker;
+    private volatile boolean running = false;
+
+
+    public WriteBehindQueue(String name,
+                            int capacity,
+                            int maxBatchSize,
+                            OverflowPolicy overflowPolicy,
+                            Consumer<List<T>> writer) {
+        checkNotEmpty(name, "name cannot be empty");
+        checkTrue(capacity > 0, "capacity must be positive");
+        checkTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+        checkNotNull(overflowPolicy, "overflowPolicy cannot be null");
+        checkNotNull(writer, "writer cannot be null");
+
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+
+    /**
+     * Starts the background writer thread, calling this more than once has no effect.
+     */
+    public synchronized WriteBehindQueue<T> start() {
+        if (worker == null) {
+            running = true;
+            worker = new Thread(this::run, "write-behind-" + name);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        return this;
+    }
+
+
+    /**
+     * Adds a record to the queue.
+     *
+     * @return false if the record was dropped because the queue was full
+     */
+    public boolean offer(T record) {
+        checkNotNull(record, "record cannot be null");
+
+        if (!running) {
+            writeBatch(singletonList(record));
+            return true;
+        }
+
+        if (queue.offer(record)) {
+            enqueuedCount.incrementAndGet();
+            if (!running) {
+                // closed concurrently, make sure the record is not left behind
+                flush();
+            }
+            return true;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(record);
+                    enqueuedCount.incrementAndGet();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCount.incrementAndGet();
+                    return false;
+                }
+            case CALLER_WRITES:
+                writeBatch(singletonList(record));
+                return true;
+            default:
+                long dropped = droppedCount.incrementAndGet();
+                if (dropped == 1 || dropped % 1000 == 0) {
+                    LOG.warn("Write behind queue: {} is full, {} records dropped so far", name, dropped);
+                }
+                return false;
+        }
+    }
+
+
+    /**
+     * Writes all currently queued records on the calling thread.
+     *
+     * @return the number of records taken from the queue
+     */
+    public int flush() {
+        int total = 0;
+        List<T> batch = new ArrayList<>(maxBatchSize);
+        while (queue.drainTo(batch, maxBatchSize) > 0) {
+            total += batch.size();
+            writeBatch(batch);
+            batch = new ArrayList<>(maxBatchSize);
+        }
+        return total;
+    }
+
+
+    /**
+     * Stops the background thread and writes any remaining records.  Records
+     * offered after closing are written by the calling thread.
+     */
+    @Override
+    public void close() {
+        Thread w;
+        synchronized (this) {
+            running = false;
+            w = worker;
+            worker = null;
+        }
+
+        if (w != null) {
+            try {
+                w.join(POLL_INTERVAL_MILLIS * 5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int remaining = flush();
+        if (remaining > 0) {
+            LOG.info("Wrote {} remaining records whilst closing write behind queue: {}", remaining, name);
+        }
+    }
+
+
+    private void run() {
+        List<T> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                T first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                writeBatch(batch);
+                batch = new ArrayList<>(maxBatchSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+
+    private void writeBatch(List<T> batch) {
+        Exception failure = tryWrite(batch);
+        if (failure == null) {
+            return;
+        }
+
+        if (batch.size() == 1) {
+            failedCount.incrementAndGet();
+            LOG.error("Write behind queue: {} failed to write record", name, failure);
+        } else {
+            LOG.warn("Write behind queue: {} failed to write batch of {} records, retrying individually", name, batch.size(), failure);
+            batch.forEach(record -> writeBatch(singletonList(record)));
+        }
+    }
+
+
+    /**
+     * @return the exception thrown by the writer, or null if the batch was written
+     */
+    private Exception tryWrite(List<T> batch) {
+        long start = System.nanoTime();
+        try {
+            writer.accept(batch);
+            writtenCount.addAndGet(batch.size());
+            return null;
+        } catch (Exception e) {
+            return e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            batchCount.incrementAndGet();
+            totalFlushNanos.addAndGet(elapsed);
+            lastFlushNanos.set(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+
+    public boolean isRunning() {
+        return running;
+    }
+
+
+    public int getDepth() {
+        return queue.size();
+    }
+
+
+    public int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.get();
+    }
+
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+
+    public double getMeanFlushMillis() {
+        long batches = batchCount.get();
+        return batches == 0
+                ? 0
+                : totalFlushNanos.get() / (batches * 1_000_000d);
+    }
+
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1_000_000d;
+    }
+
+
+    public double getLastFlushMillis() {
+        return lastFlushNanos.get() / 1_000_000d;
+    }
+
+}
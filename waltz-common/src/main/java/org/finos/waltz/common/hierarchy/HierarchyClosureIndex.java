@@ -0,0 +1,218 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common.hierarchy;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * An immutable, compact index over a forest of long ids which can answer
+ * descendant and ancestor queries without walking object graphs.
+ *
+ * Nodes are numbered in pre-order, therefore the descendants of any node
+ * occupy the contiguous range <code>[enter, exit)</code> of the pre-order
+ * array.  Ancestors are found by following the parent array.
+ *
+ * Nodes whose parent is unknown are treated as roots.  Nodes which can only
+ * be reached via a cycle are excluded from the index.
+ */
+public class HierarchyClosureIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final long[] ids;        // sorted, position is the node index
+    private final int[] parents;     // node index -> parent node index (or -1)
+    private final int[] enter;       // node index -> pre-order position (or -1 if unreachable)
+    private final int[] exit;        // node index -> pre-order position after the last descendant
+    private final long[] preOrderIds;
+
+
+    private HierarchyClosureIndex(long[] ids, int[] parents, int[] enter, int[] exit, long[] preOrderIds) {
+        this.ids = ids;
+        this.parents = parents;
+        this.enter = enter;
+        this.exit = exit;
+        this.preOrderIds = preOrderIds;
+    }
+
+
+    /**
+     * @param nodes  flat nodes, only the id and the (optional) parent id are used
+     * @return an index over the given nodes
+     */
+    public static <T> HierarchyClosureIndex build(Collection<FlatNode<T, Long>> nodes) {
+        checkNotNull(nodes, "nodes cannot be null");
+
+        long[] ids = nodes
+                .stream()
+                .mapToLong(FlatNode::getId)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        int size = ids.length;
+        int[] parents = new int[size];
+        Arrays.fill(parents, -1);
+
+        nodes.forEach(n -> {
+            int idx = Arrays.binarySearch(ids, n.getId());
+            parents[idx] = n.getParentId()
+                    .map(pId -> Arrays.binarySearch(ids, pId))
+                    .filter(pIdx -> pIdx >= 0 && pIdx != idx)
+                    .orElse(-1);
+        });
+
+        // children in compressed (CSR) form: children of node i are childIdxs[childStart[i] .. childStart[i + 1])
+        int[] childStart = new int[size + 1];
+        for (int parent : parents) {
+            if (parent >= 0) {
+                childStart[parent + 1]++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            childStart[i + 1] += childStart[i];
+        }
+        int[] childIdxs = new int[childStart[size]];
+        int[] fill = Arrays.copyOf(childStart, size);
+        for (int i = 0; i < size; i++) {
+            if (parents[i] >= 0) {
+                childIdxs[fill[parents[i]]++] = i;
+            }
+        }
+
+        int[] enter = new int[size];
+        int[] exit = new int[size];
+        Arrays.fill(enter, -1);
+        long[] preOrderIds = new long[size];
+
+        // iterative depth first walk from each root, the stack holds node index and next child offset
+        int[] stackNodes = new int[size];
+        int[] stackNextChild = new int[size];
+        int position = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (parents[root] != -1) {
+                continue;
+            }
+
+            int depth = 0;
+            stackNodes[0] = root;
+            stackNextChild[0] = childStart[root];
+            enter[root] = position;
+            preOrderIds[position++] = ids[root];
+
+            while (depth >= 0) {
+                int current = stackNodes[depth];
+                if (stackNextChild[depth] < childStart[current + 1]) {
+                    int child = childIdxs[stackNextChild[depth]++];
+                    enter[child] = position;
+                    preOrderIds[position++] = ids[child];
+                    depth++;
+                    stackNodes[depth] = child;
+                    stackNextChild[depth] = childStart[child];
+                } else {
+                    exit[current] = position;
+                    depth--;
+                }
+            }
+        }
+
+        // nodes only reachable via a cycle are never entered, detach them
+        for (int i = 0; i < size; i++) {
+            if (enter[i] == -1) {
+                parents[i] = -1;
+            }
+        }
+
+        return new HierarchyClosureIndex(
+                ids,
+                parents,
+                enter,
+                exit,
+                Arrays.copyOf(preOrderIds, position));
+    }
+
+
+    public boolean contains(long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        return idx >= 0 && enter[idx] >= 0;
+    }
+
+
+    /**
+     * @return number of (reachable) nodes in the index
+     */
+    public int size() {
+        return preOrderIds.length;
+    }
+
+
+    /**
+     * @param id  node to find descendants of
+     * @return the id of the node and all of its descendants, empty if the node is not in the index
+     */
+    public long[] findDescendantIds(long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        if (idx < 0 || enter[idx] < 0) {
+            return NO_IDS;
+        }
+        return Arrays.copyOfRange(preOrderIds, enter[idx], exit[idx]);
+    }
+
+
+    /**
+     * @param id  node to find the ancestors of
+     * @return the id of the node and all of its ancestors (nearest first), empty if the node is not in the index
+     */
+    public long[] findAncestorIds(long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        if (idx < 0 || enter[idx] < 0) {
+            return NO_IDS;
+        }
+
+        int count = 0;
+        for (int i = idx; i >= 0; i = parents[i]) {
+            count++;
+        }
+
+        long[] result = new long[count];
+        int pos = 0;
+        for (int i = idx; i >= 0; i = parents[i]) {
+            result[pos++] = ids[i];
+        }
+        return result;
+    }
+
+
+    /**
+     * @return true if <code>ancestorId</code> is the given node or one of its ancestors
+     */
+    public boolean isAncestorOrSelf(long ancestorId, long id) {
+        int ancestorIdx = Arrays.binarySearch(ids, ancestorId);
+        int idx = Arrays.binarySearch(ids, id);
+        if (ancestorIdx < 0 || idx < 0 || enter[ancestorIdx] < 0 || enter[idx] < 0) {
+            return false;
+        }
+        return enter[ancestorIdx] <= enter[idx] && enter[idx] < exit[ancestorIdx];
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCache_getTest {
+
+    @Test
+    public void loaderIsOnlyCalledOnMiss() {
+        AtomicInteger loadCount = new AtomicInteger();
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        assertEquals(1, cache.get("a", k -> loadCount.incrementAndGet()));
+        assertEquals(1, cache.get("a", k -> loadCount.incrementAndGet()));
+
+        assertEquals(1, loadCount.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+
+    @Test
+    public void expiredEntriesAreReloaded() {
+        AtomicLong clock = new AtomicLong();
+        AtomicInteger loadCount = new AtomicInteger();
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofSeconds(10), clock::get);
+
+        cache.get("a", k -> loadCount.incrementAndGet());
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertEquals(1, cache.get("a", k -> loadCount.incrementAndGet()));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(2, cache.get("a", k -> loadCount.incrementAndGet()));
+        assertEquals(1, cache.evictionCount());
+    }
+
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a", k -> "unused");
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.getIfPresent("a").isPresent());
+        assertFalse(cache.getIfPresent("b").isPresent());
+        assertTrue(cache.getIfPresent("c").isPresent());
+    }
+
+
+    @Test
+    public void nullValuesAreNotCached() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+
+        assertNull(cache.get("a", k -> null));
+        assertEquals(0, cache.size());
+    }
+
+
+    @Test
+    public void valuesLoadedDuringAnInvalidationAreNotStored() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+
+        String value = cache.get("a", k -> {
+            cache.invalidateAll();
+            return "A";
+        });
+
+        assertEquals("A", value);
+        assertFalse(cache.getIfPresent("a").isPresent());
+    }
+
+
+    @Test
+    public void valuesLoadedDuringAnUnrelatedInvalidationAreStored() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("b", "B");
+
+        String value = cache.get("a", k -> {
+            cache.invalidateIf((key, v) -> v.equals("B"));
+            cache.invalidate("c");
+            return "A";
+        });
+
+        assertEquals("A", value);
+        assertEquals("A", cache.getIfPresent("a").orElse(null));
+        assertFalse(cache.getIfPresent("b").isPresent());
+    }
+
+
+    @Test
+    public void valuesLoadedDuringAMatchingInvalidationAreNotStored() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        cache.get("a", k -> {
+            cache.invalidateIf((key, v) -> v.equals("A"));
+            return "A";
+        });
+        cache.get("b", k -> {
+            cache.invalidate("b");
+            return "B";
+        });
+
+        assertFalse(cache.getIfPresent("a").isPresent());
+        assertFalse(cache.getIfPresent("b").isPresent());
+    }
+
+
+    @Test
+    public void invalidationsBeforeALoadStartsDoNotAffectIt() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        cache.get("a", k -> {
+            cache.invalidate("b");
+            cache.get("b", k2 -> "B");
+            return "A";
+        });
+
+        assertTrue(cache.getIfPresent("a").isPresent());
+        assertTrue(cache.getIfPresent("b").isPresent(), "b was loaded after its invalidation so should be stored");
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCache_invalidateTest {
+
+    @Test
+    public void canInvalidateSingleKey() {
+        ExpiringCache<String, String> cache = mkCache();
+
+        cache.invalidate("a");
+
+        assertFalse(cache.getIfPresent("a").isPresent());
+        assertTrue(cache.getIfPresent("b").isPresent());
+    }
+
+
+    @Test
+    public void canInvalidateByPredicate() {
+        ExpiringCache<String, String> cache = mkCache();
+
+        int removed = cache.invalidateIf((k, v) -> v.equals("B") || v.equals("C"));
+
+        assertEquals(2, removed);
+        assertEquals(1, cache.size());
+        assertTrue(cache.getIfPresent("a").isPresent());
+    }
+
+
+    @Test
+    public void canInvalidateAll() {
+        ExpiringCache<String, String> cache = mkCache();
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+    }
+
+
+    private ExpiringCache<String, String> mkCache() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        return cache;
+    }
+
+}
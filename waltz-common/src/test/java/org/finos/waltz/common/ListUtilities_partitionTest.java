@@ -0,0 +1,57 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ListUtilities_partitionTest {
+
+    @Test
+    public void partitionsUnevenElements(){
+        List<String> elements = ListUtilities.newArrayList("a","b","c","d","e");
+        List<List<String>> result = ListUtilities.partition(elements, 2);
+        assertEquals(3, result.size());
+        assertEquals(ListUtilities.asList("a","b"), result.get(0));
+        assertEquals(ListUtilities.asList("c","d"), result.get(1));
+        assertEquals(ListUtilities.asList("e"), result.get(2));
+    }
+
+    @Test
+    public void partitionsEvenElements(){
+        List<String> elements = ListUtilities.newArrayList("a","b","c","d");
+        List<List<String>> result = ListUtilities.partition(elements, 2);
+        assertEquals(2, result.size());
+        assertEquals(ListUtilities.asList("c","d"), result.get(1));
+    }
+
+    @Test
+    public void largeSizeGivesSinglePartition(){
+        List<String> elements = ListUtilities.newArrayList("a","b","c");
+        List<List<String>> result = ListUtilities.partition(elements, 100);
+        assertEquals(1, result.size());
+        assertEquals(elements, result.get(0));
+    }
+
+    @Test
+    public void emptyCollectionGivesNoPartitions(){
+        List<List<String>> result = ListUtilities.partition(Collections.emptyList(), 2);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void sizeMustBePositive(){
+        assertThrows(IllegalArgumentException.class,
+                () -> ListUtilities.partition(ListUtilities.asList("a"), 0));
+    }
+
+    @Test
+    public void nullCollectionThrows(){
+        assertThrows(IllegalArgumentException.class,
+                () -> ListUtilities.partition(null, 2));
+    }
+}
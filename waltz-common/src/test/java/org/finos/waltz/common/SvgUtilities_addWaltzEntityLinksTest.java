@@ -0,0 +1,78 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SvgUtilities_addWaltzEntityLinksTest {
+
+    private static final Function<String, Optional<String>> KEY_TO_URL = key -> key.startsWith("APP")
+            ? Optional.of("http://waltz/app?extId=" + key + "&view=1")
+            : Optional.empty();
+
+
+    @Test
+    public void shapesWithUrlsAreWrappedInLinks() throws XMLStreamException {
+        String svg = "<svg><g data-appId=\"APP-1\"><rect/></g><g data-appId=\"OTHER\"/></svg>";
+
+        String result = SvgUtilities.addWaltzEntityLinks(svg, "appId", KEY_TO_URL);
+
+        assertTrue(
+                result.contains("<a href=\"http://waltz/app?extId=APP-1&amp;view=1\" target=\"_blank\"><g data-appId=\"APP-1\"><rect/></g></a>"),
+                result);
+        assertTrue(
+                result.contains("</a><g data-appId=\"OTHER\"/></svg>"),
+                "shapes without a url should not be linked and sibling order is preserved");
+    }
+
+
+    @Test
+    public void rootElementIsNeverLinked() throws XMLStreamException {
+        String svg = "<svg data-appId=\"APP-1\"><g/></svg>";
+
+        String result = SvgUtilities.addWaltzEntityLinks(svg, "appId", KEY_TO_URL);
+
+        assertFalse(result.contains("<a "), result);
+    }
+
+
+    @Test
+    public void nestedShapesAreLinkedIndividually() throws XMLStreamException {
+        String svg = "<svg><g data-appId=\"APP-1\"><g data-appId=\"APP-2\"/></g></svg>";
+
+        String result = SvgUtilities.addWaltzEntityLinks(svg, "appId", KEY_TO_URL);
+
+        assertEquals(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?><svg>" +
+                        "<a href=\"http://waltz/app?extId=APP-1&amp;view=1\" target=\"_blank\"><g data-appId=\"APP-1\">" +
+                        "<a href=\"http://waltz/app?extId=APP-2&amp;view=1\" target=\"_blank\"><g data-appId=\"APP-2\"/></a>" +
+                        "</g></a>" +
+                        "</svg>",
+                result);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SvgUtilities_convertVisioSvgTest {
+
+    private static final String SVG_START = "<svg xmlns=\"http://www.w3.org/2000/svg\" " +
+            "xmlns:v=\"http://schemas.microsoft.com/visio/2003/SVGExtensions/\">";
+
+
+    @Test
+    public void keyPropertyIsCopiedOntoOwningShape() throws XMLStreamException {
+        String svg = SVG_START +
+                "<g id=\"s1\"><title>Shape</title>" +
+                "<v:custProps><v:cp v:lbl=\"appId\" v:val=\"VT4(APP-1)\"/></v:custProps>" +
+                "<rect x=\"1\"/></g>" +
+                "</svg>";
+
+        String result = SvgUtilities.convertVisioSvg("appId", svg);
+
+        assertTrue(result.contains("<g id=\"s1\" data-appId=\"APP-1\">"), result);
+        assertTrue(result.contains("<rect x=\"1\"/>"), "other content should be copied unchanged");
+    }
+
+
+    @Test
+    public void otherPropertiesAreIgnored() throws XMLStreamException {
+        String svg = SVG_START +
+                "<g id=\"s1\"><v:custProps><v:cp v:lbl=\"owner\" v:val=\"VT4(bob)\"/></v:custProps></g>" +
+                "</svg>";
+
+        String result = SvgUtilities.convertVisioSvg("appId", svg);
+
+        assertFalse(result.contains("data-"), result);
+    }
+
+
+    @Test
+    public void nestedShapesAreGivenTheirOwnValues() throws XMLStreamException {
+        String svg = SVG_START +
+                "<g id=\"outer\">" +
+                "<v:custProps><v:cp v:lbl=\"appId\" v:val=\"VT4(OUTER)\"/></v:custProps>" +
+                "<g id=\"inner\"><v:custProps><v:cp v:lbl=\"appId\" v:val=\"VT4(INNER)\"/></v:custProps></g>" +
+                "</g>" +
+                "</svg>";
+
+        String result = SvgUtilities.convertVisioSvg("appId", svg);
+
+        assertTrue(result.contains("<g id=\"outer\" data-appId=\"OUTER\">"), result);
+        assertTrue(result.contains("<g id=\"inner\" data-appId=\"INNER\">"), result);
+    }
+
+
+    @Test
+    public void existingDataAttributeIsReplaced() throws XMLStreamException {
+        String svg = SVG_START +
+                "<g data-appId=\"OLD\" id=\"s1\"><v:custProps><v:cp v:lbl=\"appId\" v:val=\"VT4(NEW)\"/></v:custProps></g>" +
+                "</svg>";
+
+        String result = SvgUtilities.convertVisioSvg("appId", svg);
+
+        assertTrue(result.contains("<g data-appId=\"NEW\" id=\"s1\">"), result);
+    }
+
+
+    @Test
+    public void valuesAreEscaped() throws XMLStreamException {
+        String svg = SVG_START +
+                "<g><v:custProps><v:cp v:lbl=\"appId\" v:val=\"VT4(A &amp; &quot;B&quot;)\"/></v:custProps>" +
+                "<text>1 &lt; 2</text></g>" +
+                "</svg>";
+
+        String result = SvgUtilities.convertVisioSvg("appId", svg);
+
+        assertTrue(result.contains("data-appId=\"A &amp; &quot;B&quot;\""), result);
+        assertTrue(result.contains("<text>1 &lt; 2</text>"), result);
+    }
+
+
+    @Test
+    public void doctypeIsDroppedAndCdataIsKept() throws XMLStreamException {
+        String svg = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" +
+                "<!DOCTYPE svg PUBLIC \"-//W3C//DTD SVG 1.1//EN\" \"http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd\">" +
+                SVG_START +
+                "<style type=\"text/css\"><![CDATA[ .a > .b { fill: red } ]]></style>" +
+                "</svg>";
+
+        String result = SvgUtilities.convertVisioSvg("appId", svg);
+
+        assertFalse(result.contains("DOCTYPE"), result);
+        assertTrue(result.contains("<![CDATA[ .a > .b { fill: red } ]]>"), result);
+    }
+
+
+    @Test
+    public void outputIsAStandaloneDocument() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("appId", "<svg/>");
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?><svg/>", result);
+    }
+
+
+    @Test
+    public void malformedSvgIsRejected() {
+        assertThrows(
+                XMLStreamException.class,
+                () -> SvgUtilities.convertVisioSvg("appId", "<svg><g></svg>"));
+    }
+
+}
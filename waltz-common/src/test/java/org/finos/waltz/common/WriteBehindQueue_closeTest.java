@@ -0,0 +1,49 @@
+package org.finos.waltz.common;
+
+import org.finos.waltz.common.WriteBehindQueue.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindQueue_closeTest {
+
+    @Test
+    public void closingWritesAllQueuedRecords() {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 1000, 7, OverflowPolicy.BLOCK, batch -> {
+            batchSizes.add(batch.size());
+            written.addAll(batch);
+        });
+
+        queue.start();
+        for (int i = 0; i < 500; i++) {
+            queue.offer(i);
+        }
+        queue.close();
+
+        assertEquals(500, written.size());
+        assertEquals(500, queue.getWrittenCount());
+        assertEquals(0, queue.getDepth());
+        assertFalse(queue.isRunning());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 7), "batches should not exceed the max batch size");
+    }
+
+
+    @Test
+    public void recordsOfferedAfterCloseAreWrittenByCaller() {
+        List<Integer> written = new ArrayList<>();
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 10, 5, OverflowPolicy.DROP, written::addAll);
+
+        queue.start();
+        queue.close();
+        queue.offer(1);
+
+        assertEquals(ListUtilities.newArrayList(1), written);
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.finos.waltz.common;
+
+import org.finos.waltz.common.WriteBehindQueue.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindQueue_offerTest {
+
+    @Test
+    public void recordsAreWrittenByCallerIfNotStarted() {
+        List<List<String>> batches = new ArrayList<>();
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test", 10, 5, OverflowPolicy.DROP, batches::add);
+
+        assertTrue(queue.offer("a"));
+
+        assertEquals(1, batches.size());
+        assertEquals(1, queue.getWrittenCount());
+        assertEquals(0, queue.getDepth());
+    }
+
+
+    @Test
+    public void recordsAreWrittenInTheBackground() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(3);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test", 10, 5, OverflowPolicy.DROP, batch -> {
+            written.addAll(batch);
+            batch.forEach(r -> latch.countDown());
+        });
+
+        try {
+            queue.start();
+            queue.offer("a");
+            queue.offer("b");
+            queue.offer("c");
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(ListUtilities.newArrayList("a", "b", "c"), written);
+            assertEquals(3, queue.getEnqueuedCount());
+        } finally {
+            queue.close();
+        }
+    }
+
+
+    @Test
+    public void fullQueueDropsRecordsWithDropPolicy() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<String> queue = mkStalledQueue(OverflowPolicy.DROP, new ArrayList<>(), release);
+
+        try {
+            assertTrue(queue.offer("a"));
+            assertTrue(queue.offer("b"));
+            assertFalse(queue.offer("c"));
+            assertEquals(1, queue.getDroppedCount());
+            assertEquals(2, queue.getDepth());
+        } finally {
+            release.countDown();
+            queue.close();
+        }
+    }
+
+
+    @Test
+    public void fullQueueIsWrittenByCallerWithCallerWritesPolicy() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<String> queue = mkStalledQueue(OverflowPolicy.CALLER_WRITES, written, release);
+
+        try {
+            queue.offer("a");
+            queue.offer("b");
+            assertTrue(queue.offer("c"));
+            assertEquals(0, queue.getDroppedCount());
+            assertEquals(ListUtilities.newArrayList("c"), written);
+        } finally {
+            release.countDown();
+            queue.close();
+        }
+    }
+
+
+    @Test
+    public void writerFailuresAreCounted() {
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test", 10, 5, OverflowPolicy.DROP, batch -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertTrue(queue.offer("a"));
+        assertEquals(1, queue.getFailedCount());
+        assertEquals(0, queue.getWrittenCount());
+    }
+
+
+    @Test
+    public void failedBatchesAreRetriedOneRecordAtATime() {
+        List<String> written = new ArrayList<>();
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test", 10, 5, OverflowPolicy.DROP, batch -> {
+            if (batch.contains("bad")) {
+                throw new IllegalStateException("boom");
+            }
+            written.addAll(batch);
+        });
+
+        queue.start();
+        queue.offer("a");
+        queue.offer("bad");
+        queue.offer("b");
+        queue.close();
+
+        assertEquals(ListUtilities.newArrayList("a", "b"), written);
+        assertEquals(2, queue.getWrittenCount());
+        assertEquals(1, queue.getFailedCount());
+    }
+
+
+    /**
+     * A started queue, with a capacity of 2, whose background thread is stuck
+     * writing a record until the latch is released.
+     */
+    private static WriteBehindQueue<String> mkStalledQueue(OverflowPolicy policy,
+                                                           List<String> written,
+                                                           CountDownLatch release) throws InterruptedException {
+        CountDownLatch stalled = new CountDownLatch(1);
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test", 2, 5, policy, batch -> {
+            if (batch.contains("stall")) {
+                stalled.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                written.addAll(batch);
+            }
+        });
+
+        queue.start();
+        queue.offer("stall");
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+        return queue;
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.finos.waltz.common.hierarchy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchyClosureIndex_findAncestorIdsTest {
+
+    private static final List<FlatNode<Void, Long>> TREE = newArrayList(
+            new FlatNode<>(1L, empty(), null),
+            new FlatNode<>(2L, of(1L), null),
+            new FlatNode<>(3L, of(2L), null),
+            new FlatNode<>(4L, of(1L), null));
+
+
+    @Test
+    public void ancestorsAreReturnedNearestFirst() {
+        HierarchyClosureIndex index = HierarchyClosureIndex.build(TREE);
+
+        assertArrayEquals(new long[]{3, 2, 1}, index.findAncestorIds(3L));
+        assertArrayEquals(new long[]{1}, index.findAncestorIds(1L));
+        assertEquals(0, index.findAncestorIds(99L).length);
+    }
+
+
+    @Test
+    public void isAncestorOrSelf() {
+        HierarchyClosureIndex index = HierarchyClosureIndex.build(TREE);
+
+        assertTrue(index.isAncestorOrSelf(1L, 3L));
+        assertTrue(index.isAncestorOrSelf(3L, 3L));
+        assertFalse(index.isAncestorOrSelf(3L, 1L));
+        assertFalse(index.isAncestorOrSelf(4L, 3L));
+        assertFalse(index.isAncestorOrSelf(99L, 3L));
+    }
+
+}
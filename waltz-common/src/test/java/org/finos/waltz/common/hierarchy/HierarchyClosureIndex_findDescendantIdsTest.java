@@ -0,0 +1,87 @@
+package org.finos.waltz.common.hierarchy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchyClosureIndex_findDescendantIdsTest {
+
+    private static final List<FlatNode<Void, Long>> TWO_TREES = newArrayList(
+            new FlatNode<>(1L, empty(), null),
+            new FlatNode<>(2L, of(1L), null),
+            new FlatNode<>(3L, of(2L), null),
+            new FlatNode<>(4L, of(2L), null),
+            new FlatNode<>(5L, of(1L), null),
+            new FlatNode<>(6L, empty(), null),
+            new FlatNode<>(7L, of(6L), null));
+
+
+    @Test
+    public void descendantsIncludeSelf() {
+        HierarchyClosureIndex index = HierarchyClosureIndex.build(TWO_TREES);
+
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5}, sorted(index.findDescendantIds(1L)));
+        assertArrayEquals(new long[]{2, 3, 4}, sorted(index.findDescendantIds(2L)));
+        assertArrayEquals(new long[]{3}, index.findDescendantIds(3L));
+        assertArrayEquals(new long[]{6, 7}, sorted(index.findDescendantIds(6L)));
+        assertEquals(7, index.size());
+    }
+
+
+    @Test
+    public void unknownIdsHaveNoDescendants() {
+        HierarchyClosureIndex index = HierarchyClosureIndex.build(TWO_TREES);
+
+        assertEquals(0, index.findDescendantIds(99L).length);
+        assertFalse(index.contains(99L));
+    }
+
+
+    @Test
+    public void nodesWithUnknownParentsAreTreatedAsRoots() {
+        HierarchyClosureIndex index = HierarchyClosureIndex.build(newArrayList(
+                new FlatNode<Void, Long>(1L, of(99L), null),
+                new FlatNode<Void, Long>(2L, of(1L), null)));
+
+        assertArrayEquals(new long[]{1, 2}, sorted(index.findDescendantIds(1L)));
+        assertArrayEquals(new long[]{1}, index.findAncestorIds(1L));
+    }
+
+
+    @Test
+    public void cyclesAreExcluded() {
+        HierarchyClosureIndex index = HierarchyClosureIndex.build(newArrayList(
+                new FlatNode<Void, Long>(1L, of(3L), null),
+                new FlatNode<Void, Long>(2L, of(1L), null),
+                new FlatNode<Void, Long>(3L, of(1L), null),
+                new FlatNode<Void, Long>(4L, empty(), null)));
+
+        assertEquals(1, index.size());
+        assertFalse(index.contains(1L));
+        assertEquals(0, index.findDescendantIds(2L).length);
+        assertArrayEquals(new long[]{4}, index.findDescendantIds(4L));
+    }
+
+
+    @Test
+    public void emptyIndexHasNoEntries() {
+        HierarchyClosureIndex index = HierarchyClosureIndex.build(newArrayList());
+
+        assertEquals(0, index.size());
+        assertEquals(0, index.findDescendantIds(1L).length);
+    }
+
+
+    private static long[] sorted(long[] ids) {
+        long[] copy = Arrays.copyOf(ids, ids.length);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+}
@@ -23,6 +23,7 @@ import org.finos.waltz.data.attestation.AttestationIdSelectorFactory;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeIdSelectorFactory;
 import org.finos.waltz.data.change_unit.ChangeUnitIdSelectorFactory;
 import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.flow_diagram.FlowDiagramIdSelectorFactory;
 import org.finos.waltz.data.licence.LicenceIdSelectorFactory;
 import org.finos.waltz.data.logical_flow.LogicalFlowIdSelectorFactory;
@@ -40,19 +41,40 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 
 public class GenericSelectorFactory {
 
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
-    private final ChangeInitiativeIdSelectorFactory changeInitiativeIdSelectorFactory = new ChangeInitiativeIdSelectorFactory();
+    private final ApplicationIdSelectorFactory applicationIdSelectorFactory;
+    private final ChangeInitiativeIdSelectorFactory changeInitiativeIdSelectorFactory;
     private final ChangeUnitIdSelectorFactory changeUnitIdSelectorFactory = new ChangeUnitIdSelectorFactory();
-    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory;
     private final FlowDiagramIdSelectorFactory flowDiagramIdSelectorFactory = new FlowDiagramIdSelectorFactory();
     private final LicenceIdSelectorFactory licenceIdSelectorFactory = new LicenceIdSelectorFactory();
     private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
-    private final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
-    private final OrganisationalUnitIdSelectorFactory organisationalUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+    private final MeasurableIdSelectorFactory measurableIdSelectorFactory;
+    private final OrganisationalUnitIdSelectorFactory organisationalUnitIdSelectorFactory;
     private final AttestationIdSelectorFactory attestationIdSelectorFactory = new AttestationIdSelectorFactory();
     private final PhysicalSpecificationIdSelectorFactory specificationIdSelectorFactory = new PhysicalSpecificationIdSelectorFactory();
 
 
+    /**
+     * Creates a factory which always expands hierarchies via the <code>entity_hierarchy</code> table.
+     */
+    public GenericSelectorFactory() {
+        this(new EntityHierarchyIndexes());
+    }
+
+
+    /**
+     * Creates a factory which expands hierarchies via the given indexes where possible.
+     */
+    public GenericSelectorFactory(EntityHierarchyIndexes hierarchyIndexes) {
+        checkNotNull(hierarchyIndexes, "hierarchyIndexes cannot be null");
+        this.applicationIdSelectorFactory = new ApplicationIdSelectorFactory(hierarchyIndexes);
+        this.changeInitiativeIdSelectorFactory = new ChangeInitiativeIdSelectorFactory(hierarchyIndexes);
+        this.dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory(hierarchyIndexes);
+        this.measurableIdSelectorFactory = new MeasurableIdSelectorFactory(hierarchyIndexes);
+        this.organisationalUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory(hierarchyIndexes);
+    }
+
+
     public GenericSelector apply(IdSelectionOptions selectionOptions) {
         EntityKind kind = selectionOptions.entityReference().kind();
 
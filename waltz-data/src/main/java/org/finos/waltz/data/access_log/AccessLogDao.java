@@ -33,9 +33,11 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.schema.tables.AccessLog.ACCESS_LOG;
 
 
@@ -64,6 +66,16 @@ public class AccessLogDao {
     };
 
 
+    private static AccessLogRecord toRecord(AccessLog logEntry) {
+        AccessLogRecord record = new AccessLogRecord();
+        record.setParams(logEntry.params());
+        record.setState(logEntry.state());
+        record.setUserId(logEntry.userId());
+        record.setCreatedAt(Timestamp.valueOf(logEntry.createdAt()));
+        return record;
+    }
+
+
     @Autowired
     public AccessLogDao(DSLContext dsl) {
         this.dsl = dsl;
@@ -80,6 +92,16 @@ public class AccessLogDao {
     }
 
 
+    public int[] write(Collection<AccessLog> logEntries) {
+        return dsl
+                .batchInsert(logEntries
+                        .stream()
+                        .map(AccessLogDao::toRecord)
+                        .collect(toList()))
+                .execute();
+    }
+
+
     public List<AccessLog> findForUserId(String userId,
                                          Optional<Integer> limit) {
         return dsl.select(ACCESS_LOG.fields())
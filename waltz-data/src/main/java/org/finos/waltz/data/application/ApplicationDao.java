@@ -19,6 +19,7 @@
 package org.finos.waltz.data.application;
 
 
+import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.JooqUtilities;
 import org.finos.waltz.model.Criticality;
 import org.finos.waltz.model.EntityKind;
@@ -30,6 +31,7 @@ import org.finos.waltz.model.tally.Tally;
 import org.finos.waltz.schema.tables.records.ApplicationRecord;
 import org.jooq.*;
 import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,11 +41,13 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.Optional.ofNullable;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.EnumUtilities.readEnum;
+import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.schema.Tables.EXTERNAL_IDENTIFIER;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 
@@ -245,6 +249,27 @@ public class ApplicationDao {
     }
 
 
+    /**
+     * Finds applications by their asset code, ignoring case.  Unlike
+     * {@link #findByAssetCode(ExternalIdValue)} external identifiers are not
+     * considered.
+     *
+     * @param assetCodes  asset codes to look up
+     * @return applications (including removed ones) whose asset code matches
+     */
+    public List<Application> findByAssetCodes(Collection<String> assetCodes) {
+        checkNotNull(assetCodes, "assetCodes cannot be null");
+
+        Set<String> lowerCaseCodes = map(assetCodes, StringUtilities::lower);
+
+        return dsl
+                .select(APPLICATION.fields())
+                .from(APPLICATION)
+                .where(DSL.lower(DSL.trim(APPLICATION.ASSET_CODE)).in(lowerCaseCodes))
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
     public List<Application> findByAssetCode(ExternalIdValue externalId) {
         checkNotNull(externalId, "externalId cannot be null");
 
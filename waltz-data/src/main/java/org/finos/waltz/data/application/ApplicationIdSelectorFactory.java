@@ -21,6 +21,7 @@ package org.finos.waltz.data.application;
 import org.finos.waltz.schema.tables.*;
 import org.finos.waltz.data.SelectorUtilities;
 import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.measurable.MeasurableIdSelectorFactory;
 import org.finos.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
@@ -46,7 +47,6 @@ import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static org.finos.waltz.schema.tables.MeasurableRating.MEASURABLE_RATING;
 import static org.finos.waltz.schema.tables.Person.PERSON;
-import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
@@ -57,17 +57,34 @@ public class ApplicationIdSelectorFactory implements Function<IdSelectionOptions
 
     private static final Logger LOG = LoggerFactory.getLogger(ApplicationIdSelectorFactory.class);
 
-    private static final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
-    private static final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
-    private static final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
-
     private static final FlowDiagramEntity flowDiagram = FLOW_DIAGRAM_ENTITY.as("fd");
     private static final Involvement involvement = INVOLVEMENT.as("inv");
     private static final LogicalFlow logicalFlow = LOGICAL_FLOW.as("lf");
     private static final MeasurableRating measurableRating = MEASURABLE_RATING.as("mr");
     private static final Person person = PERSON.as("p");
-    private static final Person reportee = PERSON.as("pr");
-    private static final PersonHierarchy personHierarchy = PERSON_HIERARCHY.as("ph");
+
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory;
+    private final MeasurableIdSelectorFactory measurableIdSelectorFactory;
+    private final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory;
+
+
+    /**
+     * Creates a factory which always expands hierarchies via the <code>entity_hierarchy</code> table.
+     */
+    public ApplicationIdSelectorFactory() {
+        this(new EntityHierarchyIndexes());
+    }
+
+
+    /**
+     * Creates a factory which expands hierarchies via the given indexes where possible.
+     */
+    public ApplicationIdSelectorFactory(EntityHierarchyIndexes hierarchyIndexes) {
+        checkNotNull(hierarchyIndexes, "hierarchyIndexes cannot be null");
+        this.dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory(hierarchyIndexes);
+        this.measurableIdSelectorFactory = new MeasurableIdSelectorFactory(hierarchyIndexes);
+        this.orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory(hierarchyIndexes);
+    }
 
 
     public Select<Record1<Long>> apply(IdSelectionOptions options) {
@@ -524,24 +541,16 @@ public class ApplicationIdSelectorFactory implements Function<IdSelectionOptions
                 .from(person)
                 .where(person.ID.eq(options.entityReference().id()));
 
-        SelectConditionStep<Record1<String>> reporteeIds = DSL
-                .selectDistinct(personHierarchy.EMPLOYEE_ID)
-                .from(personHierarchy)
-                .innerJoin(reportee).on(personHierarchy.EMPLOYEE_ID.eq(reportee.EMPLOYEE_ID))
-                .where(personHierarchy.MANAGER_ID.eq(emp)
-                        .and(reportee.IS_REMOVED.isFalse()));
-
+        // the closure already contains the person's own involvements as well as those of their reportees
         Condition applicationConditions = SelectorUtilities.mkApplicationConditions(options);
-        Condition condition = involvement.ENTITY_KIND.eq(EntityKind.APPLICATION.name())
-                .and(involvement.EMPLOYEE_ID.eq(emp)
-                        .or(involvement.EMPLOYEE_ID.in(reporteeIds)))
+        Condition condition = PERSON_APPLICATION_CLOSURE.EMPLOYEE_ID.eq(emp)
                 .and(applicationConditions);
 
         return DSL
-                .selectDistinct(involvement.ENTITY_ID)
-                .from(involvement)
+                .select(PERSON_APPLICATION_CLOSURE.APPLICATION_ID)
+                .from(PERSON_APPLICATION_CLOSURE)
                 .innerJoin(APPLICATION)
-                    .on(APPLICATION.ID.eq(involvement.ENTITY_ID))
+                    .on(APPLICATION.ID.eq(PERSON_APPLICATION_CLOSURE.APPLICATION_ID))
                 .where(condition);
     }
 
@@ -18,6 +18,7 @@
 
 package org.finos.waltz.data.attestation;
 
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.Criticality;
 import org.finos.waltz.model.EntityKind;
@@ -26,6 +27,7 @@ import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.application.ApplicationKind;
 import org.finos.waltz.model.application.LifecyclePhase;
 import org.finos.waltz.model.attestation.*;
+import org.finos.waltz.schema.tables.records.AttestationInstanceRecipientRecord;
 import org.finos.waltz.schema.tables.records.AttestationInstanceRecord;
 import org.jooq.*;
 import org.jooq.impl.DSL;
@@ -39,6 +41,7 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -121,6 +124,77 @@ public class AttestationInstanceDao {
     }
 
 
+    /**
+     * Creates instances, and their recipients, using batched inserts within a
+     * single transaction.  Instances which already exist (same run and parent
+     * entity) are skipped, along with their recipients, so an interrupted
+     * issuance can be resumed by passing the same instances again.
+     *
+     * @param recipientUserIdsByInstance  recipient user ids keyed by the instance to create
+     * @return the number of instances created
+     */
+    public int bulkCreate(Map<AttestationInstance, ? extends Collection<String>> recipientUserIdsByInstance) {
+        checkNotNull(recipientUserIdsByInstance, "recipientUserIdsByInstance cannot be null");
+
+        if (recipientUserIdsByInstance.isEmpty()) {
+            return 0;
+        }
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = DSL.using(ctx);
+
+            Set<AttestationInstance> instances = recipientUserIdsByInstance.keySet();
+            Set<Tuple2<Long, EntityReference>> existingKeys = fetchInstanceIdsByRunAndParent(tx, instances).keySet();
+
+            Map<AttestationInstance, ? extends Collection<String>> toCreate = recipientUserIdsByInstance
+                    .entrySet()
+                    .stream()
+                    .filter(e -> !existingKeys.contains(toRunAndParentKey(e.getKey())))
+                    .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+            if (toCreate.isEmpty()) {
+                return 0;
+            }
+
+            tx.batchInsert(toCreate
+                        .keySet()
+                        .stream()
+                        .map(instance -> {
+                            AttestationInstanceRecord record = tx.newRecord(ATTESTATION_INSTANCE);
+                            record.setAttestationRunId(instance.attestationRunId());
+                            record.setParentEntityKind(instance.parentEntity().kind().name());
+                            record.setParentEntityId(instance.parentEntity().id());
+                            record.setAttestedEntityKind(instance.attestedEntityKind().name());
+                            return record;
+                        })
+                        .collect(toList()))
+                    .execute();
+
+            Map<Tuple2<Long, EntityReference>, Long> instanceIdsByKey = fetchInstanceIdsByRunAndParent(tx, toCreate.keySet());
+
+            tx.batchInsert(toCreate
+                        .entrySet()
+                        .stream()
+                        .flatMap(e -> {
+                            Long instanceId = instanceIdsByKey.get(toRunAndParentKey(e.getKey()));
+                            return e.getValue()
+                                    .stream()
+                                    .distinct()
+                                    .map(userId -> {
+                                        AttestationInstanceRecipientRecord record = tx.newRecord(ATTESTATION_INSTANCE_RECIPIENT);
+                                        record.setAttestationInstanceId(instanceId);
+                                        record.setUserId(userId);
+                                        return record;
+                                    });
+                        })
+                        .collect(toList()))
+                    .execute();
+
+            return toCreate.size();
+        });
+    }
+
+
     public List<AttestationInstance> findByRecipient(String userId, boolean unattestedOnly) {
         Condition condition = ATTESTATION_INSTANCE_RECIPIENT.USER_ID.eq(userId);
         if(unattestedOnly) {
@@ -701,4 +775,36 @@ public class AttestationInstanceDao {
                         .where(ATTESTATION_INSTANCE.ATTESTED_AT.isNull()));
     }
 
-}
\ No newline at end of file
+
+    // -- HELPERS
+
+    private static Map<Tuple2<Long, EntityReference>, Long> fetchInstanceIdsByRunAndParent(DSLContext ctx,
+                                                                                         Collection<AttestationInstance> instances) {
+        Set<Long> runIds = SetUtilities.map(instances, AttestationInstance::attestationRunId);
+        Set<Long> parentIds = SetUtilities.map(instances, instance -> instance.parentEntity().id());
+
+        return ctx
+                .select(ATTESTATION_INSTANCE.ID,
+                        ATTESTATION_INSTANCE.ATTESTATION_RUN_ID,
+                        ATTESTATION_INSTANCE.PARENT_ENTITY_KIND,
+                        ATTESTATION_INSTANCE.PARENT_ENTITY_ID)
+                .from(ATTESTATION_INSTANCE)
+                .where(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.in(runIds))
+                .and(ATTESTATION_INSTANCE.PARENT_ENTITY_ID.in(parentIds))
+                .fetch()
+                .stream()
+                .collect(toMap(
+                        r -> tuple(
+                                r.get(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID),
+                                mkRef(EntityKind.valueOf(r.get(ATTESTATION_INSTANCE.PARENT_ENTITY_KIND)), r.get(ATTESTATION_INSTANCE.PARENT_ENTITY_ID))),
+                        r -> r.get(ATTESTATION_INSTANCE.ID),
+                        (a, b) -> a));
+    }
+
+
+    private static Tuple2<Long, EntityReference> toRunAndParentKey(AttestationInstance instance) {
+        EntityReference parent = instance.parentEntity();
+        return tuple(instance.attestationRunId(), mkRef(parent.kind(), parent.id()));
+    }
+
+}
@@ -228,13 +228,19 @@ public class AttestationRunDao {
     }
 
 
+    /**
+     * Finds runs waiting to be issued.  Runs left in the ISSUING state (e.g.
+     * the server stopped part way through) are included so issuance can resume.
+     */
     public Set<AttestationRun> findPendingRuns() {
         return dsl
                 .select(ATTESTATION_RUN.fields())
                 .select(ENTITY_NAME_FIELD)
                 .select(ATTESTED_ENTITY_NAME_FIELD)
                 .from(ATTESTATION_RUN)
-                .where(ATTESTATION_RUN.STATUS.eq(AttestationStatus.PENDING.name()))
+                .where(ATTESTATION_RUN.STATUS.in(
+                        AttestationStatus.PENDING.name(),
+                        AttestationStatus.ISSUING.name()))
                 .fetchSet(TO_DOMAIN_MAPPER);
     }
 
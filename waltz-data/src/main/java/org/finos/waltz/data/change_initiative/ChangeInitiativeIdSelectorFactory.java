@@ -20,6 +20,7 @@ package org.finos.waltz.data.change_initiative;
 
 import org.finos.waltz.data.SelectorUtilities;
 import org.finos.waltz.data.entity_hierarchy.AbstractIdSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
 import org.finos.waltz.model.*;
 import org.finos.waltz.schema.tables.EntityHierarchy;
@@ -37,11 +38,18 @@ import static org.finos.waltz.schema.tables.Person.PERSON;
 
 public class ChangeInitiativeIdSelectorFactory extends AbstractIdSelectorFactory {
 
-    private final OrganisationalUnitIdSelectorFactory organisationalUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+    private final OrganisationalUnitIdSelectorFactory organisationalUnitIdSelectorFactory;
 
 
     public ChangeInitiativeIdSelectorFactory() {
         super(EntityKind.CHANGE_INITIATIVE);
+        this.organisationalUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+    }
+
+
+    public ChangeInitiativeIdSelectorFactory(EntityHierarchyIndexes hierarchyIndexes) {
+        super(EntityKind.CHANGE_INITIATIVE, hierarchyIndexes);
+        this.organisationalUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory(hierarchyIndexes);
     }
 
 
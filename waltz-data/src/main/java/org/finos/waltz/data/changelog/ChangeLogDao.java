@@ -37,6 +37,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
@@ -311,20 +312,25 @@ public class ChangeLogDao {
     public int[] write(Collection<ChangeLog> changeLogs) {
         checkNotNull(changeLogs, "changeLogs must not be null");
 
-        Query[] queries = changeLogs
+        // records with the same set of fields are sent as a single jdbc batch
+        List<ChangeLogRecord> records = changeLogs
                 .stream()
-                .map(changeLog -> DSL.insertInto(CHANGE_LOG)
-                        .set(CHANGE_LOG.MESSAGE, changeLog.message())
-                        .set(CHANGE_LOG.PARENT_ID, changeLog.parentReference().id())
-                        .set(CHANGE_LOG.PARENT_KIND, changeLog.parentReference().kind().name())
-                        .set(CHANGE_LOG.USER_ID, changeLog.userId())
-                        .set(CHANGE_LOG.SEVERITY, changeLog.severity().name())
-                        .set(CHANGE_LOG.CHILD_KIND, changeLog.childKind().map(ck -> ck.name()).orElse(null))
-                        .set(CHANGE_LOG.OPERATION, changeLog.operation().name())
-                        .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(changeLog.createdAt())))
-                .toArray(Query[]::new);
+                .map(changeLog -> {
+                    ChangeLogRecord record = dsl.newRecord(CHANGE_LOG);
+                    record.setMessage(changeLog.message());
+                    record.setParentId(changeLog.parentReference().id());
+                    record.setParentKind(changeLog.parentReference().kind().name());
+                    record.setUserId(changeLog.userId());
+                    record.setSeverity(changeLog.severity().name());
+                    record.setChildKind(changeLog.childKind().map(Enum::name).orElse(null));
+                    record.setOperation(changeLog.operation().name());
+                    record.setCreatedAt(Timestamp.valueOf(changeLog.createdAt()));
+                    return record;
+                })
+                .collect(toList());
+
         return dsl
-                .batch(queries)
+                .batchInsert(records)
                 .execute();
     }
 
@@ -18,19 +18,35 @@
 
 package org.finos.waltz.data.client_cache_key;
 
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.client_cache_key.ClientCacheKey;
 import org.finos.waltz.model.client_cache_key.ImmutableClientCacheKey;
 import org.finos.waltz.schema.tables.records.ClientCacheKeyRecord;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record;
+import org.jooq.Record3;
 import org.jooq.RecordMapper;
+import org.jooq.Table;
+import org.jooq.TableField;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.MEASURABLE_CATEGORY;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
 import static org.finos.waltz.schema.tables.ClientCacheKey.CLIENT_CACHE_KEY;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Repository
@@ -45,6 +61,17 @@ public class ClientCacheKeyDao {
                 .build();
     };
 
+    private static final String TAXONOMY_KEY = "TAXONOMY";
+
+    private static final Map<EntityKind, Tuple2<Table<?>, TableField<?, Timestamp>>> VERSIONED_TABLES = new EnumMap<>(EntityKind.class);
+
+    static {
+        VERSIONED_TABLES.put(EntityKind.DATA_TYPE, tuple(DATA_TYPE, DATA_TYPE.LAST_UPDATED_AT));
+        VERSIONED_TABLES.put(EntityKind.MEASURABLE, tuple(MEASURABLE, MEASURABLE.LAST_UPDATED_AT));
+        VERSIONED_TABLES.put(EntityKind.MEASURABLE_CATEGORY, tuple(MEASURABLE_CATEGORY, MEASURABLE_CATEGORY.LAST_UPDATED_AT));
+        VERSIONED_TABLES.put(EntityKind.ORG_UNIT, tuple(ORGANISATIONAL_UNIT, ORGANISATIONAL_UNIT.LAST_UPDATED_AT));
+    }
+
     private final DSLContext dsl;
 
 
@@ -85,4 +112,42 @@ public class ClientCacheKeyDao {
                 .execute() == 1;
     }
 
+
+    /**
+     * Returns a value which changes whenever rows of the given kind are added, removed or
+     * updated (via <code>last_updated_at</code>), combined with the <code>TAXONOMY</code>
+     * cache key which is bumped when taxonomy changes are applied.  It is intended
+     * for use as a cheap validator (e.g. an http ETag) for responses based on those rows.
+     *
+     * @param kind  the kind of entity to check
+     * @return  the version, or empty if the kind is not supported
+     */
+    public Optional<String> findDataVersion(EntityKind kind) {
+        Tuple2<Table<?>, TableField<?, Timestamp>> tableAndField = VERSIONED_TABLES.get(kind);
+
+        if (tableAndField == null) {
+            return Optional.empty();
+        }
+
+        Field<String> taxonomyGuid = DSL
+                .select(CLIENT_CACHE_KEY.GUID)
+                .from(CLIENT_CACHE_KEY)
+                .where(CLIENT_CACHE_KEY.KEY.eq(TAXONOMY_KEY))
+                .asField("taxonomy_guid");
+
+        Field<Timestamp> maxLastUpdated = DSL.max(tableAndField.v2).as("max_last_updated");
+
+        Record3<Integer, Timestamp, String> versionRecord = dsl
+                .select(DSL.count(), maxLastUpdated, taxonomyGuid)
+                .from(tableAndField.v1)
+                .fetchOne();
+
+        return Optional.of(String.format(
+                "%s:%d:%s:%s",
+                kind.name(),
+                versionRecord.value1(),
+                Optional.ofNullable(versionRecord.value2()).map(Timestamp::getTime).orElse(0L),
+                versionRecord.value3()));
+    }
+
 }
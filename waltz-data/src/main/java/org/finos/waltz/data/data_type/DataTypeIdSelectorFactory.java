@@ -20,6 +20,7 @@ package org.finos.waltz.data.data_type;
 
 
 import org.finos.waltz.data.entity_hierarchy.AbstractIdSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.jooq.Record1;
@@ -37,6 +38,11 @@ public class DataTypeIdSelectorFactory extends AbstractIdSelectorFactory {
         super(EntityKind.DATA_TYPE);
     }
 
+
+    public DataTypeIdSelectorFactory(EntityHierarchyIndexes hierarchyIndexes) {
+        super(EntityKind.DATA_TYPE, hierarchyIndexes);
+    }
+
     @Override
     protected Select<Record1<Long>> mkForOptions(IdSelectionOptions options) {
         switch (options.entityReference().kind()) {
@@ -20,6 +20,8 @@ package org.finos.waltz.data.data_type_usage;
 
 import org.finos.waltz.schema.tables.records.DataTypeUsageRecord;
 import org.finos.waltz.common.MapUtilities;
+import org.finos.waltz.common.SetUtilities;
+import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.JooqUtilities;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -33,10 +35,16 @@ import org.finos.waltz.model.usage_info.UsageInfo;
 import org.finos.waltz.model.usage_info.UsageKind;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -50,11 +58,14 @@ import static org.finos.waltz.schema.tables.DataTypeUsage.DATA_TYPE_USAGE;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.partition;
+import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.StringUtilities.limit;
 import static org.finos.waltz.data.application.ApplicationDao.IS_ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.jooq.impl.DSL.*;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
 public class DataTypeUsageDao {
@@ -69,6 +80,13 @@ public class DataTypeUsageDao {
 
     private final Field<String> originatorUsageKindField = val(UsageKind.ORIGINATOR.name());
 
+    private static final Set<String> CALCULATED_USAGE_KINDS = asSet(
+            UsageKind.CONSUMER.name(),
+            UsageKind.DISTRIBUTOR.name(),
+            UsageKind.ORIGINATOR.name());
+
+    private static final int RECALCULATION_BATCH_SIZE = 500;
+
 
 
     private final Field<Long> nodeIdInner = DSL.field("node_id_inner", Long.class);
@@ -310,6 +328,186 @@ public class DataTypeUsageDao {
     }
 
 
+    /**
+     * Finds the applications and actors at either end of any logical flow which
+     * has been updated, or had a data type decorator added or updated, since the
+     * given time.  Hard deleted decorators leave no trace, callers removing
+     * decorators should recalculate the affected entities directly.
+     *
+     * @param since  lower bound (inclusive) of the change window
+     * @return references of the changed flow endpoints
+     */
+    public Set<EntityReference> findEntitiesWithFlowChangesSince(LocalDateTime since) {
+        checkNotNull(since, "since cannot be null");
+
+        Timestamp sinceTimestamp = Timestamp.valueOf(since);
+
+        Select<Record1<Long>> changedFlowIds = DSL
+                .select(LOGICAL_FLOW.ID)
+                .from(LOGICAL_FLOW)
+                .where(LOGICAL_FLOW.LAST_UPDATED_AT.ge(sinceTimestamp))
+                .union(DSL
+                        .select(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID)
+                        .from(LOGICAL_FLOW_DECORATOR)
+                        .where(LOGICAL_FLOW_DECORATOR.LAST_UPDATED_AT.ge(sinceTimestamp))
+                        .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name())));
+
+        return dsl
+                .select(LOGICAL_FLOW.SOURCE_ENTITY_KIND, LOGICAL_FLOW.SOURCE_ENTITY_ID)
+                .from(LOGICAL_FLOW)
+                .where(LOGICAL_FLOW.ID.in(changedFlowIds))
+                .union(DSL
+                        .select(LOGICAL_FLOW.TARGET_ENTITY_KIND, LOGICAL_FLOW.TARGET_ENTITY_ID)
+                        .from(LOGICAL_FLOW)
+                        .where(LOGICAL_FLOW.ID.in(changedFlowIds)))
+                .fetchSet(r -> mkRef(EntityKind.valueOf(r.value1()), r.value2()));
+    }
+
+
+    /**
+     * Recalculates the CONSUMER, DISTRIBUTOR and ORIGINATOR usages for the given
+     * entities, giving the same result as {@link #recalculateForIdSelector(EntityKind, Select)}.
+     *
+     * Rather than clearing and re-inserting every calculated usage the required
+     * usages are compared with the stored ones and only the differences are
+     * written.  Entities are processed in batches, each in its own transaction.
+     *
+     * @param kind  kind of the entities (typically APPLICATION or ACTOR)
+     * @param ids   ids of the entities to recalculate
+     * @return number of usage rows inserted, updated or deleted
+     */
+    public int recalculateForEntities(EntityKind kind, Collection<Long> ids) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(ids, "ids cannot be null");
+
+        return partition(ids, RECALCULATION_BATCH_SIZE)
+                .stream()
+                .mapToInt(batch -> dsl.transactionResult(configuration -> recalculateBatch(
+                        DSL.using(configuration),
+                        kind,
+                        batch)))
+                .sum();
+    }
+
+
+    private int recalculateBatch(DSLContext tx,
+                                 EntityKind kind,
+                                 Collection<Long> ids) {
+
+        Set<Tuple3<Long, Long, String>> flowUsages = findFlowUsages(tx, kind, ids);
+
+        Set<Tuple2<Long, Long>> entityDataTypesWithActiveFlows = SetUtilities.map(
+                flowUsages,
+                t -> tuple(t.v1, t.v2));
+
+        Set<Tuple3<Long, Long, String>> requiredUsages = new HashSet<>(flowUsages);
+        flowUsages
+                .stream()
+                .filter(t -> t.v3.equals(UsageKind.DISTRIBUTOR.name()))
+                .filter(t -> ! flowUsages.contains(tuple(t.v1, t.v2, UsageKind.CONSUMER.name())))
+                .forEach(t -> requiredUsages.add(tuple(t.v1, t.v2, UsageKind.ORIGINATOR.name())));
+
+        Result<DataTypeUsageRecord> existingRecords = tx
+                .selectFrom(DATA_TYPE_USAGE)
+                .where(DATA_TYPE_USAGE.ENTITY_KIND.eq(kind.name()))
+                .and(DATA_TYPE_USAGE.ENTITY_ID.in(ids))
+                .fetch();
+
+        Set<Tuple3<Long, Long, String>> existingUsages = new HashSet<>();
+        List<DataTypeUsageRecord> toDelete = new ArrayList<>();
+        List<DataTypeUsageRecord> toUpdate = new ArrayList<>();
+
+        for (DataTypeUsageRecord r : existingRecords) {
+            Tuple3<Long, Long, String> usage = tuple(r.getEntityId(), r.getDataTypeId(), r.getUsageKind());
+            existingUsages.add(usage);
+
+            boolean hasActiveFlows = entityDataTypesWithActiveFlows.contains(tuple(r.getEntityId(), r.getDataTypeId()));
+            boolean isSelected = Boolean.TRUE.equals(r.getIsSelected());
+
+            if (! hasActiveFlows) {
+                // usages where the datatype is not tied to an active logical flow
+                toDelete.add(r);
+            } else if (CALCULATED_USAGE_KINDS.contains(r.getUsageKind())) {
+                // user maintained usages (e.g. MODIFIER) are left alone
+                boolean isRequired = requiredUsages.contains(usage);
+                if (isRequired && ! isSelected) {
+                    r.setIsSelected(true);
+                    toUpdate.add(r);
+                } else if (! isRequired && StringUtilities.isEmpty(r.getDescription())) {
+                    toDelete.add(r);
+                } else if (! isRequired && isSelected) {
+                    // commented usages are kept, but marked inactive
+                    r.setIsSelected(false);
+                    toUpdate.add(r);
+                }
+            }
+        }
+
+        List<DataTypeUsageRecord> toInsert = requiredUsages
+                .stream()
+                .filter(usage -> ! existingUsages.contains(usage))
+                .map(usage -> {
+                    DataTypeUsageRecord r = tx.newRecord(DATA_TYPE_USAGE);
+                    r.setEntityKind(kind.name());
+                    r.setEntityId(usage.v1);
+                    r.setDataTypeId(usage.v2);
+                    r.setUsageKind(usage.v3);
+                    r.setDescription("");
+                    r.setProvenance("waltz");
+                    r.setIsSelected(true);
+                    return r;
+                })
+                .collect(Collectors.toList());
+
+        if (! toDelete.isEmpty()) {
+            tx.batchDelete(toDelete).execute();
+        }
+        if (! toUpdate.isEmpty()) {
+            tx.batchUpdate(toUpdate).execute();
+        }
+        if (! toInsert.isEmpty()) {
+            tx.batchInsert(toInsert).execute();
+        }
+
+        return toDelete.size() + toUpdate.size() + toInsert.size();
+    }
+
+
+    /**
+     * @return (entity id, data type id, usage kind) for every active, data type decorated,
+     *   flow where the entity is the source (DISTRIBUTOR) or target (CONSUMER)
+     */
+    private Set<Tuple3<Long, Long, String>> findFlowUsages(DSLContext tx,
+                                                           EntityKind kind,
+                                                           Collection<Long> ids) {
+        Condition isActiveDataTypeFlow = lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name())
+                .and(NOT_REMOVED)
+                .and(lf.IS_REMOVED.isFalse());
+
+        SelectConditionStep<Record3<Long, Long, String>> distributors = DSL
+                .select(lf.SOURCE_ENTITY_ID, dt.ID, inline(UsageKind.DISTRIBUTOR.name()))
+                .from(lf)
+                .innerJoin(lfd).on(lfd.LOGICAL_FLOW_ID.eq(lf.ID))
+                .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
+                .where(isActiveDataTypeFlow)
+                .and(lf.SOURCE_ENTITY_KIND.eq(kind.name()))
+                .and(lf.SOURCE_ENTITY_ID.in(ids));
+
+        SelectConditionStep<Record3<Long, Long, String>> consumers = DSL
+                .select(lf.TARGET_ENTITY_ID, dt.ID, inline(UsageKind.CONSUMER.name()))
+                .from(lf)
+                .innerJoin(lfd).on(lfd.LOGICAL_FLOW_ID.eq(lf.ID))
+                .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
+                .where(isActiveDataTypeFlow)
+                .and(lf.TARGET_ENTITY_KIND.eq(kind.name()))
+                .and(lf.TARGET_ENTITY_ID.in(ids));
+
+        return tx
+                .fetch(distributors.union(consumers))
+                .intoSet(r -> tuple(r.value1(), r.value2(), r.value3()));
+    }
+
+
     private List<DataTypeUsageRecord> findAllNonActiveDataTypeUsages(DSLContext tx,
                                                                      EntityKind kind,
                                                                      Select<Record1<Long>> idSelector) {
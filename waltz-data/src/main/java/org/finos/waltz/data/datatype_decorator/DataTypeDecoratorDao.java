@@ -35,6 +35,8 @@ public abstract class DataTypeDecoratorDao {
 
     public abstract List<DataTypeDecorator> findByEntityId(long entityId);
 
+    public abstract List<DataTypeDecorator> findByEntityIds(Collection<Long> entityIds);
+
     public abstract List<DataTypeDecorator> findByEntityIdSelector(Select<Record1<Long>> idSelector,
                                                                    Optional<EntityKind> entityKind);
 
@@ -34,6 +34,7 @@ import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
 import org.jooq.*;
 import org.jooq.impl.DSL;
 import org.jooq.lambda.function.Function2;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -43,6 +44,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.finos.waltz.schema.Tables.PHYSICAL_FLOW;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
@@ -53,11 +56,13 @@ import static org.finos.waltz.schema.tables.PhysicalSpecDataType.PHYSICAL_SPEC_D
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
 import static org.finos.waltz.model.EntityKind.DATA_TYPE;
 import static org.finos.waltz.model.EntityKind.LOGICAL_DATA_FLOW;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Repository
@@ -162,6 +167,12 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .fetch(TO_DECORATOR_MAPPER);
     }
 
+    @Override
+    public List<DataTypeDecorator> findByEntityIds(Collection<Long> flowIds) {
+        return findByFlowIds(flowIds);
+    }
+
+
     @Override
     public List<DataTypeDecorator> findByFlowIds(Collection<Long> flowIds) {
         checkNotNull(flowIds, "flowIds cannot be null");
@@ -172,6 +183,23 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
     }
 
 
+    /**
+     * Streams (flow id, data type id) pairs for all flows which have not been
+     * removed.  The caller must close the stream to release the connection.
+     */
+    public Stream<Tuple2<Long, Long>> streamDataTypeIdsForNotRemovedFlows() {
+        return dsl
+                .select(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID, LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID)
+                .from(LOGICAL_FLOW_DECORATOR)
+                .innerJoin(LOGICAL_FLOW)
+                .on(LOGICAL_FLOW.ID.eq(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID))
+                .where(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(DATA_TYPE.name()))
+                .and(LOGICAL_NOT_REMOVED)
+                .fetchStream()
+                .map(r -> tuple(r.value1(), r.value2()));
+    }
+
+
     public List<DataTypeDecorator> findAll() {
         return dsl
                 .select(LOGICAL_FLOW_DECORATOR.fields())
@@ -253,6 +281,51 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
     }
 
 
+    /**
+     * Updates just the rating and flow classification rule of the given decorators,
+     * other columns (including the last updated details) are left untouched.
+     * All updates are applied within a single transaction, in batches of
+     * <code>batchSize</code> statements.
+     *
+     * @param decorators  decorators (identified by id) with their new rating and rule
+     * @param batchSize  max number of statements per batch
+     * @return number of decorators updated
+     */
+    public int updateRatingsAndRules(Collection<DataTypeDecorator> decorators, int batchSize) {
+        checkNotNull(decorators, "decorators cannot be null");
+        checkTrue(batchSize > 0, "batchSize must be positive");
+
+        if (decorators.isEmpty()) {
+            return 0;
+        }
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            List<Query> updates = decorators
+                    .stream()
+                    .map(d -> tx
+                            .update(LOGICAL_FLOW_DECORATOR)
+                            .set(LOGICAL_FLOW_DECORATOR.RATING, d.rating()
+                                    .orElse(AuthoritativenessRatingValue.NO_OPINION)
+                                    .value())
+                            .set(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID, d.flowClassificationRuleId().orElse(null))
+                            .where(LOGICAL_FLOW_DECORATOR.ID.eq(d.id()
+                                    .orElseThrow(() -> new IllegalArgumentException("Cannot update a decorator without an id")))))
+                    .collect(toList());
+
+            int updated = 0;
+            for (int i = 0; i < updates.size(); i += batchSize) {
+                int[] counts = tx
+                        .batch(updates.subList(i, Math.min(i + batchSize, updates.size())))
+                        .execute();
+                updated += IntStream.of(counts).sum();
+            }
+            return updated;
+        });
+    }
+
+
     public int updateDecoratorsForFlowClassificationRule(FlowClassificationRuleVantagePoint flowClassificationRuleVantagePoint) {
         LogicalFlowDecorator lfd = LOGICAL_FLOW_DECORATOR.as("lfd");
 
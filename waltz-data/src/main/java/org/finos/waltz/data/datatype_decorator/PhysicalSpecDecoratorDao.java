@@ -111,6 +111,18 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
     }
 
 
+    @Override
+    public List<DataTypeDecorator> findByEntityIds(Collection<Long> specIds) {
+        checkNotNull(specIds, "specIds cannot be null");
+
+        return dsl
+                .select(PHYSICAL_SPEC_DATA_TYPE.fields())
+                .from(PHYSICAL_SPEC_DATA_TYPE)
+                .where(PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID.in(specIds))
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
     @Override
     public List<DataTypeDecorator> findByEntityIdSelector(Select<Record1<Long>> specIdSelector,
                                                           Optional<EntityKind> entityKind) {
@@ -31,11 +31,25 @@ import static org.finos.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
 public abstract class AbstractIdSelectorFactory implements IdSelectorFactory {
 
     private final EntityKind entityKind;
+    private final EntityHierarchyIndexes hierarchyIndexes;
 
 
+    /**
+     * Creates a factory which always expands hierarchies via the <code>entity_hierarchy</code> table.
+     */
     public AbstractIdSelectorFactory(EntityKind entityKind) {
+        this(entityKind, new EntityHierarchyIndexes());
+    }
+
+
+    /**
+     * Creates a factory which expands hierarchies via the given indexes where possible.
+     */
+    public AbstractIdSelectorFactory(EntityKind entityKind, EntityHierarchyIndexes hierarchyIndexes) {
         Checks.checkNotNull(entityKind, "entityKind cannot be null");
+        Checks.checkNotNull(hierarchyIndexes, "hierarchyIndexes cannot be null");
         this.entityKind = entityKind;
+        this.hierarchyIndexes = hierarchyIndexes;
     }
 
 
@@ -61,16 +75,20 @@ public abstract class AbstractIdSelectorFactory implements IdSelectorFactory {
                 selector = DSL.select(DSL.val(options.entityReference().id()));
                 break;
             case CHILDREN:
-                selector = DSL.select(ENTITY_HIERARCHY.ID)
-                        .from(ENTITY_HIERARCHY)
-                        .where(ENTITY_HIERARCHY.ANCESTOR_ID.eq(options.entityReference().id()))
-                        .and(ENTITY_HIERARCHY.KIND.eq(entityKind.name()));
+                selector = hierarchyIndexes
+                        .mkDescendantSelector(entityKind, options.entityReference().id())
+                        .orElseGet(() -> DSL.select(ENTITY_HIERARCHY.ID)
+                                .from(ENTITY_HIERARCHY)
+                                .where(ENTITY_HIERARCHY.ANCESTOR_ID.eq(options.entityReference().id()))
+                                .and(ENTITY_HIERARCHY.KIND.eq(entityKind.name())));
                 break;
             case PARENTS:
-                selector = DSL.select(ENTITY_HIERARCHY.ANCESTOR_ID)
-                        .from(ENTITY_HIERARCHY)
-                        .where(ENTITY_HIERARCHY.ID.eq(options.entityReference().id()))
-                        .and(ENTITY_HIERARCHY.KIND.eq(entityKind.name()));
+                selector = hierarchyIndexes
+                        .mkAncestorSelector(entityKind, options.entityReference().id())
+                        .orElseGet(() -> DSL.select(ENTITY_HIERARCHY.ANCESTOR_ID)
+                                .from(ENTITY_HIERARCHY)
+                                .where(ENTITY_HIERARCHY.ID.eq(options.entityReference().id()))
+                                .and(ENTITY_HIERARCHY.KIND.eq(entityKind.name())));
                 break;
         }
 
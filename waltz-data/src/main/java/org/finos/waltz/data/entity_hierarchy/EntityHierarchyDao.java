@@ -20,6 +20,8 @@ package org.finos.waltz.data.entity_hierarchy;
 
 import org.finos.waltz.schema.tables.EntityHierarchy;
 import org.finos.waltz.schema.tables.records.EntityHierarchyRecord;
+import org.finos.waltz.common.hierarchy.FlatNode;
+import org.finos.waltz.common.hierarchy.HierarchyClosureIndex;
 import org.finos.waltz.data.JooqUtilities;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -36,11 +38,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.finos.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.ListUtilities.map;
 
 @Repository
@@ -120,6 +130,74 @@ public class EntityHierarchyDao {
     }
 
 
+    /**
+     * Applies a set of changes to an entity hierarchy without clearing it first.
+     * Work is split into transactions of at most <code>batchSize</code> statements,
+     * additions are applied first and removals last so readers transiently see a
+     * superset of the old and new hierarchy rather than missing rows.
+     *
+     * Items are identified by their kind, id and parent (ancestor) id.
+     *
+     * @param kind  the entity kind of the hierarchy being changed
+     * @param additions  items to insert
+     * @param updates  items whose levels have changed
+     * @param removals  items to delete
+     * @param batchSize  max number of statements per transaction
+     * @return total number of records inserted, updated and deleted
+     */
+    public int applyHierarchyChanges(EntityKind kind,
+                                     Collection<EntityHierarchyItem> additions,
+                                     Collection<EntityHierarchyItem> updates,
+                                     Collection<EntityHierarchyItem> removals,
+                                     int batchSize) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(additions, "additions cannot be null");
+        checkNotNull(updates, "updates cannot be null");
+        checkNotNull(removals, "removals cannot be null");
+        checkTrue(batchSize > 0, "batchSize must be positive");
+
+        LOG.info(
+                "Applying hierarchy changes for kind: {}, inserting: {}, updating: {}, removing: {}",
+                kind,
+                additions.size(),
+                updates.size(),
+                removals.size());
+
+        int insertCount = inBatches(additions, batchSize, (tx, items) -> tx
+                .batchInsert(map(items, ITEM_TO_RECORD_MAPPER))
+                .execute());
+
+        int updateCount = inBatches(updates, batchSize, (tx, items) -> tx
+                .batch(map(items, item -> tx
+                        .update(ENTITY_HIERARCHY)
+                        .set(ENTITY_HIERARCHY.LEVEL, item.ancestorLevel())
+                        .set(ENTITY_HIERARCHY.DESCENDANT_LEVEL, item.descendantLevel())
+                        .where(mkItemCondition(kind, item))))
+                .execute());
+
+        int removalCount = inBatches(removals, batchSize, (tx, items) -> tx
+                .batch(map(items, item -> tx
+                        .deleteFrom(ENTITY_HIERARCHY)
+                        .where(mkItemCondition(kind, item))))
+                .execute());
+
+        return insertCount + updateCount + removalCount;
+    }
+
+
+    public List<EntityHierarchyItem> findByKind(EntityKind kind, Condition filter) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(filter, "filter cannot be null");
+
+        return dsl
+                .select(ENTITY_HIERARCHY.fields())
+                .from(ENTITY_HIERARCHY)
+                .where(ENTITY_HIERARCHY.KIND.eq(kind.name()))
+                .and(filter)
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
     public List<Tally<String>> tallyByKind() {
         return JooqUtilities.calculateStringTallies(dsl, eh, eh.KIND, DSL.trueCondition());
     }
@@ -145,4 +223,64 @@ public class EntityHierarchyDao {
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
+
+    /**
+     * Builds a closure index for the given kind from the self and immediate
+     * parent rows of the hierarchy.
+     */
+    public HierarchyClosureIndex loadClosureIndex(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+
+        Map<Long, Long> parentIdById = new HashMap<>();
+        dsl.select(eh.ID, eh.ANCESTOR_ID)
+                .from(eh)
+                .where(eh.KIND.eq(kind.name()))
+                .and(eh.ID.eq(eh.ANCESTOR_ID)
+                        .or(eh.DESCENDANT_LEVEL.eq(eh.LEVEL.plus(1))))
+                .fetch()
+                .forEach(r -> {
+                    Long id = r.get(eh.ID);
+                    Long ancestorId = r.get(eh.ANCESTOR_ID);
+                    if (id.equals(ancestorId)) {
+                        parentIdById.putIfAbsent(id, null);
+                    } else {
+                        parentIdById.put(id, ancestorId);
+                    }
+                });
+
+        List<FlatNode<Void, Long>> nodes = parentIdById
+                .entrySet()
+                .stream()
+                .map(e -> new FlatNode<Void, Long>(e.getKey(), Optional.ofNullable(e.getValue()), null))
+                .collect(Collectors.toList());
+
+        return HierarchyClosureIndex.build(nodes);
+    }
+
+
+    // -- HELPERS ---
+
+    private int inBatches(Collection<EntityHierarchyItem> items,
+                          int batchSize,
+                          BiFunction<DSLContext, List<EntityHierarchyItem>, int[]> batchExecutor) {
+        List<EntityHierarchyItem> itemList = new ArrayList<>(items);
+        int count = 0;
+        for (int i = 0; i < itemList.size(); i += batchSize) {
+            List<EntityHierarchyItem> batch = itemList.subList(i, Math.min(i + batchSize, itemList.size()));
+            count += dsl.transactionResult(configuration -> batchExecutor
+                    .apply(DSL.using(configuration), batch)
+                    .length);
+        }
+        return count;
+    }
+
+
+    private static Condition mkItemCondition(EntityKind kind, EntityHierarchyItem item) {
+        return ENTITY_HIERARCHY.KIND.eq(kind.name())
+                .and(ENTITY_HIERARCHY.ID.eq(item.id().get()))
+                .and(item.parentId()
+                        .map(ENTITY_HIERARCHY.ANCESTOR_ID::eq)
+                        .orElse(ENTITY_HIERARCHY.ANCESTOR_ID.isNull()));
+    }
+
 }
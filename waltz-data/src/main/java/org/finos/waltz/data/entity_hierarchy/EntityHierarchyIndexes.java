@@ -0,0 +1,160 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_hierarchy;
+
+import org.finos.waltz.common.hierarchy.HierarchyClosureIndex;
+import org.finos.waltz.model.EntityKind;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Row1;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Holds the in-memory closure indexes over the <code>entity_hierarchy</code>
+ * table, one per entity kind.
+ *
+ * The indexes are loaded (and replaced) by the <code>EntityHierarchyIndexService</code>
+ * whenever a hierarchy is rebuilt.  Id selector factories which are given this
+ * bean consult it before querying the database.  If no index is registered for a
+ * kind, or an id is not known to the index, callers should fall back to querying
+ * the <code>entity_hierarchy</code> table.
+ */
+@Component
+public class EntityHierarchyIndexes {
+
+    /**
+     * Lookups returning more ids than this are not inlined into the generated
+     * sql, the caller should use the <code>entity_hierarchy</code> table instead.
+     */
+    public static final int MAX_INLINED_IDS = 1000;
+
+    private final Map<EntityKind, HierarchyClosureIndex> indexes = new ConcurrentHashMap<>();
+
+
+    public void register(EntityKind kind, HierarchyClosureIndex index) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(index, "index cannot be null");
+        indexes.put(kind, index);
+    }
+
+
+    public void clear(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        indexes.remove(kind);
+    }
+
+
+    public void clearAll() {
+        indexes.clear();
+    }
+
+
+    public Optional<HierarchyClosureIndex> find(EntityKind kind) {
+        return Optional.ofNullable(indexes.get(kind));
+    }
+
+
+    /**
+     * @return the id and all descendant ids, empty if the kind is not indexed or the id is unknown
+     */
+    public Optional<long[]> findDescendantIds(EntityKind kind, long id) {
+        return find(kind)
+                .filter(idx -> idx.contains(id))
+                .map(idx -> idx.findDescendantIds(id));
+    }
+
+
+    /**
+     * @return the id and all ancestor ids, empty if the kind is not indexed or the id is unknown
+     */
+    public Optional<long[]> findAncestorIds(EntityKind kind, long id) {
+        return find(kind)
+                .filter(idx -> idx.contains(id))
+                .map(idx -> idx.findAncestorIds(id));
+    }
+
+
+    /**
+     * @return a selector over the inlined id and its descendants, empty if the index cannot answer
+     *   the lookup or the result is too large to inline
+     */
+    public Optional<Select<Record1<Long>>> mkDescendantSelector(EntityKind kind, long id) {
+        return findDescendantIds(kind, id)
+                .filter(EntityHierarchyIndexes::canInline)
+                .map(EntityHierarchyIndexes::mkInlinedSelector);
+    }
+
+
+    /**
+     * @return a selector over the inlined id and its ancestors, empty if the index cannot answer
+     *   the lookup or the result is too large to inline
+     */
+    public Optional<Select<Record1<Long>>> mkAncestorSelector(EntityKind kind, long id) {
+        return findAncestorIds(kind, id)
+                .filter(EntityHierarchyIndexes::canInline)
+                .map(EntityHierarchyIndexes::mkInlinedSelector);
+    }
+
+
+    public static boolean canInline(long[] ids) {
+        return ids.length > 0 && ids.length <= MAX_INLINED_IDS;
+    }
+
+
+    public static List<Field<Long>> toInlinedFields(long[] ids) {
+        return Arrays
+                .stream(ids)
+                .mapToObj(DSL::inline)
+                .collect(toList());
+    }
+
+
+    public static Select<Record1<Long>> mkInlinedSelector(long[] ids) {
+        checkNotNull(ids, "ids cannot be null");
+
+        if (ids.length == 1) {
+            return DSL.select(DSL.inline(ids[0]));
+        }
+
+        @SuppressWarnings("unchecked")
+        Row1<Long>[] rows = Arrays
+                .stream(ids)
+                .mapToObj(id -> DSL.row(DSL.inline(id)))
+                .toArray(Row1[]::new);
+
+        Table<Record1<Long>> idTable = DSL.values(rows).as("inlined_ids", "id");
+        return DSL
+                .select(idTable.field("id", Long.class))
+                .from(idTable);
+    }
+
+}
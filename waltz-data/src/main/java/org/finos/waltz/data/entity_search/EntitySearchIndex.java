@@ -0,0 +1,281 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_search;
+
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchIndexEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * An immutable, in-memory trigram index over the names and alternative names
+ * (external ids, aliases etc.) of a set of entities.
+ *
+ * Every trigram of the (lower cased) searchable values maps to the ascending
+ * positions of the entries containing it.  A search takes the shortest
+ * posting list of the trigrams in the query terms as its candidates and then
+ * verifies that every term is contained in a candidate's values.  Matches are
+ * ranked in a similar manner to {@link org.finos.waltz.data.SearchUtilities#mkRelevancyComparator},
+ * exact and prefix matches first, then by the position of the first term in the name.
+ */
+public class EntitySearchIndex {
+
+    private static final char SEPARATOR = '\n';
+
+    private final EntityReference[] refs;
+    private final String[] names;                 // lower case names
+    private final String[][] alternativeNames;    // lower case alternative names
+    private final String[] values;                // name and alternative names, lower case, separated
+    private final Map<Long, int[]> postings;      // trigram -> ascending entry positions
+
+    private final Comparator<Match> matchComparator;
+
+
+    private EntitySearchIndex(EntityReference[] refs,
+                              String[] names,
+                              String[][] alternativeNames,
+                              String[] values,
+                              Map<Long, int[]> postings) {
+        this.refs = refs;
+        this.names = names;
+        this.alternativeNames = alternativeNames;
+        this.values = values;
+        this.postings = postings;
+        this.matchComparator = Comparator
+                .comparingInt((Match m) -> m.rank)
+                .thenComparingInt(m -> m.nameIdx < 0 ? Integer.MAX_VALUE : m.nameIdx)
+                .thenComparingInt(m -> names[m.position].length())
+                .thenComparing(m -> names[m.position]);
+    }
+
+
+    public static EntitySearchIndex build(Collection<EntitySearchIndexEntry> entries) {
+        checkNotNull(entries, "entries cannot be null");
+
+        int size = entries.size();
+        EntityReference[] refs = new EntityReference[size];
+        String[] names = new String[size];
+        String[][] alternativeNames = new String[size][];
+        String[] values = new String[size];
+        Map<Long, IntList> trigrams = new HashMap<>();
+
+        int pos = 0;
+        for (EntitySearchIndexEntry entry : entries) {
+            EntityReference ref = entry.entityReference();
+            String name = ref.name().orElse("").toLowerCase();
+            String[] alternatives = entry
+                    .alternativeNames()
+                    .stream()
+                    .filter(s -> s != null && !s.trim().isEmpty())
+                    .map(String::toLowerCase)
+                    .toArray(String[]::new);
+
+            StringBuilder value = new StringBuilder(name);
+            for (String alternative : alternatives) {
+                value.append(SEPARATOR).append(alternative);
+            }
+
+            refs[pos] = ref;
+            names[pos] = name;
+            alternativeNames[pos] = alternatives;
+            values[pos] = value.toString();
+
+            for (int i = 0; i + 3 <= value.length(); i++) {
+                char a = value.charAt(i);
+                char b = value.charAt(i + 1);
+                char c = value.charAt(i + 2);
+                if (a == SEPARATOR || b == SEPARATOR || c == SEPARATOR) {
+                    continue;
+                }
+                trigrams.computeIfAbsent(toTrigram(a, b, c), k -> new IntList()).addIfLastDiffers(pos);
+            }
+
+            pos++;
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(trigrams.size() * 4 / 3 + 1);
+        trigrams.forEach((k, v) -> postings.put(k, v.toArray()));
+
+        return new EntitySearchIndex(refs, names, alternativeNames, values, postings);
+    }
+
+
+    public int size() {
+        return refs.length;
+    }
+
+
+    /**
+     * @param terms  search terms, every term must be contained in the name or an alternative name
+     * @param lifecycleStatuses  only entities with one of these statuses are returned
+     * @param limit  maximum number of results
+     * @return matching entity references, most relevant first
+     */
+    public List<EntityReference> search(List<String> terms,
+                                        Set<EntityLifecycleStatus> lifecycleStatuses,
+                                        int limit) {
+        checkNotNull(terms, "terms cannot be null");
+        checkNotNull(lifecycleStatuses, "lifecycleStatuses cannot be null");
+
+        List<String> lowerTerms = terms
+                .stream()
+                .filter(t -> t != null && !t.isEmpty())
+                .map(String::toLowerCase)
+                .collect(toList());
+
+        if (lowerTerms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        int[] candidates = findCandidates(lowerTerms);
+        int candidateCount = candidates == null ? refs.length : candidates.length;
+
+        List<Match> matches = new ArrayList<>();
+        String query = String.join(" ", lowerTerms);
+        String firstTerm = lowerTerms.get(0);
+
+        for (int i = 0; i < candidateCount; i++) {
+            int entryPos = candidates == null ? i : candidates[i];
+            if (lifecycleStatuses.contains(refs[entryPos].entityLifecycleStatus())
+                    && containsAll(values[entryPos], lowerTerms)) {
+                matches.add(new Match(entryPos, rank(entryPos, query, firstTerm), names[entryPos].indexOf(firstTerm)));
+            }
+        }
+
+        return matches
+                .stream()
+                .sorted(matchComparator)
+                .limit(limit)
+                .map(m -> refs[m.position])
+                .collect(toList());
+    }
+
+
+    /**
+     * @return the shortest posting list of any trigram in the terms, or null if the
+     *   terms are too short to use the index (in which case every entry is a candidate)
+     */
+    private int[] findCandidates(List<String> terms) {
+        int[] best = null;
+        for (String term : terms) {
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                int[] posting = postings.get(toTrigram(term.charAt(i), term.charAt(i + 1), term.charAt(i + 2)));
+                if (posting == null) {
+                    return new int[0];
+                }
+                if (best == null || posting.length < best.length) {
+                    best = posting;
+                }
+            }
+        }
+        return best;
+    }
+
+
+    /**
+     * Lower is better: exact alternative name, exact name, name prefix,
+     * alternative name prefix, start of a word in the name, anything else.
+     */
+    private int rank(int entryPos, String query, String firstTerm) {
+        String name = names[entryPos];
+        String[] alternatives = alternativeNames[entryPos];
+
+        if (Arrays.asList(alternatives).contains(query)) {
+            return 0;
+        }
+        if (name.equals(query)) {
+            return 1;
+        }
+        if (name.startsWith(firstTerm)) {
+            return 2;
+        }
+        for (String alternative : alternatives) {
+            if (alternative.startsWith(firstTerm)) {
+                return 3;
+            }
+        }
+        int idx = name.indexOf(firstTerm);
+        if (idx > 0 && !Character.isLetterOrDigit(name.charAt(idx - 1))) {
+            return 4;
+        }
+        return 5;
+    }
+
+
+    private static boolean containsAll(String value, List<String> terms) {
+        for (String term : terms) {
+            if (!value.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static long toTrigram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+
+    private static class Match {
+        private final int position;
+        private final int rank;
+        private final int nameIdx;
+
+        private Match(int position, int rank, int nameIdx) {
+            this.position = position;
+            this.rank = rank;
+            this.nameIdx = nameIdx;
+        }
+    }
+
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        private void addIfLastDiffers(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_search;
+
+import org.finos.waltz.common.OptionalUtilities;
+import org.finos.waltz.data.actor.ActorDao;
+import org.finos.waltz.data.application.ApplicationDao;
+import org.finos.waltz.data.change_initiative.ChangeInitiativeDao;
+import org.finos.waltz.data.data_type.DataTypeDao;
+import org.finos.waltz.data.legal_entity.LegalEntityDao;
+import org.finos.waltz.data.measurable.MeasurableDao;
+import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
+import org.finos.waltz.data.person.PersonDao;
+import org.finos.waltz.data.server_information.ServerInformationDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchIndexEntry;
+import org.finos.waltz.model.entity_search.ImmutableEntitySearchIndexEntry;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.concat;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.schema.Tables.ACTOR;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.CHANGE_INITIATIVE;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.finos.waltz.schema.Tables.ENTITY_ALIAS;
+import static org.finos.waltz.schema.Tables.LEGAL_ENTITY;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.finos.waltz.schema.Tables.PERSON;
+import static org.finos.waltz.schema.Tables.SERVER_INFORMATION;
+
+
+/**
+ * Loads the searchable values of every entity of a given kind, used to build
+ * the in-memory {@link EntitySearchIndex}.  Entities of all lifecycle statuses
+ * are loaded, filtering is performed by the index at search time.
+ */
+@Repository
+public class EntitySearchIndexDao {
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public EntitySearchIndexDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public List<EntitySearchIndexEntry> findEntries(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+
+        switch (kind) {
+            case ACTOR:
+                return dsl
+                        .select(ACTOR.fields())
+                        .from(ACTOR)
+                        .fetch(ActorDao.TO_DOMAIN_MAPPER)
+                        .stream()
+                        .map(d -> mkEntry(d.entityReference(), OptionalUtilities.toList(d.externalId())))
+                        .collect(toList());
+            case APPLICATION:
+                return findApplicationEntries();
+            case CHANGE_INITIATIVE:
+                return dsl
+                        .select(CHANGE_INITIATIVE.fields())
+                        .from(CHANGE_INITIATIVE)
+                        .fetch(ChangeInitiativeDao.TO_DOMAIN_MAPPER)
+                        .stream()
+                        .map(d -> mkEntry(d.entityReference(), OptionalUtilities.toList(d.externalId())))
+                        .collect(toList());
+            case DATA_TYPE:
+                return dsl
+                        .select(DATA_TYPE.fields())
+                        .from(DATA_TYPE)
+                        .fetch(DataTypeDao.TO_DOMAIN)
+                        .stream()
+                        .map(d -> mkEntry(d.entityReference(), newArrayList(d.code())))
+                        .collect(toList());
+            case LEGAL_ENTITY:
+                return dsl
+                        .select(LEGAL_ENTITY.fields())
+                        .from(LEGAL_ENTITY)
+                        .fetch(LegalEntityDao.TO_DOMAIN_MAPPER)
+                        .stream()
+                        .map(d -> mkEntry(d.entityReference(), newArrayList(d.externalId())))
+                        .collect(toList());
+            case MEASURABLE:
+                return dsl
+                        .select(MEASURABLE.fields())
+                        .from(MEASURABLE)
+                        .fetch(MeasurableDao.TO_DOMAIN_MAPPER)
+                        .stream()
+                        .map(d -> mkEntry(d.entityReference(), OptionalUtilities.toList(d.externalId())))
+                        .collect(toList());
+            case ORG_UNIT:
+                return dsl
+                        .select(ORGANISATIONAL_UNIT.fields())
+                        .from(ORGANISATIONAL_UNIT)
+                        .fetch(OrganisationalUnitDao.TO_DOMAIN_MAPPER)
+                        .stream()
+                        .map(d -> mkEntry(d.entityReference(), OptionalUtilities.toList(d.externalId())))
+                        .collect(toList());
+            case PERSON:
+                return dsl
+                        .select(PERSON.fields())
+                        .from(PERSON)
+                        .fetch(PersonDao.personMapper)
+                        .stream()
+                        .map(d -> mkEntry(d.entityReference(), newArrayList(d.email())))
+                        .collect(toList());
+            case SERVER:
+                return dsl
+                        .select(SERVER_INFORMATION.fields())
+                        .from(SERVER_INFORMATION)
+                        .fetch(ServerInformationDao.TO_DOMAIN_MAPPER)
+                        .stream()
+                        .map(d -> mkEntry(d.entityReference(), OptionalUtilities.toList(d.externalId())))
+                        .collect(toList());
+            default:
+                throw new UnsupportedOperationException("Cannot load search index entries for kind: " + kind);
+        }
+    }
+
+
+    private List<EntitySearchIndexEntry> findApplicationEntries() {
+        Map<Long, List<String>> aliasesByAppId = dsl
+                .select(ENTITY_ALIAS.ID, ENTITY_ALIAS.ALIAS)
+                .from(ENTITY_ALIAS)
+                .where(ENTITY_ALIAS.KIND.eq(EntityKind.APPLICATION.name()))
+                .fetchGroups(ENTITY_ALIAS.ID, ENTITY_ALIAS.ALIAS);
+
+        return dsl
+                .select(APPLICATION.fields())
+                .from(APPLICATION)
+                .fetch(ApplicationDao.TO_DOMAIN_MAPPER)
+                .stream()
+                .map(d -> mkEntry(
+                        d.entityReference(),
+                        concat(
+                                OptionalUtilities.toList(d.externalId()),
+                                aliasesByAppId.getOrDefault(d.entityReference().id(), Collections.emptyList()))))
+                .collect(toList());
+    }
+
+
+    private static EntitySearchIndexEntry mkEntry(EntityReference ref, Collection<String> alternativeNames) {
+        return ImmutableEntitySearchIndexEntry
+                .builder()
+                .entityReference(ref)
+                .alternativeNames(alternativeNames
+                        .stream()
+                        .filter(s -> s != null && !s.trim().isEmpty())
+                        .collect(toSet()))
+                .build();
+    }
+
+}
@@ -153,6 +153,52 @@ public class InvolvementDao {
     }
 
 
+    /**
+     * Bulk variant of {@link #findExistingInvolvementKindIdsForUser(EntityReference, String)},
+     * answered with a single query.
+     *
+     * @param parentEntityRefs  entities to check, the result is keyed by these references
+     * @param username  user (email) whose involvements are required
+     * @return  involvement kind ids for each ref, refs with no involvements are mapped to an empty set
+     */
+    public Map<EntityReference, Set<Long>> findExistingInvolvementKindIdsForUser(Collection<EntityReference> parentEntityRefs,
+                                                                                String username) {
+        Map<EntityReference, Set<Long>> result = new HashMap<>();
+        Map<EntityKind, Map<Long, List<EntityReference>>> refsByKindAndId = new HashMap<>();
+
+        parentEntityRefs.forEach(ref -> {
+            result.put(ref, new HashSet<>());
+            refsByKindAndId
+                    .computeIfAbsent(ref.kind(), k -> new HashMap<>())
+                    .computeIfAbsent(ref.id(), k -> new ArrayList<>())
+                    .add(ref);
+        });
+
+        if (refsByKindAndId.isEmpty()) {
+            return result;
+        }
+
+        Condition refCondition = refsByKindAndId
+                .entrySet()
+                .stream()
+                .map(e -> INVOLVEMENT.ENTITY_KIND.eq(e.getKey().name())
+                        .and(INVOLVEMENT.ENTITY_ID.in(e.getValue().keySet())))
+                .reduce(DSL.falseCondition(), Condition::or);
+
+        dsl.selectDistinct(INVOLVEMENT.ENTITY_KIND, INVOLVEMENT.ENTITY_ID, INVOLVEMENT.KIND_ID)
+                .from(INVOLVEMENT)
+                .innerJoin(PERSON).on(PERSON.EMPLOYEE_ID.eq(INVOLVEMENT.EMPLOYEE_ID))
+                .where(PERSON.EMAIL.eq(username))
+                .and(refCondition)
+                .forEach(r -> refsByKindAndId
+                        .getOrDefault(EntityKind.valueOf(r.get(INVOLVEMENT.ENTITY_KIND)), Collections.emptyMap())
+                        .getOrDefault(r.get(INVOLVEMENT.ENTITY_ID), Collections.emptyList())
+                        .forEach(ref -> result.get(ref).add(r.get(INVOLVEMENT.KIND_ID))));
+
+        return result;
+    }
+
+
     public List<Involvement> findAllByEmployeeId(String employeeId) {
         return dsl
                 .select(INVOLVEMENT.fields())
@@ -0,0 +1,183 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.involvement;
+
+import org.finos.waltz.model.EntityKind;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Record2;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.exception.DataAccessException;
+import org.jooq.exception.SQLStateClass;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.CollectionUtilities.isEmpty;
+import static org.finos.waltz.schema.Tables.PERSON_APPLICATION_CLOSURE;
+import static org.finos.waltz.schema.tables.Involvement.INVOLVEMENT;
+import static org.finos.waltz.schema.tables.Person.PERSON;
+import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
+
+
+/**
+ * Maintains the <code>person_application_closure</code> table which, for each person,
+ * holds the applications they or anyone in their (non-removed) reporting line are
+ * involved with.
+ *
+ * The closure is derived from <code>involvement</code> and <code>person_hierarchy</code>.
+ * It is fully rebuilt whenever the person hierarchy is rebuilt and refreshed for
+ * individual applications when their involvements change.  Involvements and people
+ * loaded outside Waltz are picked up by the periodic
+ * <code>PERSON_APPLICATION_CLOSURE_REBUILD</code> job, which loaders may also flag
+ * as runnable once they finish.
+ *
+ * Refreshes made by this instance are serialised and only insert rows which are not
+ * already present.  If a refresh still collides with one committed by another instance
+ * it is retried once, by which point the other instance's rows are visible.
+ */
+@Repository
+public class PersonApplicationClosureDao {
+
+    private final DSLContext dsl;
+    private final Object refreshLock = new Object();
+
+
+    @Autowired
+    public PersonApplicationClosureDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * Replaces the entire closure.
+     * @return number of closure rows written
+     */
+    public int rebuild() {
+        return refresh(DSL.trueCondition(), DSL.trueCondition());
+    }
+
+
+    /**
+     * Recalculates the closure rows for the given applications only.
+     * @return number of closure rows written
+     */
+    public int refreshForApplications(Collection<Long> applicationIds) {
+        checkNotNull(applicationIds, "applicationIds cannot be null");
+
+        return isEmpty(applicationIds)
+                ? 0
+                : refresh(
+                    PERSON_APPLICATION_CLOSURE.APPLICATION_ID.in(applicationIds),
+                    INVOLVEMENT.ENTITY_ID.in(applicationIds));
+    }
+
+
+    /**
+     * Recalculates the closure rows for the applications returned by the selector.
+     * @return number of closure rows written
+     */
+    public int refreshForApplications(Select<Record1<Long>> applicationIdSelector) {
+        checkNotNull(applicationIdSelector, "applicationIdSelector cannot be null");
+
+        return refresh(
+                PERSON_APPLICATION_CLOSURE.APPLICATION_ID.in(applicationIdSelector),
+                INVOLVEMENT.ENTITY_ID.in(applicationIdSelector));
+    }
+
+
+    private int refresh(Condition closureCondition,
+                        Condition involvementCondition) {
+        synchronized (refreshLock) {
+            try {
+                return replaceRows(closureCondition, involvementCondition);
+            } catch (RuntimeException e) {
+                if (!isIntegrityViolation(e)) {
+                    throw e;
+                }
+                // another instance inserted the same rows concurrently, they are committed now so try again
+                return replaceRows(closureCondition, involvementCondition);
+            }
+        }
+    }
+
+
+    private int replaceRows(Condition closureCondition,
+                            Condition involvementCondition) {
+        Table<Record2<String, Long>> closure = mkClosureSelect(involvementCondition).asTable("closure");
+        Field<String> employeeId = closure.field(0, String.class);
+        Field<Long> applicationId = closure.field(1, Long.class);
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = DSL.using(ctx);
+            tx.deleteFrom(PERSON_APPLICATION_CLOSURE)
+                    .where(closureCondition)
+                    .execute();
+            return tx
+                    .insertInto(PERSON_APPLICATION_CLOSURE)
+                    .columns(PERSON_APPLICATION_CLOSURE.EMPLOYEE_ID, PERSON_APPLICATION_CLOSURE.APPLICATION_ID)
+                    .select(DSL
+                            .select(employeeId, applicationId)
+                            .from(closure)
+                            .whereNotExists(DSL
+                                    .selectOne()
+                                    .from(PERSON_APPLICATION_CLOSURE)
+                                    .where(PERSON_APPLICATION_CLOSURE.EMPLOYEE_ID.eq(employeeId))
+                                    .and(PERSON_APPLICATION_CLOSURE.APPLICATION_ID.eq(applicationId))))
+                    .execute();
+        });
+    }
+
+
+    private static boolean isIntegrityViolation(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException
+                || (e instanceof DataAccessException
+                    && ((DataAccessException) e).sqlStateClass() == SQLStateClass.C23_INTEGRITY_CONSTRAINT_VIOLATION);
+    }
+
+
+    private static Select<Record2<String, Long>> mkClosureSelect(Condition involvementCondition) {
+        Condition isAppInvolvement = INVOLVEMENT.ENTITY_KIND.eq(EntityKind.APPLICATION.name())
+                .and(involvementCondition);
+
+        Select<Record2<String, Long>> direct = DSL
+                .select(INVOLVEMENT.EMPLOYEE_ID, INVOLVEMENT.ENTITY_ID)
+                .from(INVOLVEMENT)
+                .where(isAppInvolvement);
+
+        Select<Record2<String, Long>> viaReportees = DSL
+                .select(PERSON_HIERARCHY.MANAGER_ID, INVOLVEMENT.ENTITY_ID)
+                .from(INVOLVEMENT)
+                .innerJoin(PERSON_HIERARCHY).on(PERSON_HIERARCHY.EMPLOYEE_ID.eq(INVOLVEMENT.EMPLOYEE_ID))
+                .innerJoin(PERSON).on(PERSON.EMPLOYEE_ID.eq(INVOLVEMENT.EMPLOYEE_ID))
+                .where(isAppInvolvement)
+                .and(PERSON.IS_REMOVED.isFalse());
+
+        return direct.union(viaReportees);
+    }
+
+}
@@ -36,6 +36,7 @@ import java.sql.Timestamp;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toSet;
@@ -45,6 +46,7 @@ import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.common.EnumUtilities.readEnum;
 import static org.finos.waltz.common.ListUtilities.filter;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.common.ListUtilities.partition;
 import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.asSet;
@@ -64,6 +66,8 @@ public class LogicalFlowDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowDao.class);
 
+    private static final int ADD_FLOWS_BATCH_SIZE = 250;
+
     private static final Field<String> SOURCE_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
             LOGICAL_FLOW.SOURCE_ENTITY_ID,
             LOGICAL_FLOW.SOURCE_ENTITY_KIND,
@@ -220,17 +224,27 @@ public class LogicalFlowDao {
     }
 
 
+    /**
+     * Adds the given flows, restoring any which have previously been removed.
+     * Flows are processed in batches, new flows in each batch are written with
+     * a single batched insert.
+     *
+     * @param flows  flows to add, only the source and target are used to detect existing flows
+     * @param user  who is adding the flows
+     * @return the flows which were added or restored
+     */
     public Set<LogicalFlow> addFlows(Set<LogicalFlow> flows, String user) {
-
-        Condition condition = flows
+        return partition(flows, ADD_FLOWS_BATCH_SIZE)
                 .stream()
-                .map(t -> isSourceCondition(t.source())
-                        .and(isTargetCondition(t.target())))
-                .reduce(Condition::or)
-                .orElse(DSL.falseCondition());
+                .flatMap(batch -> addFlowBatch(batch, user).stream())
+                .collect(toSet());
+    }
+
+
+    private Set<LogicalFlow> addFlowBatch(List<LogicalFlow> flows, String user) {
 
         List<LogicalFlow> existingFlows = baseQuery()
-                .where(condition)
+                .where(mkSourceAndTargetCondition(flows))
                 .fetch(TO_DOMAIN_MAPPER);
 
         List<LogicalFlow> removedFlows = filter(
@@ -245,18 +259,27 @@ public class LogicalFlowDao {
                 existingFlows,
                 f -> tuple(f.source(), f.target()));
 
-        Set<LogicalFlow> addedFlows = flows
+        Collection<LogicalFlow> flowsToInsert = flows
                 .stream()
                 .filter(f -> !existing.containsKey(tuple(f.source(), f.target())))
-                .map(f -> {
-                    LogicalFlowRecord record = TO_RECORD_MAPPER.apply(f, dsl);
-                    record.store();
-                    return ImmutableLogicalFlow
-                            .copyOf(f)
-                            .withId(record.getId());
-                })
-                .collect(toSet());
-
+                .collect(Collectors.toMap(
+                        f -> tuple(f.source(), f.target()),
+                        f -> f,
+                        (f1, f2) -> f1,
+                        LinkedHashMap::new))
+                .values();
+
+        Set<LogicalFlow> addedFlows = new HashSet<>();
+
+        if (!flowsToInsert.isEmpty()) {
+            dsl.batchInsert(map(flowsToInsert, f -> TO_RECORD_MAPPER.apply(f, dsl)))
+                    .execute();
+
+            addedFlows.addAll(baseQuery()
+                    .where(mkSourceAndTargetCondition(flowsToInsert))
+                    .and(LOGICAL_NOT_REMOVED)
+                    .fetch(TO_DOMAIN_MAPPER));
+        }
 
         addedFlows.addAll(removedFlows);
 
@@ -332,6 +355,32 @@ public class LogicalFlowDao {
     }
 
 
+    /**
+     * Lazy variant of {@link #findBySelector(Select)}, rows are mapped as they are
+     * read from the underlying cursor.  The caller must close the stream to
+     * release the connection.
+     */
+    public Stream<LogicalFlow> streamBySelector(Select<Record1<Long>> flowIdSelector) {
+        return baseQuery()
+                .where(dsl.renderInlined(LOGICAL_FLOW.ID.in(flowIdSelector)))
+                .fetchStream()
+                .map(TO_DOMAIN_MAPPER::map);
+    }
+
+
+    /**
+     * Streams every flow which has not been removed, used to (re)build the
+     * in-memory flow graph.  The caller must close the stream to release the
+     * connection.
+     */
+    public Stream<LogicalFlow> streamAllNotRemoved() {
+        return baseQuery()
+                .where(LOGICAL_NOT_REMOVED)
+                .fetchStream()
+                .map(TO_DOMAIN_MAPPER::map);
+    }
+
+
     public Integer cleanupOrphans() {
         Select<Record1<Long>> appIds = DSL
                 .select(APPLICATION.ID)
@@ -362,6 +411,7 @@ public class LogicalFlowDao {
                 .update(LOGICAL_FLOW)
                 .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, REMOVED.name())
                 .set(LOGICAL_FLOW.IS_REMOVED, true)
+                .set(LOGICAL_FLOW.LAST_UPDATED_AT, Timestamp.valueOf(nowUtc()))
                 .where(requiringCleanup)
                 .execute();
     }
@@ -388,6 +438,7 @@ public class LogicalFlowDao {
                 .update(LOGICAL_FLOW)
                 .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, REMOVED.name())
                 .set(LOGICAL_FLOW.IS_REMOVED, true)
+                .set(LOGICAL_FLOW.LAST_UPDATED_AT, Timestamp.valueOf(nowUtc()))
                 .where(requiringCleanup)
                 .execute();
     }
@@ -409,6 +460,16 @@ public class LogicalFlowDao {
                     .and(LOGICAL_FLOW.SOURCE_ENTITY_KIND.eq(ref.kind().name()));
     }
 
+    private Condition mkSourceAndTargetCondition(Collection<LogicalFlow> flows) {
+        return flows
+                .stream()
+                .map(t -> isSourceCondition(t.source())
+                        .and(isTargetCondition(t.target())))
+                .reduce(Condition::or)
+                .orElse(DSL.falseCondition());
+    }
+
+
     private SelectJoinStep<Record> baseQuery() {
         return dsl
                 .select(LOGICAL_FLOW.fields())
@@ -430,12 +491,7 @@ public class LogicalFlowDao {
             return 0;
         }
 
-        Condition condition = flows
-                .stream()
-                .map(t -> isSourceCondition(t.source())
-                        .and(isTargetCondition(t.target())))
-                .reduce(Condition::or)
-                .get();
+        Condition condition = mkSourceAndTargetCondition(flows);
 
         return dsl.update(LOGICAL_FLOW)
                 .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, ACTIVE.name())
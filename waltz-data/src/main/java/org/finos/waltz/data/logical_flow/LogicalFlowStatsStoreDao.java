@@ -0,0 +1,347 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.logical_flow;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowMeasures;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowStatistics;
+import org.finos.waltz.model.logical_flow.LogicalFlowStatistics;
+import org.finos.waltz.model.tally.ImmutableTally;
+import org.finos.waltz.model.tally.ImmutableTallyPack;
+import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.schema.tables.records.LogicalFlowDataTypeStatsRecord;
+import org.finos.waltz.schema.tables.records.LogicalFlowStatsRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.APPLICATION_GROUP;
+import static org.finos.waltz.schema.Tables.APPLICATION_GROUP_ENTRY;
+import static org.finos.waltz.schema.Tables.APPLICATION_GROUP_OU_ENTRY;
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW_DATA_TYPE_STATS;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW_STATS;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+
+
+/**
+ * Stores pre-aggregated logical flow statistics for org units and app groups.
+ *
+ * Rows are written by the <code>LogicalFlowStatsService</code> and replaced
+ * wholesale whenever an entity is recalculated.
+ */
+@Repository
+public class LogicalFlowStatsStoreDao {
+
+    private static final String INBOUND = "INBOUND";
+    private static final String OUTBOUND = "OUTBOUND";
+    private static final String INTRA = "INTRA";
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public LogicalFlowStatsStoreDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @param ref  org unit or app group
+     * @param calculatedAfter  statistics calculated before this time are ignored
+     * @return the stored statistics for the entity, empty if they have not been calculated (recently)
+     */
+    public Optional<LogicalFlowStatistics> findStats(EntityReference ref,
+                                                     LocalDateTime calculatedAfter) {
+        checkNotNull(ref, "ref cannot be null");
+        checkNotNull(calculatedAfter, "calculatedAfter cannot be null");
+
+        LogicalFlowStatsRecord statsRecord = dsl
+                .selectFrom(LOGICAL_FLOW_STATS)
+                .where(mkEntityCondition(ref))
+                .and(LOGICAL_FLOW_STATS.CALCULATED_AT.ge(Timestamp.valueOf(calculatedAfter)))
+                .fetchOne();
+
+        if (statsRecord == null) {
+            return Optional.empty();
+        }
+
+        LocalDateTime calculatedAt = statsRecord.getCalculatedAt().toLocalDateTime();
+
+        List<TallyPack<String>> dataTypeCounts = dsl
+                .selectFrom(LOGICAL_FLOW_DATA_TYPE_STATS)
+                .where(LOGICAL_FLOW_DATA_TYPE_STATS.ENTITY_KIND.eq(ref.kind().name()))
+                .and(LOGICAL_FLOW_DATA_TYPE_STATS.ENTITY_ID.eq(ref.id()))
+                .fetch()
+                .stream()
+                .map(r -> ImmutableTallyPack.<String>builder()
+                        .entityReference(mkRef(EntityKind.DATA_TYPE, r.getDataTypeId()))
+                        .tallies(mkTallies(r.getInboundCount(), r.getOutboundCount(), r.getIntraCount()))
+                        .lastUpdatedAt(calculatedAt)
+                        .build())
+                .collect(toList());
+
+        return Optional.of(ImmutableLogicalFlowStatistics.builder()
+                .appCounts(ImmutableLogicalFlowMeasures.builder()
+                        .inbound(statsRecord.getAppCountInbound())
+                        .outbound(statsRecord.getAppCountOutbound())
+                        .intra(statsRecord.getAppCountIntra())
+                        .build())
+                .flowCounts(ImmutableLogicalFlowMeasures.builder()
+                        .inbound(statsRecord.getFlowCountInbound())
+                        .outbound(statsRecord.getFlowCountOutbound())
+                        .intra(statsRecord.getFlowCountIntra())
+                        .build())
+                .dataTypeCounts(dataTypeCounts)
+                .build());
+    }
+
+
+    /**
+     * Replaces any stored statistics for the entity with the given values.
+     */
+    public void saveStats(EntityReference ref,
+                          LogicalFlowStatistics stats,
+                          LocalDateTime calculatedAt) {
+        checkNotNull(ref, "ref cannot be null");
+        checkNotNull(stats, "stats cannot be null");
+        checkNotNull(calculatedAt, "calculatedAt cannot be null");
+
+        LogicalFlowStatsRecord statsRecord = dsl.newRecord(LOGICAL_FLOW_STATS);
+        statsRecord.setEntityKind(ref.kind().name());
+        statsRecord.setEntityId(ref.id());
+        statsRecord.setAppCountInbound(toInt(stats.appCounts().inbound()));
+        statsRecord.setAppCountOutbound(toInt(stats.appCounts().outbound()));
+        statsRecord.setAppCountIntra(toInt(stats.appCounts().intra()));
+        statsRecord.setFlowCountInbound(toInt(stats.flowCounts().inbound()));
+        statsRecord.setFlowCountOutbound(toInt(stats.flowCounts().outbound()));
+        statsRecord.setFlowCountIntra(toInt(stats.flowCounts().intra()));
+        statsRecord.setCalculatedAt(Timestamp.valueOf(calculatedAt));
+
+        List<LogicalFlowDataTypeStatsRecord> dataTypeRecords = stats
+                .dataTypeCounts()
+                .stream()
+                .map(pack -> {
+                    LogicalFlowDataTypeStatsRecord r = dsl.newRecord(LOGICAL_FLOW_DATA_TYPE_STATS);
+                    r.setEntityKind(ref.kind().name());
+                    r.setEntityId(ref.id());
+                    r.setDataTypeId(pack.entityReference().id());
+                    r.setInboundCount(tallyCount(pack, INBOUND));
+                    r.setOutboundCount(tallyCount(pack, OUTBOUND));
+                    r.setIntraCount(tallyCount(pack, INTRA));
+                    return r;
+                })
+                .collect(toList());
+
+        dsl.transaction(ctx -> {
+            DSLContext tx = DSL.using(ctx);
+            deleteStats(tx, ref);
+            tx.insertInto(LOGICAL_FLOW_STATS)
+                    .set(statsRecord)
+                    .execute();
+            tx.batchInsert(dataTypeRecords)
+                    .execute();
+        });
+    }
+
+
+    public int deleteStats(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+        return dsl.transactionResult(ctx -> deleteStats(DSL.using(ctx), ref));
+    }
+
+
+    /**
+     * Removes statistics calculated before the given time, used to clear out
+     * rows for entities which no longer exist after a full rebuild.
+     */
+    public int deleteCalculatedBefore(LocalDateTime cutoff) {
+        checkNotNull(cutoff, "cutoff cannot be null");
+
+        Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = DSL.using(ctx);
+
+            Select<Record1<Long>> staleOrgUnits = mkStaleSelector(EntityKind.ORG_UNIT, cutoffTimestamp);
+            Select<Record1<Long>> staleGroups = mkStaleSelector(EntityKind.APP_GROUP, cutoffTimestamp);
+
+            tx.deleteFrom(LOGICAL_FLOW_DATA_TYPE_STATS)
+                    .where(LOGICAL_FLOW_DATA_TYPE_STATS.ENTITY_KIND.eq(EntityKind.ORG_UNIT.name())
+                            .and(LOGICAL_FLOW_DATA_TYPE_STATS.ENTITY_ID.in(staleOrgUnits)))
+                    .or(LOGICAL_FLOW_DATA_TYPE_STATS.ENTITY_KIND.eq(EntityKind.APP_GROUP.name())
+                            .and(LOGICAL_FLOW_DATA_TYPE_STATS.ENTITY_ID.in(staleGroups)))
+                    .execute();
+
+            return tx
+                    .deleteFrom(LOGICAL_FLOW_STATS)
+                    .where(LOGICAL_FLOW_STATS.CALCULATED_AT.lt(cutoffTimestamp))
+                    .execute();
+        });
+    }
+
+
+    /**
+     * @return all org units and (non-removed) app groups, i.e. every entity which has stored statistics
+     */
+    public Set<EntityReference> findAllOrgUnitsAndAppGroups() {
+        Select<Record1<Long>> orgUnitIds = DSL
+                .select(ORGANISATIONAL_UNIT.ID)
+                .from(ORGANISATIONAL_UNIT);
+
+        Select<Record1<Long>> groupIds = DSL
+                .select(APPLICATION_GROUP.ID)
+                .from(APPLICATION_GROUP)
+                .where(APPLICATION_GROUP.IS_REMOVED.isFalse());
+
+        return fetchRefs(orgUnitIds, groupIds);
+    }
+
+
+    /**
+     * Finds the org units and app groups whose statistics include any of the
+     * given applications.  For org units this is the owning unit and all of its
+     * ancestors, for app groups it is any group which includes the application
+     * directly or via one of those org units.
+     *
+     * @param appIds  applications which have changed
+     * @return org unit and app group references
+     */
+    public Set<EntityReference> findOrgUnitsAndAppGroupsForApplications(Collection<Long> appIds) {
+        checkNotNull(appIds, "appIds cannot be null");
+
+        Select<Record1<Long>> orgUnitIds = DSL
+                .selectDistinct(ENTITY_HIERARCHY.ANCESTOR_ID)
+                .from(APPLICATION)
+                .innerJoin(ENTITY_HIERARCHY)
+                .on(ENTITY_HIERARCHY.ID.eq(APPLICATION.ORGANISATIONAL_UNIT_ID)
+                        .and(ENTITY_HIERARCHY.KIND.eq(EntityKind.ORG_UNIT.name())))
+                .where(APPLICATION.ID.in(appIds));
+
+        Select<Record1<Long>> groupIds = DSL
+                .select(APPLICATION_GROUP_ENTRY.GROUP_ID)
+                .from(APPLICATION_GROUP_ENTRY)
+                .where(APPLICATION_GROUP_ENTRY.APPLICATION_ID.in(appIds))
+                .union(DSL
+                        .select(APPLICATION_GROUP_OU_ENTRY.GROUP_ID)
+                        .from(APPLICATION_GROUP_OU_ENTRY)
+                        .where(APPLICATION_GROUP_OU_ENTRY.ORG_UNIT_ID.in(orgUnitIds)));
+
+        return fetchRefs(orgUnitIds, groupIds);
+    }
+
+
+    // -- HELPERS ---
+
+    private Set<EntityReference> fetchRefs(Select<Record1<Long>> orgUnitIds,
+                                           Select<Record1<Long>> groupIds) {
+        Set<EntityReference> orgUnits = dsl
+                .fetch(orgUnitIds)
+                .intoSet(r -> mkRef(EntityKind.ORG_UNIT, r.value1()));
+
+        Set<EntityReference> groups = dsl
+                .fetch(groupIds)
+                .intoSet(r -> mkRef(EntityKind.APP_GROUP, r.value1()));
+
+        orgUnits.addAll(groups);
+        return orgUnits;
+    }
+
+
+    private static int deleteStats(DSLContext tx, EntityReference ref) {
+        tx.deleteFrom(LOGICAL_FLOW_DATA_TYPE_STATS)
+                .where(LOGICAL_FLOW_DATA_TYPE_STATS.ENTITY_KIND.eq(ref.kind().name()))
+                .and(LOGICAL_FLOW_DATA_TYPE_STATS.ENTITY_ID.eq(ref.id()))
+                .execute();
+
+        return tx
+                .deleteFrom(LOGICAL_FLOW_STATS)
+                .where(mkEntityCondition(ref))
+                .execute();
+    }
+
+
+    private static Select<Record1<Long>> mkStaleSelector(EntityKind kind, Timestamp cutoff) {
+        return DSL
+                .select(LOGICAL_FLOW_STATS.ENTITY_ID)
+                .from(LOGICAL_FLOW_STATS)
+                .where(LOGICAL_FLOW_STATS.ENTITY_KIND.eq(kind.name()))
+                .and(LOGICAL_FLOW_STATS.CALCULATED_AT.lt(cutoff));
+    }
+
+
+    private static Condition mkEntityCondition(EntityReference ref) {
+        return LOGICAL_FLOW_STATS.ENTITY_KIND.eq(ref.kind().name())
+                .and(LOGICAL_FLOW_STATS.ENTITY_ID.eq(ref.id()));
+    }
+
+
+    private static List<Tally<String>> mkTallies(int inbound, int outbound, int intra) {
+        List<Tally<String>> tallies = new ArrayList<>(3);
+        addTally(tallies, INBOUND, inbound);
+        addTally(tallies, OUTBOUND, outbound);
+        addTally(tallies, INTRA, intra);
+        return tallies;
+    }
+
+
+    private static void addTally(List<Tally<String>> tallies, String id, int count) {
+        // the live query only produces tallies for non-zero counts, mirror that here
+        if (count > 0) {
+            tallies.add(ImmutableTally.<String>builder()
+                    .id(id)
+                    .count(count)
+                    .build());
+        }
+    }
+
+
+    private static int tallyCount(TallyPack<String> pack, String id) {
+        return pack.tallies()
+                .stream()
+                .filter(t -> id.equals(t.id()))
+                .mapToInt(t -> toInt(t.count()))
+                .sum();
+    }
+
+
+    private static int toInt(double d) {
+        return (int) Math.round(d);
+    }
+
+}
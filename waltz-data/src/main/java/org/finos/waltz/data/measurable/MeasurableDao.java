@@ -194,6 +194,7 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
         return dsl
                 .update(MEASURABLE)
                 .set(MEASURABLE.ENTITY_LIFECYCLE_STATUS, EntityLifecycleStatus.REMOVED.name())
+                .set(MEASURABLE.LAST_UPDATED_AT, DateTimeUtilities.nowUtcTimestamp())
                 .where(MEASURABLE.ID.in(selector))
                 .execute();
     }
@@ -22,6 +22,7 @@ package org.finos.waltz.data.measurable;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeIdSelectorFactory;
 import org.finos.waltz.schema.tables.MeasurableRating;
 import org.finos.waltz.data.IdSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
 import org.finos.waltz.model.EntityKind;
@@ -38,13 +39,33 @@ import static org.finos.waltz.schema.tables.EntityRelationship.ENTITY_RELATIONSH
 import static org.finos.waltz.schema.tables.Measurable.MEASURABLE;
 import static org.finos.waltz.schema.tables.MeasurableRating.MEASURABLE_RATING;
 import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.data.SelectorUtilities.ensureScopeIsExact;
 import static org.finos.waltz.data.SelectorUtilities.mkApplicationConditions;
 
 public class MeasurableIdSelectorFactory implements IdSelectorFactory {
 
-    private final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+    private final EntityHierarchyIndexes hierarchyIndexes;
+    private final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory;
+
+
+    /**
+     * Creates a factory which always expands hierarchies via the <code>entity_hierarchy</code> table.
+     */
+    public MeasurableIdSelectorFactory() {
+        this(new EntityHierarchyIndexes());
+    }
+
+
+    /**
+     * Creates a factory which expands hierarchies via the given indexes where possible.
+     */
+    public MeasurableIdSelectorFactory(EntityHierarchyIndexes hierarchyIndexes) {
+        checkNotNull(hierarchyIndexes, "hierarchyIndexes cannot be null");
+        this.hierarchyIndexes = hierarchyIndexes;
+        this.orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory(hierarchyIndexes);
+    }
 
 
     @Override
@@ -81,7 +102,7 @@ public class MeasurableIdSelectorFactory implements IdSelectorFactory {
 
     private Select<Record1<Long>> mkForChangeInitiative(IdSelectionOptions options) {
 
-        Select<Record1<Long>> changeInitiativeSelector = new ChangeInitiativeIdSelectorFactory().apply(options);
+        Select<Record1<Long>> changeInitiativeSelector = new ChangeInitiativeIdSelectorFactory(hierarchyIndexes).apply(options);
 
         Select<Record1<Long>> ciToMeasurable = DSL
                 .select(ENTITY_RELATIONSHIP.ID_B)
@@ -205,7 +226,7 @@ public class MeasurableIdSelectorFactory implements IdSelectorFactory {
 
     private Select<Record1<Long>> mkViaAppSelector(IdSelectionOptions options) {
 
-        ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+        ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory(hierarchyIndexes);
         Select<Record1<Long>> validAppIds = applicationIdSelectorFactory.apply(options);
 
         SelectConditionStep<Record1<Long>> measurableIds = DSL
@@ -348,22 +369,30 @@ public class MeasurableIdSelectorFactory implements IdSelectorFactory {
                 selector = DSL.select(DSL.val(options.entityReference().id()));
                 break;
             case CHILDREN:
-                selector = DSL
-                        .select(ENTITY_HIERARCHY.ID)
-                        .from(ENTITY_HIERARCHY)
-                        .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ID))
-                        .where(ENTITY_HIERARCHY.ANCESTOR_ID.eq(options.entityReference().id()))
-                        .and(isMeasurable)
-                        .and(mkLifecycleCondition(options));
+                selector = hierarchyIndexes
+                        .findDescendantIds(EntityKind.MEASURABLE, options.entityReference().id())
+                        .filter(EntityHierarchyIndexes::canInline)
+                        .map(ids -> mkForIndexedMeasurables(ids, options))
+                        .orElseGet(() -> DSL
+                                .select(ENTITY_HIERARCHY.ID)
+                                .from(ENTITY_HIERARCHY)
+                                .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ID))
+                                .where(ENTITY_HIERARCHY.ANCESTOR_ID.eq(options.entityReference().id()))
+                                .and(isMeasurable)
+                                .and(mkLifecycleCondition(options)));
                 break;
             case PARENTS:
-                selector = DSL
-                        .select(ENTITY_HIERARCHY.ANCESTOR_ID)
-                        .from(ENTITY_HIERARCHY)
-                        .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ANCESTOR_ID))
-                        .where(ENTITY_HIERARCHY.ID.eq(options.entityReference().id()))
-                        .and(isMeasurable)
-                        .and(mkLifecycleCondition(options));
+                selector = hierarchyIndexes
+                        .findAncestorIds(EntityKind.MEASURABLE, options.entityReference().id())
+                        .filter(EntityHierarchyIndexes::canInline)
+                        .map(ids -> mkForIndexedMeasurables(ids, options))
+                        .orElseGet(() -> DSL
+                                .select(ENTITY_HIERARCHY.ANCESTOR_ID)
+                                .from(ENTITY_HIERARCHY)
+                                .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ANCESTOR_ID))
+                                .where(ENTITY_HIERARCHY.ID.eq(options.entityReference().id()))
+                                .and(isMeasurable)
+                                .and(mkLifecycleCondition(options)));
                 break;
         }
 
@@ -371,6 +400,19 @@ public class MeasurableIdSelectorFactory implements IdSelectorFactory {
     }
 
 
+    /**
+     * Hierarchy ids resolved via the in-memory index are inlined, only the
+     * lifecycle status needs checking against the measurable table.
+     */
+    private Select<Record1<Long>> mkForIndexedMeasurables(long[] ids, IdSelectionOptions options) {
+        return DSL
+                .select(MEASURABLE.ID)
+                .from(MEASURABLE)
+                .where(MEASURABLE.ID.in(EntityHierarchyIndexes.toInlinedFields(ids)))
+                .and(mkLifecycleCondition(options));
+    }
+
+
     private Condition mkLifecycleCondition(IdSelectionOptions options) {
         return MEASURABLE.ENTITY_LIFECYCLE_STATUS.in(options.entityLifecycleStatuses());
     }
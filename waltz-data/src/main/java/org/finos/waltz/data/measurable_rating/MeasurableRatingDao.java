@@ -44,6 +44,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptySet;
@@ -229,14 +230,26 @@ public class MeasurableRatingDao {
 
     public Collection<MeasurableRating> findByApplicationIdSelector(Select<Record1<Long>> selector) {
         checkNotNull(selector, "selector cannot be null");
-        Condition condition = MEASURABLE_RATING.ENTITY_ID.in(selector)
-                .and(MEASURABLE_RATING.ENTITY_KIND.eq(DSL.val(EntityKind.APPLICATION.name())));
         return mkBaseQuery()
-                .where(dsl.renderInlined(condition))
+                .where(dsl.renderInlined(mkApplicationSelectorCondition(selector)))
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
 
+    /**
+     * Lazy variant of {@link #findByApplicationIdSelector(Select)}, rows are mapped as
+     * they are read from the underlying cursor.  The caller must close the stream to
+     * release the connection.
+     */
+    public Stream<MeasurableRating> streamByApplicationIdSelector(Select<Record1<Long>> selector) {
+        checkNotNull(selector, "selector cannot be null");
+        return mkBaseQuery()
+                .where(dsl.renderInlined(mkApplicationSelectorCondition(selector)))
+                .fetchStream()
+                .map(TO_DOMAIN_MAPPER::map);
+    }
+
+
     public Collection<MeasurableRating> findByCategory(long id) {
         return mkBaseQuery()
                 .innerJoin(MEASURABLE).on(MEASURABLE_RATING.MEASURABLE_ID.eq(MEASURABLE.ID))
@@ -322,6 +335,12 @@ public class MeasurableRatingDao {
 
     // --- utils
 
+    private Condition mkApplicationSelectorCondition(Select<Record1<Long>> selector) {
+        return MEASURABLE_RATING.ENTITY_ID.in(selector)
+                .and(MEASURABLE_RATING.ENTITY_KIND.eq(DSL.val(EntityKind.APPLICATION.name())));
+    }
+
+
     private SelectJoinStep<Record> mkBaseQuery() {
         return dsl
                 .select(MEASURABLE_RATING.fields())
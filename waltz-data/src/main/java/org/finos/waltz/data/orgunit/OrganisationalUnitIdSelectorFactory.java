@@ -20,6 +20,7 @@ package org.finos.waltz.data.orgunit;
 
 
 import org.finos.waltz.data.entity_hierarchy.AbstractIdSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.model.HierarchyQueryScope;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.schema.Tables;
@@ -37,6 +38,11 @@ public class OrganisationalUnitIdSelectorFactory extends AbstractIdSelectorFacto
         super(ORG_UNIT);
     }
 
+
+    public OrganisationalUnitIdSelectorFactory(EntityHierarchyIndexes hierarchyIndexes) {
+        super(ORG_UNIT, hierarchyIndexes);
+    }
+
     @Override
     protected Select<Record1<Long>> mkForOptions(IdSelectionOptions options) {
         switch (options.entityReference().kind()) {
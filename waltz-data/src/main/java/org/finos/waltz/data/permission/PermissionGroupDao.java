@@ -11,6 +11,7 @@ import org.finos.waltz.model.permission_group.*;
 import org.finos.waltz.schema.Tables;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.jooq.lambda.tuple.Tuple3;
 import org.jooq.lambda.tuple.Tuple5;
 import org.springframework.stereotype.Repository;
@@ -18,7 +19,7 @@ import org.springframework.stereotype.Repository;
 import java.util.*;
 
 import static java.util.Collections.emptySet;
-import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.*;
 import static org.finos.waltz.common.MapUtilities.groupAndThen;
 import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.SetUtilities.*;
@@ -63,15 +64,108 @@ public class PermissionGroupDao {
                 .leftJoin(INVOLVEMENT_GROUP_ENTRY).on(INVOLVEMENT_GROUP.ID.eq(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_GROUP_ID))
                 .where(groupCondition);
 
-        Map<Tuple5<String, String, Long, String, String>, List<Long>> permissionsForSubjectQualifier = qry
+        return toPermissions(qry.fetch());
+    }
+
+
+    /**
+     * Bulk variant of {@link #findPermissionsForParentEntityReference(EntityReference)}.
+     * The permission group overrides for all the refs are resolved with one query and
+     * the permissions for all the relevant groups are fetched with a second, regardless
+     * of the number of refs.
+     *
+     * @param parentEntityRefs  entities to check, the result is keyed by these references
+     * @return  permissions for each ref, based on its override groups or, if it has none, the default groups
+     */
+    public Map<EntityReference, Set<Permission>> findPermissionsForParentEntityReferences(Collection<EntityReference> parentEntityRefs) {
+
+        if (parentEntityRefs.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<Tuple2<String, Long>, Set<Long>> overrideGroupIdsByRef = dsl
+                .select(PERMISSION_GROUP_ENTRY.ENTITY_KIND,
+                        PERMISSION_GROUP_ENTRY.ENTITY_ID,
+                        PERMISSION_GROUP_ENTRY.PERMISSION_GROUP_ID)
+                .from(PERMISSION_GROUP_ENTRY)
+                .where(mkPermissionGroupEntryCondition(parentEntityRefs))
                 .fetchGroups(
+                        r -> tuple(r.get(PERMISSION_GROUP_ENTRY.ENTITY_KIND), r.get(PERMISSION_GROUP_ENTRY.ENTITY_ID)),
+                        r -> r.get(PERMISSION_GROUP_ENTRY.PERMISSION_GROUP_ID))
+                .entrySet()
+                .stream()
+                .collect(toMap(Map.Entry::getKey, e -> fromCollection(e.getValue())));
+
+        Set<Long> overrideGroupIds = overrideGroupIdsByRef
+                .values()
+                .stream()
+                .flatMap(Collection::stream)
+                .collect(toSet());
+
+        Result<Record8<Long, Boolean, String, String, Long, String, String, Long>> records = dsl
+                .select(PERMISSION_GROUP.ID,
+                        PERMISSION_GROUP.IS_DEFAULT,
+                        PERMISSION_GROUP_INVOLVEMENT.OPERATION,
+                        PERMISSION_GROUP_INVOLVEMENT.QUALIFIER_KIND,
+                        PERMISSION_GROUP_INVOLVEMENT.QUALIFIER_ID,
+                        PERMISSION_GROUP_INVOLVEMENT.PARENT_KIND,
+                        PERMISSION_GROUP_INVOLVEMENT.SUBJECT_KIND,
+                        INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_KIND_ID)
+                .from(PERMISSION_GROUP)
+                .leftJoin(PERMISSION_GROUP_INVOLVEMENT).on(PERMISSION_GROUP.ID.eq(PERMISSION_GROUP_INVOLVEMENT.PERMISSION_GROUP_ID))
+                .leftJoin(INVOLVEMENT_GROUP).on(PERMISSION_GROUP_INVOLVEMENT.INVOLVEMENT_GROUP_ID.eq(INVOLVEMENT_GROUP.ID))
+                .leftJoin(INVOLVEMENT_GROUP_ENTRY).on(INVOLVEMENT_GROUP.ID.eq(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_GROUP_ID))
+                .where(PERMISSION_GROUP.IS_DEFAULT.isTrue()
+                        .or(PERMISSION_GROUP.ID.in(overrideGroupIds)))
+                .fetch();
+
+        Set<Long> defaultGroupIds = records
+                .stream()
+                .filter(r -> Boolean.TRUE.equals(r.get(PERMISSION_GROUP.IS_DEFAULT)))
+                .map(r -> r.get(PERMISSION_GROUP.ID))
+                .collect(toSet());
+
+        Map<Long, List<Record>> recordsByGroupId = records
+                .stream()
+                .filter(r -> r.get(PERMISSION_GROUP_INVOLVEMENT.OPERATION) != null)
+                .collect(groupingBy(r -> r.get(PERMISSION_GROUP.ID)));
+
+        // most refs share the same groups (typically the defaults), so only map each distinct combination once
+        Map<Set<Long>, Set<Permission>> permissionsByGroupIds = new HashMap<>();
+
+        Map<EntityReference, Set<Permission>> result = new HashMap<>();
+        parentEntityRefs.forEach(ref -> {
+            Set<Long> groupIds = overrideGroupIdsByRef.getOrDefault(
+                    tuple(ref.kind().name(), ref.id()),
+                    defaultGroupIds);
+
+            Set<Permission> permissions = permissionsByGroupIds.computeIfAbsent(
+                    groupIds,
+                    ids -> toPermissions(ids
+                            .stream()
+                            .flatMap(id -> recordsByGroupId.getOrDefault(id, Collections.emptyList()).stream())
+                            .collect(toList())));
+
+            result.put(ref, permissions);
+        });
+
+        return result;
+    }
+
+
+    private Set<Permission> toPermissions(Collection<? extends Record> records) {
+        Map<Tuple5<String, String, Long, String, String>, List<Long>> permissionsForSubjectQualifier = records
+                .stream()
+                .collect(groupingBy(
                         r -> tuple(
                                 r.get(PERMISSION_GROUP_INVOLVEMENT.OPERATION),
                                 r.get(PERMISSION_GROUP_INVOLVEMENT.QUALIFIER_KIND),
                                 r.get(PERMISSION_GROUP_INVOLVEMENT.QUALIFIER_ID),
                                 r.get(PERMISSION_GROUP_INVOLVEMENT.PARENT_KIND),
                                 r.get(PERMISSION_GROUP_INVOLVEMENT.SUBJECT_KIND)),
-                        r -> r.get(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_KIND_ID));
+                        mapping(
+                                r -> r.get(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_KIND_ID),
+                                toList())));
 
         return permissionsForSubjectQualifier
                 .entrySet()
@@ -106,6 +200,18 @@ public class PermissionGroupDao {
     }
 
 
+    private Condition mkPermissionGroupEntryCondition(Collection<EntityReference> refs) {
+        return refs
+                .stream()
+                .collect(groupingBy(EntityReference::kind, mapping(EntityReference::id, toSet())))
+                .entrySet()
+                .stream()
+                .map(e -> PERMISSION_GROUP_ENTRY.ENTITY_KIND.eq(e.getKey().name())
+                        .and(PERMISSION_GROUP_ENTRY.ENTITY_ID.in(e.getValue())))
+                .reduce(DSL.falseCondition(), Condition::or);
+    }
+
+
     private SelectConditionStep<Record1<Long>> permissionGroupSelector(EntityReference parentEntityRef) {
         return DSL
                 .select(PERMISSION_GROUP_ENTRY.PERMISSION_GROUP_ID)
@@ -33,14 +33,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static java.util.Collections.emptyList;
 import static org.finos.waltz.common.Checks.checkFalse;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.CollectionUtilities.map;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
@@ -224,6 +227,26 @@ public class PhysicalFlowDao {
     }
 
 
+    /**
+     * Finds the active physical flows which belong to any of the given logical
+     * flows and use any of the given specifications.  Callers are expected to
+     * match the precise (logical flow, specification) combinations they need.
+     *
+     * @param logicalFlowIds  logical flows to search
+     * @param specificationIds  specifications to search
+     * @return active physical flows
+     */
+    public List<PhysicalFlow> findByLogicalFlowIdsAndSpecificationIds(Collection<Long> logicalFlowIds,
+                                                                       Collection<Long> specificationIds) {
+        checkNotNull(logicalFlowIds, "logicalFlowIds cannot be null");
+        checkNotNull(specificationIds, "specificationIds cannot be null");
+
+        return findByCondition(PHYSICAL_FLOW.LOGICAL_FLOW_ID.in(logicalFlowIds)
+                .and(PHYSICAL_FLOW.SPECIFICATION_ID.in(specificationIds))
+                .and(PHYSICAL_FLOW_NOT_REMOVED));
+    }
+
+
     /**
      * Returns the flow in the database that matches the parameter based on all attributes except possibly id
      *
@@ -279,6 +302,31 @@ public class PhysicalFlowDao {
         checkNotNull(flow, "flow cannot be null");
         checkFalse(flow.id().isPresent(), "flow must not have an id");
 
+        PhysicalFlowRecord record = mkRecord(flow);
+        record.store();
+        return record.getId();
+    }
+
+
+    /**
+     * Creates the given flows with a single batched insert.  Generated ids are
+     * not returned, use {@link #findByLogicalFlowIdsAndSpecificationIds(Collection, Collection)}
+     * to retrieve the stored flows.
+     *
+     * @param flows  flows to create, must not have ids
+     * @return number of flows created
+     */
+    public int bulkCreate(Collection<PhysicalFlow> flows) {
+        checkNotNull(flows, "flows cannot be null");
+        flows.forEach(f -> checkFalse(f.id().isPresent(), "flow must not have an id"));
+
+        return IntStream
+                .of(dsl.batchInsert(map(flows, this::mkRecord)).execute())
+                .sum();
+    }
+
+
+    private PhysicalFlowRecord mkRecord(PhysicalFlow flow) {
         PhysicalFlowRecord record = dsl.newRecord(PHYSICAL_FLOW);
         record.setLogicalFlowId(flow.logicalFlowId());
 
@@ -301,8 +349,7 @@ public class PhysicalFlowDao {
         record.setCreatedAt(flow.created().map(UserTimestamp::atTimestamp).orElse(Timestamp.valueOf(flow.lastUpdatedAt())));
         record.setCreatedBy(flow.created().map(UserTimestamp::by).orElse(flow.lastUpdatedBy()));
 
-        record.store();
-        return record.getId();
+        return record;
     }
 
 
@@ -18,6 +18,7 @@
 
 package org.finos.waltz.data.physical_specification;
 
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.physical_flow.PhysicalFlowParsed;
@@ -30,6 +31,7 @@ import org.finos.waltz.schema.tables.*;
 import org.finos.waltz.schema.tables.records.PhysicalSpecificationRecord;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple4;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -37,9 +39,12 @@ import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkFalse;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.CollectionUtilities.map;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
@@ -55,6 +60,7 @@ import static org.finos.waltz.schema.tables.PhysicalFlow.PHYSICAL_FLOW;
 import static org.finos.waltz.schema.tables.PhysicalSpecDataType.PHYSICAL_SPEC_DATA_TYPE;
 import static org.finos.waltz.schema.tables.PhysicalSpecification.PHYSICAL_SPECIFICATION;
 import static org.jooq.impl.DSL.*;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
 public class PhysicalSpecificationDao {
@@ -163,6 +169,36 @@ public class PhysicalSpecificationDao {
     }
 
 
+    /**
+     * Bulk variant of {@link #getByParsedFlow(PhysicalFlowParsed)}, specifications
+     * are matched on owner, name and format.
+     *
+     * @param flows  parsed flows to find specifications for
+     * @return active specifications matching at least one of the given flows
+     */
+    public List<PhysicalSpecification> findByParsedFlows(Collection<PhysicalFlowParsed> flows) {
+        checkNotNull(flows, "flows cannot be null");
+
+        Set<Tuple4<String, Long, String, String>> requiredKeys = SetUtilities.map(
+                flows,
+                f -> tuple(f.owner().kind().name(), f.owner().id(), f.name(), f.format().value()));
+
+        Condition condition = PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID.in(map(requiredKeys, Tuple4::v2))
+                .and(PHYSICAL_SPECIFICATION.NAME.in(map(requiredKeys, Tuple4::v3)))
+                .and(PHYSICAL_SPEC_NOT_REMOVED);
+
+        return basicSelectByCondition(condition)
+                .fetch(TO_DOMAIN_MAPPER)
+                .stream()
+                .filter(spec -> requiredKeys.contains(tuple(
+                        spec.owningEntity().kind().name(),
+                        spec.owningEntity().id(),
+                        spec.name(),
+                        spec.format().value())))
+                .collect(toList());
+    }
+
+
     public boolean isUsed(long id) {
         Field<Boolean> specUsed = DSL.when(
                     exists(select(PHYSICAL_FLOW.ID)
@@ -183,6 +219,31 @@ public class PhysicalSpecificationDao {
         checkNotNull(specification, "specification cannot be null");
         checkFalse(specification.id().isPresent(), "specification must not have an id");
 
+        PhysicalSpecificationRecord record = mkRecord(specification);
+        record.store();
+        return record.getId();
+    }
+
+
+    /**
+     * Creates the given specifications with a single batched insert.  Generated
+     * ids are not returned, use {@link #findByParsedFlows(Collection)} (or similar)
+     * to retrieve the stored specifications.
+     *
+     * @param specifications  specifications to create, must not have ids
+     * @return number of specifications created
+     */
+    public int bulkCreate(Collection<PhysicalSpecification> specifications) {
+        checkNotNull(specifications, "specifications cannot be null");
+        specifications.forEach(s -> checkFalse(s.id().isPresent(), "specification must not have an id"));
+
+        return IntStream
+                .of(dsl.batchInsert(map(specifications, this::mkRecord)).execute())
+                .sum();
+    }
+
+
+    private PhysicalSpecificationRecord mkRecord(PhysicalSpecification specification) {
         PhysicalSpecificationRecord record = dsl.newRecord(PHYSICAL_SPECIFICATION);
         record.setOwningEntityKind(specification.owningEntity().kind().name());
         record.setOwningEntityId(specification.owningEntity().id());
@@ -199,8 +260,7 @@ public class PhysicalSpecificationDao {
         record.setCreatedAt(specification.created().get().atTimestamp());
         record.setCreatedBy(specification.created().get().by());
 
-        record.store();
-        return record.getId();
+        return record;
     }
 
 
@@ -253,6 +313,20 @@ public class PhysicalSpecificationDao {
      * @return  number of updates made to logical flows
      */
     public int propagateDataTypesToLogicalFlows(String userName, long specificationId) {
+        return propagateDataTypesToLogicalFlows(userName, asSet(specificationId));
+    }
+
+
+    /**
+     * Bulk variant of {@link #propagateDataTypesToLogicalFlows(String, long)}
+     * which aligns the logical flows of all the given specifications in a
+     * single transaction.
+     *
+     * @param userName
+     * @param specificationIds
+     * @return  number of updates made to logical flows
+     */
+    public int propagateDataTypesToLogicalFlows(String userName, Collection<Long> specificationIds) {
         return dsl.transactionResult(ctx -> {
             DSLContext tx = ctx.dsl();
 
@@ -262,7 +336,7 @@ public class PhysicalSpecificationDao {
                     .innerJoin(pf).on(psdt.SPECIFICATION_ID.eq(pf.SPECIFICATION_ID))
                     .innerJoin(lf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
                     .innerJoin(dt).on(dt.ID.eq(psdt.DATA_TYPE_ID))
-                    .where(pf.SPECIFICATION_ID.eq(specificationId))
+                    .where(pf.SPECIFICATION_ID.in(specificationIds))
                     .and(lf.IS_REMOVED.isFalse())
                     .and(pf.IS_REMOVED.isFalse())
                     .and(lf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()))
@@ -274,7 +348,7 @@ public class PhysicalSpecificationDao {
                     .innerJoin(lf).on(lf.ID.eq(lfd.LOGICAL_FLOW_ID))
                     .innerJoin(pf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
                     .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
-                    .where(pf.SPECIFICATION_ID.eq(specificationId))
+                    .where(pf.SPECIFICATION_ID.in(specificationIds))
                     .and(lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()));
 
             SelectOrderByStep<Record3<Long, Long, String>> requiredQry = desiredQry
@@ -320,13 +394,13 @@ public class PhysicalSpecificationDao {
                     .execute();
 
 
-            removeUnknownFromLogicalFlowWherePossible(tx, specificationId, userName);
+            removeUnknownFromLogicalFlowWherePossible(tx, specificationIds, userName);
 
             return insertCount;
         });
     }
 
-    private void removeUnknownFromLogicalFlowWherePossible(DSLContext tx, long specificationId, String userName) {
+    private void removeUnknownFromLogicalFlowWherePossible(DSLContext tx, Collection<Long> specificationIds, String userName) {
 
         SelectHavingConditionStep<Record1<Long>> flowsWithOtherDataTypes = tx
                 .select(lfd.LOGICAL_FLOW_ID)
@@ -334,7 +408,7 @@ public class PhysicalSpecificationDao {
                 .innerJoin(lf).on(lf.ID.eq(lfd.LOGICAL_FLOW_ID))
                 .innerJoin(pf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
                 .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
-                .where(pf.SPECIFICATION_ID.eq(specificationId))
+                .where(pf.SPECIFICATION_ID.in(specificationIds))
                 .and(dt.UNKNOWN.isFalse())
                 .and(lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()))
                 .groupBy(lfd.LOGICAL_FLOW_ID)
@@ -23,6 +23,7 @@ import org.finos.waltz.common.*;
 import org.finos.waltz.common.hierarchy.FlatNode;
 import org.finos.waltz.common.hierarchy.Forest;
 import org.finos.waltz.common.hierarchy.Node;
+import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.EntityKind;
@@ -50,12 +51,20 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
@@ -64,6 +73,7 @@ import static java.util.Comparator.comparing;
 import static java.util.Optional.ofNullable;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.*;
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDate;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
@@ -89,8 +99,20 @@ public class ReportGridDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReportGridDao.class);
 
+    /**
+     * Upper bound on the number of column kind queries which may run in parallel for a single grid
+     */
+    private static final int MAX_CONCURRENT_FETCHES_PER_GRID = 4;
+
+    /**
+     * Maximum time allowed to fetch all the cell data for a grid
+     */
+    private static final Duration FETCH_TIMEOUT = Duration.ofMinutes(5);
+
     private final DSLContext dsl;
 
+    private final DBExecutorPoolInterface dbExecutorPool;
+
     private final org.finos.waltz.schema.tables.Measurable m = MEASURABLE.as("m");
     private final org.finos.waltz.schema.tables.MeasurableRating mr = MEASURABLE_RATING.as("mr");
     private final org.finos.waltz.schema.tables.MeasurableCategory mc = MEASURABLE_CATEGORY.as("mc");
@@ -138,8 +160,12 @@ public class ReportGridDao {
 
 
     @Autowired
-    public ReportGridDao(DSLContext dsl) {
+    public ReportGridDao(DSLContext dsl, DBExecutorPoolInterface dbExecutorPool) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
+
         this.dsl = dsl;
+        this.dbExecutorPool = dbExecutorPool;
     }
 
 
@@ -185,6 +211,71 @@ public class ReportGridDao {
     }
 
 
+    /**
+     * Returns a token describing the current state of the grid data which is typically
+     * loaded by feeds (costs, complexities, statistics) or written without a change log
+     * entry for the subject (survey responses).  The token changes whenever rows for the
+     * given columns and subjects are added, removed or updated.
+     *
+     * @param genericSelector  selects the grid subjects
+     * @param cols  fixed column definitions of the grid
+     * @return version token, empty if the grid has no such columns
+     */
+    public String getUnloggedDataVersion(GenericSelector genericSelector,
+                                         Collection<ReportGridFixedColumnDefinition> cols) {
+
+        Map<EntityKind, Set<Long>> columnEntityIdsByKind = cols
+                .stream()
+                .filter(d -> d.entityFieldReference() == null && d.columnEntityId() != null)
+                .collect(groupingBy(
+                        ReportGridFixedColumnDefinition::columnEntityKind,
+                        mapping(ReportGridFixedColumnDefinition::columnEntityId, toSet())));
+
+        String subjectKind = genericSelector.kind().name();
+        List<Select<Record3<String, Integer, Timestamp>>> versionQueries = new ArrayList<>();
+
+        ofNullable(columnEntityIdsByKind.get(EntityKind.COST_KIND))
+                .ifPresent(ids -> versionQueries.add(dsl
+                        .select(DSL.val(EntityKind.COST_KIND.name()), DSL.count(), DSL.max(COST.LAST_UPDATED_AT))
+                        .from(COST)
+                        .where(COST.COST_KIND_ID.in(ids)
+                                .and(COST.ENTITY_KIND.eq(subjectKind))
+                                .and(COST.ENTITY_ID.in(genericSelector.selector())))));
+
+        ofNullable(columnEntityIdsByKind.get(EntityKind.COMPLEXITY_KIND))
+                .ifPresent(ids -> versionQueries.add(dsl
+                        .select(DSL.val(EntityKind.COMPLEXITY_KIND.name()), DSL.count(), DSL.max(COMPLEXITY.LAST_UPDATED_AT))
+                        .from(COMPLEXITY)
+                        .where(COMPLEXITY.COMPLEXITY_KIND_ID.in(ids)
+                                .and(COMPLEXITY.ENTITY_KIND.eq(subjectKind))
+                                .and(COMPLEXITY.ENTITY_ID.in(genericSelector.selector())))));
+
+        ofNullable(columnEntityIdsByKind.get(EntityKind.ENTITY_STATISTIC))
+                .ifPresent(ids -> versionQueries.add(dsl
+                        .select(DSL.val(EntityKind.ENTITY_STATISTIC.name()), DSL.count(), DSL.max(ENTITY_STATISTIC_VALUE.CREATED_AT))
+                        .from(ENTITY_STATISTIC_VALUE)
+                        .where(ENTITY_STATISTIC_VALUE.STATISTIC_ID.in(ids)
+                                .and(ENTITY_STATISTIC_VALUE.CURRENT.eq(true))
+                                .and(ENTITY_STATISTIC_VALUE.ENTITY_KIND.eq(subjectKind))
+                                .and(ENTITY_STATISTIC_VALUE.ENTITY_ID.in(genericSelector.selector())))));
+
+        ofNullable(columnEntityIdsByKind.get(EntityKind.SURVEY_QUESTION))
+                .ifPresent(ids -> versionQueries.add(dsl
+                        .select(DSL.val(EntityKind.SURVEY_QUESTION.name()), DSL.count(), DSL.max(SURVEY_QUESTION_RESPONSE.LAST_UPDATED_AT))
+                        .from(SURVEY_QUESTION_RESPONSE)
+                        .innerJoin(SURVEY_INSTANCE).on(SURVEY_QUESTION_RESPONSE.SURVEY_INSTANCE_ID.eq(SURVEY_INSTANCE.ID))
+                        .where(SURVEY_INSTANCE.STATUS.in(APPROVED.name(), COMPLETED.name())
+                                .and(SURVEY_QUESTION_RESPONSE.QUESTION_ID.in(ids))
+                                .and(SURVEY_INSTANCE.ENTITY_KIND.eq(subjectKind))
+                                .and(SURVEY_INSTANCE.ENTITY_ID.in(genericSelector.selector())))));
+
+        return versionQueries
+                .stream()
+                .map(q -> q.fetchOne(r -> format("%s:%d:%s", r.value1(), r.value2(), r.value3())))
+                .collect(joining("|"));
+    }
+
+
     /**
      * Determines which columns on a grid may support comments.
      * This includes:
@@ -793,34 +884,95 @@ public class ReportGridDao {
                     .collect(groupingBy(t -> t.v2.entityKind(), toSet()));
 
 
-            return union(
-                    fetchAssessmentData(genericSelector, colsByKind.get(EntityKind.ASSESSMENT_DEFINITION)),
-                    fetchInvolvementData(genericSelector, colsByKind.get(EntityKind.INVOLVEMENT_KIND)),
-                    fetchCostData(genericSelector, colsByKind.get(EntityKind.COST_KIND)),
-                    fetchComplexityData(genericSelector, colsByKind.get(EntityKind.COMPLEXITY_KIND)),
-                    fetchSummaryMeasurableData(
+            List<Callable<Set<ReportGridCell>>> columnKindFetchers = asList(
+                    () -> fetchAssessmentData(genericSelector, colsByKind.get(EntityKind.ASSESSMENT_DEFINITION)),
+                    () -> fetchInvolvementData(genericSelector, colsByKind.get(EntityKind.INVOLVEMENT_KIND)),
+                    () -> fetchCostData(genericSelector, colsByKind.get(EntityKind.COST_KIND)),
+                    () -> fetchComplexityData(genericSelector, colsByKind.get(EntityKind.COMPLEXITY_KIND)),
+                    () -> fetchSummaryMeasurableData(
                             genericSelector,
                             measurableColumnsByRollupKind.getOrDefault(AdditionalColumnOptions.PICK_HIGHEST, emptySet()),
                             measurableColumnsByRollupKind.getOrDefault(AdditionalColumnOptions.PICK_LOWEST, emptySet())),
-                    fetchExactMeasurableData(genericSelector, measurableColumnsByRollupKind.get(AdditionalColumnOptions.NONE)),
-                    fetchSurveyQuestionResponseData(genericSelector, colsByKind.get(EntityKind.SURVEY_QUESTION)),
-                    fetchSurveyTemplateResponseData(genericSelector, colsByKind.get(EntityKind.SURVEY_TEMPLATE)),
-                    fetchAppGroupData(genericSelector, colsByKind.get(EntityKind.APP_GROUP)),
-                    fetchApplicationFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.APPLICATION)),
-                    fetchExactDataTypeData(genericSelector, dataTypeColumnsByIsExact.get(Boolean.TRUE)),
-                    fetchSummaryDataTypeData(genericSelector, dataTypeColumnsByIsExact.get(Boolean.FALSE)),
-                    fetchSurveyFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.SURVEY_INSTANCE)),
-                    fetchChangeInitiativeFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.CHANGE_INITIATIVE)),
-                    fetchAttestationData(genericSelector, colsByKind.get(EntityKind.ATTESTATION)),
-                    fetchOrgUnitFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.ORG_UNIT)),
-                    fetchTagData(genericSelector, colsByKind.get(EntityKind.TAG)),
-                    fetchAliasData(genericSelector, colsByKind.get(EntityKind.ENTITY_ALIAS)),
-                    fetchMeasurableHierarchyData(genericSelector, colsByKind.get(EntityKind.MEASURABLE_CATEGORY)),
-                    fetchEntityStatisticData(genericSelector, colsByKind.get(EntityKind.ENTITY_STATISTIC)));
+                    () -> fetchExactMeasurableData(genericSelector, measurableColumnsByRollupKind.get(AdditionalColumnOptions.NONE)),
+                    () -> fetchSurveyQuestionResponseData(genericSelector, colsByKind.get(EntityKind.SURVEY_QUESTION)),
+                    () -> fetchSurveyTemplateResponseData(genericSelector, colsByKind.get(EntityKind.SURVEY_TEMPLATE)),
+                    () -> fetchAppGroupData(genericSelector, colsByKind.get(EntityKind.APP_GROUP)),
+                    () -> fetchApplicationFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.APPLICATION)),
+                    () -> fetchExactDataTypeData(genericSelector, dataTypeColumnsByIsExact.get(Boolean.TRUE)),
+                    () -> fetchSummaryDataTypeData(genericSelector, dataTypeColumnsByIsExact.get(Boolean.FALSE)),
+                    () -> fetchSurveyFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.SURVEY_INSTANCE)),
+                    () -> fetchChangeInitiativeFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.CHANGE_INITIATIVE)),
+                    () -> fetchAttestationData(genericSelector, colsByKind.get(EntityKind.ATTESTATION)),
+                    () -> fetchOrgUnitFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.ORG_UNIT)),
+                    () -> fetchTagData(genericSelector, colsByKind.get(EntityKind.TAG)),
+                    () -> fetchAliasData(genericSelector, colsByKind.get(EntityKind.ENTITY_ALIAS)),
+                    () -> fetchMeasurableHierarchyData(genericSelector, colsByKind.get(EntityKind.MEASURABLE_CATEGORY)),
+                    () -> fetchEntityStatisticData(genericSelector, colsByKind.get(EntityKind.ENTITY_STATISTIC)));
+
+            return fetchConcurrently(columnKindFetchers);
         }
     }
 
 
+    /**
+     * Runs the given column kind fetchers on the shared db executor pool and unions the results.
+     *
+     * At most `MAX_CONCURRENT_FETCHES_PER_GRID` fetchers will run at once for a single grid, this
+     * prevents a wide grid from monopolising the pool.  Each worker pulls fetchers from a shared
+     * queue until it is exhausted.  If the overall `FETCH_TIMEOUT` is exceeded any outstanding work
+     * is abandoned and an exception is thrown.
+     *
+     * @param fetchers  callables which each retrieve the cells for a family of columns
+     * @return union of all cells returned by the fetchers
+     */
+    private Set<ReportGridCell> fetchConcurrently(List<Callable<Set<ReportGridCell>>> fetchers) {
+        Queue<Callable<Set<ReportGridCell>>> pending = new ConcurrentLinkedQueue<>(fetchers);
+
+        List<Future<Set<ReportGridCell>>> workers = IntStream
+                .range(0, Math.min(MAX_CONCURRENT_FETCHES_PER_GRID, fetchers.size()))
+                .mapToObj(i -> dbExecutorPool.submit(() -> {
+                    Set<ReportGridCell> cells = new HashSet<>();
+                    Callable<Set<ReportGridCell>> fetcher;
+                    while ((fetcher = pending.poll()) != null) {
+                        cells.addAll(fetcher.call());
+                    }
+                    return cells;
+                }))
+                .collect(toList());
+
+        long deadline = System.nanoTime() + FETCH_TIMEOUT.toNanos();
+        Set<ReportGridCell> result = new HashSet<>();
+
+        try {
+            for (Future<Set<ReportGridCell>> worker : workers) {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                result.addAll(worker.get(remaining, TimeUnit.NANOSECONDS));
+            }
+            return result;
+        } catch (TimeoutException e) {
+            abandon(pending, workers);
+            throw new IllegalStateException(format("Timed out after %s whilst fetching report grid cell data", FETCH_TIMEOUT), e);
+        } catch (InterruptedException e) {
+            abandon(pending, workers);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted whilst fetching report grid cell data", e);
+        } catch (ExecutionException e) {
+            abandon(pending, workers);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to fetch report grid cell data", e.getCause());
+        }
+    }
+
+
+    private static void abandon(Queue<?> pending,
+                                List<? extends Future<?>> workers) {
+        pending.clear();
+        workers.forEach(w -> w.cancel(true));
+    }
+
+
     private Set<ReportGridCell> fetchSurveyTemplateResponseData(GenericSelector genericSelector,
                                                                 Collection<ReportGridFixedColumnDefinition> cols) {
         if (isEmpty(cols)) {
@@ -21,13 +21,23 @@ package org.finos.waltz.data.scheduled_job;
 
 import org.finos.waltz.model.scheduled_job.JobKey;
 import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
+import org.finos.waltz.model.scheduled_job.JobRunOutcome;
+import org.finos.waltz.schema.tables.records.ScheduledJobRecord;
 import org.jooq.DSLContext;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.schema.tables.ScheduledJob.SCHEDULED_JOB;
 import static org.finos.waltz.schema.tables.Settings.SETTINGS;
 import static org.finos.waltz.common.Checks.checkNotNull;
 
@@ -66,6 +76,21 @@ public class ScheduledJobDao {
     }
 
 
+    /**
+     * Flags the job to be run by the next dispatch, unless it is currently running.
+     * @return true if the job was flagged
+     */
+    public boolean markJobAsRunnable(JobKey jobKey) {
+        return dsl.update(SETTINGS)
+                .set(SETTINGS.VALUE, JobLifecycleStatus.RUNNABLE.name())
+                .where(SETTINGS.NAME.eq(jobKey.name()))
+                .and(SETTINGS.VALUE.ne(JobLifecycleStatus.RUNNING.name()))
+                .execute()
+                ==
+                1;
+    }
+
+
     public void updateJobStatus(JobKey jobKey, JobLifecycleStatus newStatus) {
         dsl.update(SETTINGS)
                 .set(SETTINGS.VALUE, newStatus.name())
@@ -83,4 +108,72 @@ public class ScheduledJobDao {
                                 .and(SETTINGS.VALUE.eq(JobLifecycleStatus.RUNNING.name()))));
     }
 
+
+    /**
+     * @return the lifecycle status of every job which has a status setting
+     */
+    public Map<JobKey, JobLifecycleStatus> findJobStatuses() {
+        List<String> jobNames = Arrays
+                .stream(JobKey.values())
+                .map(Enum::name)
+                .collect(toList());
+
+        Map<JobKey, JobLifecycleStatus> statuses = new EnumMap<>(JobKey.class);
+
+        dsl.select(SETTINGS.NAME, SETTINGS.VALUE)
+                .from(SETTINGS)
+                .where(SETTINGS.NAME.in(jobNames))
+                .fetch()
+                .forEach(r -> {
+                    try {
+                        statuses.put(
+                                JobKey.valueOf(r.get(SETTINGS.NAME)),
+                                JobLifecycleStatus.valueOf(r.get(SETTINGS.VALUE)));
+                    } catch (IllegalArgumentException | NullPointerException e) {
+                        // unrecognised status values are treated as not runnable
+                    }
+                });
+
+        return statuses;
+    }
+
+
+    /**
+     * Records the outcome and duration of a job run, maintaining the
+     * running totals needed to derive the mean and max durations.
+     */
+    public void recordRun(JobKey jobKey,
+                          LocalDateTime startedAt,
+                          long durationMillis,
+                          JobRunOutcome outcome) {
+        checkNotNull(jobKey, "jobKey cannot be null");
+        checkNotNull(startedAt, "startedAt cannot be null");
+        checkNotNull(outcome, "outcome cannot be null");
+
+        Timestamp startedAtTimestamp = Timestamp.valueOf(startedAt);
+
+        int updateCount = dsl
+                .update(SCHEDULED_JOB)
+                .set(SCHEDULED_JOB.LAST_STARTED_AT, startedAtTimestamp)
+                .set(SCHEDULED_JOB.LAST_DURATION_MS, durationMillis)
+                .set(SCHEDULED_JOB.LAST_OUTCOME, outcome.name())
+                .set(SCHEDULED_JOB.MAX_DURATION_MS, DSL.greatest(SCHEDULED_JOB.MAX_DURATION_MS, DSL.val(durationMillis)))
+                .set(SCHEDULED_JOB.TOTAL_DURATION_MS, SCHEDULED_JOB.TOTAL_DURATION_MS.plus(durationMillis))
+                .set(SCHEDULED_JOB.RUN_COUNT, SCHEDULED_JOB.RUN_COUNT.plus(1))
+                .where(SCHEDULED_JOB.JOB_KEY.eq(jobKey.name()))
+                .execute();
+
+        if (updateCount == 0) {
+            ScheduledJobRecord record = dsl.newRecord(SCHEDULED_JOB);
+            record.setJobKey(jobKey.name());
+            record.setLastStartedAt(startedAtTimestamp);
+            record.setLastDurationMs(durationMillis);
+            record.setLastOutcome(outcome.name());
+            record.setMaxDurationMs(durationMillis);
+            record.setTotalDurationMs(durationMillis);
+            record.setRunCount(1);
+            record.insert();
+        }
+    }
+
 }
@@ -19,8 +19,10 @@
 package org.finos.waltz.data.survey;
 
 import org.finos.waltz.common.CollectionUtilities;
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.ReleaseLifecycleStatus;
 import org.finos.waltz.model.Severity;
@@ -33,6 +35,7 @@ import org.finos.waltz.schema.tables.records.SurveyInstanceRecipientRecord;
 import org.finos.waltz.schema.tables.records.SurveyInstanceRecord;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,6 +59,7 @@ import static org.finos.waltz.common.StringUtilities.lower;
 import static org.finos.waltz.data.JooqUtilities.maybeReadRef;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.*;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
 public class SurveyInstanceDao {
@@ -165,22 +169,94 @@ public class SurveyInstanceDao {
     public long create(SurveyInstanceCreateCommand command) {
         checkNotNull(command, "command cannot be null");
 
-        SurveyInstanceRecord record = dsl.newRecord(si);
-        record.setSurveyRunId(command.surveyRunId());
-        record.setEntityKind(command.entityReference().kind().name());
-        record.setEntityId(command.entityReference().id());
-        record.setStatus(command.status().name());
-        record.setDueDate(toSqlDate(command.dueDate()));
-        record.setApprovalDueDate(toSqlDate(command.approvalDueDate()));
-        record.setOwningRole(command.owningRole());
-        record.setName(command.name());
-        record.setIssuedOn(toSqlDate(command.issuedOn()));
+        SurveyInstanceRecord record = mkInstanceRecord(dsl, command);
 
         record.store();
         return record.getId();
     }
 
 
+    /**
+     * Creates instances along with their recipients and owners.  Each table is
+     * written with a single batched insert and the whole set is written in one
+     * transaction, callers issuing large runs should pass the instances in chunks.
+     *
+     * Generated instance ids are matched back to the commands via the run and
+     * subject entity.  Instances created for the same run and subject are
+     * interchangeable, so any ordering between them is fine.
+     *
+     * @param instances  instances to create with the recipients and owners for each one
+     * @return the number of instances created
+     */
+    public int bulkCreate(List<Tuple2<SurveyInstanceCreateCommand, SurveyInstanceRecipientsAndOwners>> instances) {
+        checkNotNull(instances, "instances cannot be null");
+
+        if (instances.isEmpty()) {
+            return 0;
+        }
+
+        Map<Tuple2<Long, EntityReference>, List<Tuple2<SurveyInstanceCreateCommand, SurveyInstanceRecipientsAndOwners>>> instancesByRunAndSubject = instances
+                .stream()
+                .collect(Collectors.groupingBy(
+                        t -> toRunAndSubjectKey(t.v1.surveyRunId(), t.v1.entityReference()),
+                        LinkedHashMap::new,
+                        Collectors.toList()));
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = DSL.using(ctx);
+
+            Set<Long> preExistingIds = fetchInstanceIdsByRunAndSubject(tx, instancesByRunAndSubject.keySet())
+                    .values()
+                    .stream()
+                    .flatMap(Collection::stream)
+                    .collect(toSet());
+
+            tx.batchInsert(map(instances, t -> mkInstanceRecord(tx, t.v1)))
+                    .execute();
+
+            Map<Tuple2<Long, EntityReference>, List<Long>> createdIdsByRunAndSubject = fetchInstanceIdsByRunAndSubject(tx, instancesByRunAndSubject.keySet());
+
+            List<SurveyInstanceRecipientRecord> recipientRecords = new ArrayList<>();
+            List<SurveyInstanceOwnerRecord> ownerRecords = new ArrayList<>();
+
+            instancesByRunAndSubject.forEach((key, instancesForKey) -> {
+                Iterator<Long> createdIds = createdIdsByRunAndSubject
+                        .getOrDefault(key, Collections.emptyList())
+                        .stream()
+                        .filter(id -> !preExistingIds.contains(id))
+                        .iterator();
+
+                instancesForKey.forEach(t -> {
+                    if (!createdIds.hasNext()) {
+                        throw new IllegalStateException(format("Could not find created survey instance for run/subject: %s", key));
+                    }
+
+                    Long instanceId = createdIds.next();
+
+                    t.v2.recipientPersonIds().forEach(personId -> {
+                        SurveyInstanceRecipientRecord r = tx.newRecord(sir);
+                        r.setSurveyInstanceId(instanceId);
+                        r.setPersonId(personId);
+                        recipientRecords.add(r);
+                    });
+
+                    t.v2.ownerPersonIds().forEach(personId -> {
+                        SurveyInstanceOwnerRecord r = tx.newRecord(sio);
+                        r.setSurveyInstanceId(instanceId);
+                        r.setPersonId(personId);
+                        ownerRecords.add(r);
+                    });
+                });
+            });
+
+            tx.batchInsert(recipientRecords).execute();
+            tx.batchInsert(ownerRecords).execute();
+
+            return instances.size();
+        });
+    }
+
+
     public long createPreviousVersion(SurveyInstance currentInstance) {
         checkNotNull(currentInstance, "currentInstance cannot be null");
 
@@ -926,4 +1002,51 @@ public class SurveyInstanceDao {
                         .where(inScopeSurveys.field(sr.OWNER_INV_KIND_IDS).isNotNull()
                                 .and(inScopeSurveys.field(sr.OWNER_INV_KIND_IDS).ne(""))));
     }
-}
\ No newline at end of file
+
+
+    // -- HELPERS
+
+    private static SurveyInstanceRecord mkInstanceRecord(DSLContext ctx,
+                                                         SurveyInstanceCreateCommand command) {
+        SurveyInstanceRecord record = ctx.newRecord(si);
+        record.setSurveyRunId(command.surveyRunId());
+        record.setEntityKind(command.entityReference().kind().name());
+        record.setEntityId(command.entityReference().id());
+        record.setStatus(command.status().name());
+        record.setDueDate(toSqlDate(command.dueDate()));
+        record.setApprovalDueDate(toSqlDate(command.approvalDueDate()));
+        record.setOwningRole(command.owningRole());
+        record.setName(command.name());
+        record.setIssuedOn(toSqlDate(command.issuedOn()));
+        return record;
+    }
+
+
+    private static Map<Tuple2<Long, EntityReference>, List<Long>> fetchInstanceIdsByRunAndSubject(DSLContext ctx,
+                                                                                                Collection<Tuple2<Long, EntityReference>> runAndSubjectKeys) {
+        Set<Long> runIds = SetUtilities.map(runAndSubjectKeys, k -> k.v1);
+        Set<Long> subjectIds = SetUtilities.map(runAndSubjectKeys, k -> k.v2.id());
+
+        return ctx
+                .select(si.ID, si.SURVEY_RUN_ID, si.ENTITY_KIND, si.ENTITY_ID)
+                .from(si)
+                .where(si.SURVEY_RUN_ID.in(runIds))
+                .and(si.ENTITY_ID.in(subjectIds))
+                .and(IS_ORIGINAL_INSTANCE_CONDITION)
+                .orderBy(si.ID)
+                .fetch()
+                .stream()
+                .collect(Collectors.groupingBy(
+                        r -> toRunAndSubjectKey(
+                                r.get(si.SURVEY_RUN_ID),
+                                mkRef(EntityKind.valueOf(r.get(si.ENTITY_KIND)), r.get(si.ENTITY_ID))),
+                        Collectors.mapping(r -> r.get(si.ID), Collectors.toList())));
+    }
+
+
+    private static Tuple2<Long, EntityReference> toRunAndSubjectKey(Long runId, EntityReference subject) {
+        // references are normalised as equality also considers the (optional) lifecycle status
+        return tuple(runId, mkRef(subject.kind(), subject.id()));
+    }
+
+}
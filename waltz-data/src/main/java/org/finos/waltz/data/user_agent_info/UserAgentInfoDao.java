@@ -28,9 +28,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
 
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.schema.tables.UserAgentInfo.USER_AGENT_INFO;
 import static org.finos.waltz.common.Checks.checkNotNull;
 
@@ -82,6 +84,17 @@ public class UserAgentInfoDao {
     }
 
 
+    public int[] save(Collection<UserAgentInfo> userAgentInfos) {
+        checkNotNull(userAgentInfos, "userAgentInfos cannot be null");
+        return dsl
+                .batchInsert(userAgentInfos
+                        .stream()
+                        .map(TO_RECORD_MAPPER)
+                        .collect(toList()))
+                .execute();
+    }
+
+
     public List<UserAgentInfo> findLoginsForUser(String userName, int limit) {
         return dsl.select(uai.fields())
                 .from(uai)
@@ -0,0 +1,72 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_hierarchy;
+
+import org.finos.waltz.common.hierarchy.FlatNode;
+import org.finos.waltz.common.hierarchy.HierarchyClosureIndex;
+import org.finos.waltz.model.EntityKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityHierarchyIndexes_mkDescendantSelectorTest {
+
+    private static final List<FlatNode<Void, Long>> TREE = newArrayList(
+            new FlatNode<>(1L, empty(), null),
+            new FlatNode<>(2L, of(1L), null),
+            new FlatNode<>(3L, of(2L), null));
+
+
+    @Test
+    public void registeredKindsAreAnsweredFromTheIndex() {
+        EntityHierarchyIndexes indexes = new EntityHierarchyIndexes();
+        indexes.register(EntityKind.ORG_UNIT, HierarchyClosureIndex.build(TREE));
+
+        assertArrayEquals(new long[]{2, 3}, indexes.findDescendantIds(EntityKind.ORG_UNIT, 2L).get());
+        assertTrue(indexes.mkDescendantSelector(EntityKind.ORG_UNIT, 1L).isPresent());
+    }
+
+
+    @Test
+    public void unknownKindsAndIdsAreNotAnswered() {
+        EntityHierarchyIndexes indexes = new EntityHierarchyIndexes();
+        indexes.register(EntityKind.ORG_UNIT, HierarchyClosureIndex.build(TREE));
+
+        assertFalse(indexes.mkDescendantSelector(EntityKind.DATA_TYPE, 1L).isPresent());
+        assertFalse(indexes.mkDescendantSelector(EntityKind.ORG_UNIT, 99L).isPresent());
+    }
+
+
+    @Test
+    public void indexesAreNotSharedBetweenInstances() {
+        EntityHierarchyIndexes indexes = new EntityHierarchyIndexes();
+        indexes.register(EntityKind.ORG_UNIT, HierarchyClosureIndex.build(TREE));
+
+        assertFalse(new EntityHierarchyIndexes().find(EntityKind.ORG_UNIT).isPresent());
+
+        indexes.clear(EntityKind.ORG_UNIT);
+        assertFalse(indexes.find(EntityKind.ORG_UNIT).isPresent());
+    }
+
+}
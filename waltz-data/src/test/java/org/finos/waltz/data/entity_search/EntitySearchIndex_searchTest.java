@@ -0,0 +1,124 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_search;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.ImmutableEntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchIndexEntry;
+import org.finos.waltz.model.entity_search.ImmutableEntitySearchIndexEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.fromCollection;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntitySearchIndex_searchTest {
+
+    private static final Set<EntityLifecycleStatus> ACTIVE = asSet(EntityLifecycleStatus.ACTIVE);
+
+    private static final EntitySearchIndex INDEX = EntitySearchIndex.build(newArrayList(
+            mkEntry(1, "Trade Booking", EntityLifecycleStatus.ACTIVE, "APP-100"),
+            mkEntry(2, "Booking Engine", EntityLifecycleStatus.ACTIVE, "APP-200", "tbe"),
+            mkEntry(3, "Payments Hub", EntityLifecycleStatus.ACTIVE, "APP-300"),
+            mkEntry(4, "Rebooking Service", EntityLifecycleStatus.ACTIVE),
+            mkEntry(5, "Old Booking Engine", EntityLifecycleStatus.REMOVED, "APP-500"),
+            mkEntry(6, "TBE Reporting", EntityLifecycleStatus.ACTIVE)));
+
+
+    @Test
+    public void allTermsMustMatch() {
+        assertEquals(newArrayList(1L), search("trade book"));
+        assertEquals(newArrayList(), search("trade payments"));
+    }
+
+
+    @Test
+    public void prefixMatchesRankBeforeOtherMatches() {
+        assertEquals(newArrayList(2L, 1L, 4L), search("booking"));
+    }
+
+
+    @Test
+    public void alternativeNamesAreSearched() {
+        assertEquals(newArrayList(3L), search("app-300"));
+        assertEquals(asSet(1L, 2L, 3L), fromCollection(search("app-")));
+    }
+
+
+    @Test
+    public void exactAlternativeNameMatchesRankFirst() {
+        assertEquals(newArrayList(2L, 6L), search("tbe"));
+    }
+
+
+    @Test
+    public void lifecycleStatusesAndLimitsAreRespected() {
+        List<Long> all = INDEX
+                .search(newArrayList("engine"), asSet(EntityLifecycleStatus.ACTIVE, EntityLifecycleStatus.REMOVED), 10)
+                .stream()
+                .map(EntityReference::id)
+                .collect(toList());
+
+        assertEquals(newArrayList(2L, 5L), all);
+        assertEquals(1, INDEX.search(newArrayList("booking"), ACTIVE, 1).size());
+    }
+
+
+    @Test
+    public void shortTermsAreMatchedWithoutTheTrigramIndex() {
+        assertEquals(newArrayList(3L), search("ub"));
+        assertTrue(search("zz").isEmpty());
+    }
+
+
+    private static List<Long> search(String query) {
+        return INDEX
+                .search(newArrayList(query.split(" ")), ACTIVE, 10)
+                .stream()
+                .map(EntityReference::id)
+                .collect(toList());
+    }
+
+
+    private static EntitySearchIndexEntry mkEntry(long id,
+                                                  String name,
+                                                  EntityLifecycleStatus status,
+                                                  String... alternativeNames) {
+        return ImmutableEntitySearchIndexEntry
+                .builder()
+                .entityReference(ImmutableEntityReference
+                        .builder()
+                        .kind(EntityKind.APPLICATION)
+                        .id(id)
+                        .name(name)
+                        .entityLifecycleStatus(status)
+                        .build())
+                .addAlternativeNames(alternativeNames)
+                .build();
+    }
+
+}
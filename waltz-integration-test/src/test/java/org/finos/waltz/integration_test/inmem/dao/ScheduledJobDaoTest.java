@@ -0,0 +1,219 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.scheduled_job.ScheduledJobDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.scheduled_job.JobKey;
+import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
+import org.finos.waltz.model.scheduled_job.JobRunOutcome;
+import org.finos.waltz.schema.tables.records.ScheduledJobRecord;
+import org.finos.waltz.service.scheduled_job.ScheduledJobGraph;
+import org.finos.waltz.service.scheduled_job.ScheduledJobRunner;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.scheduled_job.JobKey.*;
+import static org.finos.waltz.schema.Tables.SCHEDULED_JOB;
+import static org.finos.waltz.schema.Tables.SETTINGS;
+import static org.finos.waltz.service.scheduled_job.ScheduledJob.mkJob;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduledJobDaoTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private ScheduledJobDao scheduledJobDao;
+
+
+    @BeforeEach
+    public void setup() {
+        dsl.deleteFrom(SCHEDULED_JOB).execute();
+        dsl.deleteFrom(SETTINGS)
+                .where(SETTINGS.NAME.in(
+                        HIERARCHY_REBUILD_DATA_TYPE.name(),
+                        DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL.name(),
+                        SURVEY_INSTANCE_REASSIGN_OWNERS.name(),
+                        SURVEY_INSTANCE_REASSIGN_RECIPIENTS.name()))
+                .execute();
+    }
+
+
+    @Test
+    public void runsAreAccumulated() {
+        LocalDateTime startedAt = LocalDateTime.of(2023, 1, 1, 12, 0);
+
+        scheduledJobDao.recordRun(HIERARCHY_REBUILD_DATA_TYPE, startedAt, 100, JobRunOutcome.COMPLETED);
+        scheduledJobDao.recordRun(HIERARCHY_REBUILD_DATA_TYPE, startedAt.plusMinutes(5), 40, JobRunOutcome.ERRORED);
+
+        ScheduledJobRecord record = dsl.fetchOne(SCHEDULED_JOB, SCHEDULED_JOB.JOB_KEY.eq(HIERARCHY_REBUILD_DATA_TYPE.name()));
+        assertEquals(2, record.getRunCount());
+        assertEquals(40L, record.getLastDurationMs());
+        assertEquals(100L, record.getMaxDurationMs());
+        assertEquals(140L, record.getTotalDurationMs());
+        assertEquals(JobRunOutcome.ERRORED.name(), record.getLastOutcome());
+    }
+
+
+    @Test
+    public void runnerStartsDependentJobsOnceTheirDependenciesComplete() throws InterruptedException {
+        insertStatus(HIERARCHY_REBUILD_DATA_TYPE, JobLifecycleStatus.RUNNABLE);
+        insertStatus(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL, JobLifecycleStatus.RUNNABLE);
+        insertStatus(SURVEY_INSTANCE_REASSIGN_OWNERS, JobLifecycleStatus.RUNNABLE);
+
+        List<JobKey> executed = new CopyOnWriteArrayList<>();
+        CountDownLatch allDone = new CountDownLatch(3);
+
+        ScheduledJobGraph graph = new ScheduledJobGraph(asList(
+                mkJob(HIERARCHY_REBUILD_DATA_TYPE, () -> executed.add(HIERARCHY_REBUILD_DATA_TYPE), Duration.ofMinutes(1)),
+                mkJob(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL, () -> executed.add(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL), Duration.ofMinutes(1))
+                        .dependsOn(HIERARCHY_REBUILD_DATA_TYPE),
+                mkJob(SURVEY_INSTANCE_REASSIGN_OWNERS, () -> sleep(5_000), Duration.ofMillis(200))));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ScheduledJobRunner runner = new ScheduledJobRunner(graph, recordingDao(allDone), pool, watchdog, 2);
+            runner.dispatch();
+
+            assertTrue(allDone.await(10, TimeUnit.SECONDS), "expected all jobs to finish");
+            awaitIdle(runner);
+        } finally {
+            pool.shutdownNow();
+            watchdog.shutdownNow();
+        }
+
+        assertEquals(asList(HIERARCHY_REBUILD_DATA_TYPE, DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL), executed);
+        assertEquals(JobLifecycleStatus.COMPLETED, scheduledJobDao.findJobStatuses().get(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL));
+        assertEquals(JobLifecycleStatus.ERRORED, scheduledJobDao.findJobStatuses().get(SURVEY_INSTANCE_REASSIGN_OWNERS));
+        assertEquals(
+                JobRunOutcome.TIMED_OUT.name(),
+                dsl.fetchOne(SCHEDULED_JOB, SCHEDULED_JOB.JOB_KEY.eq(SURVEY_INSTANCE_REASSIGN_OWNERS.name())).getLastOutcome());
+    }
+
+
+    @Test
+    public void timedOutJobsBlockConflictingJobsUntilTheyStop() throws InterruptedException {
+        insertStatus(SURVEY_INSTANCE_REASSIGN_OWNERS, JobLifecycleStatus.RUNNABLE);
+        insertStatus(SURVEY_INSTANCE_REASSIGN_RECIPIENTS, JobLifecycleStatus.RUNNABLE);
+
+        CountDownLatch timedOut = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<JobKey> executed = new CopyOnWriteArrayList<>();
+
+        ScheduledJobGraph graph = new ScheduledJobGraph(asList(
+                mkJob(SURVEY_INSTANCE_REASSIGN_OWNERS, () -> awaitIgnoringInterrupts(release), Duration.ofMillis(200))
+                        .conflictsWith(SURVEY_INSTANCE_REASSIGN_RECIPIENTS),
+                mkJob(SURVEY_INSTANCE_REASSIGN_RECIPIENTS, () -> executed.add(SURVEY_INSTANCE_REASSIGN_RECIPIENTS), Duration.ofMinutes(1))));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ScheduledJobRunner runner = new ScheduledJobRunner(graph, recordingDao(timedOut), pool, watchdog, 2);
+            runner.dispatch();
+
+            assertTrue(timedOut.await(10, TimeUnit.SECONDS), "expected job to time out");
+            runner.dispatch();
+
+            assertTrue(runner.findRunningJobs().contains(SURVEY_INSTANCE_REASSIGN_OWNERS), "timed out job should still be running");
+            assertEquals(JobLifecycleStatus.RUNNING, scheduledJobDao.findJobStatuses().get(SURVEY_INSTANCE_REASSIGN_OWNERS));
+            assertTrue(executed.isEmpty(), "conflicting job should not start while the timed out job is still running");
+
+            release.countDown();
+            awaitIdle(runner);
+        } finally {
+            pool.shutdownNow();
+            watchdog.shutdownNow();
+        }
+
+        assertEquals(asList(SURVEY_INSTANCE_REASSIGN_RECIPIENTS), executed);
+        assertEquals(JobLifecycleStatus.ERRORED, scheduledJobDao.findJobStatuses().get(SURVEY_INSTANCE_REASSIGN_OWNERS));
+    }
+
+
+    // -- HELPERS ---
+
+    private static void awaitIdle(ScheduledJobRunner runner) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!runner.findRunningJobs().isEmpty() && System.currentTimeMillis() < deadline) {
+            sleep(20);
+        }
+        assertTrue(runner.findRunningJobs().isEmpty(), "expected runner to become idle");
+    }
+
+
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private ScheduledJobDao recordingDao(CountDownLatch latch) {
+        return new ScheduledJobDao(dsl) {
+            @Override
+            public void recordRun(JobKey jobKey, LocalDateTime startedAt, long durationMillis, JobRunOutcome outcome) {
+                super.recordRun(jobKey, startedAt, durationMillis, outcome);
+                latch.countDown();
+            }
+        };
+    }
+
+
+    private void insertStatus(JobKey key, JobLifecycleStatus status) {
+        dsl.insertInto(SETTINGS)
+                .set(SETTINGS.NAME, key.name())
+                .set(SETTINGS.VALUE, status.name())
+                .set(SETTINGS.RESTRICTED, false)
+                .execute();
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -20,6 +20,7 @@ package org.finos.waltz.integration_test.inmem.service;
 
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.OptionalUtilities;
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -44,6 +45,8 @@ import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.schema.tables.AttestationInstance.ATTESTATION_INSTANCE;
+import static org.finos.waltz.schema.tables.AttestationInstanceRecipient.ATTESTATION_INSTANCE_RECIPIENT;
+import static org.finos.waltz.schema.tables.AttestationRun.ATTESTATION_RUN;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
 import static org.junit.jupiter.api.Assertions.*;
@@ -136,6 +139,59 @@ public class AttestationServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void issuingPendingRunsResumesInterruptedRuns() {
+        long invId = involvementHelper.mkInvolvementKind(mkName("resumeIssuing"));
+        String recipient = mkName("resumeIssuingUser");
+        Long pId = personHelper.createPerson(recipient);
+
+        EntityReference app1 = appHelper.createNewApp(mkName("resumeIssuing1"), ouIds.a1);
+        EntityReference app2 = appHelper.createNewApp(mkName("resumeIssuing2"), ouIds.a1);
+        involvementHelper.createInvolvement(pId, invId, app1);
+        involvementHelper.createInvolvement(pId, invId, app2);
+
+        AttestationRunCreateCommand cmd = ImmutableAttestationRunCreateCommand.builder()
+                .dueDate(DateTimeUtilities.today().plusMonths(1))
+                .targetEntityKind(EntityKind.APPLICATION)
+                .attestedEntityKind(EntityKind.LOGICAL_DATA_FLOW)
+                .selectionOptions(mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a1)))
+                .addInvolvementKindIds(invId)
+                .name(mkName("resumeIssuing"))
+                .description("resumeIssuing Desc")
+                .sendEmailNotifications(false)
+                .build();
+
+        Long runId = arSvc.create(mkUserId("resumeIssuing"), cmd).id().get();
+        assertEquals(2, aiSvc.findByRunId(runId).size());
+
+        // simulate an issuance which stopped after creating the first instance
+        Long app2InstanceId = dsl
+                .select(ATTESTATION_INSTANCE.ID)
+                .from(ATTESTATION_INSTANCE)
+                .where(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.eq(runId))
+                .and(ATTESTATION_INSTANCE.PARENT_ENTITY_ID.eq(app2.id()))
+                .fetchOne(ATTESTATION_INSTANCE.ID);
+        dsl.deleteFrom(ATTESTATION_INSTANCE_RECIPIENT).where(ATTESTATION_INSTANCE_RECIPIENT.ATTESTATION_INSTANCE_ID.eq(app2InstanceId)).execute();
+        dsl.deleteFrom(ATTESTATION_INSTANCE).where(ATTESTATION_INSTANCE.ID.eq(app2InstanceId)).execute();
+        dsl.update(ATTESTATION_RUN).set(ATTESTATION_RUN.STATUS, AttestationStatus.ISSUING.name()).where(ATTESTATION_RUN.ID.eq(runId)).execute();
+
+        arSvc.issueInstancesForPendingRuns();
+
+        List<AttestationInstance> instances = aiSvc.findByRunId(runId);
+        assertEquals(
+                asSet(app1.id(), app2.id()),
+                SetUtilities.map(instances, i -> i.parentEntity().id()),
+                "missing instance should be created, existing instance should not be duplicated");
+        assertEquals(2, instances.size());
+        assertEquals(AttestationStatus.ISSUED, arSvc.getById(runId).status());
+
+        int recipientCount = dsl.fetchCount(
+                ATTESTATION_INSTANCE_RECIPIENT,
+                ATTESTATION_INSTANCE_RECIPIENT.ATTESTATION_INSTANCE_ID.in(SetUtilities.map(instances, i -> i.id().get())));
+        assertEquals(2, recipientCount, "each instance should have a single recipient");
+    }
+
+
     @Test
     public void cannotAttestIfNoFlows() {
         long invId = involvementHelper.mkInvolvementKind(mkName("cannotAttestIfNoFlows"));
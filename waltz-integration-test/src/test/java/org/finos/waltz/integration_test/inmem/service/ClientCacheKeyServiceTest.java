@@ -0,0 +1,68 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.service.client_cache_key.ClientCacheKeyService;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientCacheKeyServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private ClientCacheKeyService clientCacheKeyService;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+
+    @Test
+    public void dataVersionIsEmptyForUnsupportedKinds() {
+        assertFalse(
+                clientCacheKeyService.findDataVersion(EntityKind.APPLICATION).isPresent(),
+                "applications are not versioned");
+    }
+
+
+    @Test
+    public void dataVersionChangesWhenRowsChange() {
+        dataTypeHelper.clearAllDataTypes();
+
+        Optional<String> emptyVersion = clientCacheKeyService.findDataVersion(EntityKind.DATA_TYPE);
+        assertTrue(emptyVersion.isPresent(), "versions are available even when there is no data");
+        assertEquals(emptyVersion, clientCacheKeyService.findDataVersion(EntityKind.DATA_TYPE), "version is stable if nothing changes");
+
+        dataTypeHelper.createDataType(1L, "dt1", "DT1");
+        Optional<String> oneDataTypeVersion = clientCacheKeyService.findDataVersion(EntityKind.DATA_TYPE);
+        assertNotEquals(emptyVersion, oneDataTypeVersion, "adding data changes the version");
+
+        clientCacheKeyService.createOrUpdate("TAXONOMY");
+        assertNotEquals(
+                oneDataTypeVersion,
+                clientCacheKeyService.findDataVersion(EntityKind.DATA_TYPE),
+                "updating the taxonomy cache key changes the version");
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.data_type_usage.DataTypeUsageDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.data_type_usage.DataTypeUsage;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.usage_info.ImmutableUsageInfo;
+import org.finos.waltz.model.usage_info.UsageKind;
+import org.finos.waltz.service.usage_info.DataTypeUsageService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW_DECORATOR;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DataTypeUsageServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private DataTypeUsageService usageSvc;
+
+    @Autowired
+    private DataTypeUsageDao usageDao;
+
+    @Autowired
+    private LogicalFlowHelper flowHelper;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    private EntityReference a;
+    private EntityReference b;
+    private EntityReference c;
+    private LogicalFlow ab;
+    private Long dt1;
+    private Long dt2;
+
+
+    /**
+     * a -[dt1, dt2]-> b -[dt1]-> c
+     */
+    @BeforeEach
+    public void setupFlows() {
+        a = appHelper.createNewApp("a", ouIds.a);
+        b = appHelper.createNewApp("b", ouIds.a);
+        c = appHelper.createNewApp("c", ouIds.b);
+        dt1 = dataTypeHelper.createDataType("usageDt1");
+        dt2 = dataTypeHelper.createDataType("usageDt2");
+
+        ab = flowHelper.createLogicalFlow(a, b);
+        LogicalFlow bc = flowHelper.createLogicalFlow(b, c);
+        flowHelper.createLogicalFlowDecorators(ab.entityReference(), asSet(dt1, dt2));
+        flowHelper.createLogicalFlowDecorators(bc.entityReference(), asSet(dt1));
+    }
+
+
+    @Test
+    public void calculatesUsagesForChangedApplications() {
+        usageSvc.recalculateForApplications(asList(a, b, c));
+
+        assertEquals(
+                asSet(tuple(dt1, UsageKind.DISTRIBUTOR, true),
+                        tuple(dt2, UsageKind.DISTRIBUTOR, true),
+                        tuple(dt1, UsageKind.ORIGINATOR, true),
+                        tuple(dt2, UsageKind.ORIGINATOR, true)),
+                findUsages(a));
+
+        assertEquals(
+                asSet(tuple(dt1, UsageKind.CONSUMER, true),
+                        tuple(dt2, UsageKind.CONSUMER, true),
+                        tuple(dt1, UsageKind.DISTRIBUTOR, true)),
+                findUsages(b));
+
+        assertEquals(
+                asSet(tuple(dt1, UsageKind.CONSUMER, true)),
+                findUsages(c));
+    }
+
+
+    @Test
+    public void incrementalRecalculationMatchesFullRecalculation() {
+        // commented usages which are no longer supported by flows are retained but de-selected
+        usageSvc.save(c, dt1, asList(ImmutableUsageInfo.builder().kind(UsageKind.DISTRIBUTOR).isSelected(true).description("manual").build()), "test");
+        // user maintained usages are kept if the data type still flows
+        usageSvc.save(b, dt2, asList(ImmutableUsageInfo.builder().kind(UsageKind.MODIFIER).isSelected(true).description("modifies").build()), "test");
+        // usages for data types with no flows are removed
+        usageSvc.save(c, dt2, asList(ImmutableUsageInfo.builder().kind(UsageKind.CONSUMER).isSelected(true).description("stale").build()), "test");
+
+        usageSvc.recalculateForApplications(asList(a, b, c));
+        Set<DataTypeUsage> incremental = findAll();
+
+        assertEquals(
+                0,
+                usageDao.recalculateForEntities(EntityKind.APPLICATION, asList(a.id(), b.id(), c.id())),
+                "recalculating unchanged entities should not write anything");
+
+        usageDao.recalculateForIdSelector(
+                EntityKind.APPLICATION,
+                DSL.select(APPLICATION.ID)
+                        .from(APPLICATION)
+                        .where(APPLICATION.ID.in(a.id(), b.id(), c.id())));
+        Set<DataTypeUsage> full = findAll();
+
+        assertEquals(full, incremental);
+        assertTrue(findUsages(c).contains(tuple(dt1, UsageKind.DISTRIBUTOR, false)));
+        assertTrue(findUsages(b).contains(tuple(dt2, UsageKind.MODIFIER, true)));
+        assertTrue(usageSvc.findForEntityAndDataType(c, dt2).isEmpty());
+    }
+
+
+    @Test
+    public void scheduledRecalculationOnlyVisitsEntitiesWithFlowChanges() {
+        usageSvc.recalculateForChangedEntities();
+
+        // the a -> b flow last changed well before the previous run
+        Timestamp longAgo = Timestamp.valueOf(nowUtc().minusDays(1));
+        dsl.update(LOGICAL_FLOW)
+                .set(LOGICAL_FLOW.LAST_UPDATED_AT, longAgo)
+                .where(LOGICAL_FLOW.ID.eq(ab.id().get()))
+                .execute();
+        dsl.update(LOGICAL_FLOW_DECORATOR)
+                .set(LOGICAL_FLOW_DECORATOR.LAST_UPDATED_AT, longAgo)
+                .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(ab.id().get()))
+                .execute();
+
+        // remove a usage from an entity whose flows are not changing, it should not be restored
+        usageDao.deleteUsageInfo(a, dt1, asList(UsageKind.ORIGINATOR));
+
+        EntityReference d = appHelper.createNewApp("d", ouIds.b);
+        LogicalFlow cd = flowHelper.createLogicalFlow(c, d);
+        flowHelper.createLogicalFlowDecorators(cd.entityReference(), asSet(dt2));
+
+        usageSvc.recalculateForChangedEntities();
+
+        assertEquals(
+                asSet(tuple(dt2, UsageKind.CONSUMER, true)),
+                findUsages(d));
+        assertTrue(findUsages(c).contains(tuple(dt2, UsageKind.DISTRIBUTOR, true)));
+        assertFalse(findUsages(a).contains(tuple(dt1, UsageKind.ORIGINATOR, true)));
+    }
+
+
+    // -- HELPERS ---
+
+    private Set<Tuple3<Long, UsageKind, Boolean>> findUsages(EntityReference ref) {
+        return usageSvc
+                .findForEntity(ref)
+                .stream()
+                .map(u -> tuple(u.dataTypeId(), u.usage().kind(), u.usage().isSelected()))
+                .collect(toSet());
+    }
+
+
+    private Set<DataTypeUsage> findAll() {
+        List<DataTypeUsage> usages = usageSvc.findForEntity(a);
+        usages.addAll(usageSvc.findForEntity(b));
+        usages.addAll(usageSvc.findForEntity(c));
+        return asSet(usages.toArray(new DataTypeUsage[0]));
+    }
+
+}
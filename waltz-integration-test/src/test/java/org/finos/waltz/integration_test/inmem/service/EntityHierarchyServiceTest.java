@@ -0,0 +1,77 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.entity_hierarchy.EntityHierarchyItem;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.fromCollection;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EntityHierarchyServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private EntityHierarchyService svc;
+
+    @Autowired
+    private EntityHierarchyDao dao;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void incrementalBuildOfUnchangedHierarchyMakesNoChanges() {
+        assertEquals(0, svc.buildIncrementallyFor(EntityKind.ORG_UNIT));
+    }
+
+
+    @Test
+    public void incrementalBuildMatchesFullBuild() {
+        moveOrgUnit(ouIds.a, ouIds.b);
+        createOrgUnit("c", ouIds.a1);
+
+        // root > b > a > a1 > c:  a and a1 gain b as an ancestor (2 inserts) and
+        // their existing rows change level (5 updates), c needs all 5 rows inserting
+        assertEquals(12, svc.buildIncrementallyFor(EntityKind.ORG_UNIT));
+        Set<EntityHierarchyItem> incremental = fetchOrgUnitHierarchy();
+
+        svc.buildFor(EntityKind.ORG_UNIT);
+        assertEquals(fetchOrgUnitHierarchy(), incremental);
+    }
+
+
+    @Test
+    public void subtreeBuildMatchesFullBuild() {
+        moveOrgUnit(ouIds.a1, ouIds.b);
+
+        svc.buildIncrementallyForSubtree(mkRef(EntityKind.ORG_UNIT, ouIds.a1));
+        Set<EntityHierarchyItem> incremental = fetchOrgUnitHierarchy();
+
+        svc.buildFor(EntityKind.ORG_UNIT);
+        assertEquals(fetchOrgUnitHierarchy(), incremental);
+    }
+
+
+    private void moveOrgUnit(Long id, Long newParentId) {
+        dsl.update(ORGANISATIONAL_UNIT)
+                .set(ORGANISATIONAL_UNIT.PARENT_ID, newParentId)
+                .where(ORGANISATIONAL_UNIT.ID.eq(id))
+                .execute();
+    }
+
+
+    private Set<EntityHierarchyItem> fetchOrgUnitHierarchy() {
+        return fromCollection(dao.findByKind(EntityKind.ORG_UNIT, DSL.trueCondition()));
+    }
+
+}
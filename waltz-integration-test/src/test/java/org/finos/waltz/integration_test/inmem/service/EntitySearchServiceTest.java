@@ -0,0 +1,118 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.finos.waltz.service.entity_alias.EntityAliasService;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
+import org.finos.waltz.service.entity_search.EntitySearchService;
+import org.finos.waltz.test_common.helpers.ActorHelper;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class EntitySearchServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private EntitySearchService searchSvc;
+
+    @Autowired
+    private EntitySearchIndexService indexSvc;
+
+    @Autowired
+    private EntityAliasService aliasSvc;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private ActorHelper actorHelper;
+
+
+    @AfterEach
+    public void after() {
+        indexSvc.invalidate(EntityKind.APPLICATION);
+        indexSvc.invalidate(EntityKind.ACTOR);
+    }
+
+
+    @Test
+    public void appsCanBeFoundViaTheIndexByNameAndAlias() {
+        String name = mkName("indexedSearchApp");
+        EntityReference app = appHelper.createNewApp(name, null);
+        aliasSvc.updateAliases(app, newArrayList("zebra-" + app.id()));
+
+        indexSvc.refresh(EntityKind.APPLICATION);
+
+        EntitySearchOptions byName = EntitySearchOptions.mkForEntity(EntityKind.APPLICATION, name);
+        assertTrue(indexSvc.search(EntityKind.APPLICATION, byName).isPresent(), "application index should be loaded");
+        assertEquals(newArrayList(app), searchSvc.search(byName));
+
+        List<EntityReference> viaAlias = searchSvc.search(EntitySearchOptions.mkForEntity(EntityKind.APPLICATION, "zebra-" + app.id()));
+        assertEquals(newArrayList(app), viaAlias);
+    }
+
+
+    @Test
+    public void writesInvalidateTheIndex() {
+        indexSvc.refresh(EntityKind.APPLICATION);
+        EntitySearchOptions options = EntitySearchOptions.mkForEntity(EntityKind.APPLICATION, "anything");
+        assertTrue(indexSvc.search(EntityKind.APPLICATION, options).isPresent());
+
+        String name = mkName("invalidatedSearchApp");
+        EntityReference app = appHelper.createNewApp(name, null);
+
+        assertFalse(indexSvc.search(EntityKind.APPLICATION, options).isPresent(), "registering an app should invalidate the index");
+        assertEquals(
+                newArrayList(app),
+                searchSvc.search(EntitySearchOptions.mkForEntity(EntityKind.APPLICATION, name)),
+                "searches should fall back to the database whilst the index is invalid");
+    }
+
+
+    @Test
+    public void actorWritesInvalidateTheIndex() {
+        indexSvc.refresh(EntityKind.ACTOR);
+        EntitySearchOptions options = EntitySearchOptions.mkForEntity(EntityKind.ACTOR, "anything");
+        assertTrue(indexSvc.search(EntityKind.ACTOR, options).isPresent());
+
+        String name = mkName("invalidatedSearchActor");
+        Long id = actorHelper.createActor(name);
+
+        assertFalse(indexSvc.search(EntityKind.ACTOR, options).isPresent(), "creating an actor should invalidate the index");
+        assertEquals(
+                newArrayList(EntityReference.mkRef(EntityKind.ACTOR, id)),
+                searchSvc.search(EntitySearchOptions.mkForEntity(EntityKind.ACTOR, name)),
+                "searches should fall back to the database whilst the index is invalid");
+    }
+
+}
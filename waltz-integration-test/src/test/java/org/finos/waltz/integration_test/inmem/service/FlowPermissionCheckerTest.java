@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
 import java.util.Set;
 
 import static java.util.Collections.emptySet;
@@ -390,4 +391,52 @@ public class FlowPermissionCheckerTest extends BaseInMemoryIntegrationTest {
                 noPersonRecognised,
                 "No permissions returned if person is not recognised");
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void findFlowPermissionsForParentEntities() {
+
+        String u1 = mkName(stem, "user1");
+        Long u1Id = personHelper.createPerson(u1);
+
+        EntityReference appA = appHelper.createNewApp(mkName(stem, "appA"), ouIds.a);
+        EntityReference appB = appHelper.createNewApp(mkName(stem, "appB"), ouIds.b);
+        EntityReference appC = appHelper.createNewApp(mkName(stem, "appC"), ouIds.a1);
+
+        long privKind = involvementHelper.mkInvolvementKind(mkName(stem, "privileged"));
+
+        InvolvementGroupRecord ig = permissionHelper.setupInvolvementGroup(privKind, stem);
+        PermissionGroupRecord pg = permissionHelper.createGroup(stem);
+
+        permissionHelper.setupPermissionGroupEntry(appA, pg.getId());
+        permissionHelper.setupPermissionGroupEntry(appB, pg.getId());
+
+        permissionHelper.setupPermissionGroupInvolvement(
+                ig.getId(),
+                pg.getId(),
+                EntityKind.LOGICAL_DATA_FLOW,
+                EntityKind.APPLICATION,
+                Operation.ADD,
+                null);
+
+        involvementHelper.createInvolvement(u1Id, privKind, appA);
+        involvementHelper.createInvolvement(u1Id, privKind, appC);
+
+        Map<EntityReference, Set<Operation>> permissionsByRef = flowPermissionChecker
+                .findFlowPermissionsForParentEntities(asSet(appA, appB, appC), u1);
+
+        assertEquals(asSet(Operation.ADD), permissionsByRef.get(appA), "override group with matching involvement");
+        assertEquals(emptySet(), permissionsByRef.get(appB), "override group without involvement");
+        assertEquals(asSet(Operation.ATTEST), permissionsByRef.get(appC), "no override group, takes defaults");
+
+        asSet(appA, appB, appC).forEach(ref -> assertEquals(
+                flowPermissionChecker.findFlowPermissionsForParentEntity(ref, u1),
+                permissionsByRef.get(ref),
+                "bulk permissions should match those for individual entities"));
+
+        assertEquals(
+                emptySet(),
+                flowPermissionChecker.findFlowPermissionsForParentEntities(emptySet(), u1).keySet(),
+                "no refs, no permissions");
+    }
+}
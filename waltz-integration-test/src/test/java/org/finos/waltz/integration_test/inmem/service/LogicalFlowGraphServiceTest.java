@@ -0,0 +1,211 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.ImmutableAddLogicalFlowCommand;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowGraphPathQuery;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowGraphQuery;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphNode;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPathQuery;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
+import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogicalFlowGraphServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private LogicalFlowGraphService graphSvc;
+
+    @Autowired
+    private LogicalFlowService lfSvc;
+
+    @Autowired
+    private EntityHierarchyService entityHierarchySvc;
+
+    @Autowired
+    private LogicalFlowHelper flowHelper;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    private EntityReference a;
+    private EntityReference b;
+    private EntityReference c;
+    private EntityReference d;
+    private Long parentDt;
+
+
+    /**
+     * a -(childDt)-> b -(otherDt)-> c -(childDt)-> d
+     */
+    @BeforeEach
+    public void setupFlows() {
+        flowHelper.clearAllFlows();
+
+        parentDt = dataTypeHelper.createDataType("graphParent");
+        Long childDt = dataTypeHelper.createDataType("graphChild");
+        Long otherDt = dataTypeHelper.createDataType("graphOther");
+        dsl.update(DATA_TYPE)
+                .set(DATA_TYPE.PARENT_ID, parentDt)
+                .where(DATA_TYPE.ID.eq(childDt))
+                .execute();
+        entityHierarchySvc.buildFor(EntityKind.DATA_TYPE);
+
+        a = appHelper.createNewApp("a", ouIds.a);
+        b = appHelper.createNewApp("b", ouIds.a);
+        c = appHelper.createNewApp("c", ouIds.b);
+        d = appHelper.createNewApp("d", ouIds.b);
+
+        flowHelper.createLogicalFlowDecorators(flowHelper.createLogicalFlow(a, b).entityReference(), asSet(childDt));
+        flowHelper.createLogicalFlowDecorators(flowHelper.createLogicalFlow(b, c).entityReference(), asSet(otherDt));
+        flowHelper.createLogicalFlowDecorators(flowHelper.createLogicalFlow(c, d).entityReference(), asSet(childDt));
+
+        graphSvc.refreshAll();
+    }
+
+
+    @Test
+    public void downstreamAndUpstreamClosures() {
+        LogicalFlowGraphTraversal downstream = graphSvc.getDownstream(ImmutableLogicalFlowGraphQuery
+                .builder()
+                .entityReference(a)
+                .build());
+
+        assertEquals(asSet(b.id(), c.id(), d.id()), toIds(downstream));
+        assertEquals(3, downstream.flowIds().size());
+
+        LogicalFlowGraphTraversal upstream = graphSvc.getUpstream(ImmutableLogicalFlowGraphQuery
+                .builder()
+                .entityReference(d)
+                .maxDepth(2)
+                .build());
+
+        assertEquals(asSet(b.id(), c.id()), toIds(upstream));
+    }
+
+
+    @Test
+    public void dataTypeFilterIncludesDescendants() {
+        LogicalFlowGraphTraversal downstream = graphSvc.getDownstream(ImmutableLogicalFlowGraphQuery
+                .builder()
+                .entityReference(a)
+                .addDataTypeIds(parentDt)
+                .build());
+
+        assertEquals(asSet(b.id()), toIds(downstream), "a->b is decorated with a child of the requested data type, b->c is not");
+    }
+
+
+    @Test
+    public void addedRemovedAndRestoredFlowsAreAppliedImmediately() {
+        LogicalFlowGraphPathQuery aToD = ImmutableLogicalFlowGraphPathQuery
+                .builder()
+                .source(a)
+                .target(d)
+                .build();
+
+        assertEquals(asList(3), pathLengths(graphSvc.findPaths(aToD)));
+
+        LogicalFlow shortcut = lfSvc.addFlow(
+                ImmutableAddLogicalFlowCommand.builder()
+                        .source(a)
+                        .target(d)
+                        .build(),
+                "graphTest");
+
+        assertEquals(asList(1, 3), pathLengths(graphSvc.findPaths(aToD)));
+        assertTrue(graphSvc.isReachable(ImmutableLogicalFlowGraphPathQuery.copyOf(aToD).withMaxDepth(1)));
+
+        lfSvc.removeFlow(shortcut.id().get(), "graphTest");
+        assertEquals(asList(3), pathLengths(graphSvc.findPaths(aToD)));
+        assertFalse(graphSvc.isReachable(ImmutableLogicalFlowGraphPathQuery.copyOf(aToD).withMaxDepth(1)));
+
+        lfSvc.restoreFlow(shortcut.id().get(), "graphTest");
+        assertTrue(graphSvc.isReachable(ImmutableLogicalFlowGraphPathQuery.copyOf(aToD).withMaxDepth(1)));
+    }
+
+
+    @Test
+    public void reachabilityFollowsFlowDirection() {
+        assertTrue(graphSvc.isReachable(ImmutableLogicalFlowGraphPathQuery
+                .builder()
+                .source(a)
+                .target(d)
+                .build()));
+
+        assertFalse(graphSvc.isReachable(ImmutableLogicalFlowGraphPathQuery
+                .builder()
+                .source(d)
+                .target(a)
+                .build()));
+    }
+
+
+    // -- helpers
+
+    private static Set<Long> toIds(LogicalFlowGraphTraversal traversal) {
+        return traversal
+                .nodes()
+                .stream()
+                .map(LogicalFlowGraphNode::entityReference)
+                .map(EntityReference::id)
+                .collect(toSet());
+    }
+
+
+    private static List<Integer> pathLengths(List<LogicalFlowGraphPath> paths) {
+        return paths
+                .stream()
+                .map(p -> p.flowIds().size())
+                .collect(toList());
+    }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.common.exception.InsufficientPrivelegeException;
+import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.data.logical_flow.LogicalFlowStatsDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowStatsStoreDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.ImmutableAddLogicalFlowCommand;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlowStatistics;
+import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.service.app_group.AppGroupService;
+import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.logical_flow.LogicalFlowStatsService;
+import org.finos.waltz.test_common.helpers.AppGroupHelper;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.HierarchyQueryScope.EXACT;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogicalFlowStatsServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private LogicalFlowStatsService statsSvc;
+
+    @Autowired
+    private LogicalFlowService lfSvc;
+
+    @Autowired
+    private AppGroupService appGroupSvc;
+
+    @Autowired
+    private LogicalFlowHelper flowHelper;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private AppGroupHelper appGroupHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private DBExecutorPoolInterface dbExecutorPool;
+
+    @Autowired
+    private LogicalFlowStatsDao logicalFlowStatsDao;
+
+
+    private EntityReference a;
+    private EntityReference b;
+    private EntityReference c;
+
+
+    /**
+     * a (ou: a) -> b (ou: a1), a -> c (ou: b), c -> b
+     */
+    @BeforeEach
+    public void setupFlows() {
+        flowHelper.clearAllFlows();
+        a = appHelper.createNewApp("a", ouIds.a);
+        b = appHelper.createNewApp("b", ouIds.a1);
+        c = appHelper.createNewApp("c", ouIds.b);
+        flowHelper.createLogicalFlow(a, b);
+        flowHelper.createLogicalFlow(a, c);
+        flowHelper.createLogicalFlow(c, b);
+    }
+
+
+    @Test
+    public void orgUnitStatsIncludeChildUnits() {
+        LogicalFlowStatistics stats = statsSvc.calculateStats(mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a)));
+
+        assertMeasures(stats, 1, 1, 2, 1, 1, 1);
+    }
+
+
+    @Test
+    public void storedStatsMatchLiveCalculation() {
+        Long dtId = dataTypeHelper.createDataType("statsDt");
+        LogicalFlow ad = flowHelper.createLogicalFlow(a, appHelper.createNewApp("d", ouIds.a1));
+        flowHelper.createLogicalFlowDecorators(ad.entityReference(), asSet(dtId));
+
+        EntityReference ouA = mkRef(EntityKind.ORG_UNIT, ouIds.a);
+        LogicalFlowStatistics stored = statsSvc.recalculate(ouA);
+        LogicalFlowStatistics read = statsSvc.calculateStats(mkOpts(ouA));
+
+        assertEquals(stored.appCounts(), read.appCounts());
+        assertEquals(stored.flowCounts(), read.flowCounts());
+        assertEquals(
+                tallyDataTypes(stored),
+                tallyDataTypes(read));
+        assertEquals(
+                1.0,
+                tallyDataTypes(read).get(dtId).get("INTRA"),
+                "data type tallies should be restored from the store");
+    }
+
+
+    @Test
+    public void flowChangesAreVisibleOnceInvalidatedStatsAreRefreshed() {
+        EntityReference ouB = mkRef(EntityKind.ORG_UNIT, ouIds.b);
+        assertMeasures(statsSvc.calculateStats(mkOpts(ouB)), 1, 1, 1, 1, 1, 0);
+
+        EntityReference d = appHelper.createNewApp("d", ouIds.b);
+        lfSvc.addFlow(
+                ImmutableAddLogicalFlowCommand.builder()
+                        .source(c)
+                        .target(d)
+                        .build(),
+                "statsTest");
+
+        assertMeasures(statsSvc.calculateStats(mkOpts(ouB)), 1, 1, 1, 1, 1, 0);
+
+        statsSvc.refreshInvalidated();
+
+        assertMeasures(statsSvc.calculateStats(mkOpts(ouB)), 1, 1, 2, 1, 1, 1);
+    }
+
+
+    @Test
+    public void appGroupMembershipChangesInvalidateStats() throws InsufficientPrivelegeException {
+        Long groupId = appGroupHelper.createAppGroupWithAppRefs("statsGroup", asList(a, b));
+        EntityReference groupRef = mkRef(EntityKind.APP_GROUP, groupId);
+
+        assertMeasures(statsSvc.calculateStats(mkOpts(groupRef)), 1, 1, 2, 1, 1, 1);
+
+        appGroupSvc.removeApplication("appGroupHelper", groupId, b.id());
+        statsSvc.refreshInvalidated();
+
+        assertMeasures(statsSvc.calculateStats(mkOpts(groupRef)), 0, 2, 1, 0, 2, 0);
+    }
+
+
+    @Test
+    public void nonDefaultSelectionsAreCalculatedLive() {
+        EntityReference ouA = mkRef(EntityKind.ORG_UNIT, ouIds.a);
+        statsSvc.recalculate(ouA);
+
+        LogicalFlowStatistics exact = statsSvc.calculateStats(mkOpts(ouA, EXACT));
+
+        assertMeasures(exact, 0, 2, 1, 0, 2, 0);
+    }
+
+
+    @Test
+    public void recalculateAllCoversOrgUnitsAndGroups() throws InsufficientPrivelegeException {
+        appGroupHelper.createAppGroupWithAppRefs("statsGroup", asList(a, c));
+
+        int count = statsSvc.recalculateAll();
+
+        assertTrue(count >= 5, "expected at least the four org units and the new group to be recalculated");
+    }
+
+
+    @Test
+    public void invalidatedStatsAreRetriedIfARefreshFails() {
+        AtomicBoolean failNextLookup = new AtomicBoolean(false);
+        LogicalFlowStatsStoreDao flakyStoreDao = new LogicalFlowStatsStoreDao(dsl) {
+            @Override
+            public Set<EntityReference> findOrgUnitsAndAppGroupsForApplications(Collection<Long> appIds) {
+                if (failNextLookup.getAndSet(false)) {
+                    throw new IllegalStateException("simulated lookup failure");
+                }
+                return super.findOrgUnitsAndAppGroupsForApplications(appIds);
+            }
+        };
+
+        LogicalFlowStatsService svc = new LogicalFlowStatsService(
+                dbExecutorPool,
+                logicalFlowStatsDao,
+                flakyStoreDao,
+                true,
+                1440);
+
+        EntityReference ouB = mkRef(EntityKind.ORG_UNIT, ouIds.b);
+        svc.recalculate(ouB);
+
+        flowHelper.createLogicalFlow(c, appHelper.createNewApp("d", ouIds.b));
+        svc.invalidateForEntities(asList(c));
+
+        failNextLookup.set(true);
+        assertThrows(IllegalStateException.class, svc::refreshInvalidated);
+        assertMeasures(svc.calculateStats(mkOpts(ouB)), 1, 1, 1, 1, 1, 0);
+
+        svc.refreshInvalidated();
+        assertMeasures(svc.calculateStats(mkOpts(ouB)), 1, 1, 2, 1, 1, 1);
+    }
+
+
+    // -- HELPERS ---
+
+    private static void assertMeasures(LogicalFlowStatistics stats,
+                                       double appsIn,
+                                       double appsOut,
+                                       double appsIntra,
+                                       double flowsIn,
+                                       double flowsOut,
+                                       double flowsIntra) {
+        assertEquals(appsIn, stats.appCounts().inbound(), "app inbound");
+        assertEquals(appsOut, stats.appCounts().outbound(), "app outbound");
+        assertEquals(appsIntra, stats.appCounts().intra(), "app intra");
+        assertEquals(flowsIn, stats.flowCounts().inbound(), "flow inbound");
+        assertEquals(flowsOut, stats.flowCounts().outbound(), "flow outbound");
+        assertEquals(flowsIntra, stats.flowCounts().intra(), "flow intra");
+    }
+
+
+    private static Map<Long, Map<String, Double>> tallyDataTypes(LogicalFlowStatistics stats) {
+        return stats
+                .dataTypeCounts()
+                .stream()
+                .collect(toMap(
+                        p -> p.entityReference().id(),
+                        LogicalFlowStatsServiceTest::toCounts));
+    }
+
+
+    private static Map<String, Double> toCounts(TallyPack<String> pack) {
+        return pack
+                .tallies()
+                .stream()
+                .collect(toMap(Tally::id, Tally::count));
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.involvement.PersonApplicationClosureDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.involvement.ImmutableEntityInvolvementChangeCommand;
+import org.finos.waltz.service.involvement.InvolvementService;
+import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.InvolvementHelper;
+import org.finos.waltz.test_common.helpers.PersonHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.HierarchyQueryScope.CHILDREN;
+import static org.finos.waltz.model.HierarchyQueryScope.EXACT;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.INVOLVEMENT;
+import static org.finos.waltz.schema.Tables.PERSON;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PersonApplicationClosureTest extends BaseInMemoryIntegrationTest {
+
+    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private PersonHierarchyService personHierarchyService;
+
+    @Autowired
+    private InvolvementService involvementService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private InvolvementHelper involvementHelper;
+
+    @Autowired
+    private PersonHelper personHelper;
+
+
+    @Test
+    public void reporteeSelectorsIncludeTheWholeReportingLine() {
+        String stem = mkName("closure_line");
+        Long manager = personHelper.createPerson(stem + "_manager");
+        Long reportee = personHelper.createPerson(stem + "_reportee");
+        Long subReportee = personHelper.createPerson(stem + "_sub_reportee");
+        setManager(reportee, manager);
+        setManager(subReportee, reportee);
+
+        EntityReference managerApp = appHelper.createNewApp(stem + "_m", ouIds.root);
+        EntityReference reporteeApp = appHelper.createNewApp(stem + "_r", ouIds.a);
+        EntityReference subReporteeApp = appHelper.createNewApp(stem + "_s", ouIds.a1);
+
+        long invKind = involvementHelper.mkInvolvementKind(stem);
+        involvementHelper.createInvolvement(manager, invKind, managerApp);
+        involvementHelper.createInvolvement(reportee, invKind, reporteeApp);
+        involvementHelper.createInvolvement(subReportee, invKind, subReporteeApp);
+
+        personHierarchyService.build();
+
+        assertEquals(
+                asSet(managerApp.id(), reporteeApp.id(), subReporteeApp.id()),
+                findAppIds(manager, CHILDREN),
+                "manager should see apps of their entire reporting line");
+
+        assertEquals(
+                asSet(reporteeApp.id(), subReporteeApp.id()),
+                findAppIds(reportee, CHILDREN),
+                "reportee should see their own apps and those of their reportees");
+
+        assertEquals(
+                asSet(managerApp.id()),
+                findAppIds(manager, EXACT),
+                "exact selection should only include the manager's own apps");
+    }
+
+
+    @Test
+    public void closureFollowsInvolvementChanges() {
+        String stem = mkName("closure_inv");
+        Long manager = personHelper.createPerson(stem + "_manager");
+        Long reportee = personHelper.createPerson(stem + "_reportee");
+        setManager(reportee, manager);
+
+        personHierarchyService.build();
+
+        EntityReference app = appHelper.createNewApp(stem, ouIds.a);
+        long invKind = involvementHelper.mkInvolvementKind(stem);
+
+        involvementHelper.createInvolvement(reportee, invKind, app);
+        assertEquals(
+                asSet(app.id()),
+                findAppIds(manager, CHILDREN),
+                "adding a reportee involvement should be reflected without a hierarchy rebuild");
+
+        involvementService.removeEntityInvolvement(
+                mkUserId(),
+                app,
+                ImmutableEntityInvolvementChangeCommand.builder()
+                        .involvementKindId((int) invKind)
+                        .personEntityRef(mkRef(EntityKind.PERSON, reportee))
+                        .operation(Operation.REMOVE)
+                        .build());
+
+        assertEquals(
+                asSet(),
+                findAppIds(manager, CHILDREN),
+                "removing the reportee involvement should remove the app from the manager's closure");
+    }
+
+
+    @Test
+    public void removedReporteesAreExcluded() {
+        String stem = mkName("closure_removed");
+        Long manager = personHelper.createPerson(stem + "_manager");
+        Long reportee = personHelper.createPerson(stem + "_reportee");
+        setManager(reportee, manager);
+
+        EntityReference app = appHelper.createNewApp(stem, ouIds.a);
+        long invKind = involvementHelper.mkInvolvementKind(stem);
+        involvementHelper.createInvolvement(reportee, invKind, app);
+
+        personHierarchyService.build();
+        assertEquals(asSet(app.id()), findAppIds(manager, CHILDREN));
+
+        personHelper.updateIsRemoved(reportee, true);
+        personHierarchyService.build();
+
+        assertEquals(
+                asSet(),
+                findAppIds(manager, CHILDREN),
+                "apps of removed reportees should not be included");
+    }
+
+
+    @Test
+    public void rebuildPicksUpInvolvementsLoadedOutsideWaltz() {
+        String stem = mkName("closure_loaded");
+        Long manager = personHelper.createPerson(stem + "_manager");
+        Long reportee = personHelper.createPerson(stem + "_reportee");
+        setManager(reportee, manager);
+
+        personHierarchyService.build();
+
+        EntityReference app = appHelper.createNewApp(stem, ouIds.a);
+        long invKind = involvementHelper.mkInvolvementKind(stem);
+
+        dsl.insertInto(INVOLVEMENT)
+                .set(INVOLVEMENT.ENTITY_KIND, EntityKind.APPLICATION.name())
+                .set(INVOLVEMENT.ENTITY_ID, app.id())
+                .set(INVOLVEMENT.EMPLOYEE_ID, findEmployeeId(reportee))
+                .set(INVOLVEMENT.KIND_ID, invKind)
+                .set(INVOLVEMENT.PROVENANCE, "test")
+                .set(INVOLVEMENT.IS_READONLY, true)
+                .execute();
+
+        assertEquals(asSet(), findAppIds(manager, CHILDREN), "direct loads are not seen until the closure is rebuilt");
+
+        involvementService.rebuildPersonApplicationClosure();
+
+        assertEquals(
+                asSet(app.id()),
+                findAppIds(manager, CHILDREN),
+                "rebuilding the closure should pick up involvements loaded outside Waltz");
+    }
+
+
+    @Test
+    public void concurrentRefreshesOfTheSameApplicationDoNotCollide() throws Exception {
+        String stem = mkName("closure_concurrent");
+        Long manager = personHelper.createPerson(stem + "_manager");
+        Long reportee = personHelper.createPerson(stem + "_reportee");
+        setManager(reportee, manager);
+
+        EntityReference app = appHelper.createNewApp(stem, ouIds.a);
+        long invKind = involvementHelper.mkInvolvementKind(stem);
+        involvementHelper.createInvolvement(reportee, invKind, app);
+
+        personHierarchyService.build();
+
+        // separate daos stand in for separate waltz instances, which do not share a lock
+        List<PersonApplicationClosureDao> daos = asList(
+                new PersonApplicationClosureDao(dsl),
+                new PersonApplicationClosureDao(dsl),
+                new PersonApplicationClosureDao(dsl));
+
+        List<Callable<Integer>> refreshes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            PersonApplicationClosureDao dao = daos.get(i % daos.size());
+            refreshes.add(i % 10 == 0
+                    ? dao::rebuild
+                    : () -> dao.refreshForApplications(asSet(app.id())));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            for (Future<Integer> result : pool.invokeAll(refreshes)) {
+                result.get(); // rethrows any failure
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(asSet(app.id()), findAppIds(manager, CHILDREN));
+        assertEquals(asSet(app.id()), findAppIds(reportee, EXACT));
+    }
+
+
+    // -- HELPERS
+
+    private void setManager(Long personId, Long managerId) {
+        dsl.update(PERSON)
+                .set(PERSON.MANAGER_EMPLOYEE_ID, findEmployeeId(managerId))
+                .where(PERSON.ID.eq(personId))
+                .execute();
+    }
+
+
+    private String findEmployeeId(Long personId) {
+        return dsl
+                .select(PERSON.EMPLOYEE_ID)
+                .from(PERSON)
+                .where(PERSON.ID.eq(personId))
+                .fetchOne(PERSON.EMPLOYEE_ID);
+    }
+
+
+    private Set<Long> findAppIds(Long personId, HierarchyQueryScope scope) {
+        return dsl
+                .fetch(appIdSelectorFactory.apply(mkOpts(mkRef(EntityKind.PERSON, personId), scope)))
+                .intoSet(0, Long.class);
+    }
+
+}
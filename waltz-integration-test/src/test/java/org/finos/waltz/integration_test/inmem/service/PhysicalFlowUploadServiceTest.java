@@ -0,0 +1,170 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.command.CommandOutcome;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlowUploadCommand;
+import org.finos.waltz.model.physical_flow.PhysicalFlow;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadCommand;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadCommandResponse;
+import org.finos.waltz.service.data_type.DataTypeDecoratorService;
+import org.finos.waltz.service.data_type.DataTypeService;
+import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.physical_flow.PhysicalFlowService;
+import org.finos.waltz.service.physical_flow.PhysicalFlowUploadService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.ListUtilities.map;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhysicalFlowUploadServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private PhysicalFlowUploadService uploadSvc;
+
+    @Autowired
+    private PhysicalFlowService pfSvc;
+
+    @Autowired
+    private LogicalFlowService lfSvc;
+
+    @Autowired
+    private DataTypeDecoratorService dtdSvc;
+
+    @Autowired
+    private DataTypeService dtSvc;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+
+    @Test
+    public void validateReportsUnresolvedValues() {
+        EntityReference a = appHelper.createNewApp(mkName("validateA"), ouIds.a);
+
+        List<PhysicalFlowUploadCommandResponse> responses = uploadSvc.validate(singletonList(
+                mkCommand(a.name().get(), mkName("unknownApp"), mkName("spec"), mkName("unknownDataType"))));
+
+        assertEquals(1, responses.size());
+        PhysicalFlowUploadCommandResponse response = responses.get(0);
+        assertEquals(CommandOutcome.FAILURE, response.outcome());
+        assertEquals(asSet("target", "dataType"), response.errors().keySet(), "unresolved target and data type are reported");
+    }
+
+
+    @Test
+    public void uploadRejectsCommandsWithErrors() {
+        EntityReference a = appHelper.createNewApp(mkName("rejectA"), ouIds.a);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> uploadSvc.upload(
+                        mkName("uploadRejects"),
+                        singletonList(mkCommand(a.name().get(), mkName("unknownApp"), mkName("spec"), mkName("unknownDataType")))));
+    }
+
+
+    @Test
+    public void uploadCreatesFlowsAndReusesThemForDuplicateRows() throws Exception {
+        String username = mkName("uploadCreates");
+        EntityReference a = appHelper.createNewApp(mkName("uploadA"), ouIds.a);
+        EntityReference b = appHelper.createNewApp(mkName("uploadB"), ouIds.a1);
+        Long dtId = dataTypeHelper.createDataType("upload");
+        String dtCode = dtSvc.getDataTypeById(dtId).code();
+        String specName = mkName("spec");
+
+        List<PhysicalFlowUploadCommand> cmds = asList(
+                mkCommand(a.name().get(), b.name().get(), specName, dtCode),
+                mkCommand(a.name().get(), b.name().get(), specName, dtCode),
+                mkCommand(b.name().get(), a.name().get(), specName, dtCode));
+
+        List<PhysicalFlowUploadCommandResponse> uploaded = uploadSvc.upload(username, cmds);
+
+        assertEquals(3, uploaded.size(), "a response is returned for every new row");
+        assertTrue(uploaded.stream().allMatch(r -> r.outcome() == CommandOutcome.SUCCESS));
+        assertEquals(EntityKind.PHYSICAL_FLOW, uploaded.get(0).entityReference().kind());
+        assertEquals(uploaded.get(0).entityReference(), uploaded.get(1).entityReference(), "duplicate rows resolve to the same physical flow");
+        assertNotEquals(uploaded.get(0).entityReference(), uploaded.get(2).entityReference());
+
+        PhysicalFlow abPhysicalFlow = pfSvc.getById(uploaded.get(0).entityReference().id());
+        PhysicalFlow baPhysicalFlow = pfSvc.getById(uploaded.get(2).entityReference().id());
+
+        LogicalFlow abFlow = lfSvc.getById(abPhysicalFlow.logicalFlowId());
+        LogicalFlow baFlow = lfSvc.getById(baPhysicalFlow.logicalFlowId());
+        assertEquals(asList(a.id(), b.id()), asList(abFlow.source().id(), abFlow.target().id()), "missing logical flows are created");
+        assertEquals(asList(b.id(), a.id()), asList(baFlow.source().id(), baFlow.target().id()));
+        assertNotEquals(abPhysicalFlow.specificationId(), baPhysicalFlow.specificationId(), "specifications are owned by the source of each row");
+
+        assertEquals(
+                asList(dtId),
+                map(dtdSvc.findByEntityId(abFlow.entityReference()), DataTypeDecorator::dataTypeId),
+                "data type is added to the logical flow");
+        assertEquals(
+                asList(dtId),
+                map(dtdSvc.findByEntityId(mkRef(EntityKind.PHYSICAL_SPECIFICATION, abPhysicalFlow.specificationId())), DataTypeDecorator::dataTypeId),
+                "data type is added to the specification");
+
+        List<PhysicalFlowUploadCommandResponse> validated = uploadSvc.validate(cmds);
+        assertEquals(
+                map(uploaded, PhysicalFlowUploadCommandResponse::entityReference),
+                map(validated, PhysicalFlowUploadCommandResponse::entityReference),
+                "revalidating identifies the uploaded flows as existing");
+
+        assertTrue(uploadSvc.upload(username, cmds).isEmpty(), "uploading again creates nothing");
+    }
+
+
+    private PhysicalFlowUploadCommand mkCommand(String source,
+                                                String target,
+                                                String specName,
+                                                String dataType) {
+        return ImmutablePhysicalFlowUploadCommand.builder()
+                .source(source)
+                .target(target)
+                .owner(source)
+                .name(specName)
+                .format("FLAT_FILE")
+                .basisOffset("0")
+                .criticality("MEDIUM")
+                .description("uploaded flow")
+                .frequency("DAILY")
+                .transport("FILE_TRANSPORT")
+                .dataType(dataType)
+                .build();
+    }
+
+}
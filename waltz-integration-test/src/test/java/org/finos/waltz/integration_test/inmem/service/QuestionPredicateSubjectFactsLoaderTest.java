@@ -0,0 +1,128 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.assessment_definition.AssessmentVisibility;
+import org.finos.waltz.schema.tables.records.DataTypeUsageRecord;
+import org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateSubjectFacts;
+import org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateSubjectFactsLoader;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.AssessmentHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.InvolvementHelper;
+import org.finos.waltz.test_common.helpers.PersonHelper;
+import org.finos.waltz.test_common.helpers.RatingSchemeHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.finos.waltz.schema.Tables.DATA_TYPE_USAGE;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuestionPredicateSubjectFactsLoaderTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private AssessmentHelper assessmentHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private InvolvementHelper involvementHelper;
+
+    @Autowired
+    private PersonHelper personHelper;
+
+    @Autowired
+    private RatingSchemeHelper ratingSchemeHelper;
+
+
+    @Test
+    public void loadsAppFacts() {
+        EntityReference app = appHelper.createNewApp(mkName("loadsAppFacts"), ouIds.a1);
+
+        Long parentDtId = dataTypeHelper.createDataType("parentDt");
+        Long childDtId = dataTypeHelper.createDataType("childDt");
+        dsl.update(DATA_TYPE).set(DATA_TYPE.PARENT_ID, parentDtId).where(DATA_TYPE.ID.eq(childDtId)).execute();
+        rebuildHierarchy(EntityKind.DATA_TYPE);
+        mkUsage(app, childDtId, "CONSUMER");
+
+        long schemeId = ratingSchemeHelper.createEmptyRatingScheme(mkName("scheme"));
+        Long ratingId = ratingSchemeHelper.saveRatingItem(schemeId, "High", 1, "red", "H");
+        String defName = mkName("sensitivity");
+        long defId = assessmentHelper.createDefinition(schemeId, defName, null, AssessmentVisibility.PRIMARY, null);
+        assessmentHelper.createAssessment(defId, app, ratingId);
+
+        String invKindName = mkName("Architect");
+        long invKindId = involvementHelper.mkInvolvementKind(invKindName);
+        involvementHelper.createInvolvement(personHelper.createPerson(mkName("person")), invKindId, app);
+
+        QuestionPredicateSubjectFacts facts = QuestionPredicateSubjectFactsLoader.load(dsl, app);
+
+        assertEquals(app, facts.subjectRef());
+        assertTrue(facts.kind().isPresent());
+        assertTrue(facts.lifecyclePhase().isPresent());
+        assertFalse(facts.retiring());
+        assertEquals(asSet("a1Name", "aName", "rootName"), facts.orgUnitNamesAndExternalIds(), "should include all org unit ancestors");
+
+        String parentDtName = dsl.select(DATA_TYPE.NAME).from(DATA_TYPE).where(DATA_TYPE.ID.eq(parentDtId)).fetchOne(DATA_TYPE.NAME);
+        assertEquals(asSet("CONSUMER"), facts.dataTypeUsageKinds().get(parentDtName), "usages should be visible via parent data types");
+
+        assertEquals("H", facts.assessmentRatingCodes().get(defName));
+        assertEquals(asSet(invKindName.toLowerCase().trim()), facts.involvementKindNames());
+    }
+
+
+    @Test
+    public void unsupportedSubjectKindsHaveNoFacts() {
+        QuestionPredicateSubjectFacts facts = QuestionPredicateSubjectFactsLoader.load(dsl, mkRef(EntityKind.ACTOR, 1L));
+
+        assertFalse(facts.kind().isPresent());
+        assertTrue(facts.orgUnitNamesAndExternalIds().isEmpty());
+        assertTrue(facts.assessmentRatingCodes().isEmpty());
+    }
+
+
+    // -- HELPERS
+
+    private void mkUsage(EntityReference ref, Long dataTypeId, String usageKind) {
+        DataTypeUsageRecord record = dsl.newRecord(DATA_TYPE_USAGE);
+        record.setEntityKind(ref.kind().name());
+        record.setEntityId(ref.id());
+        record.setDataTypeId(dataTypeId);
+        record.setUsageKind(usageKind);
+        record.setDescription("");
+        record.setProvenance("test");
+        record.insert();
+    }
+
+}
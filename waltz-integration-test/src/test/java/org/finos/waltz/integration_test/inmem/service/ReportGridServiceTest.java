@@ -1,12 +1,15 @@
 package org.finos.waltz.integration_test.inmem.service;
 
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.common.exception.NotFoundException;
 import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
 import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.report_grid.*;
 import org.finos.waltz.service.report_grid.ReportGridMemberService;
 import org.finos.waltz.service.report_grid.ReportGridService;
+import org.finos.waltz.test_common.helpers.AppHelper;
 import org.finos.waltz.test_common.helpers.InvolvementHelper;
 import org.jooq.DSLContext;
 import org.jooq.Record1;
@@ -14,12 +17,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.finos.waltz.common.CollectionUtilities.find;
 import static org.finos.waltz.common.CollectionUtilities.maybeFirst;
 import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.COST;
+import static org.finos.waltz.schema.Tables.COST_KIND;
 import static org.finos.waltz.schema.Tables.REPORT_GRID_COLUMN_DEFINITION;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,6 +47,9 @@ public class ReportGridServiceTest extends BaseInMemoryIntegrationTest {
     @Autowired
     private InvolvementHelper involvementHelper;
 
+    @Autowired
+    private AppHelper appHelper;
+
 
     @Test
     public void canCreateAReportGrid() throws InsufficientPrivelegeException {
@@ -107,9 +117,72 @@ public class ReportGridServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void cachedGridsReflectCostsLoadedWithoutChangeLog() throws InsufficientPrivelegeException {
+        EntityReference app = appHelper.createNewApp(mkName("costApp"), ouIds.a);
+        Long costKindId = dsl
+                .insertInto(COST_KIND)
+                .set(COST_KIND.NAME, mkName("costKind"))
+                .set(COST_KIND.IS_DEFAULT, false)
+                .set(COST_KIND.EXTERNAL_ID, mkName("costKind"))
+                .returning(COST_KIND.ID)
+                .fetchOne()
+                .getId();
+
+        long gridId = mkGrid(EntityKind.COST_KIND, costKindId).id().get();
+
+        assertEquals(
+                asSet(),
+                findCellValues(gridId, app),
+                "no costs loaded yet");
+
+        insertCost(costKindId, app, 2025, 10);
+        assertEquals(
+                asSet("10.00"),
+                findCellValues(gridId, app),
+                "newly loaded cost should be shown, not the cached empty grid");
+
+        insertCost(costKindId, app, 2026, 20);
+        assertEquals(
+                asSet("20.00"),
+                findCellValues(gridId, app),
+                "cost for the latest year should be shown");
+    }
+
+
     // -- HELPERS --------------
 
+    private Set<String> findCellValues(long gridId, EntityReference app) {
+        ReportGrid grid = reportGridService
+                .getByIdAndSelectionOptions(gridId, mkOpts(app))
+                .orElseThrow(() -> new AssertionError("grid should exist"));
+
+        return SetUtilities.map(
+                grid.instance().cellData(),
+                c -> c.numberValue().setScale(2).toPlainString());
+    }
+
+
+    private void insertCost(long costKindId, EntityReference app, int year, int amount) {
+        dsl.insertInto(COST)
+                .set(COST.COST_KIND_ID, costKindId)
+                .set(COST.ENTITY_KIND, app.kind().name())
+                .set(COST.ENTITY_ID, app.id())
+                .set(COST.YEAR, year)
+                .set(COST.AMOUNT, BigDecimal.valueOf(amount))
+                .set(COST.LAST_UPDATED_BY, LAST_UPDATE_USER)
+                .set(COST.PROVENANCE, PROVENANCE)
+                .execute();
+    }
+
+
     private ReportGridDefinition mkGrid() throws InsufficientPrivelegeException {
+        long invKind = involvementHelper.mkInvolvementKind(mkName("dummyInv"));
+        return mkGrid(EntityKind.INVOLVEMENT_KIND, invKind);
+    }
+
+
+    private ReportGridDefinition mkGrid(EntityKind columnKind, long columnEntityId) throws InsufficientPrivelegeException {
         ReportGridCreateCommand cmd = ImmutableReportGridCreateCommand.builder()
                 .name(mkName("testReport"))
                 .subjectKind(EntityKind.APPLICATION)
@@ -118,12 +191,10 @@ public class ReportGridServiceTest extends BaseInMemoryIntegrationTest {
         String admin = mkName("admin");
         ReportGridDefinition def = reportGridService.create(cmd, admin);
 
-        long invKind = involvementHelper.mkInvolvementKind(mkName("dummyInv"));
-
         ReportGridFixedColumnDefinition colDef = ImmutableReportGridFixedColumnDefinition
                 .builder()
-                .columnEntityKind(EntityKind.INVOLVEMENT_KIND)
-                .columnEntityId(invKind)
+                .columnEntityKind(columnKind)
+                .columnEntityId(columnEntityId)
                 .position(10)
                 .build();
 
@@ -132,12 +203,10 @@ public class ReportGridServiceTest extends BaseInMemoryIntegrationTest {
                 .fixedColumnDefinitions(asSet(colDef))
                 .build();
 
-
         return reportGridService.updateColumnDefinitions(
                 def.id().get(),
                 colCmd,
                 admin);
     }
 
-
 }
@@ -141,6 +141,75 @@ public class SurveyRunServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void individualSurveysAreIssuedPerRecipientAndCanBeReissued() {
+        String stem = "srt_individualSurveysAreIssuedPerRecipient";
+
+        String admin = mkName(stem, "admin");
+        personHelper.createPerson(admin);
+
+        String u1 = mkName(stem, "user1");
+        Long u1Id = personHelper.createPerson(u1);
+        String u2 = mkName(stem, "user2");
+        Long u2Id = personHelper.createPerson(u2);
+        String owner = mkName(stem, "owner");
+        Long ownerId = personHelper.createPerson(owner);
+
+        EntityReference appA = appHelper.createNewApp(mkName(stem, "appA"), ouIds.a);
+
+        long invKind = involvementHelper.mkInvolvementKind(mkName(stem, "invKind"));
+        long ownerInvKind = involvementHelper.mkInvolvementKind(mkName(stem, "ownerInvKind"));
+        involvementHelper.createInvolvement(u1Id, invKind, appA);
+        involvementHelper.createInvolvement(u2Id, invKind, appA);
+        involvementHelper.createInvolvement(ownerId, ownerInvKind, appA);
+
+        long tId = templateHelper.createTemplate(admin, mkName("test"));
+
+        SurveyRunCreateCommand cmd = ImmutableSurveyRunCreateCommand.builder()
+                .issuanceKind(SurveyIssuanceKind.INDIVIDUAL)
+                .name("test")
+                .description("run desc")
+                .selectionOptions(IdSelectionOptions.mkOpts(appA))
+                .surveyTemplateId(tId)
+                .addInvolvementKindIds(invKind)
+                .addOwnerInvKindIds(ownerInvKind)
+                .dueDate(DateTimeUtilities.today().plusMonths(1))
+                .approvalDueDate(DateTimeUtilities.today().plusMonths(1))
+                .contactEmail("someone@somewhere.com")
+                .build();
+
+        Long surveyRunId = runService
+                .createSurveyRun(admin, cmd)
+                .id()
+                .orElseThrow(() -> new AssertionFailedError("Failed to create run"));
+
+        ImmutableInstancesAndRecipientsCreateCommand createCmd = ImmutableInstancesAndRecipientsCreateCommand.builder()
+                .surveyRunId(surveyRunId)
+                .dueDate(toLocalDate(nowUtcTimestamp()))
+                .approvalDueDate(toLocalDate(nowUtcTimestamp()))
+                .excludedRecipients(emptySet())
+                .build();
+
+        runService.createSurveyInstancesAndRecipients(createCmd);
+        // issuing again replaces, rather than duplicates, the instances
+        runService.createSurveyInstancesAndRecipients(createCmd);
+
+        Set<SurveyInstance> instances = instanceService.findForSurveyRun(surveyRunId);
+        assertEquals(2, instances.size(), "should be one instance per recipient");
+
+        Set<Set<String>> recipientsPerInstance = map(
+                instances,
+                i -> recipsToUserIds(instanceService.findRecipients(i.id().get())));
+
+        assertEquals(asSet(asSet(u1), asSet(u2)), recipientsPerInstance, "each instance should have a single recipient");
+
+        instances.forEach(i -> assertEquals(
+                asSet(admin, owner),
+                recipsToUserIds(instanceService.findOwners(i.id().get())),
+                "run owner and people with the owner involvement kind should own each instance"));
+    }
+
+
     private Set<String> recipsToUserIds(List<Person> aRecips) {
         return map(aRecips, Person::userId);
     }
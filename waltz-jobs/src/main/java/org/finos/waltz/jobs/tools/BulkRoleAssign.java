@@ -71,5 +71,7 @@ public class BulkRoleAssign {
                         .build()));
 
         System.out.println("Finished updating mappings");
+        System.out.println("Running Waltz servers will see the new roles once their role cache expires, "
+                + "or immediately after calling PersonMaintenance.invalidateAllUserRoles via jmx");
     }
 }
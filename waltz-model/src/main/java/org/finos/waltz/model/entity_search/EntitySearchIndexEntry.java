@@ -0,0 +1,43 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.entity_search;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.util.Set;
+
+
+/**
+ * A single searchable entity held by the in-memory search index.
+ * The entity is matched on the name of the reference and any of the
+ * alternative names (external ids, asset codes, aliases, email addresses etc).
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableEntitySearchIndexEntry.class)
+@JsonDeserialize(as = ImmutableEntitySearchIndexEntry.class)
+public abstract class EntitySearchIndexEntry {
+
+    public abstract EntityReference entityReference();
+
+    public abstract Set<String> alternativeNames();
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.logical_flow;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+
+/**
+ * A simple path through the logical flow graph.  The entities run from the
+ * source to the target (inclusive), the flow at position <code>i</code>
+ * connects entity <code>i</code> to entity <code>i + 1</code>.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableLogicalFlowGraphPath.class)
+@JsonDeserialize(as = ImmutableLogicalFlowGraphPath.class)
+public abstract class LogicalFlowGraphPath {
+
+    public abstract List<EntityReference> entities();
+
+    public abstract List<Long> flowIds();
+}
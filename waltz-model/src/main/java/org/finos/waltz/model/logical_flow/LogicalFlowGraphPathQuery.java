@@ -0,0 +1,57 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.logical_flow;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+import java.util.Set;
+
+
+/**
+ * Describes a path (or reachability) query between two entities in the
+ * logical flow graph.
+ *
+ * If data type ids are given only flows decorated with one of those
+ * data types, or any of their descendants, are followed.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableLogicalFlowGraphPathQuery.class)
+@JsonDeserialize(as = ImmutableLogicalFlowGraphPathQuery.class)
+public abstract class LogicalFlowGraphPathQuery {
+
+    public abstract EntityReference source();
+
+    public abstract EntityReference target();
+
+    /**
+     * @return maximum number of hops in a path, unbounded if not given
+     */
+    public abstract Optional<Integer> maxDepth();
+
+    /**
+     * @return maximum number of paths to return, a default limit applies if not given
+     */
+    public abstract Optional<Integer> limit();
+
+    public abstract Set<Long> dataTypeIds();
+}
@@ -0,0 +1,66 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.query_metrics;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.Map;
+import java.util.Optional;
+
+
+/**
+ * Execution statistics for all statements sharing a normalised sql
+ * fingerprint (i.e. the same sql once literals and bind values are removed).
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableQueryStatistics.class)
+@JsonDeserialize(as = ImmutableQueryStatistics.class)
+public abstract class QueryStatistics {
+
+    public abstract String fingerprint();
+
+    public abstract String sql();
+
+    /**
+     * Waltz class and method which first issued the statement, e.g. <code>ApplicationDao.findAll</code>
+     */
+    public abstract Optional<String> source();
+
+    public abstract long executionCount();
+
+    public abstract long errorCount();
+
+    public abstract long rowCount();
+
+    public abstract double totalExecutionMillis();
+
+    public abstract double meanExecutionMillis();
+
+    public abstract double maxExecutionMillis();
+
+    public abstract double totalFetchMillis();
+
+    /**
+     * Execution counts keyed by histogram bucket upper bound (e.g. <code>"&lt;=10ms"</code>)
+     */
+    public abstract Map<String, Long> executionHistogram();
+
+}
@@ -30,11 +30,14 @@ public enum JobKey {
     DATA_TYPE_USAGE_RECALC_APPLICATION,
     AUTH_SOURCE_RECALC_FLOW_RATINGS,
     LOGICAL_FLOW_CLEANUP_ORPHANS,
+    LOGICAL_FLOW_STATS_REBUILD,
     ATTESTATION_CLEANUP_ORPHANS,
     ATTESTATION_ISSUE_INSTANCES,
 
     SURVEY_INSTANCE_REASSIGN_RECIPIENTS,
     SURVEY_INSTANCE_REASSIGN_OWNERS,
 
-    REPORT_GRID_RECALCULATE_APP_GROUPS_FROM_FILTERS
+    REPORT_GRID_RECALCULATE_APP_GROUPS_FROM_FILTERS,
+
+    PERSON_APPLICATION_CLOSURE_REBUILD
 }
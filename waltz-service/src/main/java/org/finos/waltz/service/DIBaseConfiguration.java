@@ -23,7 +23,11 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.finos.waltz.data.DBExecutorPool;
 import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.service.query_metrics.QueryMetricsListener;
+import org.finos.waltz.service.query_metrics.QueryMetricsRegistry;
+import org.finos.waltz.service.query_metrics.QueryMetricsTrackerFactory;
 import org.jooq.DSLContext;
+import org.jooq.ExecuteListener;
 import org.jooq.SQLDialect;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
@@ -37,6 +41,8 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 
 
 @Configuration
@@ -74,6 +80,12 @@ public class DIBaseConfiguration {
     @Value("${database.performance.query.slow.threshold:10}")
     private int databasePerformanceQuerySlowThreshold;
 
+    @Value("${database.performance.query.metrics.enabled:true}")
+    private boolean databasePerformanceQueryMetricsEnabled;
+
+    @Value("${database.performance.query.metrics.max_statements:2000}")
+    private int databasePerformanceQueryMetricsMaxStatements;
+
     @Bean
     public DataSource dataSource() {
 
@@ -84,10 +96,21 @@ public class DIBaseConfiguration {
         dsConfig.setDriverClassName(dbDriver);
         dsConfig.setMaximumPoolSize(dbPoolMax);
         dsConfig.setMinimumIdle(dbPoolMin);
+
+        if (databasePerformanceQueryMetricsEnabled) {
+            dsConfig.setMetricsTrackerFactory(new QueryMetricsTrackerFactory(queryMetricsRegistry()));
+        }
+
         return new HikariDataSource(dsConfig);
     }
 
 
+    @Bean
+    public QueryMetricsRegistry queryMetricsRegistry() {
+        return new QueryMetricsRegistry(databasePerformanceQueryMetricsMaxStatements);
+    }
+
+
     @Bean
     public DBExecutorPoolInterface dbExecutorPool() {
         return new DBExecutorPool(dbPoolMin, dbPoolMax);
@@ -114,14 +137,19 @@ public class DIBaseConfiguration {
                     .withExecuteLogging(true);
         }
 
+        List<ExecuteListener> listeners = new ArrayList<>();
+        //listeners.add(new SlowDatabaseConnectionSimulator(2000));
+        listeners.add(new SlowQueryListener(databasePerformanceQuerySlowThreshold));
+        if (databasePerformanceQueryMetricsEnabled) {
+            listeners.add(new QueryMetricsListener(queryMetricsRegistry()));
+        }
+        listeners.add(new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()));
+
         org.jooq.Configuration configuration = new DefaultConfiguration()
                 .set(dataSource)
                 .set(SQLDialect.valueOf(dialect))
                 .set(dslSettings)
-                .set(
-                    //new SlowDatabaseConnectionSimulator(2000),
-                    new SlowQueryListener(databasePerformanceQuerySlowThreshold),
-                    new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()));
+                .set(listeners.toArray(new ExecuteListener[0]));
 
         return DSL.using(configuration);
     }
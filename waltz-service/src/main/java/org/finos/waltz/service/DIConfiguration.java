@@ -21,6 +21,7 @@ package org.finos.waltz.service;
 import org.finos.waltz.service.email.DummyJavaMailSender;
 import org.finos.waltz.service.jmx.PersonMaintenance;
 import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.finos.waltz.service.user.UserRoleCache;
 import org.finos.waltz.model.ImmutableWaltzVersionInfo;
 import org.finos.waltz.model.WaltzVersionInfo;
 import org.finos.waltz.model.settings.ImmutableSetting;
@@ -74,6 +75,14 @@ public class DIConfiguration implements SchedulingConfigurer {
     @Value("${settings.override:#{null}}")
     private String settingsOverrideStr;
 
+    /**
+     * Each scheduled task occupies a thread whilst it runs, the pool should be
+     * at least as large as the number of <code>@Scheduled</code> methods so a
+     * slow task (e.g. a flow graph rebuild) cannot delay the others.
+     */
+    @Value("${waltz.scheduler.pool_size:8}")
+    private int schedulerPoolSize;
+
     @Bean
     public WaltzVersionInfo waltzBuildInfo() {
         return ImmutableWaltzVersionInfo.builder()
@@ -114,8 +123,9 @@ public class DIConfiguration implements SchedulingConfigurer {
 
     @Bean
     @Autowired
-    public PersonMaintenance personMaintenance(PersonHierarchyService personHierarchyService) {
-        return new PersonMaintenance(personHierarchyService);
+    public PersonMaintenance personMaintenance(PersonHierarchyService personHierarchyService,
+                                               UserRoleCache userRoleCache) {
+        return new PersonMaintenance(personHierarchyService, userRoleCache);
     }
 
 
@@ -135,6 +145,8 @@ public class DIConfiguration implements SchedulingConfigurer {
     @Bean
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(schedulerPoolSize);
+        scheduler.setThreadNamePrefix("WaltzScheduler-");
         scheduler.setDaemon(true);
         return scheduler;
     }
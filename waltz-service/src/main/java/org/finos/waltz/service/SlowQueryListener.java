@@ -36,8 +36,9 @@ public class SlowQueryListener extends DefaultExecuteListener {
     private static final String PERFORMANCE_APPENDER = "WALTZ.PERFORMANCE";
     private static final Logger LOG = LoggerFactory.getLogger(PERFORMANCE_APPENDER);
 
-    private StopWatch stopWatch;
-    private long slowQueryThresholdInNanos;
+    private static final Object STOP_WATCH_KEY = new Object();
+
+    private final long slowQueryThresholdInNanos;
 
     public class SQLPerformanceWarning
             extends Exception {
@@ -57,13 +58,18 @@ public class SlowQueryListener extends DefaultExecuteListener {
     @Override
     public void executeStart(ExecuteContext ctx) {
         super.executeStart(ctx);
-        stopWatch = new StopWatch();
+        // the listener is shared between concurrent queries, so the timer is held against the execution
+        ctx.data(STOP_WATCH_KEY, new StopWatch());
     }
 
 
     @Override
     public void executeEnd(ExecuteContext ctx) {
         super.executeEnd(ctx);
+        StopWatch stopWatch = (StopWatch) ctx.data(STOP_WATCH_KEY);
+        if (stopWatch == null) {
+            return;
+        }
         long split = stopWatch.split();
         if (split > slowQueryThresholdInNanos) {
             DSLContext context = DSL.using(ctx.dialect(),
@@ -18,9 +18,11 @@
 
 package org.finos.waltz.service.access_log;
 
+import org.finos.waltz.common.WriteBehindQueue;
 import org.finos.waltz.data.access_log.AccessLogDao;
 import org.finos.waltz.model.accesslog.AccessLog;
 import org.finos.waltz.model.accesslog.AccessTime;
+import org.finos.waltz.service.write_behind.WriteBehindQueues;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -38,16 +40,26 @@ import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 public class AccessLogService {
 
     private final AccessLogDao accessLogDao;
+    private final WriteBehindQueue<AccessLog> writeQueue;
 
     @Autowired
-    public AccessLogService(AccessLogDao accessLogDao) {
+    public AccessLogService(AccessLogDao accessLogDao,
+                            WriteBehindQueues writeBehindQueues) {
+        checkNotNull(accessLogDao, "accessLogDao cannot be null");
+        checkNotNull(writeBehindQueues, "writeBehindQueues cannot be null");
         this.accessLogDao = accessLogDao;
+        this.writeQueue = writeBehindQueues.create("access_log", accessLogDao::write);
     }
 
 
+    /**
+     * Queues the entry to be written, see {@link WriteBehindQueues}.
+     *
+     * @return 1 if the entry was accepted, 0 if it was dropped
+     */
     public int write(AccessLog logEntry) {
         checkNotNull(logEntry, "logEntry must not be null");
-        return accessLogDao.write(logEntry);
+        return writeQueue.offer(logEntry) ? 1 : 0;
     }
 
 
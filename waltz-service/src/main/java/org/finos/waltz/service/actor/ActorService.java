@@ -31,6 +31,7 @@ import org.finos.waltz.model.command.CommandOutcome;
 import org.finos.waltz.model.command.CommandResponse;
 import org.finos.waltz.model.command.ImmutableCommandResponse;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -46,15 +47,20 @@ public class ActorService {
 
     private final ActorDao actorDao;
     private final ActorSearchDao actorSearchDao;
+    private final EntitySearchIndexService entitySearchIndexService;
 
 
     @Autowired
-    public ActorService(ActorDao actorDao, ActorSearchDao actorSearchDao) {
+    public ActorService(ActorDao actorDao,
+                        ActorSearchDao actorSearchDao,
+                        EntitySearchIndexService entitySearchIndexService) {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(actorSearchDao, "actorSearchDao cannot be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
 
         this.actorDao = actorDao;
         this.actorSearchDao = actorSearchDao;
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
@@ -72,7 +78,9 @@ public class ActorService {
         checkNotNull(command, "command cannot be null");
         checkNotNull(username, "username cannot be null");
 
-        return actorDao.create(command, username);
+        Long id = actorDao.create(command, username);
+        entitySearchIndexService.invalidate(EntityKind.ACTOR);
+        return id;
     }
 
 
@@ -85,6 +93,7 @@ public class ActorService {
                 .withLastUpdate(UserTimestamp.mkForUser(username));
 
         boolean success = actorDao.update(updateCommand);
+        entitySearchIndexService.invalidate(EntityKind.ACTOR);
         return ImmutableCommandResponse.<ActorChangeCommand>builder()
                 .originalCommand(command)
                 .entityReference(EntityReference.mkRef(EntityKind.ACTOR, command.id()))
@@ -94,7 +103,9 @@ public class ActorService {
 
 
     public boolean delete(long id) {
-        return actorDao.deleteIfNotUsed(id);
+        boolean deleted = actorDao.deleteIfNotUsed(id);
+        entitySearchIndexService.invalidate(EntityKind.ACTOR);
+        return deleted;
     }
 
 
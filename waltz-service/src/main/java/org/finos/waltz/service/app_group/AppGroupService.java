@@ -42,6 +42,7 @@ import org.finos.waltz.model.entity_search.EntitySearchOptions;
 import org.finos.waltz.model.orgunit.OrganisationalUnit;
 import org.finos.waltz.service.change_initiative.ChangeInitiativeService;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.logical_flow.LogicalFlowStatsService;
 import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -67,6 +68,7 @@ public class AppGroupService {
     private final EntityRelationshipDao entityRelationshipDao;
     private final ChangeInitiativeService changeInitiativeService;
     private final ChangeLogService changeLogService;
+    private final LogicalFlowStatsService logicalFlowStatsService;
 
 
     @Autowired
@@ -78,7 +80,8 @@ public class AppGroupService {
                            OrganisationalUnitDao organisationalUnitDao,
                            EntityRelationshipDao entityRelationshipDao,
                            ChangeInitiativeService changeInitiativeService,
-                           ChangeLogService changeLogService) {
+                           ChangeLogService changeLogService,
+                           LogicalFlowStatsService logicalFlowStatsService) {
         checkNotNull(appGroupDao, "appGroupDao cannot be null");
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
@@ -88,6 +91,7 @@ public class AppGroupService {
         checkNotNull(entityRelationshipDao, "entityRelationshipDao cannot be null");
         checkNotNull(changeInitiativeService, "changeInitiativeService cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(logicalFlowStatsService, "logicalFlowStatsService cannot be null");
 
         this.appGroupDao = appGroupDao;
         this.appGroupMemberDao = appGroupMemberDao;
@@ -98,6 +102,7 @@ public class AppGroupService {
         this.entityRelationshipDao = entityRelationshipDao;
         this.changeInitiativeService = changeInitiativeService;
         this.changeLogService = changeLogService;
+        this.logicalFlowStatsService = logicalFlowStatsService;
     }
 
 
@@ -202,6 +207,7 @@ public class AppGroupService {
         Application app = applicationDao.getById(applicationId);
         if (app != null) {
             appGroupEntryDao.addApplication(groupId, applicationId);
+            invalidateStats(groupId);
             audit(groupId, userId, format("Added application %s to group", app.name()), EntityKind.APPLICATION, Operation.ADD);
         }
 
@@ -216,6 +222,7 @@ public class AppGroupService {
         verifyUserCanUpdateGroup(userId, groupId);
 
         appGroupEntryDao.addApplications(groupId, applicationIds);
+        invalidateStats(groupId);
 
         EntityReference entityReference = mkRef(EntityKind.APP_GROUP, groupId);
         List<Application> apps = applicationDao.findByIds(applicationIds);
@@ -251,6 +258,7 @@ public class AppGroupService {
     public List<AppGroupEntry> removeApplication(String userId, long groupId, long applicationId) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, groupId);
         appGroupEntryDao.removeApplication(groupId, applicationId);
+        invalidateStats(groupId);
         Application app = applicationDao.getById(applicationId);
         audit(groupId, userId, format(
                     "Removed application %s from group",
@@ -268,6 +276,7 @@ public class AppGroupService {
         OrganisationalUnit orgUnit = organisationalUnitDao.getById(orgUnitId);
         if (orgUnit != null) {
             appGroupOrganisationalUnitDao.addOrgUnit(groupId, orgUnitId);
+            invalidateStats(groupId);
             audit(groupId, userId, format("Added application %s to group", orgUnit.name()), EntityKind.ORG_UNIT, Operation.ADD);
         }
         return appGroupOrganisationalUnitDao.getEntriesForGroup(groupId);
@@ -276,6 +285,7 @@ public class AppGroupService {
     public List<AppGroupEntry> removeOrganisationalUnit(String userId, long groupId, long orgUnitId) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, groupId);
         appGroupOrganisationalUnitDao.removeOrgUnit(groupId, orgUnitId);
+        invalidateStats(groupId);
         OrganisationalUnit ou = organisationalUnitDao.getById(orgUnitId);
         audit(groupId, userId, format("Removed application %s from group", ou != null ? ou.name() : orgUnitId), EntityKind.ORG_UNIT, Operation.REMOVE);
         return appGroupOrganisationalUnitDao.getEntriesForGroup(groupId);
@@ -284,6 +294,7 @@ public class AppGroupService {
         verifyUserCanUpdateGroup(userId, groupId);
 
         appGroupEntryDao.removeApplications(groupId, applicationIds);
+        invalidateStats(groupId);
 
         List<Application> apps = applicationDao.findByIds(applicationIds);
         List<ChangeLog> changeLogs = apps
@@ -440,6 +451,12 @@ public class AppGroupService {
      */
     public void replaceGroupEntries(Set<Tuple2<Long, Set<AppGroupEntry>>> entriesForGroups) {
         appGroupEntryDao.replaceGroupEntries(entriesForGroups);
+        entriesForGroups.forEach(t -> invalidateStats(t.v1));
+    }
+
+
+    private void invalidateStats(long groupId) {
+        logicalFlowStatsService.invalidate(mkRef(EntityKind.APP_GROUP, groupId));
     }
 
 
@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.application;
 
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
 import org.finos.waltz.service.tag.TagService;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
@@ -61,6 +62,7 @@ public class ApplicationService {
     private final TagService tagService;
     private final EntityAliasDao entityAliasDao;
     private final ApplicationSearchDao appSearchDao;
+    private final EntitySearchIndexService entitySearchIndexService;
     private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
 
 
@@ -68,16 +70,19 @@ public class ApplicationService {
     public ApplicationService(ApplicationDao appDao,
                               TagService tagService,
                               EntityAliasDao entityAliasDao,
-                              ApplicationSearchDao appSearchDao) {
+                              ApplicationSearchDao appSearchDao,
+                              EntitySearchIndexService entitySearchIndexService) {
         checkNotNull(appDao, "appDao must not be null");
         checkNotNull(tagService, "tagService must not be null");
         checkNotNull(entityAliasDao, "entityAliasDao must not be null");
         checkNotNull(appSearchDao, "appSearchDao must not be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService must not be null");
 
         this.applicationDao = appDao;
         this.tagService = tagService;
         this.entityAliasDao = entityAliasDao;
         this.appSearchDao = appSearchDao;
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
@@ -132,6 +137,7 @@ public class ApplicationService {
                     request.aliases());
 
             tagService.updateTags(entityReference, request.tags(), username);
+            entitySearchIndexService.invalidate(EntityKind.APPLICATION);
         }
 
         return response;
@@ -139,7 +145,9 @@ public class ApplicationService {
 
 
     public Integer update(Application application) {
-        return applicationDao.update(application);
+        Integer updated = applicationDao.update(application);
+        entitySearchIndexService.invalidate(EntityKind.APPLICATION);
+        return updated;
     }
 
 
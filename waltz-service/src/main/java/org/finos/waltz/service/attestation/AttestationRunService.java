@@ -31,17 +31,19 @@ import org.finos.waltz.model.attestation.*;
 import org.finos.waltz.model.person.Person;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.*;
 
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.*;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.asList;
 import static org.finos.waltz.common.ListUtilities.isEmpty;
+import static org.finos.waltz.common.ListUtilities.partition;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
@@ -52,6 +54,9 @@ import static org.finos.waltz.model.utils.IdUtilities.toIds;
 @Service
 public class AttestationRunService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AttestationRunService.class);
+    private static final int INSTANCE_BATCH_SIZE = 1000;
+
     private final AttestationInstanceDao attestationInstanceDao;
     private final AttestationInstanceRecipientDao attestationInstanceRecipientDao;
     private final AttestationRunDao attestationRunDao;
@@ -225,26 +230,34 @@ public class AttestationRunService {
     }
 
 
+    /**
+     * Writes the instances and their recipients in batches, each batch in its own
+     * transaction, logging progress as it goes.  Instances which already exist
+     * for the run are skipped so an interrupted issuance can be resumed.
+     */
     private void createAttestationInstancesAndRecipients(List<AttestationInstanceRecipient> instanceRecipients) {
 
-        Map<AttestationInstance, List<AttestationInstanceRecipient>> instancesAndRecipientsToSave = instanceRecipients
+        Map<AttestationInstance, Set<String>> instancesAndRecipientsToSave = instanceRecipients
                 .stream()
                 .collect(groupingBy(
                         AttestationInstanceRecipient::attestationInstance,
-                        toList()
-                ));
+                        LinkedHashMap::new,
+                        mapping(AttestationInstanceRecipient::userId, toSet())));
 
+        int total = instancesAndRecipientsToSave.size();
+        int processed = 0;
+        int created = 0;
 
         // insert new instances and recipients
-        instancesAndRecipientsToSave.forEach(
-                (k, v) -> {
-                    // create instance
-                    long instanceId = attestationInstanceDao.create(k);
-
-                    // create recipients for the instance
-                    v.forEach(r -> attestationInstanceRecipientDao.create(instanceId, r.userId()));
-                }
-        );
+        for (List<AttestationInstance> batch : partition(instancesAndRecipientsToSave.keySet(), INSTANCE_BATCH_SIZE)) {
+            Map<AttestationInstance, Set<String>> batchToSave = new LinkedHashMap<>();
+            batch.forEach(instance -> batchToSave.put(instance, instancesAndRecipientsToSave.get(instance)));
+
+            created += attestationInstanceDao.bulkCreate(batchToSave);
+            processed += batch.size();
+
+            LOG.info("Attestation instances: processed {} of {}, created {} (existing instances are skipped)", processed, total, created);
+        }
     }
 
 
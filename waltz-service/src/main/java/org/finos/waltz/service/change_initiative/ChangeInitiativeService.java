@@ -28,6 +28,7 @@ import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeDao;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeIdSelectorFactory;
 import org.finos.waltz.data.change_initiative.search.ChangeInitiativeSearchDao;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.entity_relationship.EntityRelationshipDao;
 import org.finos.waltz.model.change_initiative.ChangeInitiative;
 import org.finos.waltz.model.changelog.ChangeLog;
@@ -53,23 +54,26 @@ public class ChangeInitiativeService {
     private final ChangeInitiativeSearchDao searchDao;
     private final EntityRelationshipDao relationshipDao;
     private final ChangeLogService changeLogService;
-    private final ChangeInitiativeIdSelectorFactory changeInitiativeIdSelectorFactory = new ChangeInitiativeIdSelectorFactory();
+    private final ChangeInitiativeIdSelectorFactory changeInitiativeIdSelectorFactory;
 
     @Autowired
     public ChangeInitiativeService(ChangeInitiativeDao changeInitiativeDao,
                                    ChangeInitiativeSearchDao searchDao,
                                    EntityRelationshipDao relationshipDao,
-                                   ChangeLogService changeLogService)
+                                   ChangeLogService changeLogService,
+                                   EntityHierarchyIndexes entityHierarchyIndexes)
     {
         checkNotNull(changeInitiativeDao, "changeInitiativeDao cannot be null");
         checkNotNull(searchDao, "searchDao cannot be null");
         checkNotNull(relationshipDao, "relationshipDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
 
         this.changeInitiativeDao = changeInitiativeDao;
         this.searchDao = searchDao;
         this.relationshipDao = relationshipDao;
         this.changeLogService = changeLogService;
+        this.changeInitiativeIdSelectorFactory = new ChangeInitiativeIdSelectorFactory(entityHierarchyIndexes);
     }
 
 
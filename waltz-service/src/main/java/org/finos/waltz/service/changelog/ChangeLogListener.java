@@ -0,0 +1,38 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.changelog;
+
+import org.finos.waltz.model.changelog.ChangeLog;
+
+import java.util.Collection;
+
+
+/**
+ * Implementations are notified whenever entries are written via the `ChangeLogService`.
+ * This is primarily intended to allow in-memory caches to discard data related to the
+ * changed entities.
+ *
+ * Listeners are called synchronously on the writing thread so should return quickly
+ * and must not write change log entries themselves.
+ */
+public interface ChangeLogListener {
+
+    void onChangesLogged(Collection<ChangeLog> changeLogs);
+
+}
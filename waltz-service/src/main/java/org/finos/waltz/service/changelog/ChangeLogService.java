@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.changelog;
 
+import org.finos.waltz.common.WriteBehindQueue;
 import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
@@ -39,8 +40,10 @@ import org.finos.waltz.model.measurable_rating_replacement.MeasurableRatingRepla
 import org.finos.waltz.model.physical_flow.PhysicalFlow;
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.model.tally.DateTally;
+import org.finos.waltz.service.write_behind.WriteBehindQueues;
 import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 
@@ -72,6 +75,8 @@ public class ChangeLogService {
     private final MeasurableRatingReplacementDao measurableRatingReplacementdao;
     private final MeasurableRatingPlannedDecommissionDao measurableRatingPlannedDecommissionDao;
     private final EntityReferenceNameResolver nameResolver;
+    private final List<ChangeLogListener> changeLogListeners;
+    private final WriteBehindQueue<ChangeLog> writeQueue;
 
 
     @Autowired
@@ -83,7 +88,10 @@ public class ChangeLogService {
                             ApplicationDao applicationDao,
                             MeasurableRatingReplacementDao measurableRatingReplacementDao,
                             MeasurableRatingPlannedDecommissionDao measurableRatingPlannedDecommissionDao,
-                            EntityReferenceNameResolver nameResolver) {
+                            EntityReferenceNameResolver nameResolver,
+                            List<ChangeLogListener> changeLogListeners,
+                            WriteBehindQueues writeBehindQueues,
+                            @Value("${waltz.write_behind.change_log.enabled:false}") boolean writeBehindEnabled) {
         checkNotNull(changeLogDao, "changeLogDao must not be null");
         checkNotNull(changeLogSummariesDao, "changeLogSummariesDao must not be null");
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
@@ -92,6 +100,8 @@ public class ChangeLogService {
         checkNotNull(measurableRatingReplacementDao, "measurableRatingReplacementDao cannot be null");
         checkNotNull(measurableRatingPlannedDecommissionDao, "measurableRatingPlannedDecommissionDao cannot be null");
         checkNotNull(nameResolver, "nameResolver cannot be null");
+        checkNotNull(changeLogListeners, "changeLogListeners cannot be null");
+        checkNotNull(writeBehindQueues, "writeBehindQueues cannot be null");
 
         this.changeLogDao = changeLogDao;
         this.changeLogSummariesDao = changeLogSummariesDao;
@@ -102,6 +112,8 @@ public class ChangeLogService {
         this.measurableRatingReplacementdao = measurableRatingReplacementDao;
         this.measurableRatingPlannedDecommissionDao = measurableRatingPlannedDecommissionDao;
         this.nameResolver = nameResolver;
+        this.changeLogListeners = changeLogListeners;
+        this.writeQueue = writeBehindQueues.create("change_log", writeBehindEnabled, changeLogDao::write);
     }
 
 
@@ -110,6 +122,7 @@ public class ChangeLogService {
                                                              Date endDate,
                                                              Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
+        flushPendingWrites();
         return changeLogDao.findByParentReferenceForDateRange(ref, startDate, endDate, limit);
     }
 
@@ -119,6 +132,7 @@ public class ChangeLogService {
                                                              Date endDate,
                                                              Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
+        flushPendingWrites();
         return changeLogDao.findByPersonReferenceForDateRange(ref, startDate, endDate, limit);
     }
 
@@ -126,6 +140,7 @@ public class ChangeLogService {
                                                  Optional<java.util.Date> date,
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
+        flushPendingWrites();
         return changeLogDao.findByParentReference(ref, date, limit);
     }
 
@@ -134,6 +149,7 @@ public class ChangeLogService {
                                                  Optional<java.util.Date> date,
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
+        flushPendingWrites();
         return changeLogDao.findByPersonReference(ref, date, limit);
     }
 
@@ -141,17 +157,45 @@ public class ChangeLogService {
     public List<ChangeLog> findByUser(String userName,
                                       Optional<Integer> limit) {
         checkNotEmpty(userName, "Username cannot be empty");
+        flushPendingWrites();
         return changeLogDao.findByUser(userName, limit);
     }
 
 
+    /**
+     * Writes the change log entry.  If write behind is enabled for the change
+     * log (<code>waltz.write_behind.change_log.enabled</code>, off by default)
+     * the entry is queued instead, see {@link WriteBehindQueues}.  Listeners
+     * are notified immediately.
+     *
+     * @return 1 if the entry was written or queued, 0 if it was dropped
+     */
     public int write(ChangeLog changeLog) {
-        return changeLogDao.write(changeLog);
+        checkNotNull(changeLog, "changeLog must not be null");
+        int rc = writeQueue.isRunning()
+                ? enqueue(changeLog)
+                : changeLogDao.write(changeLog);
+        notifyListeners(asSet(changeLog));
+        return rc;
     }
 
 
     public int[] write(Collection<ChangeLog> changeLogs) {
-        return changeLogDao.write(changeLogs);
+        checkNotNull(changeLogs, "changeLogs must not be null");
+        int[] rcs = persist(changeLogs);
+        notifyListeners(changeLogs);
+        return rcs;
+    }
+
+
+    /**
+     * Writes any queued change log entries on the calling thread.  Reads made
+     * through this service do this first, so they see their own writes.
+     *
+     * @return the number of entries written
+     */
+    public int flushPendingWrites() {
+        return writeQueue.flush();
     }
 
 
@@ -164,6 +208,7 @@ public class ChangeLogService {
      * @return list of changes (empty if no attestations or if no changes)
      */
     public List<ChangeLog> findUnattestedChanges(EntityReference ref) {
+        flushPendingWrites();
         return changeLogDao.findUnattestedChanges(ref);
     }
 
@@ -247,6 +292,7 @@ public class ChangeLogService {
                                                                   IdSelectionOptions selectionOptions,
                                                                   Optional<Integer> limit) {
         GenericSelector genericSelector = new GenericSelectorFactory().applyForKind(parentKind, selectionOptions);
+        flushPendingWrites();
         return changeLogSummariesDao.findCountByDateForParentKindBySelector(genericSelector, limit);
     }
 
@@ -268,7 +314,33 @@ public class ChangeLogService {
                         .operation(operation)
                         .build());
 
-        changeLogDao.write(changeLogEntries);
+        persist(changeLogEntries);
+        notifyListeners(changeLogEntries);
+    }
+
+
+    private int[] persist(Collection<ChangeLog> changeLogs) {
+        return writeQueue.isRunning()
+                ? enqueue(changeLogs)
+                : changeLogDao.write(changeLogs);
+    }
+
+
+    private int enqueue(ChangeLog changeLog) {
+        return writeQueue.offer(changeLog) ? 1 : 0;
+    }
+
+
+    private int[] enqueue(Collection<ChangeLog> changeLogs) {
+        return changeLogs
+                .stream()
+                .mapToInt(this::enqueue)
+                .toArray();
+    }
+
+
+    private void notifyListeners(Collection<ChangeLog> changeLogs) {
+        changeLogListeners.forEach(l -> l.onChangesLogged(changeLogs));
     }
 
 
@@ -20,11 +20,13 @@ package org.finos.waltz.service.client_cache_key;
 
 
 import org.finos.waltz.data.client_cache_key.ClientCacheKeyDao;
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.client_cache_key.ClientCacheKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static java.util.UUID.randomUUID;
@@ -60,4 +62,13 @@ public class ClientCacheKeyService {
         return clientCacheKeyDao.getByKey(key);
     }
 
+
+    /**
+     * @see ClientCacheKeyDao#findDataVersion(EntityKind)
+     */
+    public Optional<String> findDataVersion(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        return clientCacheKeyDao.findDataVersion(kind);
+    }
+
 }
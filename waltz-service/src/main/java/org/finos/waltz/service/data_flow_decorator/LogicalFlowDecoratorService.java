@@ -21,6 +21,8 @@ package org.finos.waltz.service.data_flow_decorator;
 
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
+import org.finos.waltz.service.logical_flow.LogicalFlowStatsService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.finos.waltz.common.Checks;
 import org.finos.waltz.common.ListUtilities;
@@ -77,6 +79,8 @@ public class LogicalFlowDecoratorService {
     private final DataTypeDao dataTypeDao;
     private final LogicalFlowDao logicalFlowDao;
     private final ChangeLogService changeLogService;
+    private final LogicalFlowStatsService logicalFlowStatsService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
 
 
     @Autowired
@@ -88,6 +92,8 @@ public class LogicalFlowDecoratorService {
                                        LogicalFlowDao logicalFlowDao,
                                        LogicalFlowService logicalFlowService,
                                        LogicalFlowStatsDao logicalFlowStatsDao,
+                                       LogicalFlowStatsService logicalFlowStatsService,
+                                       LogicalFlowGraphService logicalFlowGraphService,
                                        ChangeLogService changeLogService) {
 
         checkNotNull(logicalFlowDecoratorSummaryDao, "logicalFlowDecoratorDao cannot be null");
@@ -97,6 +103,8 @@ public class LogicalFlowDecoratorService {
         checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
+        checkNotNull(logicalFlowStatsService, "logicalFlowStatsService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
 
         this.logicalFlowDecoratorSummaryDao = logicalFlowDecoratorSummaryDao;
@@ -106,6 +114,8 @@ public class LogicalFlowDecoratorService {
         this.logicalFlowDao = logicalFlowDao;
         this.changeLogService = changeLogService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.logicalFlowStatsService = logicalFlowStatsService;
+        this.logicalFlowGraphService = logicalFlowGraphService;
     }
 
 
@@ -143,6 +153,8 @@ public class LogicalFlowDecoratorService {
                 .collect(Collectors.toList());
 
         dataTypeUsageService.recalculateForApplications(effectedEntities);
+        logicalFlowStatsService.invalidateForEntities(effectedEntities);
+        logicalFlowGraphService.refreshFlows(map(actions, UpdateDataFlowDecoratorsAction::flowId));
         bulkAudit(actions, username, effectedFlows);
 
         return added;
@@ -24,6 +24,7 @@ import org.finos.waltz.data.datatype_decorator.DataTypeDecoratorDaoSelectorFacto
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
 import org.finos.waltz.model.*;
+import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.datatype.DataTypeUsageCharacteristics;
@@ -35,33 +36,43 @@ import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
+import org.finos.waltz.service.logical_flow.LogicalFlowStatsService;
 import org.finos.waltz.service.physical_specification.PhysicalSpecificationService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.*;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.common.ListUtilities.partition;
 import static org.finos.waltz.model.EntityKind.*;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class DataTypeDecoratorService {
 
+    private static final int BULK_BATCH_SIZE = 1000;
+
     private final ChangeLogService changeLogService;
     private final DataTypeDecoratorDaoSelectorFactory dataTypeDecoratorDaoSelectorFactory;
     private final LogicalFlowDao logicalFlowDao;
     private final LogicalFlowService logicalFlowService;
+    private final LogicalFlowStatsService logicalFlowStatsService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
     private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
     private final DataTypeUsageService dataTypeUsageService;
     private final DataTypeService dataTypeService;
@@ -76,6 +87,8 @@ public class DataTypeDecoratorService {
                                     DataTypeDecoratorDaoSelectorFactory dataTypeDecoratorDaoSelectorFactory,
                                     LogicalFlowDao logicalFlowDao,
                                     LogicalFlowService logicalFlowService,
+                                    LogicalFlowStatsService logicalFlowStatsService,
+                                    LogicalFlowGraphService logicalFlowGraphService,
                                     LogicalFlowDecoratorRatingsCalculator ratingsCalculator,
                                     DataTypeUsageService dataTypeUsageService,
                                     DataTypeService dataTypeService,
@@ -84,10 +97,14 @@ public class DataTypeDecoratorService {
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(logicalFlowDecoratorService, "logicalFlowDecoratorService cannot be null");
         checkNotNull(physicalSpecificationService, "physicalSpecificationService cannot be null");
+        checkNotNull(logicalFlowStatsService, "logicalFlowStatsService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
 
         this.changeLogService = changeLogService;
         this.logicalFlowDao = logicalFlowDao;
         this.logicalFlowService = logicalFlowService;
+        this.logicalFlowStatsService = logicalFlowStatsService;
+        this.logicalFlowGraphService = logicalFlowGraphService;
         this.ratingsCalculator = ratingsCalculator;
         this.dataTypeUsageService = dataTypeUsageService;
         this.dataTypeService = dataTypeService;
@@ -175,6 +192,83 @@ public class DataTypeDecoratorService {
     }
 
 
+    /**
+     * Bulk variant of {@link #addDecorators(String, EntityReference, Set)} for
+     * many entities of the same kind.  Data types already associated with an
+     * entity are skipped, the remainder are written in one batch and the
+     * usage, stats and propagation updates are made once for all entities.
+     *
+     * @param userName  who is adding the data types
+     * @param entityKind  kind of the entities being decorated
+     * @param dataTypeIdsByEntityId  data type ids to add, keyed by entity id
+     * @return number of decorators added
+     */
+    public int bulkAddDecorators(String userName,
+                                 EntityKind entityKind,
+                                 Map<Long, ? extends Collection<Long>> dataTypeIdsByEntityId) {
+        checkNotNull(userName, "userName cannot be null");
+        checkNotNull(entityKind, "entityKind cannot be null");
+        checkNotNull(dataTypeIdsByEntityId, "dataTypeIdsByEntityId cannot be null");
+
+        DataTypeDecoratorDao dao = dataTypeDecoratorDaoSelectorFactory.getDao(entityKind);
+
+        Set<Tuple2<Long, Long>> existing = partition(dataTypeIdsByEntityId.keySet(), BULK_BATCH_SIZE)
+                .stream()
+                .flatMap(ids -> dao.findByEntityIds(ids).stream())
+                .map(d -> tuple(d.entityReference().id(), d.dataTypeId()))
+                .collect(Collectors.toSet());
+
+        Map<Long, Set<Long>> required = new HashMap<>();
+        dataTypeIdsByEntityId.forEach((id, dataTypeIds) -> dataTypeIds
+                .stream()
+                .filter(dtId -> !existing.contains(tuple(id, dtId)))
+                .forEach(dtId -> required
+                        .computeIfAbsent(id, k -> new TreeSet<>())
+                        .add(dtId)));
+
+        if (required.isEmpty()) {
+            return 0;
+        }
+
+        List<LogicalFlow> flows = LOGICAL_DATA_FLOW.equals(entityKind)
+                ? partition(required.keySet(), BULK_BATCH_SIZE)
+                    .stream()
+                    .flatMap(ids -> logicalFlowDao.findAllByFlowIds(ids).stream())
+                    .collect(Collectors.toList())
+                : Collections.emptyList();
+
+        Collection<DataTypeDecorator> decorators = mkBulkDecorators(userName, entityKind, required, flows);
+
+        dao.addDecorators(decorators);
+
+        changeLogService.write(required
+                .entrySet()
+                .stream()
+                .map(e -> mkChangeLog(
+                        format("Added data types: %s", e.getValue().toString()),
+                        mkRef(entityKind, e.getKey()),
+                        userName))
+                .collect(Collectors.toList()));
+
+        if (LOGICAL_DATA_FLOW.equals(entityKind)) {
+            Set<EntityReference> endpoints = flows
+                    .stream()
+                    .flatMap(f -> Stream.of(f.source(), f.target()))
+                    .collect(Collectors.toSet());
+            dataTypeUsageService.recalculateForApplications(endpoints);
+            logicalFlowStatsService.invalidateForEntities(endpoints);
+            logicalFlowGraphService.refreshFlows(required.keySet());
+        }
+
+        if (PHYSICAL_SPECIFICATION.equals(entityKind)) {
+            partition(required.keySet(), BULK_BATCH_SIZE)
+                    .forEach(ids -> physicalSpecificationService.propagateDataTypesToLogicalFlows(userName, ids));
+        }
+
+        return decorators.size();
+    }
+
+
     public int removeDataTypeDecorator(String userName, EntityReference entityReference, Set<Long> dataTypeIds) {
         checkNotNull(userName, "userName cannot be null");
         checkNotNull(dataTypeIds, "dataTypeIds cannot be null");
@@ -196,6 +290,8 @@ public class DataTypeDecoratorService {
         if(LOGICAL_DATA_FLOW.equals(associatedEntityReference.kind())) {
             LogicalFlow flow = logicalFlowDao.getByFlowId(associatedEntityReference.id());
             dataTypeUsageService.recalculateForApplications(newArrayList(flow.source(), flow.target()));
+            logicalFlowStatsService.invalidateForEntities(newArrayList(flow.source(), flow.target()));
+            logicalFlowGraphService.refreshFlows(newArrayList(associatedEntityReference.id()));
         }
     }
 
@@ -224,6 +320,47 @@ public class DataTypeDecoratorService {
     }
 
 
+    private Collection<DataTypeDecorator> mkBulkDecorators(String userName,
+                                                           EntityKind entityKind,
+                                                           Map<Long, Set<Long>> dataTypeIdsByEntityId,
+                                                           List<LogicalFlow> flows) {
+
+        Optional<AuthoritativenessRatingValue> defaultRating = LOGICAL_DATA_FLOW.equals(entityKind)
+                ? Optional.of(AuthoritativenessRatingValue.NO_OPINION)
+                : Optional.empty();
+
+        List<DataTypeDecorator> decorators = dataTypeIdsByEntityId
+                .entrySet()
+                .stream()
+                .flatMap(e -> e.getValue()
+                        .stream()
+                        .map(dtId -> mkDecorator(userName, mkRef(entityKind, e.getKey()), dtId, defaultRating)))
+                .collect(Collectors.toList());
+
+        if (!LOGICAL_DATA_FLOW.equals(entityKind)) {
+            return decorators;
+        }
+
+        Set<Long> appToAppFlowIds = flows
+                .stream()
+                .filter(f -> f.source().kind() == APPLICATION && f.target().kind() == APPLICATION)
+                .map(f -> f.id().get())
+                .collect(Collectors.toSet());
+
+        Map<Boolean, List<DataTypeDecorator>> byRequiresRating = decorators
+                .stream()
+                .collect(Collectors.partitioningBy(d -> appToAppFlowIds.contains(d.dataFlowId())));
+
+        List<DataTypeDecorator> result = new ArrayList<>(byRequiresRating.get(false));
+
+        if (!byRequiresRating.get(true).isEmpty()) {
+            result.addAll(ratingsCalculator.calculate(byRequiresRating.get(true)));
+        }
+
+        return result;
+    }
+
+
     private ImmutableDataTypeDecorator mkDecorator(String userName,
                                                    EntityReference entityReference,
                                                    Long dtId,
@@ -276,8 +413,14 @@ public class DataTypeDecoratorService {
     private void audit(String message,
                        EntityReference entityReference,
                        String username) {
+        changeLogService.write(mkChangeLog(message, entityReference, username));
+    }
+
 
-        ImmutableChangeLog logEntry = ImmutableChangeLog.builder()
+    private ChangeLog mkChangeLog(String message,
+                                  EntityReference entityReference,
+                                  String username) {
+        return ImmutableChangeLog.builder()
                 .parentReference(entityReference)
                 .userId(username)
                 .severity(Severity.INFORMATION)
@@ -285,8 +428,6 @@ public class DataTypeDecoratorService {
                 .childKind(EntityKind.DATA_TYPE)
                 .operation(Operation.UPDATE)
                 .build();
-
-        changeLogService.write(logEntry);
     }
 
 
@@ -21,6 +21,7 @@ package org.finos.waltz.service.entity_alias;
 import org.finos.waltz.common.Checks;
 import org.finos.waltz.data.entity_alias.EntityAliasDao;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -31,11 +32,15 @@ import java.util.List;
 public class EntityAliasService {
 
     private final EntityAliasDao entityAliasDao;
+    private final EntitySearchIndexService entitySearchIndexService;
 
     @Autowired
-    public EntityAliasService(EntityAliasDao entityAliasDao) {
+    public EntityAliasService(EntityAliasDao entityAliasDao,
+                              EntitySearchIndexService entitySearchIndexService) {
         Checks.checkNotNull(entityAliasDao, "entityAliasDao cannot be null");
+        Checks.checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
         this.entityAliasDao = entityAliasDao;
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
@@ -45,6 +50,8 @@ public class EntityAliasService {
 
 
     public int[] updateAliases(EntityReference ref, Collection<String> aliases) {
-        return entityAliasDao.updateAliases(ref, aliases);
+        int[] result = entityAliasDao.updateAliases(ref, aliases);
+        entitySearchIndexService.invalidate(ref.kind());
+        return result;
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.entity_hierarchy;
+
+import org.finos.waltz.common.hierarchy.HierarchyClosureIndex;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyDao;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Maintains the {@link EntityHierarchyIndexes} bean used by the id selector factories
+ * to expand hierarchies without querying <code>entity_hierarchy</code>.  This service
+ * is the only writer of the indexes.
+ *
+ * Indexes are loaded when the scheduler starts and refreshed whenever a
+ * hierarchy is rebuilt via the {@link EntityHierarchyService}.  The periodic
+ * refresh picks up rebuilds performed by other Waltz instances.
+ */
+@Service
+public class EntityHierarchyIndexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntityHierarchyIndexService.class);
+
+    public static final Set<EntityKind> INDEXED_KINDS = EnumSet.of(
+            EntityKind.CHANGE_INITIATIVE,
+            EntityKind.DATA_TYPE,
+            EntityKind.ENTITY_STATISTIC,
+            EntityKind.MEASURABLE,
+            EntityKind.ORG_UNIT);
+
+    private final EntityHierarchyDao entityHierarchyDao;
+    private final EntityHierarchyIndexes entityHierarchyIndexes;
+    private final boolean enabled;
+
+
+    @Autowired
+    public EntityHierarchyIndexService(EntityHierarchyDao entityHierarchyDao,
+                                       EntityHierarchyIndexes entityHierarchyIndexes,
+                                       @Value("${waltz.entity_hierarchy.index.enabled:true}") boolean enabled) {
+        checkNotNull(entityHierarchyDao, "entityHierarchyDao cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
+        this.entityHierarchyDao = entityHierarchyDao;
+        this.entityHierarchyIndexes = entityHierarchyIndexes;
+        this.enabled = enabled;
+    }
+
+
+    @Scheduled(fixedRateString = "${waltz.entity_hierarchy.index.refresh_ms:300000}")
+    public void refreshAll() {
+        INDEXED_KINDS.forEach(this::refresh);
+    }
+
+
+    /**
+     * Reloads the index for the given kind.  If the index cannot be loaded it
+     * is removed, so selectors fall back to querying the database.
+     *
+     * @param kind  hierarchy to reload, kinds which are not indexed are ignored
+     */
+    public void refresh(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+
+        if (!enabled || !INDEXED_KINDS.contains(kind)) {
+            return;
+        }
+
+        try {
+            HierarchyClosureIndex index = entityHierarchyDao.loadClosureIndex(kind);
+            entityHierarchyIndexes.register(kind, index);
+            LOG.debug("Refreshed hierarchy index for kind: {}, nodes: {}", kind, index.size());
+        } catch (Exception e) {
+            LOG.warn("Could not refresh hierarchy index for kind: {}, falling back to database lookups", kind, e);
+            entityHierarchyIndexes.clear(kind);
+        }
+    }
+
+
+    /**
+     * Removes the index for the given kind, selectors will query the database until it is refreshed.
+     * Called before a hierarchy is written so stale ids are never served.
+     *
+     * @param kind  hierarchy to drop
+     */
+    public void clear(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        entityHierarchyIndexes.clear(kind);
+    }
+
+
+    /**
+     * @return the id of the given entity and all of its descendants, empty if not indexed
+     */
+    public Optional<Set<Long>> findDescendantIds(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+        return entityHierarchyIndexes
+                .findDescendantIds(ref.kind(), ref.id())
+                .map(ids -> Arrays.stream(ids).boxed().collect(toSet()));
+    }
+
+}
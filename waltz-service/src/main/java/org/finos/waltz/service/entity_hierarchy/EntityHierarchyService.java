@@ -40,27 +40,36 @@ import org.finos.waltz.model.tally.ImmutableTally;
 import org.finos.waltz.model.tally.Tally;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
 import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.common.Checks.checkFalse;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.model.EntityKind.PERSON;
 import static org.jooq.impl.DSL.select;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class EntityHierarchyService {
 
+    private static final int INCREMENTAL_BATCH_SIZE = 1000;
+
     private final DSLContext dsl;
     private final ChangeInitiativeDao changeInitiativeDao;
     private final DataTypeDao dataTypeDao;
     private final EntityHierarchyDao entityHierarchyDao;
+    private final EntityHierarchyIndexService entityHierarchyIndexService;
     private final EntityRootsSelectorFactory entityRootsSelectorFactory = new EntityRootsSelectorFactory();
     private final EntityStatisticDao entityStatisticDao;
     private final MeasurableDao measurableDao;
@@ -72,6 +81,7 @@ public class EntityHierarchyService {
                                   ChangeInitiativeDao changeInitiativeDao,
                                   DataTypeDao dataTypeDao,
                                   EntityHierarchyDao entityHierarchyDao,
+                                  EntityHierarchyIndexService entityHierarchyIndexService,
                                   EntityStatisticDao entityStatisticDao,
                                   MeasurableDao measurableDao, 
                                   OrganisationalUnitDao organisationalUnitDao,
@@ -81,6 +91,7 @@ public class EntityHierarchyService {
         checkNotNull(changeInitiativeDao, "changeInitiativeDao cannot be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(entityHierarchyDao, "entityHierarchyDao cannot be null");
+        checkNotNull(entityHierarchyIndexService, "entityHierarchyIndexService cannot be null");
         checkNotNull(entityStatisticDao, "entityStatisticDao cannot be null");
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
@@ -90,6 +101,7 @@ public class EntityHierarchyService {
         this.changeInitiativeDao = changeInitiativeDao;
         this.dataTypeDao = dataTypeDao;
         this.entityHierarchyDao = entityHierarchyDao;
+        this.entityHierarchyIndexService = entityHierarchyIndexService;
         this.entityStatisticDao = entityStatisticDao;
         this.measurableDao = measurableDao;
         this.organisationalUnitDao = organisationalUnitDao;
@@ -160,6 +172,155 @@ public class EntityHierarchyService {
     }
 
 
+    /**
+     * Rebuilds the hierarchy for the given kind by diffing the newly computed
+     * closure against the stored rows and applying only the differences (in
+     * bounded batches).  Unlike {@link #buildFor(EntityKind)} the hierarchy is
+     * never emptied, so selectors relying upon it continue to work whilst the
+     * rebuild is in progress.
+     *
+     * @param kind  the hierarchy to rebuild
+     * @return number of hierarchy records inserted, updated or removed
+     */
+    public int buildIncrementallyFor(EntityKind kind) {
+        if (kind == PERSON) {
+            // the person hierarchy is held in its own table
+            return buildFor(kind);
+        } else {
+            Table<?> table = determineTableToRebuild(kind);
+            return buildIncrementally(
+                    kind,
+                    fetchFlatNodes(table, DSL.trueCondition()),
+                    DSL.trueCondition(),
+                    id -> true);
+        }
+    }
+
+
+    public int buildIncrementallyForMeasurableByCategory(long categoryId) {
+        return buildIncrementally(
+                EntityKind.MEASURABLE,
+                fetchFlatNodes(MEASURABLE, MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId)),
+                ENTITY_HIERARCHY.ID.in(select(MEASURABLE.ID)
+                        .from(MEASURABLE)
+                        .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))),
+                id -> true);
+    }
+
+
+    /**
+     * Incrementally rebuilds the hierarchy entries for the given node and
+     * everything beneath it.  Nodes which have moved out of the subtree
+     * since the hierarchy was last built are also corrected.
+     *
+     * @param subtreeRoot  the changed node, e.g. a measurable which has been moved
+     * @return number of hierarchy records inserted, updated or removed
+     */
+    public int buildIncrementallyForSubtree(EntityReference subtreeRoot) {
+        checkNotNull(subtreeRoot, "subtreeRoot cannot be null");
+        checkFalse(subtreeRoot.kind() == PERSON, "Cannot rebuild a subtree of the person hierarchy");
+
+        EntityKind kind = subtreeRoot.kind();
+        Table<?> table = determineTableToRebuild(kind);
+
+        Set<Long> subtreeIds = entityHierarchyDao
+                .findDesendents(subtreeRoot)
+                .stream()
+                .map(d -> d.id().get())
+                .collect(Collectors.toSet());
+
+        Collection<FlatNode<Long, Long>> flatNodes = fetchFlatNodes(table, DSL.trueCondition());
+
+        convertFlatNodesToHierarchyItems(kind, flatNodes)
+                .stream()
+                .filter(item -> item.parentId().map(pId -> pId == subtreeRoot.id()).orElse(false))
+                .forEach(item -> subtreeIds.add(item.id().get()));
+
+        return buildIncrementally(
+                kind,
+                flatNodes,
+                DSL.trueCondition(),
+                subtreeIds::contains);
+    }
+
+
+    private int buildIncrementally(EntityKind kind,
+                                   Collection<FlatNode<Long, Long>> flatNodes,
+                                   Condition existingFilter,
+                                   Predicate<Long> inScope) {
+        List<EntityHierarchyItem> required = filterById(
+                convertFlatNodesToHierarchyItems(kind, flatNodes),
+                inScope);
+
+        List<EntityHierarchyItem> existing = filterById(
+                entityHierarchyDao.findByKind(kind, existingFilter),
+                inScope);
+
+        Tuple3<List<EntityHierarchyItem>, List<EntityHierarchyItem>, List<EntityHierarchyItem>> changes = diff(existing, required);
+
+        entityHierarchyIndexService.clear(kind);
+        int changeCount = entityHierarchyDao.applyHierarchyChanges(
+                kind,
+                changes.v1,
+                changes.v2,
+                changes.v3,
+                INCREMENTAL_BATCH_SIZE);
+
+        entityHierarchyIndexService.refresh(kind);
+        return changeCount;
+    }
+
+
+    /**
+     * Compares two versions of a hierarchy, items are matched on their id and parent id.
+     *
+     * @param existing  the currently stored hierarchy items
+     * @param required  the hierarchy items which should be stored
+     * @return tuple of (additions, updates (i.e. level changes), removals)
+     */
+    static Tuple3<List<EntityHierarchyItem>, List<EntityHierarchyItem>, List<EntityHierarchyItem>> diff(Collection<EntityHierarchyItem> existing,
+                                                                                                           Collection<EntityHierarchyItem> required) {
+        Map<Tuple2<Long, Long>, EntityHierarchyItem> existingByKey = indexBy(existing, EntityHierarchyService::toKey);
+        Map<Tuple2<Long, Long>, EntityHierarchyItem> requiredByKey = indexBy(required, EntityHierarchyService::toKey);
+
+        List<EntityHierarchyItem> additions = new ArrayList<>();
+        List<EntityHierarchyItem> updates = new ArrayList<>();
+
+        requiredByKey.forEach((key, item) -> {
+            EntityHierarchyItem current = existingByKey.get(key);
+            if (current == null) {
+                additions.add(item);
+            } else if (current.ancestorLevel() != item.ancestorLevel()
+                    || current.descendantLevel() != item.descendantLevel()) {
+                updates.add(item);
+            }
+        });
+
+        List<EntityHierarchyItem> removals = existingByKey
+                .entrySet()
+                .stream()
+                .filter(e -> !requiredByKey.containsKey(e.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+
+        return tuple(additions, updates, removals);
+    }
+
+
+    private static Tuple2<Long, Long> toKey(EntityHierarchyItem item) {
+        return tuple(item.id().get(), item.parentId().orElse(null));
+    }
+
+
+    private static List<EntityHierarchyItem> filterById(Collection<EntityHierarchyItem> items,
+                                                        Predicate<Long> inScope) {
+        return items
+                .stream()
+                .filter(item -> inScope.test(item.id().get()))
+                .collect(Collectors.toList());
+    }
+
+
     private int buildFor(Table<?> table,
                          EntityKind kind,
                          Condition selectFilter,
@@ -167,7 +328,11 @@ public class EntityHierarchyService {
         Collection<FlatNode<Long, Long>> flatNodes = fetchFlatNodes(table, selectFilter);
         List<EntityHierarchyItem> hierarchyItems = convertFlatNodesToHierarchyItems(kind, flatNodes);
 
-        return entityHierarchyDao.replaceHierarchy(kind, hierarchyItems, deleteFilter);
+        entityHierarchyIndexService.clear(kind);
+        int insertCount = entityHierarchyDao.replaceHierarchy(kind, hierarchyItems, deleteFilter);
+
+        entityHierarchyIndexService.refresh(kind);
+        return insertCount;
     }
 
 
@@ -0,0 +1,179 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.entity_search;
+
+import org.finos.waltz.data.SearchUtilities;
+import org.finos.waltz.data.entity_search.EntitySearchIndex;
+import org.finos.waltz.data.entity_search.EntitySearchIndexDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.fromCollection;
+
+
+/**
+ * Maintains in-memory search indexes so type-ahead searches can be answered
+ * without querying the database.
+ *
+ * Indexes are built when the scheduler starts and rebuilt once they are older
+ * than the configured maximum age.  Writes which change searchable values
+ * should call {@link #invalidate(EntityKind)}, searches for that kind then fall
+ * back to the database until the index has been rebuilt by the next check.
+ * Kinds which are only loaded from outside Waltz (e.g. servers, legal entities)
+ * rely on the maximum age to pick up changes.
+ */
+@Service
+public class EntitySearchIndexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntitySearchIndexService.class);
+
+    public static final Set<EntityKind> INDEXED_KINDS = EnumSet.of(
+            EntityKind.ACTOR,
+            EntityKind.APPLICATION,
+            EntityKind.CHANGE_INITIATIVE,
+            EntityKind.DATA_TYPE,
+            EntityKind.LEGAL_ENTITY,
+            EntityKind.MEASURABLE,
+            EntityKind.ORG_UNIT,
+            EntityKind.PERSON,
+            EntityKind.SERVER);
+
+    private final EntitySearchIndexDao entitySearchIndexDao;
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final Map<EntityKind, LoadedIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<EntityKind, Long> invalidatedAt = new ConcurrentHashMap<>();  // nano time of the last invalidation
+
+
+    @Autowired
+    public EntitySearchIndexService(EntitySearchIndexDao entitySearchIndexDao,
+                                    @Value("${waltz.entity_search.index.enabled:true}") boolean enabled,
+                                    @Value("${waltz.entity_search.index.max_age_ms:300000}") long maxAgeMillis) {
+        checkNotNull(entitySearchIndexDao, "entitySearchIndexDao cannot be null");
+        this.entitySearchIndexDao = entitySearchIndexDao;
+        this.enabled = enabled;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+
+    @Scheduled(fixedDelayString = "${waltz.entity_search.index.check_ms:10000}")
+    public void refreshStale() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        INDEXED_KINDS
+                .stream()
+                .filter(kind -> {
+                    LoadedIndex loaded = indexes.get(kind);
+                    return loaded == null || now - loaded.loadedAt > maxAgeMillis;
+                })
+                .forEach(this::refresh);
+    }
+
+
+    /**
+     * Rebuilds the index for the given kind.  If the index cannot be built it
+     * is removed, so searches fall back to querying the database.
+     *
+     * @param kind  kind to rebuild, kinds which are not indexed are ignored
+     */
+    public void refresh(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+
+        if (!enabled || !INDEXED_KINDS.contains(kind)) {
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
+            EntitySearchIndex index = EntitySearchIndex.build(entitySearchIndexDao.findEntries(kind));
+
+            Long lastInvalidation = invalidatedAt.get(kind);
+            if (lastInvalidation != null && lastInvalidation - startNanos >= 0) {
+                // invalidated whilst loading, the index may be missing the change so leave it to the next check
+                LOG.debug("Search index for kind: {} was invalidated whilst being rebuilt", kind);
+                return;
+            }
+
+            indexes.put(kind, new LoadedIndex(index, start));
+            LOG.debug("Rebuilt search index for kind: {}, entries: {}, took: {}ms", kind, index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            LOG.warn("Could not build search index for kind: {}, falling back to database searches", kind, e);
+            indexes.remove(kind);
+        }
+    }
+
+
+    /**
+     * Removes the index for the given kind, it will be rebuilt by the next check.
+     */
+    public void invalidate(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        invalidatedAt.put(kind, System.nanoTime());
+        indexes.remove(kind);
+    }
+
+
+    /**
+     * @param kind  kind of entity to search for
+     * @param options  search query, lifecycle statuses and limit
+     * @return ranked results, or empty if there is no index for the kind
+     */
+    public Optional<List<EntityReference>> search(EntityKind kind, EntitySearchOptions options) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(options, "options cannot be null");
+
+        return Optional
+                .ofNullable(indexes.get(kind))
+                .map(loaded -> loaded.index.search(
+                        SearchUtilities.mkTerms(options.searchQuery()),
+                        fromCollection(options.entityLifecycleStatuses()),
+                        options.limit()));
+    }
+
+
+    private static class LoadedIndex {
+        private final EntitySearchIndex index;
+        private final long loadedAt;
+
+        private LoadedIndex(EntitySearchIndex index, long loadedAt) {
+            this.index = index;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+}
@@ -48,6 +48,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
 import static java.util.stream.Collectors.toList;
@@ -74,6 +75,7 @@ public class EntitySearchService {
     private final FlowDiagramService flowDiagramService;
     private final LegalEntityService legalEntityService;
     private final DatabaseInformationService databaseInformationService;
+    private final EntitySearchIndexService entitySearchIndexService;
 
 
     @Autowired
@@ -93,7 +95,8 @@ public class EntitySearchService {
                                SoftwareCatalogService softwareCatalogService,
                                FlowDiagramService flowDiagramService,
                                LegalEntityService legalEntityService,
-                               DatabaseInformationService databaseInformationService) {
+                               DatabaseInformationService databaseInformationService,
+                               EntitySearchIndexService entitySearchIndexService) {
 
         checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         checkNotNull(actorService, "actorService cannot be null");
@@ -112,6 +115,7 @@ public class EntitySearchService {
         checkNotNull(softwareCatalogService, "softwareCatalogService cannot be null");
         checkNotNull(legalEntityService, "legalEntityService cannot be null");
         checkNotNull(databaseInformationService, "databaseInformationService cannot be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
 
         this.actorService = actorService;
         this.dbExecutorPool = dbExecutorPool;
@@ -130,6 +134,7 @@ public class EntitySearchService {
         this.softwareCatalogService = softwareCatalogService;
         this.legalEntityService = legalEntityService;
         this.databaseInformationService = databaseInformationService;
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
@@ -141,20 +146,34 @@ public class EntitySearchService {
             return Collections.emptyList();
         }
 
-        List<Future<Collection<? extends WaltzEntity>>> futures = options
+        // kinds with an in-memory index are answered directly, the rest are searched in the database
+        List<Future<List<EntityReference>>> futures = options
                 .entityKinds()
                 .stream()
-                .map(ek -> dbExecutorPool.submit(mkCallable(ek, options)))
+                .map(ek -> entitySearchIndexService
+                        .search(ek, options)
+                        .<Future<List<EntityReference>>>map(CompletableFuture::completedFuture)
+                        .orElseGet(() -> submitSearch(ek, options)))
                 .collect(toList());
 
         return futures
                 .stream()
                 .flatMap(f -> supplier(f::get).get().stream())
-                .map(WaltzEntity::entityReference)
                 .collect(toList());
     }
 
 
+    private Future<List<EntityReference>> submitSearch(EntityKind entityKind,
+                                                       EntitySearchOptions options) {
+        Callable<Collection<? extends WaltzEntity>> callable = mkCallable(entityKind, options);
+        return dbExecutorPool.submit(() -> callable
+                .call()
+                .stream()
+                .map(WaltzEntity::entityReference)
+                .collect(toList()));
+    }
+
+
     private Callable<Collection<? extends WaltzEntity>> mkCallable(EntityKind entityKind,
                                                                    EntitySearchOptions options) {
         switch (entityKind) {
@@ -19,6 +19,7 @@
 package org.finos.waltz.service.flow_classification_rule;
 
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyIndexService;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.data_type.DataTypeDao;
@@ -55,6 +56,7 @@ public class FlowClassificationCalculator {
     private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
     private final DataTypeDao dataTypeDao;
     private final EntityHierarchyDao entityHierarchyDao;
+    private final EntityHierarchyIndexService entityHierarchyIndexService;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
     private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
 
@@ -62,15 +64,18 @@ public class FlowClassificationCalculator {
     @Autowired
     public FlowClassificationCalculator(DataTypeDao dataTypeDao,
                                         EntityHierarchyDao entityHierarchyDao,
+                                        EntityHierarchyIndexService entityHierarchyIndexService,
                                         LogicalFlowDecoratorRatingsCalculator ratingsCalculator,
                                         LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(entityHierarchyDao, "entityHierarchyDao cannot be null");
+        checkNotNull(entityHierarchyIndexService, "entityHierarchyIndexService cannot be null");
         checkNotNull(ratingsCalculator, "ratingsCalculator cannot be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
 
         this.dataTypeDao = dataTypeDao;
         this.entityHierarchyDao = entityHierarchyDao;
+        this.entityHierarchyIndexService = entityHierarchyIndexService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
         this.ratingsCalculator = ratingsCalculator;
     }
@@ -96,11 +101,13 @@ public class FlowClassificationCalculator {
 
         IdSelectionOptions selectorOptions = mkOpts(vantageRef);
         Select<Record1<Long>> selector = appIdSelectorFactory.apply(selectorOptions);
-        Set<Long> dataTypeDescendents = entityHierarchyDao
-                .findDesendents(dataType.entityReference())
-                .stream()
-                .map(d -> d.id().get())
-                .collect(Collectors.toSet());
+        Set<Long> dataTypeDescendents = entityHierarchyIndexService
+                .findDescendantIds(dataType.entityReference())
+                .orElseGet(() -> entityHierarchyDao
+                        .findDesendents(dataType.entityReference())
+                        .stream()
+                        .map(d -> d.id().get())
+                        .collect(Collectors.toSet()));
 
         Collection<DataTypeDecorator> impactedDecorators = logicalFlowDecoratorDao
                 .findByEntityIdSelector(selector, Optional.of(EntityKind.APPLICATION))
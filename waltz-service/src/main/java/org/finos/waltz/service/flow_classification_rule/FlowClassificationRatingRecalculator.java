@@ -0,0 +1,306 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.flow_classification_rule;
+
+import org.finos.waltz.data.application.ApplicationDao;
+import org.finos.waltz.data.data_type.DataTypeDao;
+import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.application.Application;
+import org.finos.waltz.model.datatype.DataType;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
+import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRule;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.utils.IdUtilities.indexById;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Re-rates logical flow decorators against the current set of flow classification rules.
+ *
+ * Unlike the original 'reset everything, then reapply each rule' approach the target
+ * rating for every decorator is computed in memory (via the
+ * {@link FlowClassificationRuleResolver} and any point-to-point rules) and only the
+ * decorators whose rating, or rule, differ are written back.  All writes are
+ * performed in a single transaction so readers never see a partially rated estate.
+ */
+@Service
+public class FlowClassificationRatingRecalculator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowClassificationRatingRecalculator.class);
+
+    private static final int UPDATE_BATCH_SIZE = 1000;
+
+    private final ApplicationDao applicationDao;
+    private final DataTypeDao dataTypeDao;
+    private final FlowClassificationDao flowClassificationDao;
+    private final FlowClassificationRuleDao flowClassificationRuleDao;
+    private final LogicalFlowDao logicalFlowDao;
+    private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+
+
+    @Autowired
+    public FlowClassificationRatingRecalculator(ApplicationDao applicationDao,
+                                                DataTypeDao dataTypeDao,
+                                                FlowClassificationDao flowClassificationDao,
+                                                FlowClassificationRuleDao flowClassificationRuleDao,
+                                                LogicalFlowDao logicalFlowDao,
+                                                LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
+        checkNotNull(applicationDao, "applicationDao cannot be null");
+        checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
+        checkNotNull(flowClassificationDao, "flowClassificationDao cannot be null");
+        checkNotNull(flowClassificationRuleDao, "flowClassificationRuleDao cannot be null");
+        checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
+        checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
+
+        this.applicationDao = applicationDao;
+        this.dataTypeDao = dataTypeDao;
+        this.flowClassificationDao = flowClassificationDao;
+        this.flowClassificationRuleDao = flowClassificationRuleDao;
+        this.logicalFlowDao = logicalFlowDao;
+        this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+    }
+
+
+    /**
+     * Re-rates every decorator on an active logical flow.
+     *
+     * @return number of decorators whose rating was changed
+     */
+    public int recalculateAll() {
+        Map<Long, LogicalFlow> flowsById = indexById(logicalFlowDao.findAllActive());
+        Map<Long, Long> orgUnitIdByAppId = indexBy(
+                applicationDao.findAll(),
+                app -> app.id().get(),
+                Application::organisationalUnitId);
+
+        List<FlowClassificationRule> rules = flowClassificationRuleDao.findAll();
+
+        Set<Long> orgUnitRuleIds = rules
+                .stream()
+                .filter(r -> r.vantagePointReference().kind() == EntityKind.ORG_UNIT)
+                .map(r -> r.id().get())
+                .collect(toSet());
+
+        List<FlowClassificationRuleVantagePoint> vantagePoints = flowClassificationRuleDao
+                .findExpandedFlowClassificationRuleVantagePoints(new HashSet<>(orgUnitIdByAppId.values()))
+                .stream()
+                .filter(vp -> orgUnitRuleIds.contains(vp.ruleId()))
+                .collect(toList());
+
+        PointToPointRules pointToPointRules = new PointToPointRules(
+                rules,
+                flowClassificationDao.findAll(),
+                dataTypeDao.findAll());
+
+        List<DataTypeDecorator> decorators = logicalFlowDecoratorDao
+                .findAll()
+                .stream()
+                .filter(d -> flowsById.containsKey(d.dataFlowId()))
+                .collect(toList());
+
+        Set<DataTypeDecorator> changed = determineChangedDecorators(
+                decorators,
+                flowsById,
+                orgUnitIdByAppId,
+                new FlowClassificationRuleResolver(vantagePoints),
+                pointToPointRules);
+
+        int updated = logicalFlowDecoratorDao.updateRatingsAndRules(changed, UPDATE_BATCH_SIZE);
+
+        LOG.info(
+                "Re-rated {} of {} logical flow decorators",
+                updated,
+                decorators.size());
+
+        return updated;
+    }
+
+
+    /**
+     * Computes the target rating for each decorator, returning copies of those
+     * decorators where the rating (or the rule which determined it) differs
+     * from the current value.
+     */
+    static Set<DataTypeDecorator> determineChangedDecorators(Collection<DataTypeDecorator> decorators,
+                                                             Map<Long, LogicalFlow> flowsById,
+                                                             Map<Long, Long> orgUnitIdByAppId,
+                                                             FlowClassificationRuleResolver resolver,
+                                                             PointToPointRules pointToPointRules) {
+        return decorators
+                .stream()
+                .filter(d -> d.decoratorEntity().kind() == EntityKind.DATA_TYPE)
+                .map(d -> {
+                    LogicalFlow flow = flowsById.get(d.dataFlowId());
+                    if (flow == null) {
+                        return null;
+                    }
+
+                    Tuple2<AuthoritativenessRatingValue, Optional<Long>> target = determineRating(
+                            flow,
+                            d.decoratorEntity().id(),
+                            orgUnitIdByAppId,
+                            resolver,
+                            pointToPointRules);
+
+                    boolean isUnchanged = d.rating().equals(Optional.of(target.v1))
+                            && d.flowClassificationRuleId().equals(target.v2);
+
+                    return isUnchanged
+                            ? null
+                            : ImmutableDataTypeDecorator
+                                .copyOf(d)
+                                .withRating(target.v1)
+                                .withFlowClassificationRuleId(target.v2);
+                })
+                .filter(Objects::nonNull)
+                .collect(toSet());
+    }
+
+
+    private static Tuple2<AuthoritativenessRatingValue, Optional<Long>> determineRating(LogicalFlow flow,
+                                                                                       long dataTypeId,
+                                                                                       Map<Long, Long> orgUnitIdByAppId,
+                                                                                       FlowClassificationRuleResolver resolver,
+                                                                                       PointToPointRules pointToPointRules) {
+        // point-to-point rules take precedence over those declared against org units
+        Optional<FlowClassificationRule> pointToPointRule = pointToPointRules.resolve(flow, dataTypeId);
+        if (pointToPointRule.isPresent()) {
+            FlowClassificationRule rule = pointToPointRule.get();
+            return tuple(pointToPointRules.toRating(rule), rule.id());
+        }
+
+        Long targetOrgUnitId = flow.target().kind() == EntityKind.APPLICATION
+                ? orgUnitIdByAppId.get(flow.target().id())
+                : null;
+
+        if (targetOrgUnitId == null) {
+            return tuple(AuthoritativenessRatingValue.NO_OPINION, Optional.empty());
+        }
+
+        EntityReference vantagePoint = mkRef(EntityKind.ORG_UNIT, targetOrgUnitId);
+
+        Optional<FlowClassificationRuleVantagePoint> authSource = resolver.resolveAuthSource(vantagePoint, flow.source(), dataTypeId);
+        if (authSource.isPresent()) {
+            return tuple(
+                    AuthoritativenessRatingValue.of(authSource.get().classificationCode()),
+                    Optional.of(authSource.get().ruleId()));
+        }
+
+        AuthoritativenessRatingValue rating = resolver.resolve(vantagePoint, flow.source(), dataTypeId);
+
+        // discouraged decorators keep the rule which discourages them so they can be found by rule
+        Optional<Long> ruleId = AuthoritativenessRatingValue.DISCOURAGED.equals(rating)
+                ? resolver.resolveDiscouragingRule(vantagePoint, dataTypeId).map(FlowClassificationRuleVantagePoint::ruleId)
+                : Optional.empty();
+
+        return tuple(rating, ruleId);
+    }
+
+
+    /**
+     * Rules declared directly against an application or actor only apply to flows
+     * between the rule subject and that entity.  Where several rules match (via the
+     * data type hierarchy) the one declared against the most specific data type wins.
+     */
+    static class PointToPointRules {
+
+        private final Map<Tuple2<EntityReference, EntityReference>, Collection<FlowClassificationRule>> rulesByTargetAndSource;
+        private final Map<Long, String> codesByClassificationId;
+        private final Map<Long, DataType> dataTypesById;
+
+
+        PointToPointRules(Collection<FlowClassificationRule> rules,
+                          Collection<FlowClassification> classifications,
+                          Collection<DataType> dataTypes) {
+            this.rulesByTargetAndSource = groupBy(
+                    rules
+                        .stream()
+                        .filter(r -> r.vantagePointReference().kind() == EntityKind.APPLICATION
+                                || r.vantagePointReference().kind() == EntityKind.ACTOR)
+                        .collect(toList()),
+                    r -> tuple(r.vantagePointReference(), r.subjectReference()));
+            this.codesByClassificationId = indexBy(
+                    classifications,
+                    c -> c.id().get(),
+                    FlowClassification::code);
+            this.dataTypesById = indexById(dataTypes);
+        }
+
+
+        Optional<FlowClassificationRule> resolve(LogicalFlow flow, long dataTypeId) {
+            Collection<FlowClassificationRule> candidates = rulesByTargetAndSource.get(tuple(flow.target(), flow.source()));
+
+            if (candidates == null) {
+                return Optional.empty();
+            }
+
+            Map<Long, FlowClassificationRule> candidatesByDataTypeId = indexBy(
+                    candidates,
+                    FlowClassificationRule::dataTypeId);
+
+            // walk up from the decorator data type, the first match is the most specific
+            Long currentId = dataTypeId;
+            Set<Long> visited = new HashSet<>();
+            while (currentId != null && visited.add(currentId)) {
+                FlowClassificationRule match = candidatesByDataTypeId.get(currentId);
+                if (match != null) {
+                    return Optional.of(match);
+                }
+                DataType current = dataTypesById.get(currentId);
+                currentId = current == null
+                        ? null
+                        : current.parentId().orElse(null);
+            }
+
+            return Optional.empty();
+        }
+
+
+        AuthoritativenessRatingValue toRating(FlowClassificationRule rule) {
+            return Optional
+                    .ofNullable(codesByClassificationId.get(rule.classificationId()))
+                    .map(AuthoritativenessRatingValue::of)
+                    .orElse(AuthoritativenessRatingValue.NO_OPINION);
+        }
+    }
+
+}
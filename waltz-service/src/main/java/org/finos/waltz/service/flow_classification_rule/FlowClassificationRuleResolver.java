@@ -24,6 +24,7 @@ import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
 
 import javax.swing.text.html.parser.Entity;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.head;
@@ -110,6 +111,32 @@ public class FlowClassificationRuleResolver {
     }
 
 
+    /**
+     * Given a vantage point and a data type this method will (maybe) give back the most
+     * specific rule declared for them, regardless of source.  This is the rule which
+     * makes flows from any other source discouraged.
+     *
+     * @param vantagePoint  typically the ou of the consuming app
+     * @param dataTypeId  the data type in question
+     * @return  the most specific rule for the vantage point and data type, if any
+     */
+    public Optional<FlowClassificationRuleVantagePoint> resolveDiscouragingRule(EntityReference vantagePoint, Long dataTypeId) {
+
+        Map<Long, Map<EntityReference, Optional<FlowClassificationRuleVantagePoint>>> ouGroup = byOuThenDataTypeThenSubject.get(vantagePoint);
+        if(isEmpty(ouGroup)) return Optional.empty();
+
+        Map<EntityReference, Optional<FlowClassificationRuleVantagePoint>> dataTypeGroup = ouGroup.get(dataTypeId);
+        if(isEmpty(dataTypeGroup)) return Optional.empty();
+
+        return getMostSpecificRanked(dataTypeGroup
+                .values()
+                .stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList()));
+    }
+
+
     /**
      * Given a collection of vantages points (maybe) return the first
      * after sorting them in (descending) rank order.
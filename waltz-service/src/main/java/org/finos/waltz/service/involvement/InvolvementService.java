@@ -23,17 +23,22 @@ import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.involvement.InvolvementDao;
+import org.finos.waltz.data.involvement.PersonApplicationClosureDao;
 import org.finos.waltz.data.person.PersonDao;
+import org.finos.waltz.data.scheduled_job.ScheduledJobDao;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.involvement.*;
 import org.finos.waltz.model.involvement_kind.InvolvementKind;
 import org.finos.waltz.model.person.Person;
+import org.finos.waltz.model.scheduled_job.JobKey;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.involvement_kind.InvolvementKindService;
 import org.finos.waltz.service.user.UserRoleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -41,6 +46,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
@@ -48,19 +54,23 @@ import static org.finos.waltz.common.Checks.*;
 import static org.finos.waltz.common.FunctionUtilities.time;
 import static org.finos.waltz.common.ListUtilities.applyToFirst;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.map;
 
 
 @Service
 public class InvolvementService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(InvolvementService.class);
 
     private final ChangeLogService changeLogService;
     private final InvolvementDao involvementDao;
+    private final PersonApplicationClosureDao personApplicationClosureDao;
     private final EntityReferenceNameResolver entityReferenceNameResolver;
     private final InvolvementKindService involvementKindService;
     private final PersonDao personDao;
     private final UserRoleService userRoleService;
+    private final ScheduledJobDao scheduledJobDao;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
     private Map<Long, String> involvementKindIdToNameMap;
@@ -69,23 +79,29 @@ public class InvolvementService {
     @Autowired
     public InvolvementService(ChangeLogService changeLogService,
                               InvolvementDao dao,
+                              PersonApplicationClosureDao personApplicationClosureDao,
                               EntityReferenceNameResolver entityReferenceNameResolver,
                               InvolvementKindService involvementKindService,
                               PersonDao personDao,
-                              UserRoleService userRoleService) {
+                              UserRoleService userRoleService,
+                              ScheduledJobDao scheduledJobDao) {
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(dao, "involvementDao must not be null");
+        checkNotNull(personApplicationClosureDao, "personApplicationClosureDao cannot be null");
         checkNotNull(entityReferenceNameResolver, "entityReferenceNameResolver cannot be null");
         checkNotNull(involvementKindService, "involvementKindService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
         checkNotNull(personDao, "personDao cannot be null");
+        checkNotNull(scheduledJobDao, "scheduledJobDao cannot be null");
 
         this.changeLogService = changeLogService;
         this.involvementDao = dao;
+        this.personApplicationClosureDao = personApplicationClosureDao;
         this.entityReferenceNameResolver = entityReferenceNameResolver;
         this.involvementKindService = involvementKindService;
         this.userRoleService = userRoleService;
         this.personDao = personDao;
+        this.scheduledJobDao = scheduledJobDao;
     }
 
 
@@ -108,6 +124,14 @@ public class InvolvementService {
     }
 
 
+    public Map<EntityReference, Set<Long>> findExistingInvolvementKindIdsForUser(Collection<EntityReference> entityReferences,
+                                                                                String username) {
+        checkNotNull(entityReferences, "entityReferences cannot be null");
+        checkNotEmpty(username, "username cannot be empty");
+        return involvementDao.findExistingInvolvementKindIdsForUser(entityReferences, username);
+    }
+
+
     public List<Involvement> findAllByEmployeeId(String employeeId) {
         return involvementDao.findAllByEmployeeId(employeeId);
     }
@@ -140,6 +164,7 @@ public class InvolvementService {
         Involvement involvement = mkInvolvement(entityReference, command);
         boolean result = involvementDao.save(involvement) == 1;
         if (result) {
+            refreshPersonApplicationClosure(asSet(involvement));
             logChange(entityReference, userId, command);
         }
         return result;
@@ -152,6 +177,7 @@ public class InvolvementService {
         Involvement involvement = mkInvolvement(entityReference, command);
         boolean result = involvementDao.remove(involvement) > 0;
         if (result) {
+            refreshPersonApplicationClosure(asSet(involvement));
             logChange(entityReference, userId, command);
         }
         return result;
@@ -167,8 +193,14 @@ public class InvolvementService {
     public int deleteByGenericEntitySelector(IdSelectionOptions selectionOptions) {
         GenericSelector genericSelector = genericSelectorFactory
                 .apply(selectionOptions);
-        return involvementDao
+        int rc = involvementDao
                 .deleteByGenericEntitySelector(genericSelector);
+
+        if (rc > 0 && genericSelector.kind() == EntityKind.APPLICATION) {
+            maintainPersonApplicationClosure(() -> personApplicationClosureDao.refreshForApplications(genericSelector.selector()));
+        }
+
+        return rc;
     }
 
 
@@ -180,12 +212,28 @@ public class InvolvementService {
     public int cleanupInvolvementsForKind(String userName, EntityKind entityKind) {
         boolean isAdmin = userRoleService.hasRole(userName, SystemRole.ADMIN);
         Checks.checkTrue(isAdmin, "Must be an admin to bulk remove involvements");
-        return involvementDao.cleanupInvolvementsForKind(entityKind);
+        int removed = involvementDao.cleanupInvolvementsForKind(entityKind);
+        if (removed > 0 && entityKind == EntityKind.APPLICATION) {
+            maintainPersonApplicationClosure(personApplicationClosureDao::rebuild);
+        }
+        return removed;
+    }
+
+
+    /**
+     * Rebuilds the whole person to application closure, picking up involvements
+     * and people which have been loaded or removed outside of Waltz.
+     *
+     * @return number of closure rows written
+     */
+    public int rebuildPersonApplicationClosure() {
+        return personApplicationClosureDao.rebuild();
     }
 
     public int bulkStoreInvolvements(Set<Involvement> involvements, String username) {
 
         int insertedRecords = involvementDao.bulkStoreInvolvements(involvements);
+        refreshPersonApplicationClosure(involvements);
 
         Map<Long, String> involvementKindNameByIdMap = loadInvolvementKindIdToNameMap();
 
@@ -205,6 +253,7 @@ public class InvolvementService {
     public int bulkDeleteInvolvements(Set<Involvement> involvements, String username) {
 
         int removedRecords = involvementDao.bulkDeleteInvolvements(involvements);
+        refreshPersonApplicationClosure(involvements);
 
         Map<Long, String> involvementKindNameByIdMap = loadInvolvementKindIdToNameMap();
 
@@ -238,6 +287,32 @@ public class InvolvementService {
     }
 
 
+    private void refreshPersonApplicationClosure(Set<Involvement> involvements) {
+        Set<Long> appIds = involvements
+                .stream()
+                .map(Involvement::entityReference)
+                .filter(ref -> ref.kind() == EntityKind.APPLICATION)
+                .map(EntityReference::id)
+                .collect(Collectors.toSet());
+
+        maintainPersonApplicationClosure(() -> personApplicationClosureDao.refreshForApplications(appIds));
+    }
+
+
+    /**
+     * Closure maintenance runs after the involvement change has been written, a failure
+     * should not fail the change itself so a full rebuild is scheduled instead.
+     */
+    private void maintainPersonApplicationClosure(IntSupplier maintenance) {
+        try {
+            maintenance.getAsInt();
+        } catch (Exception e) {
+            LOG.error("Failed to update person application closure, scheduling a full rebuild", e);
+            scheduledJobDao.markJobAsRunnable(JobKey.PERSON_APPLICATION_CLOSURE_REBUILD);
+        }
+    }
+
+
     private void logChange(EntityReference entityReference, String userId, EntityInvolvementChangeCommand command) {
         String message = format("Involvement kind (%s) %s for person: %s",
                 resolvePrettyInvolvementKind(command.involvementKindId()),
@@ -19,6 +19,7 @@
 package org.finos.waltz.service.jmx;
 
 import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.finos.waltz.service.user.UserRoleCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,10 +33,13 @@ public class PersonMaintenance {
     private static final Logger LOG = LoggerFactory.getLogger(PersonMaintenance.class);
 
     private final PersonHierarchyService personHierarchyService;
+    private final UserRoleCache userRoleCache;
 
     @Autowired
-    public PersonMaintenance(PersonHierarchyService personHierarchyService) {
+    public PersonMaintenance(PersonHierarchyService personHierarchyService,
+                             UserRoleCache userRoleCache) {
         this.personHierarchyService = personHierarchyService;
+        this.userRoleCache = userRoleCache;
     }
 
 
@@ -46,6 +50,20 @@ public class PersonMaintenance {
     }
 
 
+    @ManagedOperation(description = "Discard the cached roles of a user, use after changing roles outside of Waltz (e.g. BulkRoleAssign)")
+    public void invalidateUserRoles(String userName) {
+        LOG.warn("Invalidating cached roles for user: {} (via jmx)", userName);
+        userRoleCache.invalidate(userName);
+    }
+
+
+    @ManagedOperation(description = "Discard the cached roles of all users")
+    public void invalidateAllUserRoles() {
+        LOG.warn("Invalidating all cached user roles (via jmx)");
+        userRoleCache.invalidateAll();
+    }
+
+
     @ManagedAttribute
     public String getName() {
         return "Person";
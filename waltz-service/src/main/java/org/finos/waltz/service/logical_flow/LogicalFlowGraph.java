@@ -0,0 +1,585 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowGraphTraversal;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.logical_flow.LogicalFlowGraphNode.mkNode;
+
+
+/**
+ * An in-memory directed graph of logical flows held in primitive arrays.
+ *
+ * Entities are numbered as they are first seen and every flow becomes a
+ * numbered edge.  Each entity keeps growable arrays of its outbound and
+ * inbound edge numbers, each edge keeps its flow id, source, target and the
+ * sorted ids of the data types the flow is decorated with.
+ *
+ * Removed flows are deactivated rather than unlinked, so restoring a flow is
+ * cheap.  Deactivated edges are discarded when the graph is next rebuilt.
+ *
+ * Updates and queries are guarded by a read/write lock, queries may run
+ * concurrently.
+ */
+public class LogicalFlowGraph {
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_DEGREE = 4;
+    private static final int[] NO_EDGES = new int[0];
+    private static final long[] NO_DATA_TYPES = new long[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<EntityReference, Integer> nodeIdxByRef = new HashMap<>();
+    private int nodeCount = 0;
+    private EntityReference[] nodeRefs = new EntityReference[INITIAL_CAPACITY];
+    private int[][] outEdges = new int[INITIAL_CAPACITY][];
+    private int[] outDegrees = new int[INITIAL_CAPACITY];
+    private int[][] inEdges = new int[INITIAL_CAPACITY][];
+    private int[] inDegrees = new int[INITIAL_CAPACITY];
+
+    private final Map<Long, Integer> edgeIdxByFlowId = new HashMap<>();
+    private final BitSet activeEdges = new BitSet();
+    private int edgeCount = 0;
+    private long[] edgeFlowIds = new long[INITIAL_CAPACITY];
+    private int[] edgeSources = new int[INITIAL_CAPACITY];
+    private int[] edgeTargets = new int[INITIAL_CAPACITY];
+    private long[][] edgeDataTypes = new long[INITIAL_CAPACITY][];
+
+
+    // --- updates
+
+    /**
+     * Adds (or re-activates) the flow with the given id.  Existing data types
+     * of a re-activated flow are kept.
+     */
+    public void putFlow(long flowId, EntityReference source, EntityReference target) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+
+        write(() -> {
+            int sourceIdx = toNodeIdx(source);
+            int targetIdx = toNodeIdx(target);
+
+            Integer existing = edgeIdxByFlowId.get(flowId);
+            if (existing != null
+                    && edgeSources[existing] == sourceIdx
+                    && edgeTargets[existing] == targetIdx) {
+                activeEdges.set(existing);
+                return;
+            }
+
+            if (existing != null) {
+                activeEdges.clear(existing);
+            }
+
+            int edgeIdx = addEdge(flowId, sourceIdx, targetIdx);
+            edgeIdxByFlowId.put(flowId, edgeIdx);
+        });
+    }
+
+
+    /**
+     * Deactivates the flow with the given id, unknown flows are ignored.
+     */
+    public void removeFlow(long flowId) {
+        write(() -> {
+            Integer edgeIdx = edgeIdxByFlowId.get(flowId);
+            if (edgeIdx != null) {
+                activeEdges.clear(edgeIdx);
+            }
+        });
+    }
+
+
+    /**
+     * Replaces the data types of the given flow, unknown flows are ignored.
+     */
+    public void setDataTypes(long flowId, long[] dataTypeIds) {
+        checkNotNull(dataTypeIds, "dataTypeIds cannot be null");
+
+        long[] sorted = Arrays
+                .stream(dataTypeIds)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        write(() -> {
+            Integer edgeIdx = edgeIdxByFlowId.get(flowId);
+            if (edgeIdx != null) {
+                edgeDataTypes[edgeIdx] = sorted;
+            }
+        });
+    }
+
+
+    /**
+     * Adds a single data type to the given flow, unknown flows are ignored.
+     */
+    public void addDataType(long flowId, long dataTypeId) {
+        write(() -> {
+            Integer edgeIdx = edgeIdxByFlowId.get(flowId);
+            if (edgeIdx == null) {
+                return;
+            }
+
+            long[] current = edgeDataTypes[edgeIdx];
+            int pos = Arrays.binarySearch(current, dataTypeId);
+            if (pos < 0) {
+                int insertAt = -(pos + 1);
+                long[] updated = new long[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, insertAt);
+                updated[insertAt] = dataTypeId;
+                System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+                edgeDataTypes[edgeIdx] = updated;
+            }
+        });
+    }
+
+
+    // --- queries
+
+    public int nodeCount() {
+        return read(() -> nodeCount);
+    }
+
+
+    public int flowCount() {
+        return read(activeEdges::cardinality);
+    }
+
+
+    /**
+     * Walks flows against their direction, i.e. finds the entities which
+     * (directly or indirectly) send data to the given entity.
+     *
+     * @param ref  starting entity
+     * @param maxDepth  maximum number of hops, or {@link #UNBOUNDED}
+     * @param dataTypeFilter  sorted data type ids, a flow must carry at least one to be followed.  Null to follow all flows
+     */
+    public LogicalFlowGraphTraversal getUpstream(EntityReference ref, int maxDepth, long[] dataTypeFilter) {
+        return traverse(ref, true, maxDepth, dataTypeFilter);
+    }
+
+
+    /**
+     * Walks flows in their direction, i.e. finds the entities which
+     * (directly or indirectly) receive data from the given entity.
+     *
+     * @see #getUpstream(EntityReference, int, long[])
+     */
+    public LogicalFlowGraphTraversal getDownstream(EntityReference ref, int maxDepth, long[] dataTypeFilter) {
+        return traverse(ref, false, maxDepth, dataTypeFilter);
+    }
+
+
+    /**
+     * @return true if the target can be reached from the source within the given number of hops
+     */
+    public boolean isReachable(EntityReference source, EntityReference target, int maxDepth, long[] dataTypeFilter) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+
+        return read(() -> {
+            int sourceIdx = findNodeIdx(source);
+            int targetIdx = findNodeIdx(target);
+
+            if (sourceIdx < 0 || targetIdx < 0) {
+                return false;
+            }
+
+            return sourceIdx == targetIdx
+                    || findShortestPath(sourceIdx, targetIdx, maxDepth, dataTypeFilter, new BitSet(), new BitSet()) != null;
+        });
+    }
+
+
+    /**
+     * Finds up to <code>limit</code> loop-free paths from the source to the
+     * target, shortest first, using Yen's algorithm over breadth first
+     * searches (every flow has the same weight).
+     */
+    public List<LogicalFlowGraphPath> findPaths(EntityReference source,
+                                                EntityReference target,
+                                                int limit,
+                                                int maxDepth,
+                                                long[] dataTypeFilter) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+        checkTrue(limit > 0, "limit must be positive");
+
+        return read(() -> {
+            int sourceIdx = findNodeIdx(source);
+            int targetIdx = findNodeIdx(target);
+
+            if (sourceIdx < 0 || targetIdx < 0 || sourceIdx == targetIdx) {
+                return Collections.emptyList();
+            }
+
+            int[] shortest = findShortestPath(sourceIdx, targetIdx, maxDepth, dataTypeFilter, new BitSet(), new BitSet());
+            if (shortest == null) {
+                return Collections.emptyList();
+            }
+
+            List<int[]> found = new ArrayList<>();
+            found.add(shortest);
+
+            Set<List<Integer>> seen = new HashSet<>();
+            seen.add(toKey(shortest));
+
+            PriorityQueue<int[]> candidates = new PriorityQueue<>(Comparator.comparingInt(p -> p.length));
+
+            while (found.size() < limit) {
+                int[] previous = found.get(found.size() - 1);
+
+                for (int spurPos = 0; spurPos < previous.length; spurPos++) {
+                    int spurNode = nodeAt(sourceIdx, previous, spurPos);
+
+                    // stop the spur re-using the next hop of any path sharing this root
+                    BitSet blockedEdges = new BitSet();
+                    for (int[] path : found) {
+                        if (path.length > spurPos && sharesRoot(path, previous, spurPos)) {
+                            blockedEdges.set(path[spurPos]);
+                        }
+                    }
+
+                    // and stop it looping back through the root
+                    BitSet blockedNodes = new BitSet();
+                    for (int i = 0; i < spurPos; i++) {
+                        blockedNodes.set(nodeAt(sourceIdx, previous, i));
+                    }
+
+                    int remainingDepth = maxDepth == UNBOUNDED
+                            ? UNBOUNDED
+                            : maxDepth - spurPos;
+
+                    int[] spur = findShortestPath(spurNode, targetIdx, remainingDepth, dataTypeFilter, blockedNodes, blockedEdges);
+                    if (spur == null) {
+                        continue;
+                    }
+
+                    int[] candidate = Arrays.copyOf(previous, spurPos + spur.length);
+                    System.arraycopy(spur, 0, candidate, spurPos, spur.length);
+
+                    if (seen.add(toKey(candidate))) {
+                        candidates.add(candidate);
+                    }
+                }
+
+                if (candidates.isEmpty()) {
+                    break;
+                }
+
+                found.add(candidates.poll());
+            }
+
+            return found
+                    .stream()
+                    .map(path -> toPath(sourceIdx, path))
+                    .collect(toList());
+        });
+    }
+
+
+    // --- helpers
+
+    private LogicalFlowGraphTraversal traverse(EntityReference ref,
+                                               boolean upstream,
+                                               int maxDepth,
+                                               long[] dataTypeFilter) {
+        checkNotNull(ref, "ref cannot be null");
+
+        return read(() -> {
+            ImmutableLogicalFlowGraphTraversal.Builder result = ImmutableLogicalFlowGraphTraversal
+                    .builder()
+                    .entityReference(ref);
+
+            int startIdx = findNodeIdx(ref);
+            if (startIdx < 0) {
+                return result.build();
+            }
+
+            int[] depths = new int[nodeCount];
+            Arrays.fill(depths, -1);
+            int[] queue = new int[nodeCount];
+            int head = 0;
+            int tail = 0;
+
+            depths[startIdx] = 0;
+            queue[tail++] = startIdx;
+
+            while (head < tail) {
+                int current = queue[head++];
+                if (depths[current] >= maxDepth) {
+                    continue;
+                }
+
+                int[] edges = upstream ? inEdges[current] : outEdges[current];
+                int degree = upstream ? inDegrees[current] : outDegrees[current];
+
+                for (int i = 0; i < degree; i++) {
+                    int edge = edges[i];
+                    if (!isTraversable(edge, dataTypeFilter)) {
+                        continue;
+                    }
+
+                    result.addFlowIds(edgeFlowIds[edge]);
+
+                    int next = upstream ? edgeSources[edge] : edgeTargets[edge];
+                    if (depths[next] == -1) {
+                        depths[next] = depths[current] + 1;
+                        queue[tail++] = next;
+                        result.addNodes(mkNode(nodeRefs[next], depths[next]));
+                    }
+                }
+            }
+
+            return result.build();
+        });
+    }
+
+
+    /**
+     * Breadth first search for the shortest path avoiding the blocked nodes and edges.
+     *
+     * @return the edges along the path, or null if there is no path within the given depth
+     */
+    private int[] findShortestPath(int fromIdx,
+                                   int toIdx,
+                                   int maxDepth,
+                                   long[] dataTypeFilter,
+                                   BitSet blockedNodes,
+                                   BitSet blockedEdges) {
+        int[] viaEdge = new int[nodeCount];
+        int[] depths = new int[nodeCount];
+        Arrays.fill(depths, -1);
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+
+        depths[fromIdx] = 0;
+        queue[tail++] = fromIdx;
+
+        while (head < tail) {
+            int current = queue[head++];
+            if (depths[current] >= maxDepth) {
+                continue;
+            }
+
+            int[] edges = outEdges[current];
+            for (int i = 0; i < outDegrees[current]; i++) {
+                int edge = edges[i];
+                int next = edgeTargets[edge];
+
+                if (depths[next] != -1
+                        || blockedNodes.get(next)
+                        || blockedEdges.get(edge)
+                        || !isTraversable(edge, dataTypeFilter)) {
+                    continue;
+                }
+
+                depths[next] = depths[current] + 1;
+                viaEdge[next] = edge;
+
+                if (next == toIdx) {
+                    int[] path = new int[depths[next]];
+                    for (int node = next, pos = path.length - 1; pos >= 0; pos--) {
+                        path[pos] = viaEdge[node];
+                        node = edgeSources[viaEdge[node]];
+                    }
+                    return path;
+                }
+
+                queue[tail++] = next;
+            }
+        }
+
+        return null;
+    }
+
+
+    private boolean isTraversable(int edgeIdx, long[] dataTypeFilter) {
+        return activeEdges.get(edgeIdx)
+                && (dataTypeFilter == null || intersects(edgeDataTypes[edgeIdx], dataTypeFilter));
+    }
+
+
+    private static boolean intersects(long[] sortedA, long[] sortedB) {
+        int a = 0;
+        int b = 0;
+        while (a < sortedA.length && b < sortedB.length) {
+            if (sortedA[a] == sortedB[b]) {
+                return true;
+            } else if (sortedA[a] < sortedB[b]) {
+                a++;
+            } else {
+                b++;
+            }
+        }
+        return false;
+    }
+
+
+    private int nodeAt(int sourceIdx, int[] path, int pos) {
+        return pos == 0
+                ? sourceIdx
+                : edgeTargets[path[pos - 1]];
+    }
+
+
+    private static boolean sharesRoot(int[] path, int[] other, int rootLength) {
+        for (int i = 0; i < rootLength; i++) {
+            if (path[i] != other[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static List<Integer> toKey(int[] path) {
+        return Arrays
+                .stream(path)
+                .boxed()
+                .collect(toList());
+    }
+
+
+    private LogicalFlowGraphPath toPath(int sourceIdx, int[] path) {
+        ImmutableLogicalFlowGraphPath.Builder builder = ImmutableLogicalFlowGraphPath
+                .builder()
+                .addEntities(nodeRefs[sourceIdx]);
+
+        for (int edge : path) {
+            builder.addEntities(nodeRefs[edgeTargets[edge]]);
+            builder.addFlowIds(edgeFlowIds[edge]);
+        }
+
+        return builder.build();
+    }
+
+
+    private int findNodeIdx(EntityReference ref) {
+        return nodeIdxByRef.getOrDefault(mkRef(ref.kind(), ref.id()), -1);
+    }
+
+
+    private int toNodeIdx(EntityReference ref) {
+        EntityReference key = mkRef(ref.kind(), ref.id());
+        Integer existing = nodeIdxByRef.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (nodeCount == nodeRefs.length) {
+            int capacity = nodeCount * 2;
+            nodeRefs = Arrays.copyOf(nodeRefs, capacity);
+            outEdges = Arrays.copyOf(outEdges, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+            inEdges = Arrays.copyOf(inEdges, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+        }
+
+        int idx = nodeCount++;
+        nodeRefs[idx] = key;
+        outEdges[idx] = NO_EDGES;
+        inEdges[idx] = NO_EDGES;
+        nodeIdxByRef.put(key, idx);
+        return idx;
+    }
+
+
+    private int addEdge(long flowId, int sourceIdx, int targetIdx) {
+        if (edgeCount == edgeFlowIds.length) {
+            int capacity = edgeCount * 2;
+            edgeFlowIds = Arrays.copyOf(edgeFlowIds, capacity);
+            edgeSources = Arrays.copyOf(edgeSources, capacity);
+            edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+            edgeDataTypes = Arrays.copyOf(edgeDataTypes, capacity);
+        }
+
+        int idx = edgeCount++;
+        edgeFlowIds[idx] = flowId;
+        edgeSources[idx] = sourceIdx;
+        edgeTargets[idx] = targetIdx;
+        edgeDataTypes[idx] = NO_DATA_TYPES;
+        activeEdges.set(idx);
+
+        outEdges[sourceIdx] = append(outEdges[sourceIdx], outDegrees[sourceIdx]++, idx);
+        inEdges[targetIdx] = append(inEdges[targetIdx], inDegrees[targetIdx]++, idx);
+
+        return idx;
+    }
+
+
+    private static int[] append(int[] edges, int size, int edgeIdx) {
+        int[] result = edges;
+        if (size == edges.length) {
+            result = Arrays.copyOf(edges, Math.max(INITIAL_DEGREE, size * 2));
+        }
+        result[size] = edgeIdx;
+        return result;
+    }
+
+
+    private <T> T read(Supplier<T> supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+}
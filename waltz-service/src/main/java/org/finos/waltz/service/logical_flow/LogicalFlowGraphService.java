@@ -0,0 +1,295 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
+import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPathQuery;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphQuery;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+import org.finos.waltz.service.data_type.DataTypeService;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyIndexService;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+
+
+/**
+ * Answers lineage questions (upstream/downstream closures, paths and
+ * reachability) from an in-memory {@link LogicalFlowGraph}.
+ *
+ * The graph is loaded when the scheduler starts (or on first use) and is
+ * updated incrementally as flows are added, removed and restored, or have
+ * their data types changed, via {@link #refreshFlows(Collection)}.  The
+ * periodic rebuild picks up changes made by loaders or other Waltz instances.
+ */
+@Service
+public class LogicalFlowGraphService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowGraphService.class);
+
+    private final LogicalFlowDao logicalFlowDao;
+    private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+    private final EntityHierarchyIndexService entityHierarchyIndexService;
+    private final DataTypeService dataTypeService;
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
+    private final int defaultPathLimit;
+    private final int maxPathLimit;
+
+    private final Set<Long> changedDuringReload = ConcurrentHashMap.newKeySet();
+    private volatile boolean reloading = false;
+    private volatile LogicalFlowGraph graph;
+
+
+    @Autowired
+    public LogicalFlowGraphService(LogicalFlowDao logicalFlowDao,
+                                   LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                                   EntityHierarchyIndexService entityHierarchyIndexService,
+                                   DataTypeService dataTypeService,
+                                   @Value("${waltz.logical_flow.graph.paths.default_limit:5}") int defaultPathLimit,
+                                   @Value("${waltz.logical_flow.graph.paths.max_limit:50}") int maxPathLimit) {
+        checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
+        checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
+        checkNotNull(entityHierarchyIndexService, "entityHierarchyIndexService cannot be null");
+        checkNotNull(dataTypeService, "dataTypeService cannot be null");
+
+        this.logicalFlowDao = logicalFlowDao;
+        this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.entityHierarchyIndexService = entityHierarchyIndexService;
+        this.dataTypeService = dataTypeService;
+        this.defaultPathLimit = defaultPathLimit;
+        this.maxPathLimit = maxPathLimit;
+    }
+
+
+    /**
+     * Rebuilds the graph, if the rebuild fails the previous graph is kept.
+     */
+    @Scheduled(fixedRateString = "${waltz.logical_flow.graph.refresh_ms:3600000}")
+    public void refreshAll() {
+        try {
+            reload();
+        } catch (Exception e) {
+            LOG.warn("Could not rebuild logical flow graph, keeping previous graph", e);
+        }
+    }
+
+
+    /**
+     * Flows refreshed while the rebuild is in progress are re-applied to the new graph.
+     */
+    private synchronized void reload() {
+        changedDuringReload.clear();
+        reloading = true;
+        try {
+            graph = loadGraph();
+        } finally {
+            reloading = false;
+        }
+
+        Set<Long> missed = new HashSet<>(changedDuringReload);
+        changedDuringReload.clear();
+        refreshFlows(missed);
+    }
+
+
+    /**
+     * Re-reads the given flows (and their data types) and applies them to the
+     * graph.  Flows which no longer exist, or have been removed, are
+     * deactivated.
+     */
+    public void refreshFlows(Collection<Long> flowIds) {
+        checkNotNull(flowIds, "flowIds cannot be null");
+
+        if (flowIds.isEmpty()) {
+            return;
+        }
+
+        if (reloading) {
+            changedDuringReload.addAll(flowIds);
+        }
+
+        LogicalFlowGraph current = graph;
+        if (current == null) {
+            // not loaded yet, the flows will be picked up by the initial load
+            return;
+        }
+
+        List<LogicalFlow> flows = logicalFlowDao.findActiveByFlowIds(flowIds);
+        Map<Long, Collection<Long>> dataTypeIdsByFlowId = flows.isEmpty()
+                ? emptyMap()
+                : groupBy(
+                    logicalFlowDecoratorDao.findByFlowIds(flowIds),
+                    d -> d.entityReference().id(),
+                    d -> d.decoratorEntity().id());
+
+        Set<Long> notRemoved = new HashSet<>();
+        flows.forEach(f -> f.id().ifPresent(flowId -> {
+            notRemoved.add(flowId);
+            current.putFlow(flowId, f.source(), f.target());
+            current.setDataTypes(flowId, dataTypeIdsByFlowId
+                    .getOrDefault(flowId, emptySet())
+                    .stream()
+                    .mapToLong(Long::longValue)
+                    .toArray());
+        }));
+
+        flowIds.stream()
+                .filter(flowId -> !notRemoved.contains(flowId))
+                .forEach(current::removeFlow);
+    }
+
+
+    public LogicalFlowGraphTraversal getUpstream(LogicalFlowGraphQuery query) {
+        checkNotNull(query, "query cannot be null");
+        return getGraph().getUpstream(
+                query.entityReference(),
+                toMaxDepth(query.maxDepth()),
+                toDataTypeFilter(query.dataTypeIds()));
+    }
+
+
+    public LogicalFlowGraphTraversal getDownstream(LogicalFlowGraphQuery query) {
+        checkNotNull(query, "query cannot be null");
+        return getGraph().getDownstream(
+                query.entityReference(),
+                toMaxDepth(query.maxDepth()),
+                toDataTypeFilter(query.dataTypeIds()));
+    }
+
+
+    public List<LogicalFlowGraphPath> findPaths(LogicalFlowGraphPathQuery query) {
+        checkNotNull(query, "query cannot be null");
+
+        int limit = query.limit().orElse(defaultPathLimit);
+        checkTrue(limit > 0 && limit <= maxPathLimit, "limit must be between 1 and %d", maxPathLimit);
+
+        return getGraph().findPaths(
+                query.source(),
+                query.target(),
+                limit,
+                toMaxDepth(query.maxDepth()),
+                toDataTypeFilter(query.dataTypeIds()));
+    }
+
+
+    public boolean isReachable(LogicalFlowGraphPathQuery query) {
+        checkNotNull(query, "query cannot be null");
+        return getGraph().isReachable(
+                query.source(),
+                query.target(),
+                toMaxDepth(query.maxDepth()),
+                toDataTypeFilter(query.dataTypeIds()));
+    }
+
+
+    // --- helpers
+
+    private LogicalFlowGraph getGraph() {
+        LogicalFlowGraph current = graph;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (graph == null) {
+                reload();
+            }
+            return graph;
+        }
+    }
+
+
+    private LogicalFlowGraph loadGraph() {
+        LogicalFlowGraph fresh = new LogicalFlowGraph();
+
+        try (Stream<LogicalFlow> flows = logicalFlowDao.streamAllNotRemoved()) {
+            flows.forEach(f -> f.id().ifPresent(flowId -> fresh.putFlow(flowId, f.source(), f.target())));
+        }
+
+        try (Stream<Tuple2<Long, Long>> dataTypes = logicalFlowDecoratorDao.streamDataTypeIdsForNotRemovedFlows()) {
+            dataTypes.forEach(t -> fresh.addDataType(t.v1, t.v2));
+        }
+
+        LOG.info("Loaded logical flow graph, entities: {}, flows: {}", fresh.nodeCount(), fresh.flowCount());
+        return fresh;
+    }
+
+
+    private static int toMaxDepth(Optional<Integer> maxDepth) {
+        maxDepth.ifPresent(d -> checkTrue(d > 0, "maxDepth must be positive"));
+        return maxDepth.orElse(LogicalFlowGraph.UNBOUNDED);
+    }
+
+
+    /**
+     * Expands the given data types to include their descendants, preferring the
+     * in-memory hierarchy index.
+     *
+     * @return sorted data type ids, or null if no filtering is required
+     */
+    private long[] toDataTypeFilter(Set<Long> dataTypeIds) {
+        if (dataTypeIds.isEmpty()) {
+            return null;
+        }
+
+        return dataTypeIds
+                .stream()
+                .map(id -> mkRef(EntityKind.DATA_TYPE, id))
+                .flatMap(ref -> entityHierarchyIndexService
+                        .findDescendantIds(ref)
+                        .map(Collection::stream)
+                        .orElseGet(() -> dataTypeService
+                                .findByIdSelector(dataTypeIdSelectorFactory.apply(mkOpts(ref, HierarchyQueryScope.CHILDREN)))
+                                .stream()
+                                .map(EntityReference::id)))
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+}
@@ -18,12 +18,10 @@
 
 package org.finos.waltz.service.logical_flow;
 
-import org.finos.waltz.common.FunctionUtilities;
 import org.finos.waltz.common.SetUtilities;
-import org.finos.waltz.data.DBExecutorPoolInterface;
-import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
 import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowIdSelectorFactory;
 import org.finos.waltz.data.logical_flow.LogicalFlowStatsDao;
@@ -34,16 +32,12 @@ import org.finos.waltz.model.datatype.DataType;
 import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
 import org.finos.waltz.model.logical_flow.*;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
-import org.finos.waltz.model.tally.TallyPack;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.data_type.DataTypeService;
 import org.finos.waltz.service.involvement.InvolvementService;
 import org.finos.waltz.service.permission.PermissionGroupService;
 import org.finos.waltz.service.permission.permission_checker.FlowPermissionChecker;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
-import org.jooq.Record1;
-import org.jooq.Select;
-import org.jooq.lambda.Unchecked;
 import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,15 +47,16 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Future;
-import java.util.function.Supplier;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
@@ -71,6 +66,7 @@ import static org.finos.waltz.common.SetUtilities.*;
 import static org.finos.waltz.model.EntityKind.DATA_TYPE;
 import static org.finos.waltz.model.EntityKind.LOGICAL_DATA_FLOW;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.utils.IdUtilities.toIds;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
@@ -82,52 +78,58 @@ public class LogicalFlowService {
     private final ChangeLogService changeLogService;
     private final DataTypeService dataTypeService;
     private final DataTypeUsageService dataTypeUsageService;
-    private final DBExecutorPoolInterface dbExecutorPool;
     private final LogicalFlowDao logicalFlowDao;
     private final LogicalFlowStatsDao logicalFlowStatsDao;
+    private final LogicalFlowStatsService logicalFlowStatsService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
     private final InvolvementService involvementService;
     private final PermissionGroupService permissionGroupService;
     private final FlowPermissionChecker flowPermissionChecker;
 
-    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
     private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
-    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory;
 
 
     @Autowired
     public LogicalFlowService(ChangeLogService changeLogService,
                               DataTypeService dataTypeService,
                               DataTypeUsageService dataTypeUsageService,
-                              DBExecutorPoolInterface dbExecutorPool,
                               LogicalFlowDao logicalFlowDao,
                               LogicalFlowStatsDao logicalFlowStatsDao,
+                              LogicalFlowStatsService logicalFlowStatsService,
+                              LogicalFlowGraphService logicalFlowGraphService,
                               LogicalFlowDecoratorDao logicalFlowDecoratorDao,
                               InvolvementService involvementService,
                               PermissionGroupService permissionGroupService,
-                              FlowPermissionChecker flowPermissionChecker) {
+                              FlowPermissionChecker flowPermissionChecker,
+                              EntityHierarchyIndexes entityHierarchyIndexes) {
 
         checkNotNull(changeLogService, "changeLogService cannot be null");
-        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         checkNotNull(dataTypeService, "dataTypeService cannot be null");
         checkNotNull(dataTypeUsageService, "dataTypeUsageService cannot be null");
         checkNotNull(logicalFlowDao, "logicalFlowDao must not be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDataTypeDecoratorDao cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
+        checkNotNull(logicalFlowStatsService, "logicalFlowStatsService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
         checkNotNull(involvementService, "involvementService cannot be null");
         checkNotNull(permissionGroupService, "permissionGroupService cannot be null");
         checkNotNull(flowPermissionChecker, "flowPermissionChecker cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
 
         this.changeLogService = changeLogService;
         this.dataTypeService = dataTypeService;
         this.flowPermissionChecker = flowPermissionChecker;
         this.dataTypeUsageService = dataTypeUsageService;
-        this.dbExecutorPool = dbExecutorPool;
         this.logicalFlowDao = logicalFlowDao;
         this.logicalFlowStatsDao = logicalFlowStatsDao;
+        this.logicalFlowStatsService = logicalFlowStatsService;
+        this.logicalFlowGraphService = logicalFlowGraphService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
         this.involvementService = involvementService;
         this.permissionGroupService = permissionGroupService;
+        this.dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory(entityHierarchyIndexes);
     }
 
 
@@ -172,6 +174,16 @@ public class LogicalFlowService {
     }
 
 
+    /**
+     * Streaming variant of {@link #findBySelector(IdSelectionOptions)}, the stream
+     * holds a database cursor and must be closed by the caller.
+     */
+    public Stream<LogicalFlow> streamBySelector(IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+        return logicalFlowDao.streamBySelector(logicalFlowIdSelectorFactory.apply(options));
+    }
+
+
     /**
      * Creates a logical flow and creates a default, 'UNKNOWN' data type decoration
      * if possible.
@@ -197,6 +209,8 @@ public class LogicalFlowService {
 
         LogicalFlow logicalFlow = logicalFlowDao.addFlow(flowToAdd);
         attemptToAddUnknownDecoration(logicalFlow, username);
+        logicalFlowStatsService.invalidateForEntities(asSet(logicalFlow.source(), logicalFlow.target()));
+        logicalFlowGraphService.refreshFlows(toIds(asSet(logicalFlow)));
 
         changeLogService.writeChangeLogEntries(logicalFlow, username, "Added", Operation.ADD);
 
@@ -246,7 +260,14 @@ public class LogicalFlowService {
                         .build())
                 .collect(toSet());
 
-        return logicalFlowDao.addFlows(flowsToAdd, username);
+        Set<LogicalFlow> addedFlows = logicalFlowDao.addFlows(flowsToAdd, username);
+        logicalFlowStatsService.invalidateForEntities(toAdd
+                .stream()
+                .flatMap(cmd -> Stream.of(cmd.source(), cmd.target()))
+                .collect(toSet()));
+        logicalFlowGraphService.refreshFlows(toIds(addedFlows));
+
+        return addedFlows;
     }
 
 
@@ -283,6 +304,8 @@ public class LogicalFlowService {
             Set<EntityReference> affectedEntityRefs = SetUtilities.fromArray(logicalFlow.source(), logicalFlow.target());
 
             dataTypeUsageService.recalculateForApplications(affectedEntityRefs);
+            logicalFlowStatsService.invalidateForEntities(affectedEntityRefs);
+            logicalFlowGraphService.refreshFlows(asSet(flowId));
 
             changeLogService.writeChangeLogEntries(logicalFlow, username,
                     "Removed : datatypes [" + getAssociatedDatatypeNamesAsCsv(flowId) + "]",
@@ -307,43 +330,19 @@ public class LogicalFlowService {
             case PERSON:
             case SCENARIO:
             case DATA_TYPE:
-                return calculateStatsForAppIdSelector(options);
+                return logicalFlowStatsService.calculateStats(options);
             default:
                 throw new UnsupportedOperationException("Cannot calculate stats for selector kind: "+ options.entityReference().kind());
         }
     }
 
 
-    private LogicalFlowStatistics calculateStatsForAppIdSelector(IdSelectionOptions options) {
-        checkNotNull(options, "options cannot be null");
-
-        Select<Record1<Long>> appIdSelector = appIdSelectorFactory.apply(options);
-
-        Future<List<TallyPack<String>>> dataTypeCounts = dbExecutorPool.submit(() ->
-                FunctionUtilities.time("DFS.dataTypes",
-                    () -> logicalFlowStatsDao.tallyDataTypesByAppIdSelector(appIdSelector)));
-
-        Future<LogicalFlowMeasures> appCounts = dbExecutorPool.submit(() ->
-                FunctionUtilities.time("DFS.appCounts",
-                    () -> logicalFlowStatsDao.countDistinctAppInvolvementByAppIdSelector(appIdSelector)));
-
-        Future<LogicalFlowMeasures> flowCounts = dbExecutorPool.submit(() ->
-                FunctionUtilities.time("DFS.flowCounts",
-                    () -> logicalFlowStatsDao.countDistinctFlowInvolvementByAppIdSelector(appIdSelector)));
-
-        Supplier<ImmutableLogicalFlowStatistics> statSupplier = Unchecked.supplier(() -> ImmutableLogicalFlowStatistics.builder()
-                .dataTypeCounts(dataTypeCounts.get())
-                .appCounts(appCounts.get())
-                .flowCounts(flowCounts.get())
-                .build());
-
-        return statSupplier.get();
-    }
-
-
     public boolean restoreFlow(long logicalFlowId, String username) {
         boolean result = logicalFlowDao.restoreFlow(logicalFlowId, username);
         if (result) {
+            LogicalFlow logicalFlow = logicalFlowDao.getByFlowId(logicalFlowId);
+            logicalFlowStatsService.invalidateForEntities(asSet(logicalFlow.source(), logicalFlow.target()));
+            logicalFlowGraphService.refreshFlows(asSet(logicalFlowId));
             changeLogService.writeChangeLogEntries(mkRef(LOGICAL_DATA_FLOW, logicalFlowId), username, "Restored", Operation.ADD);
         }
         return result;
@@ -351,12 +350,20 @@ public class LogicalFlowService {
 
 
     public Integer cleanupOrphans() {
-        return logicalFlowDao.cleanupOrphans();
+        Integer removed = logicalFlowDao.cleanupOrphans();
+        if (removed > 0) {
+            logicalFlowGraphService.refreshAll();
+        }
+        return removed;
     }
 
 
     public int cleanupSelfReferencingFlows() {
-        return logicalFlowDao.cleanupSelfReferencingFlows();
+        int removed = logicalFlowDao.cleanupSelfReferencingFlows();
+        if (removed > 0) {
+            logicalFlowGraphService.refreshAll();
+        }
+        return removed;
     }
 
 
@@ -372,19 +379,27 @@ public class LogicalFlowService {
     public Set<Long> findEditableFlowIdsForParentReference(EntityReference parentRef, String username) {
         List<LogicalFlow> logicalFlows = findByEntityReference(parentRef);
 
-        Set<Operation> flowPermissionsForParentEntity = flowPermissionChecker.findFlowPermissionsForParentEntity(parentRef, username);
+        Set<EntityReference> refsToCheck = logicalFlows
+                .stream()
+                .flatMap(f -> Stream.of(f.source(), f.target()))
+                .collect(toSet());
+        refsToCheck.add(parentRef);
+
+        // permissions for the parent and every counterpart are resolved together, rather than per flow endpoint
+        Map<EntityReference, Set<Operation>> permissionsByRef = flowPermissionChecker
+                .findFlowPermissionsForParentEntities(refsToCheck, username);
+
+        Set<Operation> editOperations = asSet(Operation.ADD, Operation.UPDATE, Operation.REMOVE);
+        Predicate<EntityReference> canEdit = ref -> hasIntersection(
+                permissionsByRef.getOrDefault(ref, emptySet()),
+                editOperations);
 
-        if (hasIntersection(flowPermissionsForParentEntity, asSet(Operation.ADD, Operation.UPDATE, Operation.REMOVE))) {
+        if (canEdit.test(parentRef)) {
             return map(logicalFlows, f -> f.id().get());
         } else {
-
             return logicalFlows.stream()
-                    .flatMap(f -> asSet(tuple(f.id().get(), f.source()), tuple(f.id().get(), f.target())).stream())
-                    .filter(t -> {
-                        Set<Operation> entity = flowPermissionChecker.findFlowPermissionsForParentEntity(t.v2, username);
-                        return hasIntersection(entity, asSet(Operation.ADD, Operation.UPDATE, Operation.REMOVE));
-                    })
-                    .map(t -> t.v1)
+                    .filter(f -> canEdit.test(f.source()) || canEdit.test(f.target()))
+                    .map(f -> f.id().get())
                     .collect(toSet());
         }
     }
@@ -0,0 +1,300 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.common.FunctionUtilities;
+import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.logical_flow.LogicalFlowStatsDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowStatsStoreDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.ImmutableIdSelectionOptions;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowStatistics;
+import org.finos.waltz.model.logical_flow.LogicalFlowMeasures;
+import org.finos.waltz.model.logical_flow.LogicalFlowStatistics;
+import org.finos.waltz.model.tally.TallyPack;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.lambda.Unchecked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+
+
+/**
+ * Calculates logical flow statistics for an id selector.
+ *
+ * Statistics for org units (including their children) and app groups are
+ * served from a pre-aggregated store.  The store is rebuilt in full by the
+ * <code>LOGICAL_FLOW_STATS_REBUILD</code> job, and individual entries are
+ * refreshed in the background when flows involving their applications change.
+ * Entries older than the configured maximum age are recalculated on read.
+ * All other selectors (people, measurables etc.) are calculated live.
+ */
+@Service
+public class LogicalFlowStatsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowStatsService.class);
+
+    private final DBExecutorPoolInterface dbExecutorPool;
+    private final LogicalFlowStatsDao logicalFlowStatsDao;
+    private final LogicalFlowStatsStoreDao logicalFlowStatsStoreDao;
+    private final boolean storeEnabled;
+    private final long maxAgeMinutes;
+
+    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+
+    private final Set<Long> pendingAppIds = ConcurrentHashMap.newKeySet();
+    private final Set<EntityReference> pendingRefs = ConcurrentHashMap.newKeySet();
+
+
+    @Autowired
+    public LogicalFlowStatsService(DBExecutorPoolInterface dbExecutorPool,
+                                   LogicalFlowStatsDao logicalFlowStatsDao,
+                                   LogicalFlowStatsStoreDao logicalFlowStatsStoreDao,
+                                   @Value("${waltz.logical_flow.stats.store.enabled:true}") boolean storeEnabled,
+                                   @Value("${waltz.logical_flow.stats.max_age_minutes:1440}") long maxAgeMinutes) {
+        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
+        checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
+        checkNotNull(logicalFlowStatsStoreDao, "logicalFlowStatsStoreDao cannot be null");
+
+        this.dbExecutorPool = dbExecutorPool;
+        this.logicalFlowStatsDao = logicalFlowStatsDao;
+        this.logicalFlowStatsStoreDao = logicalFlowStatsStoreDao;
+        this.storeEnabled = storeEnabled;
+        this.maxAgeMinutes = maxAgeMinutes;
+    }
+
+
+    /**
+     * Calculate Stats by selector, using the pre-aggregated store where possible
+     * @param options determines which flows are in-scope for this calculation
+     * @return statistics about the in-scope flows
+     */
+    public LogicalFlowStatistics calculateStats(IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+
+        if (! isStored(options)) {
+            return calculateLive(options);
+        }
+
+        EntityReference ref = mkRef(
+                options.entityReference().kind(),
+                options.entityReference().id());
+
+        return logicalFlowStatsStoreDao
+                .findStats(ref, nowUtc().minusMinutes(maxAgeMinutes))
+                .orElseGet(() -> recalculate(ref));
+    }
+
+
+    /**
+     * Calculates and stores the statistics for a single org unit or app group.
+     *
+     * @param ref  org unit or app group
+     * @return the newly calculated statistics
+     */
+    public LogicalFlowStatistics recalculate(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+
+        LocalDateTime calculatedAt = nowUtc();
+        LogicalFlowStatistics stats = calculateLive(mkOpts(ref));
+        logicalFlowStatsStoreDao.saveStats(ref, stats, calculatedAt);
+        return stats;
+    }
+
+
+    /**
+     * Recalculates the stored statistics for every org unit and app group,
+     * removing entries for entities which no longer exist.
+     *
+     * @return number of entities recalculated
+     */
+    public int recalculateAll() {
+        if (! storeEnabled) {
+            return 0;
+        }
+
+        LocalDateTime startedAt = nowUtc();
+        Set<EntityReference> refs = logicalFlowStatsStoreDao.findAllOrgUnitsAndAppGroups();
+
+        int count = FunctionUtilities.time(
+                "LFSS.recalculateAll",
+                () -> recalculateAll(refs));
+
+        int removed = logicalFlowStatsStoreDao.deleteCalculatedBefore(startedAt);
+        LOG.info("Recalculated logical flow stats for {} entities, removed {} stale entries", count, removed);
+        return count;
+    }
+
+
+    /**
+     * Marks the stats of any org unit or app group containing the given
+     * applications as needing recalculation.  Non application refs are ignored.
+     * The stats are recalculated by {@link #refreshInvalidated()}.
+     *
+     * @param refs  entities whose flows have changed
+     */
+    public void invalidateForEntities(Collection<EntityReference> refs) {
+        checkNotNull(refs, "refs cannot be null");
+
+        if (! storeEnabled) {
+            return;
+        }
+
+        refs.stream()
+                .filter(ref -> ref.kind() == EntityKind.APPLICATION)
+                .forEach(ref -> pendingAppIds.add(ref.id()));
+    }
+
+
+    /**
+     * Marks the stats of the given org unit or app group as needing recalculation,
+     * typically called when the membership of an app group changes.
+     */
+    public void invalidate(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+
+        if (storeEnabled && isStoredKind(ref.kind())) {
+            pendingRefs.add(mkRef(ref.kind(), ref.id()));
+        }
+    }
+
+
+    @Scheduled(fixedDelayString = "${waltz.logical_flow.stats.refresh_ms:30000}")
+    public void refreshInvalidated() {
+        Set<Long> appIds = drain(pendingAppIds);
+        Set<EntityReference> refs = drain(pendingRefs);
+
+        try {
+            if (! appIds.isEmpty()) {
+                refs.addAll(logicalFlowStatsStoreDao.findOrgUnitsAndAppGroupsForApplications(appIds));
+            }
+
+            if (! refs.isEmpty()) {
+                int count = recalculateAll(refs);
+                LOG.debug("Refreshed logical flow stats for {} invalidated entities", count);
+            }
+        } catch (RuntimeException e) {
+            // put the work back so the next refresh retries it rather than leaving the stats stale
+            pendingAppIds.addAll(appIds);
+            pendingRefs.addAll(refs);
+            throw e;
+        }
+    }
+
+
+    // -- HELPERS ---
+
+    private int recalculateAll(Set<EntityReference> refs) {
+        int count = 0;
+        for (EntityReference ref : refs) {
+            try {
+                recalculate(ref);
+                count++;
+            } catch (Exception e) {
+                LOG.warn("Could not recalculate logical flow stats for: {}, removing stored entry", ref, e);
+                logicalFlowStatsStoreDao.deleteStats(ref);
+            }
+        }
+        return count;
+    }
+
+
+    private LogicalFlowStatistics calculateLive(IdSelectionOptions options) {
+        Select<Record1<Long>> appIdSelector = appIdSelectorFactory.apply(options);
+
+        Future<List<TallyPack<String>>> dataTypeCounts = dbExecutorPool.submit(() ->
+                FunctionUtilities.time("DFS.dataTypes",
+                    () -> logicalFlowStatsDao.tallyDataTypesByAppIdSelector(appIdSelector)));
+
+        Future<LogicalFlowMeasures> appCounts = dbExecutorPool.submit(() ->
+                FunctionUtilities.time("DFS.appCounts",
+                    () -> logicalFlowStatsDao.countDistinctAppInvolvementByAppIdSelector(appIdSelector)));
+
+        Future<LogicalFlowMeasures> flowCounts = dbExecutorPool.submit(() ->
+                FunctionUtilities.time("DFS.flowCounts",
+                    () -> logicalFlowStatsDao.countDistinctFlowInvolvementByAppIdSelector(appIdSelector)));
+
+        Supplier<ImmutableLogicalFlowStatistics> statSupplier = Unchecked.supplier(() -> ImmutableLogicalFlowStatistics.builder()
+                .dataTypeCounts(dataTypeCounts.get())
+                .appCounts(appCounts.get())
+                .flowCounts(flowCounts.get())
+                .build());
+
+        return statSupplier.get();
+    }
+
+
+    /**
+     * Only the default selection for an org unit or app group is stored, any
+     * other scope, lifecycle or filter falls back to the live calculation.
+     */
+    private boolean isStored(IdSelectionOptions options) {
+        EntityReference ref = options.entityReference();
+
+        if (! storeEnabled || ! isStoredKind(ref.kind())) {
+            return false;
+        }
+
+        EntityReference plainRef = mkRef(ref.kind(), ref.id());
+        IdSelectionOptions plainOptions = ImmutableIdSelectionOptions
+                .copyOf(options)
+                .withEntityReference(plainRef);
+
+        return plainOptions.equals(mkOpts(plainRef));
+    }
+
+
+    private static boolean isStoredKind(EntityKind kind) {
+        return kind == EntityKind.ORG_UNIT || kind == EntityKind.APP_GROUP;
+    }
+
+
+    private static <T> Set<T> drain(Set<T> pending) {
+        Set<T> drained = new HashSet<>();
+        Iterator<T> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+}
@@ -19,9 +19,11 @@
 package org.finos.waltz.service.measurable;
 
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.EntityReferenceNameResolver;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.measurable.MeasurableDao;
 import org.finos.waltz.data.measurable.MeasurableIdSelectorFactory;
 import org.finos.waltz.data.measurable.search.MeasurableSearchDao;
@@ -47,26 +49,33 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 public class MeasurableService {
 
     private final MeasurableDao measurableDao;
-    private final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
+    private final MeasurableIdSelectorFactory measurableIdSelectorFactory;
     private final MeasurableSearchDao measurableSearchDao;
     private final ChangeLogService changeLogService;
     private final EntityReferenceNameResolver nameResolver;
+    private final EntitySearchIndexService entitySearchIndexService;
 
 
     @Autowired
     public MeasurableService(MeasurableDao measurableDao,
                              MeasurableSearchDao measurableSearchDao,
                              EntityReferenceNameResolver nameResolver,
-                             ChangeLogService changeLogService) {
+                             ChangeLogService changeLogService,
+                             EntitySearchIndexService entitySearchIndexService,
+                             EntityHierarchyIndexes entityHierarchyIndexes) {
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(measurableSearchDao, "measurableSearchDao cannot be null");
         checkNotNull(nameResolver, "nameResolver cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
 
         this.measurableDao = measurableDao;
         this.measurableSearchDao = measurableSearchDao;
         this.nameResolver = nameResolver;
         this.changeLogService = changeLogService;
+        this.entitySearchIndexService = entitySearchIndexService;
+        this.measurableIdSelectorFactory = new MeasurableIdSelectorFactory(entityHierarchyIndexes);
     }
 
 
@@ -131,7 +140,9 @@ public class MeasurableService {
 
     public boolean updateName(long id, String newValue, String userId) {
         logUpdate(id, "name", newValue, m -> ofNullable(m.name()), userId);
-        return measurableDao.updateName(id, newValue, userId);
+        boolean updated = measurableDao.updateName(id, newValue, userId);
+        entitySearchIndexService.invalidate(EntityKind.MEASURABLE);
+        return updated;
     }
 
 
@@ -143,13 +154,16 @@ public class MeasurableService {
 
     public boolean updateExternalId(long id, String newValue, String userId) {
         logUpdate(id, "externalId", newValue, ExternalIdProvider::externalId, userId);
-        return measurableDao.updateExternalId(id, newValue, userId);
+        boolean updated = measurableDao.updateExternalId(id, newValue, userId);
+        entitySearchIndexService.invalidate(EntityKind.MEASURABLE);
+        return updated;
     }
 
 
     public boolean create(Measurable measurable, String userId) {
         Long measurableId = measurableDao.create(measurable);
         writeAuditMessage(measurableId, userId, String.format("created new measurable %s", measurable.name()));
+        entitySearchIndexService.invalidate(EntityKind.MEASURABLE);
         return measurableId > 1;
     }
 
@@ -157,8 +171,10 @@ public class MeasurableService {
     public int deleteByIdSelector(IdSelectionOptions selectionOptions) {
         Select<Record1<Long>> selector = measurableIdSelectorFactory
                 .apply(selectionOptions);
-        return measurableDao
+        int removed = measurableDao
                 .deleteByIdSelector(selector);
+        entitySearchIndexService.invalidate(EntityKind.MEASURABLE);
+        return removed;
     }
 
 
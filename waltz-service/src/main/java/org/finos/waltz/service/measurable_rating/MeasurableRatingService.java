@@ -23,6 +23,7 @@ import org.finos.waltz.service.rating_scheme.RatingSchemeService;
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.measurable.MeasurableDao;
 import org.finos.waltz.data.measurable.MeasurableIdSelectorFactory;
 import org.finos.waltz.data.measurable_category.MeasurableCategoryDao;
@@ -45,6 +46,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.*;
@@ -59,8 +61,8 @@ public class MeasurableRatingService {
     private final RatingSchemeService ratingSchemeService;
     private final EntityReferenceNameResolver entityReferenceNameResolver;
 
-    private final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final MeasurableIdSelectorFactory measurableIdSelectorFactory;
+    private final ApplicationIdSelectorFactory applicationIdSelectorFactory;
 
 
     @Autowired
@@ -69,12 +71,14 @@ public class MeasurableRatingService {
                                    MeasurableCategoryDao measurableCategoryDao,
                                    ChangeLogService changeLogService,
                                    RatingSchemeService ratingSchemeService,
-                                   EntityReferenceNameResolver entityReferenceNameResolver) {
+                                   EntityReferenceNameResolver entityReferenceNameResolver,
+                                   EntityHierarchyIndexes entityHierarchyIndexes) {
         checkNotNull(measurableRatingDao, "measurableRatingDao cannot be null");
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(measurableCategoryDao, "measurableCategoryDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
 
         this.measurableRatingDao = measurableRatingDao;
         this.measurableDao = measurableDao;
@@ -82,6 +86,8 @@ public class MeasurableRatingService {
         this.changeLogService = changeLogService;
         this.ratingSchemeService = ratingSchemeService;
         this.entityReferenceNameResolver = entityReferenceNameResolver;
+        this.measurableIdSelectorFactory = new MeasurableIdSelectorFactory(entityHierarchyIndexes);
+        this.applicationIdSelectorFactory = new ApplicationIdSelectorFactory(entityHierarchyIndexes);
     }
 
     // -- READ
@@ -105,6 +111,17 @@ public class MeasurableRatingService {
         return measurableRatingDao.findByApplicationIdSelector(selector);
     }
 
+
+    /**
+     * Streaming variant of {@link #findByAppIdSelector(IdSelectionOptions)}, the stream
+     * holds a database cursor and must be closed by the caller.
+     */
+    public Stream<MeasurableRating> streamByAppIdSelector(IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+        Select<Record1<Long>> selector = applicationIdSelectorFactory.apply(options);
+        return measurableRatingDao.streamByApplicationIdSelector(selector);
+    }
+
     // -- WRITE
 
     public Collection<MeasurableRating> save(SaveMeasurableRatingCommand command, boolean ignoreReadOnly) {
@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.orgunit;
 
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
 import org.finos.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
 import org.finos.waltz.data.orgunit.search.OrganisationalUnitSearchDao;
@@ -26,6 +27,7 @@ import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.HierarchyQueryScope;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
 import org.finos.waltz.model.orgunit.OrganisationalUnit;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,17 +48,24 @@ public class OrganisationalUnitService {
 
     private final OrganisationalUnitDao dao;
     private final OrganisationalUnitSearchDao organisationalUnitSearchDao;
-    private final OrganisationalUnitIdSelectorFactory ouSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+    private final OrganisationalUnitIdSelectorFactory ouSelectorFactory;
+    private final EntitySearchIndexService entitySearchIndexService;
 
 
     @Autowired
     public OrganisationalUnitService(OrganisationalUnitDao dao,
-                                     OrganisationalUnitSearchDao organisationalUnitSearchDao) {
+                                     OrganisationalUnitSearchDao organisationalUnitSearchDao,
+                                     EntityHierarchyIndexes entityHierarchyIndexes,
+                                     EntitySearchIndexService entitySearchIndexService) {
         checkNotNull(dao, "dao must not be null");
         checkNotNull(organisationalUnitSearchDao, "organisationalUnitSearchDao must not be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes must not be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService must not be null");
 
         this.dao = dao;
         this.organisationalUnitSearchDao = organisationalUnitSearchDao;
+        this.ouSelectorFactory = new OrganisationalUnitIdSelectorFactory(entityHierarchyIndexes);
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
@@ -76,7 +85,9 @@ public class OrganisationalUnitService {
 
 
     public Integer updateDescription(long id, String description) {
-        return dao.updateDescription(id, description);
+        Integer updated = dao.updateDescription(id, description);
+        entitySearchIndexService.invalidate(EntityKind.ORG_UNIT);
+        return updated;
     }
 
 
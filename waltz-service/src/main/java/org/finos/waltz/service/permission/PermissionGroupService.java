@@ -1,7 +1,9 @@
 package org.finos.waltz.service.permission;
 
 import org.finos.waltz.data.permission.PermissionGroupDao;
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.attestation.UserAttestationPermission;
 import org.finos.waltz.model.permission_group.CheckPermissionCommand;
 import org.finos.waltz.model.permission_group.Permission;
@@ -14,12 +16,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.SetUtilities.filter;
+import static org.finos.waltz.model.EntityReferenceUtilities.sameRef;
 
 @Service
 public class PermissionGroupService {
@@ -53,6 +61,76 @@ public class PermissionGroupService {
     }
 
 
+    /**
+     * Bulk variant of {@link #findPermissionsForParentReference(EntityReference, String)}, the
+     * number of queries issued does not depend on the number of refs.
+     *
+     * @param parentEntityRefs  entities to check, the result is keyed by these references
+     * @param username  user whose permissions are required
+     * @return  permissions for each ref, all empty if the user is not a known person
+     */
+    public Map<EntityReference, Set<Permission>> findPermissionsForParentReferences(Collection<EntityReference> parentEntityRefs,
+                                                                                    String username) {
+        checkNotNull(parentEntityRefs, "parentEntityRefs cannot be null");
+
+        Person person = personService.getPersonByUserId(username);
+
+        if (isNull(person)) {
+            return parentEntityRefs
+                    .stream()
+                    .distinct()
+                    .collect(toMap(ref -> ref, ref -> Collections.emptySet()));
+        }
+
+        return permissionGroupDao.findPermissionsForParentEntityReferences(parentEntityRefs);
+    }
+
+
+    /**
+     * Determines which operations the user may perform on subjects of the given kind for
+     * each of the parent refs, based on permission groups and the user's involvements.
+     * Permissions and involvements for all refs are fetched in bulk, so callers checking
+     * many entities (e.g. the endpoints of a set of flows) avoid a query per entity.
+     *
+     * @param parentEntityRefs  entities to check, the result is keyed by these references
+     * @param subjectKind  kind of thing being operated upon (e.g. LOGICAL_DATA_FLOW)
+     * @param qualifierRef  if present, only permissions with this qualifier are considered
+     * @param username  user whose permissions are required
+     * @return  permitted operations for each ref (before any role based amendments)
+     */
+    public Map<EntityReference, Set<Operation>> findPermittedOperationsForParentReferences(Collection<EntityReference> parentEntityRefs,
+                                                                                           EntityKind subjectKind,
+                                                                                           Optional<EntityReference> qualifierRef,
+                                                                                           String username) {
+        checkNotNull(parentEntityRefs, "parentEntityRefs cannot be null");
+        checkNotNull(subjectKind, "subjectKind cannot be null");
+        checkNotNull(qualifierRef, "qualifierRef cannot be null");
+
+        Map<EntityReference, Set<Permission>> permissionsByRef = findPermissionsForParentReferences(parentEntityRefs, username);
+        Map<EntityReference, Set<Long>> invsByRef = involvementService.findExistingInvolvementKindIdsForUser(parentEntityRefs, username);
+
+        return permissionsByRef
+                .entrySet()
+                .stream()
+                .collect(toMap(
+                        Map.Entry::getKey,
+                        e -> {
+                            EntityReference ref = e.getKey();
+                            Set<Long> invsForUser = invsByRef.getOrDefault(ref, Collections.emptySet());
+                            return e.getValue()
+                                    .stream()
+                                    .filter(p -> p.subjectKind().equals(subjectKind)
+                                            && p.parentKind().equals(ref.kind())
+                                            && qualifierRef
+                                                .map(q -> sameRef(p.qualifierReference(), q))
+                                                .orElse(true))
+                                    .filter(p -> p.requiredInvolvementsResult().isAllowed(invsForUser))
+                                    .map(Permission::operation)
+                                    .collect(toSet());
+                        }));
+    }
+
+
     public boolean hasPermission(CheckPermissionCommand permissionCommand) {
 
         RequiredInvolvementsResult required = permissionGroupDao.getRequiredInvolvements(permissionCommand);
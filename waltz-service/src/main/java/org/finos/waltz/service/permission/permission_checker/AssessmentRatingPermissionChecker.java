@@ -25,7 +25,6 @@ import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.assessment_rating.AssessmentDefinitionRatingOperations;
 import org.finos.waltz.model.assessment_rating.AssessmentRatingOperations;
 import org.finos.waltz.model.assessment_rating.ImmutableAssessmentDefinitionRatingOperations;
-import org.finos.waltz.model.permission_group.Permission;
 import org.finos.waltz.service.involvement.InvolvementService;
 import org.finos.waltz.service.permission.PermissionGroupService;
 import org.finos.waltz.service.user.UserRoleService;
@@ -34,12 +33,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.model.EntityReference.mkRef;
-import static org.finos.waltz.model.EntityReferenceUtilities.sameRef;
 
 
 @Service
@@ -74,17 +74,15 @@ public class AssessmentRatingPermissionChecker implements PermissionChecker {
                                                                      long assessmentDefinitionId,
                                                                      String username) {
 
-        Set<Long> invsForUser = involvementService.findExistingInvolvementKindIdsForUser(entityReference, username);
+        checkNotNull(entityReference, "entityReference cannot be null");
 
         Set<Operation> operationsForEntityAssessment = permissionGroupService
-                .findPermissionsForParentReference(entityReference, username)
-                .stream()
-                .filter(p -> p.subjectKind().equals(EntityKind.ASSESSMENT_RATING)
-                        && p.parentKind().equals(entityReference.kind())
-                        && sameRef(p.qualifierReference(), mkRef(EntityKind.ASSESSMENT_DEFINITION, assessmentDefinitionId)))
-                .filter(p -> p.requiredInvolvementsResult().isAllowed(invsForUser))
-                .map(Permission::operation)
-                .collect(Collectors.toSet());
+                .findPermittedOperationsForParentReferences(
+                        singleton(entityReference),
+                        EntityKind.ASSESSMENT_RATING,
+                        Optional.of(mkRef(EntityKind.ASSESSMENT_DEFINITION, assessmentDefinitionId)),
+                        username)
+                .getOrDefault(entityReference, emptySet());
 
         Set<AssessmentRatingOperations> assessmentRatingOperations = assessmentRatingDao.calculateAmendedRatingOperations(
                 operationsForEntityAssessment,
@@ -25,7 +25,6 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
-import org.finos.waltz.model.permission_group.Permission;
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.service.involvement.InvolvementService;
 import org.finos.waltz.service.permission.PermissionGroupService;
@@ -35,12 +34,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toMap;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
 
 
@@ -103,42 +107,56 @@ public class FlowPermissionChecker implements PermissionChecker {
 
     public Set<Operation> findFlowPermissionsForParentEntity(EntityReference entityReference,
                                                              String username) {
+        checkNotNull(entityReference, "entityReference cannot be null");
+        return findFlowPermissionsForParentEntities(singleton(entityReference), username)
+                .getOrDefault(entityReference, emptySet());
+    }
 
-        Set<Long> invsForUser = involvementService.findExistingInvolvementKindIdsForUser(entityReference, username);
 
-        Set<Operation> operationsForEntityAssessment = permissionGroupService
-                .findPermissionsForParentReference(entityReference, username)
-                .stream()
-                .filter(p -> p.subjectKind().equals(EntityKind.LOGICAL_DATA_FLOW)
-                        && p.parentKind().equals(entityReference.kind()))
-                .filter(p -> p.requiredInvolvementsResult().isAllowed(invsForUser))
-                .map(Permission::operation)
-                .collect(Collectors.toSet());
-
-        return logicalFlowDao.calculateAmendedFlowOperations(
-                operationsForEntityAssessment,
-                username);
+    /**
+     * Bulk variant of {@link #findFlowPermissionsForParentEntity(EntityReference, String)}, the
+     * number of queries issued does not depend on the number of refs.
+     */
+    public Map<EntityReference, Set<Operation>> findFlowPermissionsForParentEntities(Collection<EntityReference> entityReferences,
+                                                                                    String username) {
+        Map<EntityReference, Set<Operation>> operationsByRef = permissionGroupService
+                .findPermittedOperationsForParentReferences(
+                        entityReferences,
+                        EntityKind.LOGICAL_DATA_FLOW,
+                        Optional.empty(),
+                        username);
+
+        // role based amendments do not depend on the entity, so are calculated once and added to each result
+        Set<Operation> roleBasedOperations = logicalFlowDao.calculateAmendedFlowOperations(emptySet(), username);
+
+        return applyRoleBasedOperations(operationsByRef, roleBasedOperations);
     }
 
 
     public Set<Operation> findSpecPermissionsForParentEntity(EntityReference entityReference,
                                                              String username) {
+        checkNotNull(entityReference, "entityReference cannot be null");
+        return findSpecPermissionsForParentEntities(singleton(entityReference), username)
+                .getOrDefault(entityReference, emptySet());
+    }
 
-        Set<Long> invsForUser = involvementService.findExistingInvolvementKindIdsForUser(entityReference, username);
 
-        Set<Permission> perms = permissionGroupService
-                .findPermissionsForParentReference(entityReference, username);
+    /**
+     * Bulk variant of {@link #findSpecPermissionsForParentEntity(EntityReference, String)}, the
+     * number of queries issued does not depend on the number of refs.
+     */
+    public Map<EntityReference, Set<Operation>> findSpecPermissionsForParentEntities(Collection<EntityReference> entityReferences,
+                                                                                    String username) {
+        Map<EntityReference, Set<Operation>> operationsByRef = permissionGroupService
+                .findPermittedOperationsForParentReferences(
+                        entityReferences,
+                        EntityKind.PHYSICAL_SPECIFICATION,
+                        Optional.empty(),
+                        username);
 
-        Set<Operation> operationsForEntityAssessment = perms.stream()
-                .filter(p -> p.subjectKind().equals(EntityKind.PHYSICAL_SPECIFICATION)
-                        && p.parentKind().equals(entityReference.kind()))
-                .filter(p -> p.requiredInvolvementsResult().isAllowed(invsForUser))
-                .map(Permission::operation)
-                .collect(Collectors.toSet());
+        Set<Operation> roleBasedOperations = physicalSpecificationDao.calculateAmendedSpecOperations(emptySet(), username);
 
-        return physicalSpecificationDao.calculateAmendedSpecOperations(
-                operationsForEntityAssessment,
-                username);
+        return applyRoleBasedOperations(operationsByRef, roleBasedOperations);
     }
 
 
@@ -160,9 +178,24 @@ public class FlowPermissionChecker implements PermissionChecker {
     public Set<Operation> findPermissionsForSourceAndTarget(EntityReference source,
                                                             EntityReference target,
                                                             String username) {
-        Set<Operation> sourcePermissions = findFlowPermissionsForParentEntity(source, username);
-        Set<Operation> targetPermissions = findFlowPermissionsForParentEntity(target, username);
-        return union(sourcePermissions, targetPermissions);
+        Map<EntityReference, Set<Operation>> permissionsByRef = findFlowPermissionsForParentEntities(
+                asSet(source, target),
+                username);
+
+        return union(
+                permissionsByRef.getOrDefault(source, emptySet()),
+                permissionsByRef.getOrDefault(target, emptySet()));
+    }
+
+
+    private static Map<EntityReference, Set<Operation>> applyRoleBasedOperations(Map<EntityReference, Set<Operation>> operationsByRef,
+                                                                                Set<Operation> roleBasedOperations) {
+        return operationsByRef
+                .entrySet()
+                .stream()
+                .collect(toMap(
+                        Map.Entry::getKey,
+                        e -> union(e.getValue(), roleBasedOperations)));
     }
 
 }
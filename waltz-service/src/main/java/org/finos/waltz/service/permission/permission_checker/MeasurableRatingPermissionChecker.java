@@ -5,11 +5,9 @@ import org.finos.waltz.data.measurable_rating_planned_decommission.MeasurableRat
 import org.finos.waltz.data.measurable_rating_replacement.MeasurableRatingReplacementDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
-import org.finos.waltz.model.EntityReferenceUtilities;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.measurable_rating_planned_decommission.MeasurableRatingPlannedDecommission;
-import org.finos.waltz.model.permission_group.Permission;
 import org.finos.waltz.service.involvement.InvolvementService;
 import org.finos.waltz.service.measurable.MeasurableService;
 import org.finos.waltz.service.measurable_rating_planned_decommission.MeasurableRatingPlannedDecommissionService;
@@ -17,9 +15,11 @@ import org.finos.waltz.service.permission.PermissionGroupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.model.EntityReference.mkRef;
 
@@ -62,18 +62,13 @@ public class MeasurableRatingPermissionChecker implements PermissionChecker {
                                                                 long measurableId,
                                                                 String username) {
 
-        Set<Long> invsForUser = involvementService.findExistingInvolvementKindIdsForUser(entityReference, username);
         Measurable measurable = measurableService.getById(measurableId);
 
-        Set<Operation> operationsForEntityAssessment = permissionGroupService
-                .findPermissionsForParentReference(entityReference, username)
-                .stream()
-                .filter(p -> p.subjectKind().equals(EntityKind.MEASURABLE_RATING_PLANNED_DECOMMISSION)
-                        && p.parentKind().equals(entityReference.kind())
-                        && EntityReferenceUtilities.sameRef(p.qualifierReference(), mkRef(EntityKind.MEASURABLE_CATEGORY, measurable.categoryId())))
-                .filter(p -> p.requiredInvolvementsResult().isAllowed(invsForUser))
-                .map(Permission::operation)
-                .collect(Collectors.toSet());
+        Set<Operation> operationsForEntityAssessment = findPermittedOperations(
+                entityReference,
+                EntityKind.MEASURABLE_RATING_PLANNED_DECOMMISSION,
+                measurable.categoryId(),
+                username);
 
         return measurableRatingPlannedDecommissionDao.calculateAmendedDecommOperations(
                 operationsForEntityAssessment,
@@ -86,18 +81,13 @@ public class MeasurableRatingPermissionChecker implements PermissionChecker {
                                                           long measurableId,
                                                           String username) {
 
-        Set<Long> invsForUser = involvementService.findExistingInvolvementKindIdsForUser(entityReference, username);
         Measurable measurable = measurableService.getById(measurableId);
 
-        Set<Operation> operationsForEntityAssessment = permissionGroupService
-                .findPermissionsForParentReference(entityReference, username)
-                .stream()
-                .filter(p -> p.subjectKind().equals(EntityKind.MEASURABLE_RATING)
-                        && p.parentKind().equals(entityReference.kind())
-                        && EntityReferenceUtilities.sameRef(p.qualifierReference(), mkRef(EntityKind.MEASURABLE_CATEGORY, measurable.categoryId())))
-                .filter(p -> p.requiredInvolvementsResult().isAllowed(invsForUser))
-                .map(Permission::operation)
-                .collect(Collectors.toSet());
+        Set<Operation> operationsForEntityAssessment = findPermittedOperations(
+                entityReference,
+                EntityKind.MEASURABLE_RATING,
+                measurable.categoryId(),
+                username);
 
         return measurableRatingDao.calculateAmendedRatingOperations(
                 operationsForEntityAssessment,
@@ -112,18 +102,13 @@ public class MeasurableRatingPermissionChecker implements PermissionChecker {
 
         MeasurableRatingPlannedDecommission decomm = measurableRatingPlannedDecommissionService.getById(decommId);
 
-        Set<Long> invsForUser = involvementService.findExistingInvolvementKindIdsForUser(decomm.entityReference(), username);
         Measurable measurable = measurableService.getById(decomm.measurableId());
 
-        Set<Operation> operationsForEntityAssessment = permissionGroupService
-                .findPermissionsForParentReference(decomm.entityReference(), username)
-                .stream()
-                .filter(p -> p.subjectKind().equals(EntityKind.MEASURABLE_RATING_REPLACEMENT)
-                        && p.parentKind().equals(decomm.entityReference().kind())
-                        && EntityReferenceUtilities.sameRef(p.qualifierReference(), mkRef(EntityKind.MEASURABLE_CATEGORY, measurable.categoryId())))
-                .filter(p -> p.requiredInvolvementsResult().isAllowed(invsForUser))
-                .map(Permission::operation)
-                .collect(Collectors.toSet());
+        Set<Operation> operationsForEntityAssessment = findPermittedOperations(
+                decomm.entityReference(),
+                EntityKind.MEASURABLE_RATING_REPLACEMENT,
+                measurable.categoryId(),
+                username);
 
         return measurableRatingReplacementDao.calculateAmendedReplacementOperations(
                 operationsForEntityAssessment,
@@ -131,4 +116,20 @@ public class MeasurableRatingPermissionChecker implements PermissionChecker {
                 username);
     }
 
+
+
+    private Set<Operation> findPermittedOperations(EntityReference entityReference,
+                                                   EntityKind subjectKind,
+                                                   long measurableCategoryId,
+                                                   String username) {
+        checkNotNull(entityReference, "entityReference cannot be null");
+        return permissionGroupService
+                .findPermittedOperationsForParentReferences(
+                        singleton(entityReference),
+                        subjectKind,
+                        Optional.of(mkRef(EntityKind.MEASURABLE_CATEGORY, measurableCategoryId)),
+                        username)
+                .getOrDefault(entityReference, emptySet());
+    }
+
 }
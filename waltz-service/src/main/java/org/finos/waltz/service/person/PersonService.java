@@ -26,6 +26,7 @@ import org.finos.waltz.model.entity_search.EntitySearchOptions;
 import org.finos.waltz.model.person.ImmutablePerson;
 import org.finos.waltz.model.person.Person;
 import org.finos.waltz.model.person.PersonKind;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -45,15 +46,20 @@ public class PersonService {
 
     private final PersonDao personDao;
     private final PersonSearchDao personSearchDao;
+    private final EntitySearchIndexService entitySearchIndexService;
 
 
     @Autowired
-    public PersonService(PersonDao personDao, PersonSearchDao personSearchDao) {
+    public PersonService(PersonDao personDao,
+                         PersonSearchDao personSearchDao,
+                         EntitySearchIndexService entitySearchIndexService) {
         checkNotNull(personDao, "personDao must not be null");
         checkNotNull(personSearchDao, "personSearchDao must not be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService must not be null");
 
         this.personDao = personDao;
         this.personSearchDao = personSearchDao;
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
@@ -108,7 +114,9 @@ public class PersonService {
 
 
     public int[] bulkSave(List<ImmutablePerson> people) {
-        return personDao.bulkSave(people);
+        int[] saved = personDao.bulkSave(people);
+        entitySearchIndexService.invalidate(EntityKind.PERSON);
+        return saved;
     }
 
 
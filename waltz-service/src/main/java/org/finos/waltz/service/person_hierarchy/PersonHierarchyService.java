@@ -24,6 +24,7 @@ import org.finos.waltz.common.hierarchy.FlatNode;
 import org.finos.waltz.common.hierarchy.Forest;
 import org.finos.waltz.common.hierarchy.HierarchyUtilities;
 import org.finos.waltz.common.hierarchy.Node;
+import org.finos.waltz.data.involvement.PersonApplicationClosureDao;
 import org.finos.waltz.data.person.PersonDao;
 import org.finos.waltz.model.person.Person;
 import org.jooq.DSLContext;
@@ -39,6 +40,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
 import static java.util.stream.Collectors.toList;
 
@@ -48,12 +50,17 @@ public class PersonHierarchyService {
     private static final Logger LOG = LoggerFactory.getLogger(PersonHierarchyService.class);
 
     private final PersonDao personDao;
+    private final PersonApplicationClosureDao personApplicationClosureDao;
     private final DSLContext dsl;
 
 
     @Autowired
-    public PersonHierarchyService(PersonDao personDao, DSLContext dsl) {
+    public PersonHierarchyService(PersonDao personDao,
+                                  PersonApplicationClosureDao personApplicationClosureDao,
+                                  DSLContext dsl) {
+        checkNotNull(personApplicationClosureDao, "personApplicationClosureDao cannot be null");
         this.personDao = personDao;
+        this.personApplicationClosureDao = personApplicationClosureDao;
         this.dsl = dsl;
     }
 
@@ -66,11 +73,18 @@ public class PersonHierarchyService {
 
         List<PersonHierarchyRecord> records = toHierarchyRecords(forest);
 
-        return dsl.transactionResult(configuration -> {
+        int[] rc = dsl.transactionResult(configuration -> {
             DSLContext txDsl = DSL.using(configuration);
             txDsl.deleteFrom(PERSON_HIERARCHY).execute();
             return txDsl.batchStore(records).execute();
         });
+
+        // reporting lines have changed so the person to application closure must follow
+        LOG.warn("Building person application closure");
+        int closureCount = personApplicationClosureDao.rebuild();
+        LOG.info("Person application closure contains {} entries", closureCount);
+
+        return rc;
     }
 
 
@@ -0,0 +1,162 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.physical_flow;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.physical_flow.PhysicalFlow;
+import org.finos.waltz.model.physical_flow.PhysicalFlowParsed;
+import org.finos.waltz.model.physical_specification.DataFormatKindValue;
+import org.finos.waltz.model.physical_specification.PhysicalSpecification;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
+import org.jooq.lambda.tuple.Tuple6;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Lookups staged for a physical flow upload, allowing every row to be
+ * resolved in memory rather than with queries per row.
+ *
+ * Logical flows are keyed by source and target, specifications by owner,
+ * name and format and physical flows by logical flow, specification and
+ * their attributes (basis offset, frequency, transport and criticality).
+ */
+class PhysicalFlowUploadLookups {
+
+    private final Map<Tuple2<EntityReference, EntityReference>, Long> logicalFlowIds = new HashMap<>();
+    private final Map<Tuple3<EntityReference, String, String>, Long> specificationIds = new HashMap<>();
+    private final Set<Tuple2<Long, Long>> specificationDataTypes = new HashSet<>();
+    private final Map<Tuple6<Long, Long, Integer, String, String, String>, PhysicalFlow> physicalFlows = new HashMap<>();
+
+
+    void addLogicalFlows(Collection<LogicalFlow> flows) {
+        flows.forEach(f -> logicalFlowIds.put(
+                toLogicalFlowKey(f.source(), f.target()),
+                f.id().get()));
+    }
+
+
+    void addSpecifications(Collection<PhysicalSpecification> specifications) {
+        specifications.forEach(s -> specificationIds.put(
+                toSpecificationKey(s.owningEntity(), s.name(), s.format()),
+                s.id().get()));
+    }
+
+
+    void addSpecificationDataTypes(Collection<DataTypeDecorator> decorators) {
+        decorators.forEach(d -> specificationDataTypes.add(tuple(d.entityReference().id(), d.dataTypeId())));
+    }
+
+
+    void addPhysicalFlows(Collection<PhysicalFlow> flows) {
+        flows.forEach(f -> physicalFlows.put(toPhysicalFlowKey(f), f));
+    }
+
+
+    Set<Long> specificationIds() {
+        return new HashSet<>(specificationIds.values());
+    }
+
+
+    Optional<Long> findLogicalFlowId(PhysicalFlowParsed flow) {
+        return Optional.ofNullable(logicalFlowIds.get(toLogicalFlowKey(flow.source(), flow.target())));
+    }
+
+
+    Optional<Long> findSpecificationId(PhysicalFlowParsed flow) {
+        return Optional.ofNullable(specificationIds.get(toSpecificationKey(flow.owner(), flow.name(), flow.format())));
+    }
+
+
+    /**
+     * @return the physical flow matching the logical flow, specification and attributes of the row
+     */
+    Optional<PhysicalFlow> findPhysicalFlow(PhysicalFlowParsed flow) {
+        return findLogicalFlowId(flow)
+                .flatMap(logicalFlowId -> findSpecificationId(flow)
+                        .map(specificationId -> physicalFlows.get(tuple(
+                                logicalFlowId,
+                                specificationId,
+                                flow.basisOffset(),
+                                flow.frequency().value(),
+                                flow.transport().value(),
+                                flow.criticality().value()))));
+    }
+
+
+    /**
+     * As {@link #findPhysicalFlow(PhysicalFlowParsed)} but the specification
+     * must also be associated with the data type of the row.  This mirrors
+     * <code>PhysicalFlowDao.getByParsedFlow</code>.
+     */
+    Optional<PhysicalFlow> findExistingPhysicalFlow(PhysicalFlowParsed flow) {
+        boolean specHasDataType = findSpecificationId(flow)
+                .map(specificationId -> specificationDataTypes.contains(tuple(specificationId, flow.dataType().id())))
+                .orElse(false);
+
+        return specHasDataType
+                ? findPhysicalFlow(flow)
+                : Optional.empty();
+    }
+
+
+    static Tuple3<EntityReference, String, String> toSpecificationKey(EntityReference owner,
+                                                                      String name,
+                                                                      DataFormatKindValue format) {
+        return tuple(normalise(owner), name, format.value());
+    }
+
+
+    static Tuple6<Long, Long, Integer, String, String, String> toPhysicalFlowKey(PhysicalFlow flow) {
+        return tuple(
+                flow.logicalFlowId(),
+                flow.specificationId(),
+                flow.basisOffset(),
+                flow.frequency().value(),
+                flow.transport().value(),
+                flow.criticality().value());
+    }
+
+
+    private static Tuple2<EntityReference, EntityReference> toLogicalFlowKey(EntityReference source,
+                                                                             EntityReference target) {
+        return tuple(normalise(source), normalise(target));
+    }
+
+
+    /**
+     * References from different queries may differ in their auxiliary details
+     * (e.g. lifecycle status), only kind and id are used for matching.
+     */
+    private static EntityReference normalise(EntityReference ref) {
+        return mkRef(ref.kind(), ref.id());
+    }
+
+}
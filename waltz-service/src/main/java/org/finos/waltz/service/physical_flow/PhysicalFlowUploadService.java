@@ -20,10 +20,12 @@ package org.finos.waltz.service.physical_flow;
 
 import org.finos.waltz.common.Aliases;
 import org.finos.waltz.common.MapUtilities;
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.actor.ActorDao;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.data_type.DataTypeDao;
+import org.finos.waltz.data.datatype_decorator.PhysicalSpecDecoratorDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.physical_flow.PhysicalFlowDao;
 import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
@@ -34,7 +36,6 @@ import org.finos.waltz.model.actor.Actor;
 import org.finos.waltz.model.application.Application;
 import org.finos.waltz.model.command.CommandOutcome;
 import org.finos.waltz.model.datatype.DataType;
-import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.enum_value.EnumValueKind;
 import org.finos.waltz.model.external_identifier.ExternalIdValue;
 import org.finos.waltz.model.logical_flow.ImmutableLogicalFlow;
@@ -45,28 +46,49 @@ import org.finos.waltz.model.physical_specification.ImmutablePhysicalSpecificati
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.service.data_type.DataTypeDecoratorService;
 import org.finos.waltz.service.enum_value.EnumValueAliasService;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
+import org.jooq.lambda.tuple.Tuple6;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import static java.util.Collections.emptySet;
 import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.*;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
-import static org.finos.waltz.common.SetUtilities.fromArray;
+import static org.finos.waltz.common.ListUtilities.map;
+import static org.finos.waltz.common.ListUtilities.partition;
+import static org.finos.waltz.common.SetUtilities.minus;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 import static org.finos.waltz.common.StringUtilities.lower;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Service
 public class PhysicalFlowUploadService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(PhysicalFlowUploadService.class);
+
+    /**
+     * Maximum number of values bound into a single lookup query
+     */
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    /**
+     * Logical flows are looked up by (source, target) pairs which need several
+     * bind values each, so fewer are requested per query
+     */
+    private static final int FLOW_LOOKUP_BATCH_SIZE = 250;
+
     private final ActorDao actorDao;
     private final ApplicationDao applicationDao;
     private final DataTypeDao dataTypeDao;
@@ -74,6 +96,7 @@ public class PhysicalFlowUploadService {
     private final DataTypeDecoratorService dataTypeDecoratorService;
     private final PhysicalFlowDao physicalFlowDao;
     private final PhysicalSpecificationDao physicalSpecificationDao;
+    private final PhysicalSpecDecoratorDao physicalSpecDecoratorDao;
     private final EnumValueAliasService enumValueAliasService;
 
     private final Pattern basisOffsetRegex = Pattern.compile("T?(?<offset>[\\+\\-]?\\d+)");
@@ -86,6 +109,7 @@ public class PhysicalFlowUploadService {
                                      DataTypeDecoratorService dataTypeDecoratorService,
                                      PhysicalFlowDao physicalFlowDao,
                                      PhysicalSpecificationDao physicalSpecificationDao,
+                                     PhysicalSpecDecoratorDao physicalSpecDecoratorDao,
                                      EnumValueAliasService enumValueAliasService) {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
@@ -94,6 +118,7 @@ public class PhysicalFlowUploadService {
         checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
         checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
+        checkNotNull(physicalSpecDecoratorDao, "physicalSpecDecoratorDao cannot be null");
         checkNotNull(enumValueAliasService, "enumValueAliasService cannot be null");
         this.actorDao = actorDao;
         this.applicationDao = applicationDao;
@@ -101,6 +126,7 @@ public class PhysicalFlowUploadService {
         this.logicalFlowDao = logicalFlowDao;
         this.physicalFlowDao = physicalFlowDao;
         this.physicalSpecificationDao = physicalSpecificationDao;
+        this.physicalSpecDecoratorDao = physicalSpecDecoratorDao;
         this.enumValueAliasService = enumValueAliasService;
         this.dataTypeDecoratorService = dataTypeDecoratorService;
     }
@@ -118,26 +144,7 @@ public class PhysicalFlowUploadService {
     public List<PhysicalFlowUploadCommandResponse> validate(List<PhysicalFlowUploadCommand> cmds) {
         checkNotNull(cmds, "cmds cannot be empty");
 
-        // load application and actor maps
-        Map<String, Application> applicationsByAssetCode = loadApplicationsByAssetCode();
-        Map<String, Actor> actorsByNameMap = loadActorsByName();
-        Map<String, DataType> dataTypesByNameOrCodeMap = loadDataTypesByNameOrCode();
-        Aliases<TransportKindValue> transportAliases = loadTransportAliases();
-        Aliases<CriticalityValue> criticalityAliases = loadCriticalityAliases();
-        Aliases<FrequencyKindValue> frequencyAliases = loadFrequencyAliases();
-        Aliases<DataFormatKindValue> dataFormatKindAliases = loadDataFormatKindAliases();
-
-        // parse flows and resolve strings into entities or enums
-        List<PhysicalFlowUploadCommandResponse> parsedFlows = cmds.stream()
-                .map(cmd -> validateCommand(actorsByNameMap,
-                        applicationsByAssetCode,
-                        dataTypesByNameOrCodeMap,
-                        transportAliases,
-                        criticalityAliases,
-                        frequencyAliases,
-                        dataFormatKindAliases,
-                        cmd))
-                .collect(toList());
+        List<PhysicalFlowUploadCommandResponse> parsedFlows = parse(cmds);
 
         // enumerate and locate an existing physical flows that exist - iff no parse errors
         if(parsedFlows.stream().anyMatch(f -> f.outcome() == CommandOutcome.FAILURE)) {
@@ -145,71 +152,116 @@ public class PhysicalFlowUploadService {
         }
 
         // no parse errors - check for duplicates
-        List<PhysicalFlowUploadCommandResponse> responses = parsedFlows.stream()
-                .map(f -> Optional.ofNullable(physicalFlowDao.getByParsedFlow(f.parsedFlow()))
+        PhysicalFlowUploadLookups lookups = stageLookups(map(parsedFlows, PhysicalFlowUploadCommandResponse::parsedFlow));
+
+        return parsedFlows.stream()
+                .map(f -> lookups.findExistingPhysicalFlow(f.parsedFlow())
                     .map(m -> (PhysicalFlowUploadCommandResponse) ImmutablePhysicalFlowUploadCommandResponse
                             .copyOf(f)
                             .withEntityReference(m.entityReference()))
                     .orElse(f))
                 .collect(toList());
-
-        return responses;
     }
 
-    
+
+    /**
+     * Creates the physical flows (and, if needed, the logical flows and
+     * specifications) described by the commands.  Rows are resolved against
+     * lookups staged with a handful of set based queries and anything missing
+     * is written using batched inserts.
+     *
+     * @param username  who is performing the upload
+     * @param cmds  rows to upload, these must be free of validation errors
+     * @return a response for each row which did not match an existing flow
+     */
     public List<PhysicalFlowUploadCommandResponse> upload(String username,
                                                           List<PhysicalFlowUploadCommand> cmds) throws Exception {
         checkNotNull(cmds, "cmds cannot be empty");
 
-        // load application and actor maps
-        List<PhysicalFlowUploadCommandResponse> validated = validate(cmds);
+        List<PhysicalFlowUploadCommandResponse> parsedFlows = parse(cmds);
 
-        if(validated.stream().anyMatch(v -> v.outcome() == CommandOutcome.FAILURE)) {
+        if(parsedFlows.stream().anyMatch(v -> v.outcome() == CommandOutcome.FAILURE)) {
             throw new IllegalArgumentException("Cannot upload flows which contain parse errors, please validate");
         }
 
-        List<PhysicalFlowUploadCommandResponse> newFlowCmds = validated.stream()
-                .filter(v -> v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)
+        PhysicalFlowUploadLookups lookups = stageLookups(map(parsedFlows, PhysicalFlowUploadCommandResponse::parsedFlow));
+
+        List<PhysicalFlowUploadCommandResponse> newFlowCmds = parsedFlows.stream()
+                .filter(v -> !lookups.findExistingPhysicalFlow(v.parsedFlow()).isPresent())
                 .collect(toList());
 
-        // create physical flow with ids from the above two
-        List<PhysicalFlowUploadCommandResponse> created = newFlowCmds.stream()
-                .map(v -> {
-                    if (!(v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)) {
-                        return v;
-                    }
+        List<PhysicalFlowParsed> newFlows = map(newFlowCmds, PhysicalFlowUploadCommandResponse::parsedFlow);
 
-                    PhysicalFlowParsed flow = v.parsedFlow();
-                    LogicalFlow logicalFlow = getOrCreateLogicalFlow(flow.source(), flow.target(), flow.dataType(), username);
-                    PhysicalSpecification specification = getOrCreatePhysicalSpec(flow, username);
+        LOG.info("Physical flow upload by {}: {} rows, {} do not match existing flows", username, cmds.size(), newFlows.size());
 
-                    PhysicalFlow newFlow = ImmutablePhysicalFlow.builder()
-                            .logicalFlowId(logicalFlow.id().get())
-                            .specificationId(specification.id().get())
-                            .basisOffset(flow.basisOffset())
-                            .frequency(flow.frequency())
-                            .transport(flow.transport())
-                            .criticality(flow.criticality())
-                            .description(flow.description())
-                            .externalId(Optional.ofNullable(flow.externalId()))
-                            .lastUpdatedBy(username)
-                            .lastUpdatedAt(nowUtc())
-                            .build();
+        int logicalFlowCount = createLogicalFlows(username, lookups, newFlows);
+        LOG.info("Physical flow upload by {}: {} logical flows created or restored", username, logicalFlowCount);
+
+        int logicalFlowDecoratorCount = dataTypeDecoratorService.bulkAddDecorators(
+                username,
+                EntityKind.LOGICAL_DATA_FLOW,
+                groupDataTypeIds(newFlows, lookups::findLogicalFlowId));
+        LOG.info("Physical flow upload by {}: {} data types added to logical flows", username, logicalFlowDecoratorCount);
 
-                    long id = getOrCreatePhysicalFlow(newFlow);
+        int specificationCount = createSpecifications(username, lookups, newFlows);
+        LOG.info("Physical flow upload by {}: {} specifications created", username, specificationCount);
+
+        int specificationDecoratorCount = dataTypeDecoratorService.bulkAddDecorators(
+                username,
+                EntityKind.PHYSICAL_SPECIFICATION,
+                groupDataTypeIds(newFlows, lookups::findSpecificationId));
+        LOG.info("Physical flow upload by {}: {} data types added to specifications", username, specificationDecoratorCount);
+
+        Set<Long> createdFlowIds = createPhysicalFlows(username, lookups, newFlowCmds);
+        LOG.info("Physical flow upload by {}: {} physical flows created", username, createdFlowIds.size());
+
+        return newFlowCmds
+                .stream()
+                .map(v -> {
+                    long id = lookups
+                            .findPhysicalFlow(v.parsedFlow())
+                            .flatMap(PhysicalFlow::id)
+                            .orElseThrow(() -> new IllegalStateException(String.format(
+                                    "Physical flow for row: %s could not be found after upload",
+                                    v.originalCommand())));
 
                     return ImmutablePhysicalFlowUploadCommandResponse.copyOf(v)
-                            .withEntityReference(EntityReference.mkRef(EntityKind.PHYSICAL_FLOW, id));
+                            .withEntityReference(EntityReference.mkRef(EntityKind.PHYSICAL_FLOW, id))
+                            .withMessage(createdFlowIds.contains(id)
+                                    ? "Created physical flow"
+                                    : "Matched existing physical flow");
                 })
                 .collect(toList());
-
-        return created;
     }
 
 
     ////////////////////// PRIVATE //////////////////////
     /////////////////////////////////////////////////////
 
+    private List<PhysicalFlowUploadCommandResponse> parse(List<PhysicalFlowUploadCommand> cmds) {
+        // load application and actor maps
+        Map<String, Application> applicationsByAssetCode = loadApplicationsByAssetCode(cmds);
+        Map<String, Actor> actorsByNameMap = loadActorsByName();
+        Map<String, DataType> dataTypesByNameOrCodeMap = loadDataTypesByNameOrCode();
+        Aliases<TransportKindValue> transportAliases = loadTransportAliases();
+        Aliases<CriticalityValue> criticalityAliases = loadCriticalityAliases();
+        Aliases<FrequencyKindValue> frequencyAliases = loadFrequencyAliases();
+        Aliases<DataFormatKindValue> dataFormatKindAliases = loadDataFormatKindAliases();
+
+        // parse flows and resolve strings into entities or enums
+        return cmds.stream()
+                .map(cmd -> validateCommand(actorsByNameMap,
+                        applicationsByAssetCode,
+                        dataTypesByNameOrCodeMap,
+                        transportAliases,
+                        criticalityAliases,
+                        frequencyAliases,
+                        dataFormatKindAliases,
+                        cmd))
+                .collect(toList());
+    }
+
+
     private PhysicalFlowUploadCommandResponse validateCommand(Map<String, Actor> actorsByName,
                                                               Map<String, Application> applicationsByAssetCode,
                                                               Map<String, DataType> dataTypeMap,
@@ -357,13 +409,26 @@ public class PhysicalFlowUploadService {
     }
 
 
-    private Map<String, Application> loadApplicationsByAssetCode() {
+    private Map<String, Application> loadApplicationsByAssetCode(List<PhysicalFlowUploadCommand> cmds) {
+        // any of the node columns may hold an asset code, actor names are harmless extras
+        Set<String> nodeIdentifiers = cmds
+                .stream()
+                .flatMap(cmd -> Stream.of(cmd.source(), cmd.target(), cmd.owner()))
+                .filter(Objects::nonNull)
+                .map(StringUtilities::lower)
+                .collect(toSet());
+
+        List<Application> applications = partition(nodeIdentifiers, LOOKUP_BATCH_SIZE)
+                .stream()
+                .flatMap(assetCodes -> applicationDao.findByAssetCodes(assetCodes).stream())
+                .collect(toList());
+
         return MapUtilities.indexBy(
                 a -> a.assetCode()
                         .map(ExternalIdValue::value)
                         .map(StringUtilities::lower)
                         .orElse(""),
-                applicationDao.findAll());
+                applications);
     }
 
 
@@ -383,91 +448,179 @@ public class PhysicalFlowUploadService {
     }
 
 
-    private LogicalFlow getOrCreateLogicalFlow(EntityReference source,
-                                               EntityReference target,
-                                               EntityReference dataType,
-                                               String username) {
+    /**
+     * Loads the logical flows, specifications (with their data types) and
+     * physical flows which the given rows may refer to.
+     */
+    private PhysicalFlowUploadLookups stageLookups(Collection<PhysicalFlowParsed> flows) {
+        PhysicalFlowUploadLookups lookups = new PhysicalFlowUploadLookups();
+        loadLogicalFlows(lookups, flows);
+        loadSpecifications(lookups, flows);
+        loadPhysicalFlows(lookups, flows);
+        return lookups;
+    }
 
-        LogicalFlow flow = logicalFlowDao.getBySourceAndTarget(source, target);
 
-        if (flow == null) {
-            LocalDateTime now = nowUtc();
+    private void loadLogicalFlows(PhysicalFlowUploadLookups lookups, Collection<PhysicalFlowParsed> flows) {
+        Set<Tuple2<EntityReference, EntityReference>> sourcesAndTargets = SetUtilities.map(
+                flows,
+                f -> tuple(f.source(), f.target()));
 
-            LogicalFlow flowToAdd = ImmutableLogicalFlow.builder()
-                    .source(source)
-                    .target(target)
-                    .lastUpdatedBy(username)
-                    .lastUpdatedAt(now)
-                    .provenance("waltz")
-                    .created(UserTimestamp.mkForUser(username, now))
-                    .build();
+        partition(sourcesAndTargets, FLOW_LOOKUP_BATCH_SIZE)
+                .forEach(batch -> lookups.addLogicalFlows(logicalFlowDao.findBySourcesAndTargets(batch)));
+    }
 
-            flow = logicalFlowDao.addFlow(flowToAdd);
-        }
 
+    private void loadSpecifications(PhysicalFlowUploadLookups lookups, Collection<PhysicalFlowParsed> flows) {
+        partition(flows, LOOKUP_BATCH_SIZE)
+                .forEach(batch -> lookups.addSpecifications(physicalSpecificationDao.findByParsedFlows(batch)));
 
-        EntityReference logicalFlowEntityRef = EntityReference.mkRef(EntityKind.LOGICAL_DATA_FLOW, flow.id().get());
-        DataTypeDecorator existingDecorator = dataTypeDecoratorService.getByEntityRefAndDataTypeId(
-                logicalFlowEntityRef,
-                dataType.id());
+        partition(lookups.specificationIds(), LOOKUP_BATCH_SIZE)
+                .forEach(batch -> lookups.addSpecificationDataTypes(physicalSpecDecoratorDao.findByEntityIds(batch)));
+    }
 
-        if(existingDecorator == null) {
-            dataTypeDecoratorService
-                    .addDecorators(username, logicalFlowEntityRef, fromArray(dataType.id()));
-        }
-        return flow;
+
+    private void loadPhysicalFlows(PhysicalFlowUploadLookups lookups, Collection<PhysicalFlowParsed> flows) {
+        partition(flows, LOOKUP_BATCH_SIZE)
+                .forEach(batch -> {
+                    Set<Long> logicalFlowIds = collectIds(batch, lookups::findLogicalFlowId);
+                    Set<Long> specificationIds = collectIds(batch, lookups::findSpecificationId);
+
+                    if (!logicalFlowIds.isEmpty() && !specificationIds.isEmpty()) {
+                        lookups.addPhysicalFlows(physicalFlowDao.findByLogicalFlowIdsAndSpecificationIds(
+                                logicalFlowIds,
+                                specificationIds));
+                    }
+                });
     }
 
 
-    private PhysicalSpecification getOrCreatePhysicalSpec(PhysicalFlowParsed flow,
-                                                          String username) {
-        EntityReference owner = flow.owner();
-        DataFormatKindValue format = flow.format();
-        String name = flow.name();
-
-
-        // check database
-        PhysicalSpecification spec = physicalSpecificationDao.getByParsedFlow(flow);
-        if (spec == null) {
-
-            // create
-            LocalDateTime now = nowUtc();
-            PhysicalSpecification specToAdd = ImmutablePhysicalSpecification.builder()
-                    .owningEntity(owner)
-                    .format(format)
-                    .name(name)
-                    .externalId(Optional.ofNullable(flow.specExternalId()).orElse(""))
-                    .description(Optional.ofNullable(flow.specDescription()).orElse(""))
-                    .lastUpdatedBy(username)
-                    .lastUpdatedAt(now)
-                    .provenance("waltz")
-                    .created(UserTimestamp.mkForUser(username, now))
-                    .build();
-
-            Long id = physicalSpecificationDao.create(specToAdd);
-            spec = ImmutablePhysicalSpecification
-                    .copyOf(specToAdd)
-                    .withId(id);
+    private int createLogicalFlows(String username,
+                                   PhysicalFlowUploadLookups lookups,
+                                   List<PhysicalFlowParsed> flows) {
+        LocalDateTime now = nowUtc();
+
+        Set<LogicalFlow> flowsToAdd = flows
+                .stream()
+                .filter(f -> !lookups.findLogicalFlowId(f).isPresent())
+                .map(f -> ImmutableLogicalFlow.builder()
+                        .source(f.source())
+                        .target(f.target())
+                        .lastUpdatedBy(username)
+                        .lastUpdatedAt(now)
+                        .provenance("waltz")
+                        .created(UserTimestamp.mkForUser(username, now))
+                        .build())
+                .collect(toSet());
+
+        if (flowsToAdd.isEmpty()) {
+            return 0;
         }
 
-        long dataTypeId = flow.dataType().id();
-        EntityReference specificationEntityRef = EntityReference.mkRef(EntityKind.PHYSICAL_SPECIFICATION, spec.id().get());
+        Set<LogicalFlow> addedFlows = logicalFlowDao.addFlows(flowsToAdd, username);
+        lookups.addLogicalFlows(addedFlows);
+        return addedFlows.size();
+    }
+
 
-        DataTypeDecorator existingDataType = dataTypeDecoratorService.getByEntityRefAndDataTypeId(specificationEntityRef, dataTypeId);
-        if(existingDataType == null) {
-            dataTypeDecoratorService.addDecorators(username, specificationEntityRef, fromArray(dataTypeId));
+    private int createSpecifications(String username,
+                                     PhysicalFlowUploadLookups lookups,
+                                     List<PhysicalFlowParsed> flows) {
+        LocalDateTime now = nowUtc();
+
+        // where rows share a specification the first row provides the description and external id
+        Map<Tuple3<EntityReference, String, String>, PhysicalSpecification> specsToAdd = new LinkedHashMap<>();
+        flows.stream()
+                .filter(f -> !lookups.findSpecificationId(f).isPresent())
+                .forEach(f -> specsToAdd.computeIfAbsent(
+                        PhysicalFlowUploadLookups.toSpecificationKey(f.owner(), f.name(), f.format()),
+                        k -> ImmutablePhysicalSpecification.builder()
+                                .owningEntity(f.owner())
+                                .format(f.format())
+                                .name(f.name())
+                                .externalId(Optional.ofNullable(f.specExternalId()).orElse(""))
+                                .description(Optional.ofNullable(f.specDescription()).orElse(""))
+                                .lastUpdatedBy(username)
+                                .lastUpdatedAt(now)
+                                .provenance("waltz")
+                                .created(UserTimestamp.mkForUser(username, now))
+                                .build()));
+
+        if (specsToAdd.isEmpty()) {
+            return 0;
         }
-        return spec;
+
+        int created = physicalSpecificationDao.bulkCreate(specsToAdd.values());
+        loadSpecifications(lookups, flows);
+        return created;
     }
 
 
-    private long getOrCreatePhysicalFlow(PhysicalFlow newFlow) {
-        PhysicalFlow existing = physicalFlowDao.matchPhysicalFlow(newFlow);
-        if (existing != null) {
-            return existing.id().get();
-        } else {
-            return physicalFlowDao.create(newFlow);
+    /**
+     * @return ids of the physical flows which were created
+     */
+    private Set<Long> createPhysicalFlows(String username,
+                                          PhysicalFlowUploadLookups lookups,
+                                          List<PhysicalFlowUploadCommandResponse> newFlowCmds) {
+        LocalDateTime now = nowUtc();
+
+        // where rows describe the same flow the first row provides the description and external id
+        Map<Tuple6<Long, Long, Integer, String, String, String>, PhysicalFlow> flowsToAdd = new LinkedHashMap<>();
+        newFlowCmds
+                .stream()
+                .map(PhysicalFlowUploadCommandResponse::parsedFlow)
+                .filter(f -> !lookups.findPhysicalFlow(f).isPresent())
+                .forEach(f -> {
+                    PhysicalFlow newFlow = ImmutablePhysicalFlow.builder()
+                            .logicalFlowId(lookups.findLogicalFlowId(f).get())
+                            .specificationId(lookups.findSpecificationId(f).get())
+                            .basisOffset(f.basisOffset())
+                            .frequency(f.frequency())
+                            .transport(f.transport())
+                            .criticality(f.criticality())
+                            .description(f.description())
+                            .externalId(Optional.ofNullable(f.externalId()))
+                            .lastUpdatedBy(username)
+                            .lastUpdatedAt(now)
+                            .build();
+                    flowsToAdd.putIfAbsent(PhysicalFlowUploadLookups.toPhysicalFlowKey(newFlow), newFlow);
+                });
+
+        if (flowsToAdd.isEmpty()) {
+            return emptySet();
         }
+
+        physicalFlowDao.bulkCreate(flowsToAdd.values());
+
+        List<PhysicalFlowParsed> flows = map(newFlowCmds, PhysicalFlowUploadCommandResponse::parsedFlow);
+        Set<Long> existingIds = collectIds(flows, f -> lookups.findPhysicalFlow(f).flatMap(PhysicalFlow::id));
+        loadPhysicalFlows(lookups, flows);
+
+        return minus(
+                collectIds(flows, f -> lookups.findPhysicalFlow(f).flatMap(PhysicalFlow::id)),
+                existingIds);
+    }
+
+
+    private static Map<Long, Set<Long>> groupDataTypeIds(List<PhysicalFlowParsed> flows,
+                                                         Function<PhysicalFlowParsed, Optional<Long>> idFn) {
+        return flows
+                .stream()
+                .filter(f -> idFn.apply(f).isPresent())
+                .collect(groupingBy(
+                        f -> idFn.apply(f).get(),
+                        mapping(f -> f.dataType().id(), toSet())));
+    }
+
+
+    private static Set<Long> collectIds(Collection<PhysicalFlowParsed> flows,
+                                        Function<PhysicalFlowParsed, Optional<Long>> idFn) {
+        return flows
+                .stream()
+                .map(idFn)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(toSet());
     }
 
 
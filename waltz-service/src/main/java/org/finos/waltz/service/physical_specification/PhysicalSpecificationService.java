@@ -202,6 +202,16 @@ public class PhysicalSpecificationService {
     }
 
 
+    public int propagateDataTypesToLogicalFlows(String userName, Collection<Long> ids) {
+        checkNotNull(userName, "Username cannot be null");
+        checkNotNull(ids, "ids cannot be null");
+
+        return isEmpty(ids)
+                ? 0
+                : specificationDao.propagateDataTypesToLogicalFlows(userName, ids);
+    }
+
+
 
     public int updateAttribute(String username, SetAttributeCommand command) {
 
@@ -0,0 +1,115 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.query_metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock free latency histogram with fixed millisecond buckets.  Also tracks
+ * the count, total and maximum of the recorded durations.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_UPPER_BOUNDS_MILLIS = { 1, 5, 10, 50, 100, 500, 1_000, 5_000, 10_000 };
+    private static final long[] BUCKET_UPPER_BOUNDS_NANOS = new long[BUCKET_UPPER_BOUNDS_MILLIS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+            BUCKET_UPPER_BOUNDS_NANOS[i] = TimeUnit.MILLISECONDS.toNanos(BUCKET_UPPER_BOUNDS_MILLIS[i]);
+        }
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_UPPER_BOUNDS_MILLIS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+
+    public void record(long nanos) {
+        long duration = Math.max(0, nanos);
+        buckets[bucketIndex(duration)].increment();
+        count.increment();
+        totalNanos.add(duration);
+        maxNanos.accumulateAndGet(duration, Math::max);
+    }
+
+
+    public long count() {
+        return count.sum();
+    }
+
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+
+    public double meanNanos() {
+        long c = count();
+        return c == 0
+                ? 0
+                : (double) totalNanos() / c;
+    }
+
+
+    /**
+     * @return counts keyed by bucket label (in ascending order), e.g. <code>"&lt;=10ms"</code> or <code>"&gt;10000ms"</code>
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+            result.put("<=" + BUCKET_UPPER_BOUNDS_MILLIS[i] + "ms", buckets[i].sum());
+        }
+        result.put(">" + BUCKET_UPPER_BOUNDS_MILLIS[BUCKET_UPPER_BOUNDS_MILLIS.length - 1] + "ms", buckets[BUCKET_UPPER_BOUNDS_MILLIS.length].sum());
+        return result;
+    }
+
+
+    private static int bucketIndex(long nanos) {
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_NANOS.length; i++) {
+            if (nanos <= BUCKET_UPPER_BOUNDS_NANOS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_NANOS.length;
+    }
+
+
+    static double toMillis(double nanos) {
+        return nanos / 1_000_000d;
+    }
+
+}
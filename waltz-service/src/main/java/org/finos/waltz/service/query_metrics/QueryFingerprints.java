@@ -0,0 +1,72 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.query_metrics;
+
+import java.util.regex.Pattern;
+
+
+/**
+ * Reduces sql statements to a canonical form so executions which only differ
+ * by their literal values, or by the length of an <code>IN</code> list, are
+ * grouped together.
+ */
+public class QueryFingerprints {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.\"])-?\\d+(?:\\.\\d+)?(?![\\w\"])");
+    private static final Pattern VALUE_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\s*\\?\\s*\\)(?:\\s*,\\s*\\(\\s*\\?\\s*\\))+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+
+    private QueryFingerprints() {
+    }
+
+
+    /**
+     * @param sql  the sql as sent to the database (bind values as <code>?</code>)
+     * @return the sql with literals replaced by <code>?</code>, value lists collapsed and whitespace normalised
+     */
+    public static String normalise(String sql) {
+        if (sql == null) {
+            return "";
+        }
+
+        String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+        result = NUMERIC_LITERAL.matcher(result).replaceAll("?");
+        result = WHITESPACE.matcher(result).replaceAll(" ");
+        result = VALUE_LIST.matcher(result).replaceAll("(?+)");
+        result = ROW_LIST.matcher(result).replaceAll("(?)+");
+        return result.trim();
+    }
+
+
+    /**
+     * @return a short, stable identifier for a normalised statement
+     */
+    public static String fingerprint(String normalisedSql) {
+        long hash = 0xcbf29ce484222325L;  // 64 bit FNV-1a
+        for (int i = 0; i < normalisedSql.length(); i++) {
+            hash ^= normalisedSql.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+}
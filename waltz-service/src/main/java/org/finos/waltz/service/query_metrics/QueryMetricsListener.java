@@ -0,0 +1,147 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.query_metrics;
+
+import org.jooq.ExecuteContext;
+import org.jooq.impl.DefaultExecuteListener;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Times each sql execution and records the results in a {@link QueryMetricsRegistry}.
+ *
+ * A single listener instance is shared by all queries, so timings are held
+ * against the individual {@link ExecuteContext} rather than in this object.
+ */
+public class QueryMetricsListener extends DefaultExecuteListener {
+
+    private static final Object TIMING_KEY = new Object();
+
+    private final QueryMetricsRegistry registry;
+
+
+    public QueryMetricsListener(QueryMetricsRegistry registry) {
+        checkNotNull(registry, "registry cannot be null");
+        this.registry = registry;
+    }
+
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        Timing timing = new Timing();
+        timing.executeStart = System.nanoTime();
+        ctx.data(TIMING_KEY, timing);
+    }
+
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        Timing timing = getTiming(ctx);
+        if (timing != null) {
+            timing.executeNanos = System.nanoTime() - timing.executeStart;
+        }
+    }
+
+
+    @Override
+    public void fetchStart(ExecuteContext ctx) {
+        Timing timing = getTiming(ctx);
+        if (timing != null) {
+            timing.fetchStart = System.nanoTime();
+        }
+    }
+
+
+    @Override
+    public void recordEnd(ExecuteContext ctx) {
+        Timing timing = getTiming(ctx);
+        if (timing != null) {
+            timing.fetchedRows++;
+        }
+    }
+
+
+    @Override
+    public void fetchEnd(ExecuteContext ctx) {
+        Timing timing = getTiming(ctx);
+        if (timing != null && timing.fetchStart > 0) {
+            timing.fetchNanos += System.nanoTime() - timing.fetchStart;
+            timing.fetchStart = 0;
+        }
+    }
+
+
+    @Override
+    public void exception(ExecuteContext ctx) {
+        Timing timing = getTiming(ctx);
+        if (timing == null) {
+            // failed before execution (e.g. whilst preparing the statement)
+            timing = new Timing();
+            ctx.data(TIMING_KEY, timing);
+        } else if (timing.executeNanos == 0) {
+            timing.executeNanos = System.nanoTime() - timing.executeStart;
+        }
+        timing.failed = true;
+    }
+
+
+    @Override
+    public void end(ExecuteContext ctx) {
+        Timing timing = getTiming(ctx);
+        String sql = determineSql(ctx);
+        if (timing == null || sql == null) {
+            return;
+        }
+
+        registry.recordExecution(
+                sql,
+                timing.executeNanos,
+                timing.fetchNanos,
+                Math.max(timing.fetchedRows, ctx.rows()),
+                timing.failed);
+    }
+
+
+    private static Timing getTiming(ExecuteContext ctx) {
+        return (Timing) ctx.data(TIMING_KEY);
+    }
+
+
+    private static String determineSql(ExecuteContext ctx) {
+        if (ctx.sql() != null) {
+            return ctx.sql();
+        }
+        String[] batchSql = ctx.batchSQL();
+        return batchSql.length > 0
+                ? batchSql[0]
+                : null;
+    }
+
+
+    private static class Timing {
+        private long executeStart;
+        private long executeNanos;
+        private long fetchStart;
+        private long fetchNanos;
+        private long fetchedRows;
+        private boolean failed;
+    }
+
+}
@@ -0,0 +1,306 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.query_metrics;
+
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.finos.waltz.model.query_metrics.ConnectionPoolStatistics;
+import org.finos.waltz.model.query_metrics.ImmutableConnectionPoolStatistics;
+import org.finos.waltz.model.query_metrics.ImmutableQueryMetricsSummary;
+import org.finos.waltz.model.query_metrics.ImmutableQueryStatistics;
+import org.finos.waltz.model.query_metrics.QueryMetricsSummary;
+import org.finos.waltz.model.query_metrics.QueryStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.service.query_metrics.LatencyHistogram.toMillis;
+
+
+/**
+ * Collects sql execution statistics (grouped by statement fingerprint) and
+ * connection pool wait times.  Populated by the {@link QueryMetricsListener}
+ * and the {@link QueryMetricsTrackerFactory}.
+ *
+ * All recording methods are thread safe and lock free (other than when a
+ * statement is first seen).
+ */
+@ManagedResource(description = "SQL execution and connection pool statistics")
+public class QueryMetricsRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryMetricsRegistry.class);
+
+    private static final String OTHER_STATEMENTS = "(other statements)";
+    private static final int JMX_TOP_STATEMENT_COUNT = 20;
+
+    private final int maxStatements;
+
+    private volatile State state = new State();
+    private volatile PoolStats poolStats;
+
+
+    public QueryMetricsRegistry(int maxStatements) {
+        checkTrue(maxStatements > 0, "maxStatements must be positive");
+        this.maxStatements = maxStatements;
+    }
+
+
+    /**
+     * @param sql  the executed sql (with bind placeholders)
+     * @param executionNanos  time spent executing the statement
+     * @param fetchNanos  time spent fetching results (zero if there was no result)
+     * @param rowCount  number of rows fetched or affected
+     * @param failed  true if the statement raised an exception
+     */
+    public void recordExecution(String sql,
+                                long executionNanos,
+                                long fetchNanos,
+                                long rowCount,
+                                boolean failed) {
+        State current = state;
+        String normalised = QueryFingerprints.normalise(sql);
+
+        StatementMetrics metrics = current.statements.get(normalised);
+        if (metrics == null) {
+            metrics = current.statements.size() >= maxStatements
+                    ? current.statements.computeIfAbsent(OTHER_STATEMENTS, k -> new StatementMetrics(k, null))
+                    : current.statements.computeIfAbsent(normalised, k -> new StatementMetrics(k, determineSource()));
+        }
+
+        metrics.execution.record(executionNanos);
+        metrics.fetchNanos.add(Math.max(0, fetchNanos));
+        metrics.rows.add(Math.max(0, rowCount));
+        if (failed) {
+            metrics.errors.increment();
+        }
+    }
+
+
+    public void recordConnectionAcquired(long waitNanos) {
+        state.connectionWait.record(waitNanos);
+    }
+
+
+    public void recordConnectionTimeout() {
+        state.connectionTimeouts.increment();
+    }
+
+
+    void setPoolStats(PoolStats poolStats) {
+        this.poolStats = poolStats;
+    }
+
+
+    /**
+     * @param limit  max number of statements to return
+     * @return statistics for the most expensive (by total execution time) statements
+     */
+    public QueryMetricsSummary getSummary(int limit) {
+        State current = state;
+
+        List<QueryStatistics> statements = current.statements
+                .values()
+                .stream()
+                .sorted(Comparator.comparingLong((StatementMetrics m) -> m.execution.totalNanos()).reversed())
+                .limit(Math.max(0, limit))
+                .map(StatementMetrics::toStatistics)
+                .collect(toList());
+
+        return ImmutableQueryMetricsSummary.builder()
+                .collectingSince(current.since)
+                .executionCount(current.executionCount())
+                .distinctStatementCount(current.statements.size())
+                .connectionPool(getConnectionPoolStatistics())
+                .statements(statements)
+                .build();
+    }
+
+
+    public ConnectionPoolStatistics getConnectionPoolStatistics() {
+        State current = state;
+        Optional<PoolStats> stats = Optional.ofNullable(poolStats);
+
+        return ImmutableConnectionPoolStatistics.builder()
+                .acquisitionCount(current.connectionWait.count())
+                .timeoutCount(current.connectionTimeouts.sum())
+                .totalWaitMillis(toMillis(current.connectionWait.totalNanos()))
+                .meanWaitMillis(toMillis(current.connectionWait.meanNanos()))
+                .maxWaitMillis(toMillis(current.connectionWait.maxNanos()))
+                .waitHistogram(current.connectionWait.toMap())
+                .activeConnections(stats.map(PoolStats::getActiveConnections).orElse(0))
+                .idleConnections(stats.map(PoolStats::getIdleConnections).orElse(0))
+                .pendingThreads(stats.map(PoolStats::getPendingThreads).orElse(0))
+                .maxConnections(stats.map(PoolStats::getMaxConnections).orElse(0))
+                .build();
+    }
+
+
+    @ManagedOperation(description = "Discard all collected sql statistics")
+    public void reset() {
+        LOG.info("Resetting sql statistics");
+        state = new State();
+    }
+
+
+    @ManagedAttribute
+    public long getExecutionCount() {
+        return state.executionCount();
+    }
+
+
+    @ManagedAttribute
+    public int getDistinctStatementCount() {
+        return state.statements.size();
+    }
+
+
+    @ManagedAttribute
+    public long getConnectionAcquisitionCount() {
+        return state.connectionWait.count();
+    }
+
+
+    @ManagedAttribute
+    public long getConnectionTimeoutCount() {
+        return state.connectionTimeouts.sum();
+    }
+
+
+    @ManagedAttribute
+    public double getMeanConnectionWaitMillis() {
+        return toMillis(state.connectionWait.meanNanos());
+    }
+
+
+    @ManagedAttribute
+    public double getMaxConnectionWaitMillis() {
+        return toMillis(state.connectionWait.maxNanos());
+    }
+
+
+    @ManagedAttribute(description = "Most expensive statements by total execution time")
+    public String[] getTopStatements() {
+        return getSummary(JMX_TOP_STATEMENT_COUNT)
+                .statements()
+                .stream()
+                .map(s -> String.format(
+                        "%s [%s] count: %d, total: %.1fms, mean: %.1fms, max: %.1fms, rows: %d - %s",
+                        s.fingerprint(),
+                        s.source().orElse("?"),
+                        s.executionCount(),
+                        s.totalExecutionMillis(),
+                        s.meanExecutionMillis(),
+                        s.maxExecutionMillis(),
+                        s.rowCount(),
+                        s.sql()))
+                .toArray(String[]::new);
+    }
+
+
+    /**
+     * Finds the first Waltz frame on the current stack, preferring dao classes.
+     * Only called when a statement is first seen.
+     */
+    private static String determineSource() {
+        StackTraceElement fallback = null;
+        for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+            String className = frame.getClassName();
+            if (className.startsWith("org.finos.waltz.data.")) {
+                return toSource(frame);
+            }
+            if (fallback == null
+                    && className.startsWith("org.finos.waltz.")
+                    && !className.startsWith(QueryMetricsRegistry.class.getPackage().getName())) {
+                fallback = frame;
+            }
+        }
+        return fallback == null
+                ? null
+                : toSource(fallback);
+    }
+
+
+    private static String toSource(StackTraceElement frame) {
+        String className = frame.getClassName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        return simpleName + "." + frame.getMethodName();
+    }
+
+
+    private static class State {
+        private final LocalDateTime since = nowUtc();
+        private final ConcurrentMap<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+        private final LatencyHistogram connectionWait = new LatencyHistogram();
+        private final LongAdder connectionTimeouts = new LongAdder();
+
+        private long executionCount() {
+            return statements
+                    .values()
+                    .stream()
+                    .mapToLong(m -> m.execution.count())
+                    .sum();
+        }
+    }
+
+
+    private static class StatementMetrics {
+        private final String sql;
+        private final String fingerprint;
+        private final String source;
+        private final LatencyHistogram execution = new LatencyHistogram();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private StatementMetrics(String sql, String source) {
+            this.sql = sql;
+            this.fingerprint = QueryFingerprints.fingerprint(sql);
+            this.source = source;
+        }
+
+        private QueryStatistics toStatistics() {
+            return ImmutableQueryStatistics.builder()
+                    .fingerprint(fingerprint)
+                    .sql(sql)
+                    .source(Optional.ofNullable(source))
+                    .executionCount(execution.count())
+                    .errorCount(errors.sum())
+                    .rowCount(rows.sum())
+                    .totalExecutionMillis(toMillis(execution.totalNanos()))
+                    .meanExecutionMillis(toMillis(execution.meanNanos()))
+                    .maxExecutionMillis(toMillis(execution.maxNanos()))
+                    .totalFetchMillis(toMillis(fetchNanos.sum()))
+                    .executionHistogram(execution.toMap())
+                    .build();
+        }
+    }
+
+}
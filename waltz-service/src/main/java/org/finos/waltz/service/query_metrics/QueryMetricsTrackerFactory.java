@@ -0,0 +1,60 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.query_metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Hooks into the Hikari connection pool so time spent waiting for a
+ * connection is recorded alongside the sql statistics.
+ */
+public class QueryMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final QueryMetricsRegistry registry;
+
+
+    public QueryMetricsTrackerFactory(QueryMetricsRegistry registry) {
+        checkNotNull(registry, "registry cannot be null");
+        this.registry = registry;
+    }
+
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        registry.setPoolStats(poolStats);
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                registry.recordConnectionAcquired(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                registry.recordConnectionTimeout();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.common.ExpiringCache;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.report_grid.ReportGrid;
+import org.finos.waltz.service.changelog.ChangeLogListener;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Holds recently computed report grids, keyed by grid id, selection options and a version
+ * token for the grid data which is not recorded in the change log (see
+ * `ReportGridDao.getUnloggedDataVersion`).  When that data changes the token changes and
+ * the stale entry is no longer used.
+ *
+ * Entries are evicted when the cache is full (least recently used first) or when they exceed
+ * their time to live.  Entries are also discarded when:
+ * <ul>
+ *     <li>the grid definition is changed, see `invalidateGrid`</li>
+ *     <li>a change log entry is written against one of the grids subjects (e.g. an application)</li>
+ *     <li>a change log entry is written against the entity the grid was selected for (e.g. an app group)</li>
+ * </ul>
+ */
+@Service
+@ManagedResource(description = "Cache of calculated report grids")
+public class ReportGridCache implements ChangeLogListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportGridCache.class);
+
+    private final ExpiringCache<Tuple3<Long, IdSelectionOptions, String>, CachedGrid> cache;
+
+
+    @Autowired
+    public ReportGridCache(@Value("${waltz.report_grid.cache.max_size:100}") int maxSize,
+                           @Value("${waltz.report_grid.cache.ttl_minutes:15}") int ttlMinutes) {
+        this.cache = new ExpiringCache<>(maxSize, Duration.ofMinutes(ttlMinutes));
+    }
+
+
+    public ReportGrid get(long gridId,
+                          IdSelectionOptions selectionOptions,
+                          String dataVersion,
+                          Supplier<ReportGrid> gridSupplier) {
+        CachedGrid cachedGrid = cache.get(
+                tuple(gridId, selectionOptions, dataVersion),
+                k -> {
+                    ReportGrid grid = gridSupplier.get();
+                    return grid == null
+                            ? null
+                            : new CachedGrid(grid);
+                });
+
+        return cachedGrid == null
+                ? null
+                : cachedGrid.grid;
+    }
+
+
+    public void invalidateGrid(long gridId) {
+        int removed = cache.invalidateIf((k, v) -> k.v1 == gridId);
+        LOG.debug("Invalidated {} cached entries for grid: {}", removed, gridId);
+    }
+
+
+    @Override
+    public void onChangesLogged(Collection<ChangeLog> changeLogs) {
+        Set<Tuple2<EntityKind, Long>> changedRefs = map(changeLogs, c -> toKey(c.parentReference()));
+
+        int removed = cache.invalidateIf((k, v) -> changedRefs.contains(v.gridKey)
+                || changedRefs.contains(toKey(k.v2.entityReference()))
+                || changedRefs.stream().anyMatch(v.subjectKeys::contains));
+
+        if (removed > 0) {
+            LOG.debug("Invalidated {} cached grids following changes to: {}", removed, changedRefs);
+        }
+    }
+
+
+    @ManagedOperation(description = "Remove all cached report grids")
+    public void invalidateAll() {
+        LOG.info("Clearing report grid cache (via jmx)");
+        cache.invalidateAll();
+    }
+
+
+    @ManagedAttribute
+    public long getHitCount() {
+        return cache.hitCount();
+    }
+
+
+    @ManagedAttribute
+    public long getMissCount() {
+        return cache.missCount();
+    }
+
+
+    @ManagedAttribute
+    public long getEvictionCount() {
+        return cache.evictionCount();
+    }
+
+
+    @ManagedAttribute
+    public int getSize() {
+        return cache.size();
+    }
+
+
+    private static Tuple2<EntityKind, Long> toKey(EntityReference ref) {
+        return tuple(ref.kind(), ref.id());
+    }
+
+
+    private static class CachedGrid {
+        private final ReportGrid grid;
+        private final Tuple2<EntityKind, Long> gridKey;
+        private final Set<Tuple2<EntityKind, Long>> subjectKeys;
+
+        private CachedGrid(ReportGrid grid) {
+            this.grid = grid;
+            this.gridKey = tuple(EntityKind.REPORT_GRID, grid.definition().id().orElse(-1L));
+            this.subjectKeys = map(grid.instance().subjects(), s -> toKey(s.entityReference()));
+        }
+    }
+
+}
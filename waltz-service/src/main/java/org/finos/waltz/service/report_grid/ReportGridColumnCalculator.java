@@ -1,31 +1,49 @@
 package org.finos.waltz.service.report_grid;
 
 import org.apache.commons.jexl3.*;
-import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.model.either.Either;
 import org.finos.waltz.model.rating.RatingSchemeItem;
 import org.finos.waltz.model.report_grid.*;
 
+import org.jooq.lambda.tuple.Tuple2;
+
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.MapUtilities.*;
-import static org.finos.waltz.common.SetUtilities.map;
-import static org.finos.waltz.common.SetUtilities.union;
-import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.common.SetUtilities.*;
+import static org.finos.waltz.common.StringUtilities.isEmpty;
 import static org.finos.waltz.model.utils.IdUtilities.indexById;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
 public class ReportGridColumnCalculator {
 
+    /**
+     * Matches calls to the namespace functions which take cell external ids as
+     * arguments, e.g. <code>cell('CTB')</code> or <code>anyCellsProvided('A', 'B')</code>.
+     * The string literals within the argument list are the referenced columns.
+     */
+    private static final Pattern CELL_REFERENCE_CALL_PATTERN = Pattern.compile(
+            "\\b(?:cell|coalesceCells|anyCellsProvided|allCellsProvided|ratioProvided|percentageProvided)\\s*\\(([^)]*)\\)");
+
+    private static final Pattern STRING_LITERAL_PATTERN = Pattern.compile("'([^']*)'|\"([^\"]*)\"");
+
+    /**
+     * Matches namespace functions which expose the row context without naming the cells
+     * they read, e.g. <code>getContext()['CTB']</code>.
+     */
+    private static final Pattern CONTEXT_ACCESS_PATTERN = Pattern.compile("\\bgetContext\\s*\\(");
+
 
     public static Set<ReportGridCell> calculate(ReportGridInstance instance,
                                                 ReportGridDefinition definition) {
-        ReportGridEvaluatorNamespace ns = new ReportGridEvaluatorNamespace(definition);
-        JexlBuilder builder = new JexlBuilder();
-        JexlEngine jexl = builder.namespaces(newHashMap(null, ns)).cache(512).create();
+        JexlEngine jexl = new JexlBuilder().cache(512).create();
 
         Map<Long, Collection<ReportGridCell>> rowBySubject = groupBy(
                 instance.cellData(),
@@ -47,30 +65,173 @@ public class ReportGridColumnCalculator {
                             .build();
                 });
 
+        BiFunction<ReportGridEvaluatorNamespace, ReportSubject, Set<ReportGridCell>> rowCalculator;
+
+        if (derivedColumns.stream().anyMatch(ccc -> hasUnresolvableCellReferences(ccc.column().derivationScript()))) {
+            // references computed at runtime cannot be planned, evaluate each row until it stops changing
+            rowCalculator = (ns, subject) -> calcDerivedColsIteratively(ns, subject, derivedColumns);
+        } else {
+            // the evaluation order is determined once per grid and shared by every row
+            Tuple2<List<CompiledCalculatedColumn>, Map<CompiledCalculatedColumn, String>> plan = planEvaluation(derivedColumns);
+            rowCalculator = (ns, subject) -> calcDerivedCols(ns, subject, plan.v1, plan.v2);
+        }
+
         return instance
                 .subjects()
-                .stream()
-                .map(s -> {
-                    long subjectId = s.entityReference().id();
-                    Map<String, Object> ctx = initialiseContext(
+                .parallelStream()
+                .flatMap(subject -> {
+                    // each row gets its own namespace so rows may be evaluated concurrently
+                    ReportGridEvaluatorNamespace ns = new ReportGridEvaluatorNamespace(definition);
+                    ns.setContext(initialiseContext(
                             definition.fixedColumnDefinitions(),
                             ratingSchemeItemsById,
-                            s,
-                            lookupRow(rowBySubject, subjectId));
-                    ns.setContext(ctx);
-                    return s;
+                            subject,
+                            lookupRow(rowBySubject, subject.entityReference().id())));
+
+                    return rowCalculator
+                            .apply(ns, subject)
+                            .stream();
                 })
-                .flatMap(subject ->
-                        calcDerivedCols(
-                                ns,
-                                subject,
-                                derivedColumns)
-                        .stream())
                 .collect(toSet());
 
     }
 
 
+    /**
+     * Orders the derived columns so that each column is evaluated after the
+     * columns it references.  Columns which take part in (or depend upon) a
+     * reference cycle cannot be ordered, they are returned separately along
+     * with a description of the problem.
+     *
+     * @param derivedColumns  columns to order
+     * @return tuple of (columns in evaluation order, unresolvable columns -> error message)
+     */
+    static Tuple2<List<CompiledCalculatedColumn>, Map<CompiledCalculatedColumn, String>> planEvaluation(Set<CompiledCalculatedColumn> derivedColumns) {
+
+        Map<String, Collection<CompiledCalculatedColumn>> colsByExtId = groupBy(
+                derivedColumns,
+                ccc -> colToExtId(ccc.column()));
+
+        Map<CompiledCalculatedColumn, Set<CompiledCalculatedColumn>> dependenciesByCol = new HashMap<>();
+        Map<CompiledCalculatedColumn, Set<CompiledCalculatedColumn>> dependantsByCol = new HashMap<>();
+
+        derivedColumns.forEach(ccc -> {
+            Set<CompiledCalculatedColumn> dependencies = findReferencedExtIds(ccc.column().derivationScript())
+                    .stream()
+                    .flatMap(extId -> colsByExtId.getOrDefault(extId, Collections.emptySet()).stream())
+                    .collect(toSet());
+
+            dependenciesByCol.put(ccc, dependencies);
+            dependencies.forEach(d -> dependantsByCol
+                    .computeIfAbsent(d, k -> new HashSet<>())
+                    .add(ccc));
+        });
+
+        Map<CompiledCalculatedColumn, Integer> unresolvedCounts = new HashMap<>();
+        dependenciesByCol.forEach((col, deps) -> unresolvedCounts.put(col, deps.size()));
+
+        // sort by position so the evaluation order is stable between runs
+        Comparator<CompiledCalculatedColumn> byPosition = Comparator
+                .comparingLong((CompiledCalculatedColumn ccc) -> ccc.column().position())
+                .thenComparing(ccc -> colToExtId(ccc.column()));
+
+        Deque<CompiledCalculatedColumn> ready = unresolvedCounts
+                .entrySet()
+                .stream()
+                .filter(e -> e.getValue() == 0)
+                .map(Map.Entry::getKey)
+                .sorted(byPosition)
+                .collect(Collectors.toCollection(ArrayDeque::new));
+
+        List<CompiledCalculatedColumn> ordered = new ArrayList<>();
+
+        while (!ready.isEmpty()) {
+            CompiledCalculatedColumn col = ready.removeFirst();
+            ordered.add(col);
+            dependantsByCol
+                    .getOrDefault(col, Collections.emptySet())
+                    .stream()
+                    .sorted(byPosition)
+                    .forEach(dependant -> {
+                        int remaining = unresolvedCounts.merge(dependant, -1, Integer::sum);
+                        if (remaining == 0) {
+                            ready.addLast(dependant);
+                        }
+                    });
+        }
+
+        Map<CompiledCalculatedColumn, String> unresolvable = new HashMap<>();
+
+        if (ordered.size() < derivedColumns.size()) {
+            Set<CompiledCalculatedColumn> blocked = minus(derivedColumns, fromCollection(ordered));
+            String blockedExtIds = blocked
+                    .stream()
+                    .map(ccc -> colToExtId(ccc.column()))
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+
+            blocked.forEach(ccc -> unresolvable.put(
+                    ccc,
+                    format("Circular reference between derived columns: %s", blockedExtIds)));
+        }
+
+        return tuple(ordered, unresolvable);
+    }
+
+
+    static Set<String> findReferencedExtIds(String derivationScript) {
+        if (isEmpty(derivationScript)) {
+            return Collections.emptySet();
+        }
+
+        Set<String> extIds = new HashSet<>();
+        Matcher callMatcher = CELL_REFERENCE_CALL_PATTERN.matcher(derivationScript);
+
+        while (callMatcher.find()) {
+            Matcher literalMatcher = STRING_LITERAL_PATTERN.matcher(callMatcher.group(1));
+            while (literalMatcher.find()) {
+                extIds.add(ofNullable(literalMatcher.group(1)).orElse(literalMatcher.group(2)));
+            }
+        }
+
+        return extIds;
+    }
+
+
+    /**
+     * Determines if a script references cells in a way which cannot be determined by
+     * <code>findReferencedExtIds</code>, e.g. <code>cell(someVariable)</code> or
+     * <code>cell('A' + suffix)</code>.  Grids containing such scripts cannot have their
+     * evaluation order planned in advance.
+     *
+     * @param derivationScript  script to check
+     * @return true if any cell reference is not a plain string literal
+     */
+    static boolean hasUnresolvableCellReferences(String derivationScript) {
+        if (isEmpty(derivationScript)) {
+            return false;
+        }
+
+        if (CONTEXT_ACCESS_PATTERN.matcher(derivationScript).find()) {
+            return true;
+        }
+
+        Matcher callMatcher = CELL_REFERENCE_CALL_PATTERN.matcher(derivationScript);
+
+        while (callMatcher.find()) {
+            String argsWithoutLiterals = STRING_LITERAL_PATTERN
+                    .matcher(callMatcher.group(1))
+                    .replaceAll("");
+
+            if (!argsWithoutLiterals.matches("[\\s,]*")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
     private static Collection<ReportGridCell> lookupRow(Map<Long, Collection<ReportGridCell>> rowBySubject,
                                                         long subjectId) {
         return rowBySubject.getOrDefault(
@@ -81,78 +242,109 @@ public class ReportGridColumnCalculator {
 
     private static Set<ReportGridCell> calcDerivedCols(ReportGridEvaluatorNamespace ns,
                                                        ReportSubject subject,
-                                                       Set<CompiledCalculatedColumn> colsToCalc) {
+                                                       List<CompiledCalculatedColumn> orderedCols,
+                                                       Map<CompiledCalculatedColumn, String> unresolvableCols) {
+
+        Set<ReportGridCell> results = new HashSet<>();
+
+        // columns are in dependency order so a single pass is sufficient
+        orderedCols.forEach(ccc -> {
+            try {
+                ofNullable(evaluateCalcCol(ns, ccc, subject))
+                        .ifPresent(result -> {
+                            results.add(result);
+                            // ...and update the context so dependent expressions can be calculated
+                            ns.addContext(colToExtId(ccc.column()), result);
+                        });
+            } catch (Exception e) {
+                results.add(mkErrorCell(
+                        subject,
+                        ccc.column(),
+                        toMessage(e),
+                        "EXECUTION_ERROR",
+                        "Execution Error"));
+            }
+        });
 
-        // we need to evaluate derived cols at least once
-        AtomicBoolean evaluateRowAgain = new AtomicBoolean(true);
-        // collecting the results as we go
-        Map<Long, ReportGridCell> results = new HashMap<>();
+        unresolvableCols.forEach((ccc, msg) -> results.add(mkErrorCell(
+                subject,
+                ccc.column(),
+                msg,
+                "CIRCULAR_REFERENCE_ERROR",
+                "Circular Reference Error")));
 
-        Set<CompiledCalculatedColumn> remaining = SetUtilities.fromCollection(colsToCalc);
+        return results;
+    }
+
+
+    /**
+     * Evaluates the derived columns of a row repeatedly, feeding each result back into the
+     * context, until no result changes.  Used when the dependencies between columns cannot
+     * be determined up front.  Each pass resolves at least one further level of dependencies
+     * so the number of passes is bounded by the number of columns.
+     */
+    private static Set<ReportGridCell> calcDerivedColsIteratively(ReportGridEvaluatorNamespace ns,
+                                                                  ReportSubject subject,
+                                                                  Set<CompiledCalculatedColumn> colsToCalc) {
 
+        Map<Long, ReportGridCell> results = new HashMap<>();
         Map<ReportGridDerivedColumnDefinition, String> lastErrors = new HashMap<>();
 
-        while (evaluateRowAgain.get()) {
-            // assume this time will be the last
-            evaluateRowAgain.set(false);
+        boolean evaluateRowAgain = true;
+        int passesRemaining = colsToCalc.size() + 1;
+
+        while (evaluateRowAgain && passesRemaining-- > 0) {
+            // assume this pass will be the last
+            evaluateRowAgain = false;
 
-            // iterate over remaining columns attempting execution
-            remaining.forEach(ccc -> {
+            for (CompiledCalculatedColumn ccc : colsToCalc) {
                 try {
-                    // attempt to evaluate the cell
-                    ofNullable(evaluateCalcCol(ccc, subject))
-                            .ifPresent(result -> {
-                                ReportGridCell existingResult = results.get(ccc.column().gridColumnId());
-                                boolean isDifferent = existingResult == null || !existingResult.equals(result);
-
-                                if (isDifferent) {
-                                    // If successful record the result
-                                    results.put(ccc.column().gridColumnId(), result);
-
-                                    // ...and update the context so dependent expressions can be calculated
-                                    ns.addContext(colToExtId(ccc.column()), result);
-
-                                    // Since something has changed we want to run the loop again in case
-                                    // ...a dependant expression can now be evaluated.
-                                    evaluateRowAgain.set(true);
-                                }
-                        });
+                    ReportGridCell result = evaluateCalcCol(ns, ccc, subject);
 
-                    // clear out the error map for this column as the last evaluation succeeded (but may have been null)
-                    lastErrors.remove(ccc.column());
+                    if (result != null && !result.equals(results.get(ccc.column().gridColumnId()))) {
+                        results.put(ccc.column().gridColumnId(), result);
+                        ns.addContext(colToExtId(ccc.column()), result);
+                        // something changed, a dependant expression may now evaluate differently
+                        evaluateRowAgain = true;
+                    }
 
+                    lastErrors.remove(ccc.column());
                 } catch (Exception e) {
-                    // if we hit a problem we store it for later as it may resolve itself on a subsequent iteration
-                    String msg = toMessage(e);
-                    lastErrors.put(ccc.column(), msg);
+                    // may resolve itself on a subsequent pass
+                    lastErrors.put(ccc.column(), toMessage(e));
                 }
-            });
-
-            if (remaining.isEmpty()) {
-                // nothing left to do, therefore we can finish on this iteration
-                evaluateRowAgain.set(false);
             }
         }
 
-        Set<ReportGridCell> errorResults = remaining
-                .stream()
-                .map(ccc -> tuple(
-                        ccc.column(),
-                        lastErrors.get(ccc.column())))
-                .filter(d -> notEmpty(d.v2))
-                .map(t -> ImmutableReportGridCell
-                        .builder()
-                        .subjectId(subject.entityReference().id())
-                        .errorValue(t.v2)
-                        .optionCode("EXECUTION_ERROR")
-                        .optionText("Execution Error")
-                        .columnDefinitionId(t.v1.gridColumnId())
-                        .build())
-                .collect(toSet());
+        lastErrors.forEach((column, msg) -> results.put(
+                column.gridColumnId(),
+                mkErrorCell(
+                        subject,
+                        column,
+                        msg,
+                        "EXECUTION_ERROR",
+                        "Execution Error")));
 
-        return union(results.values(), errorResults);
+        return fromCollection(results.values());
     }
 
+
+    private static ReportGridCell mkErrorCell(ReportSubject subject,
+                                              ReportGridDerivedColumnDefinition column,
+                                              String msg,
+                                              String optionCode,
+                                              String optionText) {
+        return ImmutableReportGridCell
+                .builder()
+                .subjectId(subject.entityReference().id())
+                .errorValue(msg)
+                .optionCode(optionCode)
+                .optionText(optionText)
+                .columnDefinitionId(column.gridColumnId())
+                .build();
+    }
+
+
     private static String toMessage(Exception e) {
         if (e.getCause() != null) {
             return e.getCause().getMessage();
@@ -195,7 +387,8 @@ public class ReportGridColumnCalculator {
     }
 
 
-    private static ReportGridCell evaluateCalcCol(CompiledCalculatedColumn compiledCalculatedColumn,
+    private static ReportGridCell evaluateCalcCol(ReportGridEvaluatorNamespace ns,
+                                                  CompiledCalculatedColumn compiledCalculatedColumn,
                                                   ReportSubject subject) {
 
         ReportGridDerivedColumnDefinition cd = compiledCalculatedColumn.column();
@@ -213,7 +406,7 @@ public class ReportGridColumnCalculator {
                                 .build(),
                         expr -> {
 
-                            MapContext mapContext = new MapContext(newHashMap(
+                            SubjectContext mapContext = new SubjectContext(ns, newHashMap(
                                     "subjectId", subject.entityReference().id(),
                                     "subjectExternalId", subject.entityReference().externalId().orElse(""),
                                     "subjectName", subject.entityReference().name().orElse(""),
@@ -282,4 +475,28 @@ public class ReportGridColumnCalculator {
                 .build();
     }
 
+
+
+    /**
+     * Jexl context which resolves the default (unprefixed) namespace to the
+     * given row specific namespace instance.
+     */
+    private static class SubjectContext extends MapContext implements JexlContext.NamespaceResolver {
+
+        private final ReportGridEvaluatorNamespace ns;
+
+        private SubjectContext(ReportGridEvaluatorNamespace ns, Map<String, Object> vars) {
+            super(vars);
+            this.ns = ns;
+        }
+
+
+        @Override
+        public Object resolveNamespace(String name) {
+            return name == null
+                    ? ns
+                    : null;
+        }
+    }
+
 }
@@ -21,6 +21,7 @@ package org.finos.waltz.service.report_grid;
 import org.finos.waltz.common.CollectionUtilities;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.GenericSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.report_grid.ReportGridDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.IdSelectionOptions;
@@ -68,23 +69,26 @@ public class ReportGridFilterViewService {
     private final EntityNamedNoteService entityNamedNoteService;
     private final AppGroupService appGroupService;
 
-    private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
+    private final GenericSelectorFactory genericSelectorFactory;
 
     @Autowired
     public ReportGridFilterViewService(ReportGridDao reportGridDao,
                                        ReportGridService reportGridService,
                                        EntityNamedNoteService entityNamedNoteService,
-                                       AppGroupService appGroupService) {
+                                       AppGroupService appGroupService,
+                                       EntityHierarchyIndexes entityHierarchyIndexes) {
 
         checkNotNull(reportGridDao, "reportGridDao cannot be null");
         checkNotNull(entityNamedNoteService, "entityNamedNoteService cannot be null");
         checkNotNull(appGroupService, "appGroupService cannot be null");
         checkNotNull(entityNamedNoteService, "entityNamedNoteService cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
 
         this.entityNamedNoteService = entityNamedNoteService;
         this.reportGridService = reportGridService;
         this.reportGridDao = reportGridDao;
         this.appGroupService = appGroupService;
+        this.genericSelectorFactory = new GenericSelectorFactory(entityHierarchyIndexes);
     }
 
 
@@ -319,9 +323,9 @@ public class ReportGridFilterViewService {
     private IdSelectionOptions mkSelectionOptionsFromGridInfoRow(List<String> gridInfo) {
         String vantagePointKind = gridInfo.get(2);
         String vantagePointId = gridInfo.get(3);
-        return modifySelectionOptionsForGrid(mkOpts(mkRef(
+        return mkOpts(mkRef(
                 EntityKind.valueOf(vantagePointKind),
-                Long.parseLong(vantagePointId))));
+                Long.parseLong(vantagePointId)));
     }
 
 
@@ -25,6 +25,7 @@ import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeDao;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.data.report_grid.ReportGridDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.IdSelectionOptions;
@@ -47,7 +48,6 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.model.EntityReference.mkRef;
-import static org.finos.waltz.service.report_grid.ReportGridUtilities.modifySelectionOptionsForGrid;
 
 @Service
 public class ReportGridService {
@@ -60,8 +60,9 @@ public class ReportGridService {
     private final ReportGridDao reportGridDao;
     private final ReportGridMemberService reportGridMemberService;
     private final UserRoleService userRoleService;
+    private final ReportGridCache reportGridCache;
 
-    private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
+    private final GenericSelectorFactory genericSelectorFactory;
 
     @Autowired
     public ReportGridService(ReportGridDao reportGridDao,
@@ -69,12 +70,16 @@ public class ReportGridService {
                              RatingSchemeService ratingSchemeService,
                              ReportGridMemberService reportGridMemberService,
                              UserRoleService userRoleService,
-                             ChangeInitiativeDao changeInitiativeDao) {
+                             ChangeInitiativeDao changeInitiativeDao,
+                             ReportGridCache reportGridCache,
+                             EntityHierarchyIndexes entityHierarchyIndexes) {
         checkNotNull(reportGridDao, "reportGridDao cannot be null");
         checkNotNull(reportGridMemberService, "reportGridMemberService cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
+        checkNotNull(reportGridCache, "reportGridCache cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
 
         this.reportGridDao = reportGridDao;
         this.reportGridMemberService = reportGridMemberService;
@@ -82,6 +87,8 @@ public class ReportGridService {
         this.ratingSchemeService = ratingSchemeService;
         this.changeInititativeDao = changeInitiativeDao;
         this.userRoleService = userRoleService;
+        this.reportGridCache = reportGridCache;
+        this.genericSelectorFactory = new GenericSelectorFactory(entityHierarchyIndexes);
     }
 
 
@@ -102,12 +109,8 @@ public class ReportGridService {
             long id,
             IdSelectionOptions idSelectionOptions) {
 
-        // WARNING:  The grid computation is very slow if given a large person tree.
-        //    Therefore we restrict it to EXACT only behaviour.
-        //    If you are changing this please ensure you have tested with realistic test data.
-        IdSelectionOptions opts = modifySelectionOptionsForGrid(idSelectionOptions);
-
         LOG.info("ReportGrid - getting by ID={} SelectionOptions={}", id, idSelectionOptions);
+
         ReportGridDefinition definition = reportGridDao.getGridDefinitionById(id);
 
         if (definition == null) {
@@ -115,6 +118,21 @@ public class ReportGridService {
             return Optional.empty();
         }
 
+        String dataVersion = reportGridDao.getUnloggedDataVersion(
+                genericSelectorFactory.applyForKind(definition.subjectKind(), idSelectionOptions),
+                definition.fixedColumnDefinitions());
+
+        return Optional.ofNullable(reportGridCache.get(
+                id,
+                idSelectionOptions,
+                dataVersion,
+                () -> calculateGrid(id, definition, idSelectionOptions)));
+    }
+
+
+    private ReportGrid calculateGrid(long id,
+                                     ReportGridDefinition definition,
+                                     IdSelectionOptions opts) {
         EntityKind targetKind = definition.subjectKind();
 
         ReportGridInstance instance = mkInstance(id, opts, targetKind);
@@ -122,20 +140,20 @@ public class ReportGridService {
         if (!definition.derivedColumnDefinitions().isEmpty()) {
             Set<ReportGridCell> calculatedCells = ReportGridColumnCalculator.calculate(instance, definition);
 
-            return Optional.of(ImmutableReportGrid
+            return ImmutableReportGrid
                     .builder()
                     .definition(definition)
                     .instance(ImmutableReportGridInstance
                             .copyOf(instance)
                             .withCellData(SetUtilities.union(instance.cellData(), calculatedCells)))
-                    .build());
+                    .build();
         }
 
-        return Optional.of(ImmutableReportGrid
+        return ImmutableReportGrid
                 .builder()
                 .definition(definition)
                 .instance(instance)
-                .build());
+                .build();
     }
 
 
@@ -198,6 +216,7 @@ public class ReportGridService {
                                                         String username) throws InsufficientPrivelegeException {
         checkIsOwner(reportGridId, username);
         reportGridDao.updateColumnDefinitions(reportGridId, updateCommand);
+        reportGridCache.invalidateGrid(reportGridId);
         return reportGridDao.getGridDefinitionById(reportGridId);
     }
 
@@ -241,6 +260,7 @@ public class ReportGridService {
         }
 
         reportGridDao.update(id, updateCommand, username);
+        reportGridCache.invalidateGrid(id);
         return reportGridDao.getGridDefinitionById(id);
     }
 
@@ -266,7 +286,9 @@ public class ReportGridService {
         }
         reportGridMemberService.checkIsOwner(gridId, username);
 
-        return reportGridDao.remove(gridId);
+        boolean removed = reportGridDao.remove(gridId);
+        reportGridCache.invalidateGrid(gridId);
+        return removed;
     }
 
 
@@ -306,7 +328,10 @@ public class ReportGridService {
                 .derivedColumnDefinitions(gridToClone.derivedColumnDefinitions())
                 .build();
 
-        newGrid.id().ifPresent(newGridId -> reportGridDao.updateColumnDefinitions(newGridId, updateColsCmd));
+        newGrid.id().ifPresent(newGridId -> {
+            reportGridDao.updateColumnDefinitions(newGridId, updateColsCmd);
+            reportGridCache.invalidateGrid(newGridId);
+        });
 
         return newGrid;
     }
@@ -2,10 +2,6 @@ package org.finos.waltz.service.report_grid;
 
 import org.finos.waltz.common.ArrayUtilities;
 import org.finos.waltz.common.StringUtilities;
-import org.finos.waltz.model.EntityKind;
-import org.finos.waltz.model.HierarchyQueryScope;
-import org.finos.waltz.model.IdSelectionOptions;
-import org.finos.waltz.model.ImmutableIdSelectionOptions;
 import org.finos.waltz.model.report_grid.*;
 import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
@@ -220,13 +216,4 @@ public class ReportGridUtilities {
                 .trim();
     }
 
-
-    public static IdSelectionOptions modifySelectionOptionsForGrid(IdSelectionOptions idSelectionOptions) {
-        return idSelectionOptions.entityReference().kind() == EntityKind.PERSON
-                ? ImmutableIdSelectionOptions
-                .copyOf(idSelectionOptions)
-                .withScope(HierarchyQueryScope.EXACT)
-                : idSelectionOptions;
-    }
-
 }
@@ -0,0 +1,128 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.scheduled_job;
+
+import org.finos.waltz.model.scheduled_job.JobKey;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Describes a scheduled job and how it relates to the other jobs.
+ *
+ * <ul>
+ *     <li>dependencies: jobs which must not be pending (runnable) or running when this job starts</li>
+ *     <li>conflicts: jobs which must not run at the same time as this job (e.g. to avoid database deadlocks)</li>
+ * </ul>
+ */
+public class ScheduledJob {
+
+    private final JobKey key;
+    private final Runnable task;
+    private final Set<JobKey> dependencies;
+    private final Set<JobKey> conflicts;
+    private final Duration timeout;
+
+
+    private ScheduledJob(JobKey key,
+                         Runnable task,
+                         Set<JobKey> dependencies,
+                         Set<JobKey> conflicts,
+                         Duration timeout) {
+        this.key = key;
+        this.task = task;
+        this.dependencies = Collections.unmodifiableSet(dependencies);
+        this.conflicts = Collections.unmodifiableSet(conflicts);
+        this.timeout = timeout;
+    }
+
+
+    public static ScheduledJob mkJob(JobKey key, Runnable task, Duration timeout) {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(task, "task cannot be null");
+        checkNotNull(timeout, "timeout cannot be null");
+        checkTrue(!timeout.isNegative() && !timeout.isZero(), "timeout must be positive");
+
+        return new ScheduledJob(
+                key,
+                task,
+                EnumSet.noneOf(JobKey.class),
+                EnumSet.noneOf(JobKey.class),
+                timeout);
+    }
+
+
+    public ScheduledJob dependsOn(JobKey... keys) {
+        Set<JobKey> newDependencies = copy(dependencies);
+        Collections.addAll(newDependencies, keys);
+        return new ScheduledJob(key, task, newDependencies, conflicts, timeout);
+    }
+
+
+    public ScheduledJob conflictsWith(JobKey... keys) {
+        Set<JobKey> newConflicts = copy(conflicts);
+        Collections.addAll(newConflicts, keys);
+        return new ScheduledJob(key, task, dependencies, newConflicts, timeout);
+    }
+
+
+    public JobKey key() {
+        return key;
+    }
+
+
+    public Runnable task() {
+        return task;
+    }
+
+
+    public Set<JobKey> dependencies() {
+        return dependencies;
+    }
+
+
+    public Set<JobKey> conflicts() {
+        return conflicts;
+    }
+
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+
+    @Override
+    public String toString() {
+        return "ScheduledJob{" + key + '}';
+    }
+
+
+    private static Set<JobKey> copy(Set<JobKey> keys) {
+        return keys.isEmpty()
+                ? EnumSet.noneOf(JobKey.class)
+                : EnumSet.copyOf(keys);
+    }
+
+}
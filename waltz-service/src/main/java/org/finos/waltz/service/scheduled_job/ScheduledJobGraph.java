@@ -0,0 +1,176 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.scheduled_job;
+
+import org.finos.waltz.model.scheduled_job.JobKey;
+import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * The set of scheduled jobs, arranged as a directed acyclic graph of
+ * dependencies.  Conflicts are symmetric, if job A conflicts with job B then
+ * B will never be started whilst A is running.
+ */
+public class ScheduledJobGraph {
+
+    private final Map<JobKey, ScheduledJob> jobsByKey = new LinkedHashMap<>();
+    private final Map<JobKey, Set<JobKey>> conflictsByKey = new EnumMap<>(JobKey.class);
+
+
+    public ScheduledJobGraph(Collection<ScheduledJob> jobs) {
+        checkNotNull(jobs, "jobs cannot be null");
+
+        jobs.forEach(job -> {
+            if (jobsByKey.put(job.key(), job) != null) {
+                throw new IllegalArgumentException(format("Job: %s has been defined more than once", job.key()));
+            }
+            conflictsByKey.put(job.key(), EnumSet.noneOf(JobKey.class));
+        });
+
+        jobs.forEach(job -> {
+            job.dependencies().forEach(dep -> {
+                if (!jobsByKey.containsKey(dep)) {
+                    throw new IllegalArgumentException(format("Job: %s depends on undefined job: %s", job.key(), dep));
+                }
+            });
+            job.conflicts().forEach(conflict -> {
+                if (!jobsByKey.containsKey(conflict)) {
+                    throw new IllegalArgumentException(format("Job: %s conflicts with undefined job: %s", job.key(), conflict));
+                }
+                conflictsByKey.get(job.key()).add(conflict);
+                conflictsByKey.get(conflict).add(job.key());
+            });
+        });
+
+        findCycle().ifPresent(cycle -> {
+            throw new IllegalArgumentException(format("Scheduled job dependencies contain a cycle involving: %s", cycle));
+        });
+    }
+
+
+    public Collection<ScheduledJob> jobs() {
+        return jobsByKey.values();
+    }
+
+
+    public Optional<ScheduledJob> find(JobKey key) {
+        return Optional.ofNullable(jobsByKey.get(key));
+    }
+
+
+    /**
+     * Determines which jobs may be started now.  A job is ready if:
+     * <ul>
+     *     <li>it is runnable and not already running</li>
+     *     <li>none of its dependencies are runnable or running</li>
+     *     <li>none of its conflicting jobs are running (or selected to start)</li>
+     * </ul>
+     *
+     * @param statuses  current lifecycle status of the jobs (as stored in the database)
+     * @param runningLocally  jobs currently being run by this instance
+     * @param limit  max number of jobs to return
+     * @return jobs to start, in definition order
+     */
+    public List<ScheduledJob> findReady(Map<JobKey, JobLifecycleStatus> statuses,
+                                        Set<JobKey> runningLocally,
+                                        int limit) {
+        Set<JobKey> running = EnumSet.noneOf(JobKey.class);
+        Set<JobKey> pending = EnumSet.noneOf(JobKey.class);
+        running.addAll(runningLocally);
+
+        statuses.forEach((key, status) -> {
+            if (status == JobLifecycleStatus.RUNNING) {
+                running.add(key);
+            } else if (status == JobLifecycleStatus.RUNNABLE && !runningLocally.contains(key)) {
+                pending.add(key);
+            }
+        });
+
+        List<ScheduledJob> ready = new ArrayList<>();
+        for (ScheduledJob job : jobsByKey.values()) {
+            if (ready.size() >= limit) {
+                break;
+            }
+
+            boolean isReady = pending.contains(job.key())
+                    && job.dependencies().stream().noneMatch(d -> pending.contains(d) || running.contains(d))
+                    && conflictsByKey.get(job.key()).stream().noneMatch(running::contains);
+
+            if (isReady) {
+                ready.add(job);
+                running.add(job.key());
+            }
+        }
+
+        return ready;
+    }
+
+
+    private Optional<JobKey> findCycle() {
+        Map<JobKey, Integer> remainingDependencies = new EnumMap<>(JobKey.class);
+        jobsByKey.values().forEach(job -> remainingDependencies.put(job.key(), job.dependencies().size()));
+
+        List<JobKey> resolvable = new ArrayList<>();
+        remainingDependencies.forEach((key, count) -> {
+            if (count == 0) {
+                resolvable.add(key);
+            }
+        });
+
+        int resolvedCount = 0;
+        while (!resolvable.isEmpty()) {
+            JobKey resolved = resolvable.remove(resolvable.size() - 1);
+            resolvedCount++;
+            jobsByKey.values()
+                    .stream()
+                    .filter(job -> job.dependencies().contains(resolved))
+                    .forEach(job -> {
+                        int remaining = remainingDependencies.merge(job.key(), -1, Integer::sum);
+                        if (remaining == 0) {
+                            resolvable.add(job.key());
+                        }
+                    });
+        }
+
+        if (resolvedCount == jobsByKey.size()) {
+            return Optional.empty();
+        }
+
+        return remainingDependencies
+                .entrySet()
+                .stream()
+                .filter(e -> e.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
+
+}
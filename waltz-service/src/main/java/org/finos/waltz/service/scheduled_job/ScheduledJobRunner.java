@@ -0,0 +1,235 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.scheduled_job;
+
+import org.finos.waltz.data.scheduled_job.ScheduledJobDao;
+import org.finos.waltz.model.scheduled_job.JobKey;
+import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
+import org.finos.waltz.model.scheduled_job.JobRunOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+
+
+/**
+ * Runs the jobs of a {@link ScheduledJobGraph} on a bounded pool.
+ *
+ * Each call to {@link #dispatch()} starts every job which is ready (see
+ * {@link ScheduledJobGraph#findReady(Map, Set, int)}), up to the free
+ * capacity of the pool.  Whenever a job finishes the runner dispatches
+ * again, so dependent jobs start as soon as their dependencies complete.
+ *
+ * Jobs which exceed their timeout have the run recorded as timed out and
+ * are interrupted.  Until the interrupted task actually stops the job stays
+ * marked as running, so it (and anything it conflicts with) is not started
+ * again while the old run may still be touching the database.  Its thread
+ * is likewise only considered free once the job stops.
+ */
+public class ScheduledJobRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScheduledJobRunner.class);
+
+    private final ScheduledJobGraph graph;
+    private final ScheduledJobDao scheduledJobDao;
+    private final ExecutorService jobPool;
+    private final ScheduledExecutorService watchdog;
+    private final int parallelism;
+
+    private final Set<JobKey> runningLocally = EnumSet.noneOf(JobKey.class);
+    private final AtomicInteger busyThreads = new AtomicInteger();
+
+
+    /**
+     * @param jobPool  pool used to run the jobs, should have at least <code>parallelism</code> threads
+     * @param watchdog  used to enforce job timeouts
+     */
+    public ScheduledJobRunner(ScheduledJobGraph graph,
+                              ScheduledJobDao scheduledJobDao,
+                              ExecutorService jobPool,
+                              ScheduledExecutorService watchdog,
+                              int parallelism) {
+        checkNotNull(graph, "graph cannot be null");
+        checkNotNull(scheduledJobDao, "scheduledJobDao cannot be null");
+        checkNotNull(jobPool, "jobPool cannot be null");
+        checkNotNull(watchdog, "watchdog cannot be null");
+        checkTrue(parallelism > 0, "parallelism must be positive");
+
+        this.graph = graph;
+        this.scheduledJobDao = scheduledJobDao;
+        this.jobPool = jobPool;
+        this.watchdog = watchdog;
+        this.parallelism = parallelism;
+    }
+
+
+    public synchronized void dispatch() {
+        int capacity = parallelism - busyThreads.get();
+        if (capacity <= 0 || jobPool.isShutdown()) {
+            return;
+        }
+
+        Map<JobKey, JobLifecycleStatus> statuses = scheduledJobDao.findJobStatuses();
+        List<ScheduledJob> readyJobs = graph.findReady(statuses, runningLocally, capacity);
+
+        readyJobs.forEach(job -> {
+            if (scheduledJobDao.markJobAsRunning(job.key())) {
+                start(job);
+            }
+        });
+    }
+
+
+    public synchronized Set<JobKey> findRunningJobs() {
+        return EnumSet.copyOf(runningLocally);
+    }
+
+
+    /**
+     * Stops the pools used to run the jobs.  Running jobs are interrupted
+     * and no further jobs will be dispatched.
+     */
+    public void shutdown() {
+        LOG.info("Shutting down scheduled job runner");
+        watchdog.shutdownNow();
+        jobPool.shutdownNow();
+    }
+
+
+    private void start(ScheduledJob job) {
+        runningLocally.add(job.key());
+        busyThreads.incrementAndGet();
+
+        AtomicBoolean started = new AtomicBoolean(false);
+        AtomicBoolean finished = new AtomicBoolean(false);
+        LocalDateTime startedAt = nowUtc();
+        long startNanos = System.nanoTime();
+
+        LOG.info("Starting job: {}", job.key());
+
+        Future<?> future = jobPool.submit(() -> {
+            if (!started.compareAndSet(false, true)) {
+                return; // timed out before a thread became available
+            }
+
+            Thread thread = Thread.currentThread();
+            String originalName = thread.getName();
+            thread.setName("WaltzScheduledJob-" + job.key());
+
+            JobRunOutcome outcome = JobRunOutcome.COMPLETED;
+            try {
+                job.task().run();
+            } catch (Exception e) {
+                LOG.error("Failed to run job: " + job.key(), e);
+                outcome = JobRunOutcome.ERRORED;
+            } finally {
+                thread.setName(originalName);
+                busyThreads.decrementAndGet();
+            }
+
+            if (finished.compareAndSet(false, true)) {
+                recordRun(job, startedAt, startNanos, outcome);
+                release(job, outcome == JobRunOutcome.COMPLETED
+                        ? JobLifecycleStatus.COMPLETED
+                        : JobLifecycleStatus.ERRORED);
+            } else {
+                // the run was already recorded as timed out by the watchdog
+                LOG.warn("Job: {} finished after exceeding its timeout", job.key());
+                release(job, JobLifecycleStatus.ERRORED);
+            }
+        });
+
+        watchdog.schedule(
+                () -> {
+                    if (!finished.compareAndSet(false, true)) {
+                        return;
+                    }
+
+                    LOG.error("Job: {} exceeded its timeout of {}", job.key(), job.timeout());
+                    recordRun(job, startedAt, startNanos, JobRunOutcome.TIMED_OUT);
+
+                    if (started.compareAndSet(false, true)) {
+                        // never got a thread, nothing is running so release straight away
+                        future.cancel(false);
+                        busyThreads.decrementAndGet();
+                        release(job, JobLifecycleStatus.ERRORED);
+                    } else {
+                        // the job keeps blocking its conflicts until the task itself stops
+                        LOG.error("Interrupting job: {}", job.key());
+                        future.cancel(true);
+                    }
+                },
+                job.timeout().toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+
+    private void recordRun(ScheduledJob job,
+                           LocalDateTime startedAt,
+                           long startNanos,
+                           JobRunOutcome outcome) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        LOG.info("Job: {} finished with outcome: {} in {}ms", job.key(), outcome, durationMillis);
+
+        try {
+            scheduledJobDao.recordRun(job.key(), startedAt, durationMillis, outcome);
+        } catch (Exception e) {
+            LOG.error("Failed to record run of job: " + job.key(), e);
+        }
+    }
+
+
+    private void release(ScheduledJob job,
+                         JobLifecycleStatus status) {
+        try {
+            scheduledJobDao.updateJobStatus(job.key(), status);
+        } catch (Exception e) {
+            LOG.error("Failed to update status of job: " + job.key(), e);
+        }
+
+        synchronized (this) {
+            runningLocally.remove(job.key());
+            dispatchQuietly();
+        }
+    }
+
+
+    private void dispatchQuietly() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            LOG.error("Failed to dispatch scheduled jobs", e);
+        }
+    }
+
+}
@@ -23,44 +23,41 @@ import org.finos.waltz.common.ExcludeFromIntegrationTesting;
 import org.finos.waltz.data.scheduled_job.ScheduledJobDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.scheduled_job.JobKey;
-import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
 import org.finos.waltz.service.attestation.AttestationRunService;
 import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
 import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
+import org.finos.waltz.service.involvement.InvolvementService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.logical_flow.LogicalFlowStatsService;
 import org.finos.waltz.service.physical_specification_data_type.PhysicalSpecDataTypeService;
 import org.finos.waltz.service.report_grid.ReportGridFilterViewService;
 import org.finos.waltz.service.survey.SurveyInstanceService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.function.Consumer;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.service.scheduled_job.ScheduledJob.mkJob;
 
 @ExcludeFromIntegrationTesting
 @Service
-public class ScheduledJobService {
+public class ScheduledJobService implements DisposableBean {
 
-    private static final Logger LOG = LoggerFactory.getLogger(ScheduledJobService.class);
+    private static final Duration SHORT_JOB_TIMEOUT = Duration.ofMinutes(30);
 
-    private final DataTypeUsageService dataTypeUsageService;
-    private final EntityHierarchyService entityHierarchyService;
-    private final FlowClassificationRuleService flowClassificationRuleService;
-    private final LogicalFlowService logicalFlowService;
-    private final PhysicalSpecDataTypeService physicalSpecDataTypeService;
     private final ScheduledJobDao scheduledJobDao;
-    private final AttestationRunService attestationRunService;
-    private final SurveyInstanceService surveyInstanceService;
-
-    private final ReportGridFilterViewService reportGridFilterViewService;
+    private final ScheduledJobRunner runner;
 
 
     @Autowired
@@ -68,100 +65,155 @@ public class ScheduledJobService {
                                EntityHierarchyService entityHierarchyService,
                                FlowClassificationRuleService flowClassificationRuleService,
                                LogicalFlowService logicalFlowService,
+                               LogicalFlowStatsService logicalFlowStatsService,
                                PhysicalSpecDataTypeService physicalSpecDataTypeService,
                                ScheduledJobDao scheduledJobDao,
                                AttestationRunService attestationRunService,
                                SurveyInstanceService surveyInstanceService,
-                               ReportGridFilterViewService reportGridFilterViewService) {
+                               ReportGridFilterViewService reportGridFilterViewService,
+                               InvolvementService involvementService,
+                               @Value("${waltz.scheduled_job.parallelism:4}") int parallelism,
+                               @Value("${waltz.scheduled_job.timeout_minutes:120}") int timeoutMinutes) {
 
         checkNotNull(dataTypeUsageService, "dataTypeUsageService cannot be null");
+        checkNotNull(entityHierarchyService, "entityHierarchyService cannot be null");
         checkNotNull(flowClassificationRuleService, "flowClassificationRuleService cannot be null");
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
+        checkNotNull(logicalFlowStatsService, "logicalFlowStatsService cannot be null");
         checkNotNull(physicalSpecDataTypeService, "physicalSpecDataTypeService cannot be null");
         checkNotNull(scheduledJobDao, "scheduledJobDao cannot be null");
         checkNotNull(attestationRunService, "attestationRunService cannot be null");
         checkNotNull(reportGridFilterViewService, "reportGridFilterViewService cannot be null");
         checkNotNull(surveyInstanceService, "surveyInstanceService cannot be null");
+        checkNotNull(involvementService, "involvementService cannot be null");
+
+        Duration timeout = Duration.ofMinutes(timeoutMinutes);
+
+        ScheduledJobGraph graph = new ScheduledJobGraph(asList(
+                mkJob(JobKey.HIERARCHY_REBUILD_CHANGE_INITIATIVE,
+                        () -> entityHierarchyService.buildIncrementallyFor(EntityKind.CHANGE_INITIATIVE),
+                        SHORT_JOB_TIMEOUT),
+
+                mkJob(JobKey.HIERARCHY_REBUILD_DATA_TYPE,
+                        () -> entityHierarchyService.buildIncrementallyFor(EntityKind.DATA_TYPE),
+                        SHORT_JOB_TIMEOUT),
+
+                mkJob(JobKey.HIERARCHY_REBUILD_ENTITY_STATISTICS,
+                        () -> entityHierarchyService.buildIncrementallyFor(EntityKind.ENTITY_STATISTIC),
+                        SHORT_JOB_TIMEOUT),
+
+                mkJob(JobKey.HIERARCHY_REBUILD_MEASURABLE,
+                        () -> entityHierarchyService.buildIncrementallyFor(EntityKind.MEASURABLE),
+                        SHORT_JOB_TIMEOUT),
+
+                mkJob(JobKey.HIERARCHY_REBUILD_ORG_UNIT,
+                        () -> entityHierarchyService.buildIncrementallyFor(EntityKind.ORG_UNIT),
+                        SHORT_JOB_TIMEOUT),
+
+                mkJob(JobKey.HIERARCHY_REBUILD_PERSON,
+                        () -> entityHierarchyService.buildFor(EntityKind.PERSON),
+                        SHORT_JOB_TIMEOUT),
+
+                mkJob(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
+                        physicalSpecDataTypeService::rippleDataTypesToLogicalFlows,
+                        timeout)
+                        .dependsOn(JobKey.HIERARCHY_REBUILD_DATA_TYPE)
+                        .conflictsWith(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION),
+
+                mkJob(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION,
+                        dataTypeUsageService::recalculateForChangedEntities,
+                        timeout)
+                        .dependsOn(JobKey.HIERARCHY_REBUILD_DATA_TYPE),
+
+                mkJob(JobKey.AUTH_SOURCE_RECALC_FLOW_RATINGS,
+                        flowClassificationRuleService::fastRecalculateAllFlowRatings,
+                        timeout)
+                        .dependsOn(
+                                JobKey.HIERARCHY_REBUILD_DATA_TYPE,
+                                JobKey.HIERARCHY_REBUILD_ORG_UNIT,
+                                JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL),
+
+                mkJob(JobKey.LOGICAL_FLOW_CLEANUP_ORPHANS,
+                        logicalFlowService::cleanupOrphans,
+                        SHORT_JOB_TIMEOUT)
+                        .conflictsWith(
+                                JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
+                                JobKey.AUTH_SOURCE_RECALC_FLOW_RATINGS),
+
+                mkJob(JobKey.LOGICAL_FLOW_STATS_REBUILD,
+                        logicalFlowStatsService::recalculateAll,
+                        timeout)
+                        .dependsOn(
+                                JobKey.HIERARCHY_REBUILD_ORG_UNIT,
+                                JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL)
+                        .conflictsWith(JobKey.LOGICAL_FLOW_CLEANUP_ORPHANS),
+
+                mkJob(JobKey.ATTESTATION_ISSUE_INSTANCES,
+                        attestationRunService::issueInstancesForPendingRuns,
+                        timeout)
+                        .dependsOn(
+                                JobKey.HIERARCHY_REBUILD_MEASURABLE,
+                                JobKey.HIERARCHY_REBUILD_ORG_UNIT),
+
+                mkJob(JobKey.SURVEY_INSTANCE_REASSIGN_RECIPIENTS,
+                        surveyInstanceService::reassignRecipients,
+                        SHORT_JOB_TIMEOUT),
+
+                mkJob(JobKey.SURVEY_INSTANCE_REASSIGN_OWNERS,
+                        surveyInstanceService::reassignOwners,
+                        SHORT_JOB_TIMEOUT),
+
+                mkJob(JobKey.REPORT_GRID_RECALCULATE_APP_GROUPS_FROM_FILTERS,
+                        reportGridFilterViewService::generateAppGroupsFromFilter,
+                        timeout)
+                        .dependsOn(
+                                JobKey.HIERARCHY_REBUILD_DATA_TYPE,
+                                JobKey.HIERARCHY_REBUILD_MEASURABLE,
+                                JobKey.HIERARCHY_REBUILD_ORG_UNIT),
+
+                mkJob(JobKey.PERSON_APPLICATION_CLOSURE_REBUILD,
+                        involvementService::rebuildPersonApplicationClosure,
+                        SHORT_JOB_TIMEOUT)
+                        .dependsOn(JobKey.HIERARCHY_REBUILD_PERSON)));
+
+        ExecutorService jobPool = Executors.newFixedThreadPool(parallelism, mkThreadFactory("WaltzScheduledJobPool"));
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(mkThreadFactory("WaltzScheduledJobWatchdog"));
 
-        this.dataTypeUsageService = dataTypeUsageService;
-        this.entityHierarchyService = entityHierarchyService;
-        this.flowClassificationRuleService = flowClassificationRuleService;
-        this.logicalFlowService = logicalFlowService;
-        this.physicalSpecDataTypeService = physicalSpecDataTypeService;
         this.scheduledJobDao = scheduledJobDao;
-        this.attestationRunService = attestationRunService;
-        this.reportGridFilterViewService = reportGridFilterViewService;
-        this.surveyInstanceService = surveyInstanceService;
+        this.runner = new ScheduledJobRunner(graph, scheduledJobDao, jobPool, watchdog, parallelism);
     }
 
 
     @Scheduled(fixedRate = 300_000)
     public void run() {
-        Thread.currentThread().setName("WaltzScheduledJobService");
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_CHANGE_INITIATIVE,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.CHANGE_INITIATIVE));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_DATA_TYPE,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.DATA_TYPE));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_ENTITY_STATISTICS,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.ENTITY_STATISTIC));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_MEASURABLE,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.MEASURABLE));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_ORG_UNIT,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.ORG_UNIT));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_PERSON,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.PERSON));
-
-        runIfNeeded(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
-                (jk) -> physicalSpecDataTypeService.rippleDataTypesToLogicalFlows(),
-                asSet(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION));
-
-        runIfNeeded(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION,
-                (jk) -> dataTypeUsageService.recalculateForAllApplications(),
-                asSet(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL));
-
-        runIfNeeded(JobKey.AUTH_SOURCE_RECALC_FLOW_RATINGS,
-                (jk) -> flowClassificationRuleService.fastRecalculateAllFlowRatings());
-
-        runIfNeeded(JobKey.LOGICAL_FLOW_CLEANUP_ORPHANS,
-                (jk) -> logicalFlowService.cleanupOrphans());
-
-        runIfNeeded(JobKey.ATTESTATION_ISSUE_INSTANCES,
-                (jk) -> attestationRunService.issueInstancesForPendingRuns());
-
-        runIfNeeded(JobKey.SURVEY_INSTANCE_REASSIGN_RECIPIENTS,
-                (jk) -> surveyInstanceService.reassignRecipients());
+        runner.dispatch();
+    }
 
-        runIfNeeded(JobKey.SURVEY_INSTANCE_REASSIGN_OWNERS,
-                (jk) -> surveyInstanceService.reassignOwners());
 
-        runIfNeeded(JobKey.REPORT_GRID_RECALCULATE_APP_GROUPS_FROM_FILTERS,
-                (jk) -> reportGridFilterViewService.generateAppGroupsFromFilter());
+    /**
+     * Periodically rebuilds the person to application closure, as involvements
+     * and people are typically loaded directly into the database.
+     */
+    @Scheduled(initialDelayString = "${waltz.person_application_closure.rebuild_ms:3600000}",
+               fixedDelayString = "${waltz.person_application_closure.rebuild_ms:3600000}")
+    public void requestPersonApplicationClosureRebuild() {
+        scheduledJobDao.markJobAsRunnable(JobKey.PERSON_APPLICATION_CLOSURE_REBUILD);
     }
 
 
-    private void runIfNeeded(JobKey jobKey, Consumer<JobKey> jobExecutor) {
-        runIfNeeded(jobKey, jobExecutor, Collections.emptySet());
+    @Override
+    public void destroy() {
+        runner.shutdown();
     }
 
-    private void runIfNeeded(JobKey jobKey, Consumer<JobKey> jobExecutor, Set<JobKey> deadlockJobKeys) {
-        try {
-            if (scheduledJobDao.isJobRunnable(jobKey)
-                    && !scheduledJobDao.anyJobsRunning(deadlockJobKeys)
-                    && scheduledJobDao.markJobAsRunning(jobKey)) {
-                jobExecutor
-                        .andThen((jk) -> scheduledJobDao.updateJobStatus(jk, JobLifecycleStatus.COMPLETED))
-                        .accept(jobKey);
-            }
-        } catch (Exception e) {
-            LOG.error("Failed to run job: " + jobKey, e);
-            scheduledJobDao.updateJobStatus(jobKey, JobLifecycleStatus.ERRORED);
-        }
-    }
 
+    private static ThreadFactory mkThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread t = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
 
 }
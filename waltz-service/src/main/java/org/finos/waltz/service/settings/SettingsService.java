@@ -20,47 +20,78 @@ package org.finos.waltz.service.settings;
 
 import org.finos.waltz.common.CollectionUtilities;
 import org.finos.waltz.common.MapUtilities;
+import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.settings.SettingsDao;
 import org.finos.waltz.model.settings.Setting;
 import org.finos.waltz.model.settings.UpdateSettingsCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.ensureNotNull;
 
 
 @Service
 public class SettingsService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SettingsService.class);
+
     private final SettingsDao settingsDao;
 
     public static final String DEFAULT_ROLES_KEY = "server.authentication.roles.default";
     public static final String ALLOW_COST_EXPORTS_KEY = "feature.data-extractor.entity-cost.enabled";
 
     private final Map<String, Setting> overridesByName;
+    private final boolean cacheEnabled;
+
+    /**
+     * Immutable snapshot of the settings table, replaced wholesale on refresh so
+     * readers never need to lock.  Null until first loaded.
+     */
+    private volatile Map<String, Setting> settingsByName = null;
 
 
     /**
      * Setting service allows the settings table to be interrogated.  For dev purposes then a
      * collection of overrides may be given, useful when debugging a shared database instance and
-     * you do not wish to change the values in the settings table
+     * you do not wish to change the values in the settings table.
+     *
+     * Settings are served from an in-memory snapshot of the table which is reloaded after
+     * every update and periodically (<code>waltz.settings.cache.refresh_ms</code>) to pick up
+     * changes made directly in the database.
+     *
      * @param settingsDao
      * @param overrides
+     * @param cacheEnabled  if false every lookup queries the settings table
      */
     @Autowired
-    public SettingsService(SettingsDao settingsDao, Collection<Setting> overrides) {
+    public SettingsService(SettingsDao settingsDao,
+                           Collection<Setting> overrides,
+                           @Value("${waltz.settings.cache.enabled:true}") boolean cacheEnabled) {
+        checkNotNull(settingsDao, "settingsDao cannot be null");
         this.settingsDao = settingsDao;
         this.overridesByName = MapUtilities.indexBy(s -> s.name(), ensureNotNull(overrides));
+        this.cacheEnabled = cacheEnabled;
     }
 
 
     public Collection<Setting> findAll() {
+        Collection<Setting> settings = cacheEnabled
+                ? getSettingsByName().values()
+                : settingsDao.findAll();
+
         return CollectionUtilities.map(
-                settingsDao.findAll(),
+                settings,
                 s -> Optional
                         .ofNullable(overridesByName.get(s.name()))
                         .orElse(s));
@@ -68,9 +99,13 @@ public class SettingsService {
 
 
     public Setting getByName(String name) {
-        return Optional
-                .ofNullable(overridesByName.get(name))
-                .orElse(settingsDao.getByName(name));
+        Setting override = overridesByName.get(name);
+        if (override != null) {
+            return override;
+        }
+        return cacheEnabled
+                ? getSettingsByName().get(name)
+                : settingsDao.getByName(name);
     }
 
     /**
@@ -87,11 +122,64 @@ public class SettingsService {
 
 
     public Map<String, String> indexByPrefix(String prefix) {
-        return settingsDao.indexByPrefix(prefix);
+        if (!cacheEnabled) {
+            return settingsDao.indexByPrefix(prefix);
+        }
+
+        return getSettingsByName()
+                .values()
+                .stream()
+                .filter(s -> s.name().startsWith(prefix))
+                .filter(s -> !s.restricted())
+                .collect(toMap(
+                        Setting::name,
+                        s -> StringUtilities.mkSafe(s.value().orElse(null)).trim()));
     }
 
 
     public int update(UpdateSettingsCommand cmd) {
-        return settingsDao.update(cmd);
+        int rc = settingsDao.update(cmd);
+        if (cacheEnabled) {
+            refresh();
+        }
+        return rc;
     }
+
+
+    /**
+     * Reloads the settings snapshot.  Also runs when the scheduler starts, so the
+     * snapshot is normally loaded before the first request.
+     */
+    @Scheduled(fixedRateString = "${waltz.settings.cache.refresh_ms:60000}")
+    public void refresh() {
+        if (!cacheEnabled) {
+            return;
+        }
+
+        try {
+            load();
+        } catch (Exception e) {
+            LOG.warn("Could not refresh settings, continuing to use previous values", e);
+        }
+    }
+
+
+    // -- helpers ---
+
+    private Map<String, Setting> getSettingsByName() {
+        Map<String, Setting> current = settingsByName;
+        return current == null
+                ? load()
+                : current;
+    }
+
+
+    private synchronized Map<String, Setting> load() {
+        Map<String, Setting> loaded = Collections.unmodifiableMap(MapUtilities.indexBy(
+                Setting::name,
+                settingsDao.findAll()));
+        settingsByName = loaded;
+        return loaded;
+    }
+
 }
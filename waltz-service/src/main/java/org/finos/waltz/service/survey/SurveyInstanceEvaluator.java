@@ -5,7 +5,10 @@ import org.finos.waltz.data.survey.SurveyQuestionDao;
 import org.finos.waltz.data.survey.SurveyQuestionResponseDao;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.survey.*;
+import org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateCache;
 import org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateEvaluator;
+import org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateSubjectFacts;
+import org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateSubjectFactsLoader;
 import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -18,6 +21,7 @@ import java.util.stream.Collectors;
 
 import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.service.survey.SurveyInstanceUtilities.getVal;
+import static org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateEvaluator.hasInclusionPredicates;
 
 @Service
 public class SurveyInstanceEvaluator {
@@ -26,6 +30,7 @@ public class SurveyInstanceEvaluator {
     private final SurveyQuestionDao questionDao;
     private final SurveyInstanceDao instanceDao;
     private final SurveyQuestionResponseDao responseDao;
+    private final QuestionPredicateCache predicateCache = new QuestionPredicateCache();
 
 
     @Autowired
@@ -44,10 +49,10 @@ public class SurveyInstanceEvaluator {
         List<SurveyQuestion> qs = loadQuestions(surveyInstanceId);
         Map<Long, SurveyQuestionResponse> responsesByQuestionId = loadResponses(surveyInstanceId);
 
-        SurveyInstance instance = instanceDao.getById(surveyInstanceId);
-        EntityReference subjectRef = instance.surveyEntity();
+        List<SurveyQuestion> activeQs = hasInclusionPredicates(qs)
+                ? evalInclusionPredicates(surveyInstanceId, qs, responsesByQuestionId)
+                : qs;
 
-        List<SurveyQuestion> activeQs = QuestionPredicateEvaluator.eval(dsl, qs, subjectRef, responsesByQuestionId);
         Set<Long> missingMandatoryQuestions = determineMissingMandatoryQuestions(activeQs, responsesByQuestionId);
 
         return ImmutableSurveyInstanceFormDetails.builder()
@@ -57,6 +62,27 @@ public class SurveyInstanceEvaluator {
     }
 
 
+    /**
+     * Drops any compiled inclusion predicates held for the template, should be
+     * called when the template's questions change.
+     */
+    public void invalidateTemplate(long templateId) {
+        predicateCache.invalidate(templateId);
+    }
+
+
+    private List<SurveyQuestion> evalInclusionPredicates(long surveyInstanceId,
+                                                         List<SurveyQuestion> qs,
+                                                         Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
+        SurveyInstance instance = instanceDao.getById(surveyInstanceId);
+        EntityReference subjectRef = instance.surveyEntity();
+
+        QuestionPredicateSubjectFacts subjectFacts = QuestionPredicateSubjectFactsLoader.load(dsl, subjectRef);
+
+        return QuestionPredicateEvaluator.eval(predicateCache, subjectFacts, qs, responsesByQuestionId);
+    }
+
+
     private static Set<Long> determineMissingMandatoryQuestions(List<SurveyQuestion> activeQs,
                                                                 Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
         return activeQs
@@ -67,7 +67,9 @@ public class SurveyQuestionService {
     public long create(SurveyQuestion surveyQuestion) {
         checkNotNull(surveyQuestion, "surveyQuestion cannot be null");
 
-        return surveyQuestionDao.create(surveyQuestion);
+        long id = surveyQuestionDao.create(surveyQuestion);
+        evaluator.invalidateTemplate(surveyQuestion.surveyTemplateId());
+        return id;
     }
 
 
@@ -75,7 +77,9 @@ public class SurveyQuestionService {
         checkNotNull(surveyQuestion, "surveyQuestion cannot be null");
         checkTrue(surveyQuestion.id().isPresent(), "question id cannot be null");
 
-        return surveyQuestionDao.update(surveyQuestion);
+        int rc = surveyQuestionDao.update(surveyQuestion);
+        evaluator.invalidateTemplate(surveyQuestion.surveyTemplateId());
+        return rc;
     }
 
 
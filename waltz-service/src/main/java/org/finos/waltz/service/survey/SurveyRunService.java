@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.survey;
 
+import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
@@ -31,6 +32,9 @@ import org.finos.waltz.model.survey.*;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -45,13 +49,18 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
 import static org.finos.waltz.common.ListUtilities.map;
+import static org.finos.waltz.common.ListUtilities.partition;
 import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.*;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class SurveyRunService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SurveyRunService.class);
+    private static final int INSTANCE_BATCH_SIZE = 1000;
+
     private final ChangeLogService changeLogService;
     private final InvolvementDao involvementDao;
     private final PersonDao personDao;
@@ -354,7 +363,11 @@ public class SurveyRunService {
 
         List<SurveyInstanceOwner> surveyInstanceOwners = generateSurveyInstanceOwners(command);
 
-        Map<SurveyInstance, Collection<SurveyInstanceOwner>> surveyOwnersByInstance = groupBy(surveyInstanceOwners, SurveyInstanceOwner::surveyInstance);
+        Map<EntityReference, Set<Long>> ownerIdsBySubject = surveyInstanceOwners
+                .stream()
+                .collect(groupingBy(
+                        o -> toSubjectKey(o.surveyInstance()),
+                        Collectors.mapping(o -> o.person().id().get(), Collectors.toSet())));
 
         Map<SurveyInstance, List<SurveyInstanceRecipient>> instancesAndRecipientsToSave = surveyInstanceRecipients
                 .stream()
@@ -363,68 +376,91 @@ public class SurveyRunService {
                         toList()
                 ));
 
+        // build the instances for each subject in memory, all instances for a subject must be written together
+        List<List<Tuple2<SurveyInstanceCreateCommand, SurveyInstanceRecipientsAndOwners>>> instancesBySubject = instancesAndRecipientsToSave
+                .entrySet()
+                .stream()
+                .map(e -> {
+                    SurveyInstanceCreateCommand createCommand = mkInstanceCreateCommand(e.getKey());
+                    Set<Long> recipientIds = SetUtilities.map(e.getValue(), r -> r.person().id().get());
+                    Set<Long> ownerIds = union(
+                            asSet(surveyRun.ownerId()),
+                            ownerIdsBySubject.getOrDefault(toSubjectKey(e.getKey()), emptySet()));
+
+                    return surveyRun.issuanceKind() == SurveyIssuanceKind.GROUP
+                            // one instance per group
+                            ? ListUtilities.asList(tuple(createCommand, mkRecipientsAndOwners(recipientIds, ownerIds)))
+                            // one instance for each individual
+                            : map(recipientIds, recipientId -> tuple(createCommand, mkRecipientsAndOwners(asSet(recipientId), ownerIds)));
+                })
+                .collect(toList());
+
         // delete existing instances and recipients
         deleteSurveyInstancesAndRecipients(command.surveyRunId());
 
         // insert new instances and recipients
-        instancesAndRecipientsToSave.forEach(
-                (k,v) -> {
-                    if (surveyRun.issuanceKind() == SurveyIssuanceKind.GROUP) {
-                        // one instance per group
-                        long instanceId = createSurveyInstance(k);
-                        createSurveyInstanceOwner(instanceId, surveyRun.ownerId());
-                        Collection<SurveyInstanceOwner> owners = surveyOwnersByInstance.get(k);
-                        fromCollection(owners).forEach(o -> createSurveyInstanceOwner(instanceId, o.person().id().get()));
-                        v.forEach(r -> createSurveyInstanceRecipient(instanceId, r));
-                    } else {
-                        // one instance for each individual
-                        v.forEach(r -> {
-                            long instanceId = createSurveyInstance(k);
-                            createSurveyInstanceOwner(instanceId, surveyRun.ownerId());
-                            Collection<SurveyInstanceOwner> owners = surveyOwnersByInstance.get(k);
-                            fromCollection(owners).forEach(o -> createSurveyInstanceOwner(instanceId, o.person().id().get()));
-                            createSurveyInstanceRecipient(instanceId, r);
-                        });
-                    }
-                }
-        );
+        bulkCreateSurveyInstances(command.surveyRunId(), instancesBySubject);
 
         return true;
     }
 
 
+    /**
+     * Writes instances in batches of subjects, each batch in its own transaction,
+     * logging progress as it goes.  If issuance fails part way through the whole
+     * request can simply be re-run as existing instances for the run are removed
+     * first.
+     */
+    private void bulkCreateSurveyInstances(long surveyRunId,
+                                           List<List<Tuple2<SurveyInstanceCreateCommand, SurveyInstanceRecipientsAndOwners>>> instancesBySubject) {
+        int total = instancesBySubject
+                .stream()
+                .mapToInt(List::size)
+                .sum();
+
+        int created = 0;
+
+        for (List<List<Tuple2<SurveyInstanceCreateCommand, SurveyInstanceRecipientsAndOwners>>> batch : partition(instancesBySubject, INSTANCE_BATCH_SIZE)) {
+            created += surveyInstanceDao.bulkCreate(batch
+                    .stream()
+                    .flatMap(List::stream)
+                    .collect(toList()));
+            LOG.info("Survey run: {}, created {} of {} instances", surveyRunId, created, total);
+        }
+    }
+
+
     private void deleteSurveyInstancesAndRecipients(long surveyRunId) {
         surveyInstanceRecipientDao.deleteForSurveyRun(surveyRunId);
         surveyInstanceDao.deleteForSurveyRun(surveyRunId);
     }
 
 
-    private long createSurveyInstance(SurveyInstance surveyInstance) {
-        return surveyInstanceDao
-                .create(ImmutableSurveyInstanceCreateCommand.builder()
-                        .surveyRunId(surveyInstance.surveyRunId())
-                        .entityReference(surveyInstance.surveyEntity())
-                        .status(surveyInstance.status())
-                        .dueDate(surveyInstance.dueDate())
-                        .approvalDueDate(surveyInstance.approvalDueDate())
-                        .owningRole(surveyInstance.owningRole())
-                        .name(surveyInstance.name())
-                        .build());
+    private static SurveyInstanceCreateCommand mkInstanceCreateCommand(SurveyInstance surveyInstance) {
+        return ImmutableSurveyInstanceCreateCommand.builder()
+                .surveyRunId(surveyInstance.surveyRunId())
+                .entityReference(surveyInstance.surveyEntity())
+                .status(surveyInstance.status())
+                .dueDate(surveyInstance.dueDate())
+                .approvalDueDate(surveyInstance.approvalDueDate())
+                .owningRole(surveyInstance.owningRole())
+                .name(surveyInstance.name())
+                .build();
     }
 
 
-    private long createSurveyInstanceRecipient(long surveyInstanceId, SurveyInstanceRecipient surveyInstanceRecipient) {
-        return surveyInstanceRecipientDao.create(ImmutableSurveyInstanceRecipientCreateCommand.builder()
-                .surveyInstanceId(surveyInstanceId)
-                .personId(surveyInstanceRecipient.person().id().get())
-                .build());
+    private static SurveyInstanceRecipientsAndOwners mkRecipientsAndOwners(Set<Long> recipientIds,
+                                                                           Set<Long> ownerIds) {
+        return ImmutableSurveyInstanceRecipientsAndOwners.builder()
+                .recipientPersonIds(recipientIds)
+                .ownerPersonIds(ownerIds)
+                .build();
     }
 
-    private long createSurveyInstanceOwner(long surveyInstanceId, Long ownerId) {
-        return surveyInstanceOwnerDao.create(ImmutableSurveyInstanceOwnerCreateCommand.builder()
-                .surveyInstanceId(surveyInstanceId)
-                .personId(ownerId)
-                .build());
+
+    private static EntityReference toSubjectKey(SurveyInstance surveyInstance) {
+        EntityReference subject = surveyInstance.surveyEntity();
+        return EntityReference.mkRef(subject.kind(), subject.id());
     }
 
 
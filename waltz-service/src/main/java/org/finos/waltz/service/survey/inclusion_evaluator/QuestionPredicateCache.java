@@ -0,0 +1,55 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlExpression;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds compiled inclusion predicates, grouped by survey template.
+ *
+ * Expressions are keyed by their text so an edited question simply compiles
+ * (and caches) its new predicate.  Callers should {@link #invalidate(long)} a
+ * template when its questions change to drop the stale entries.
+ *
+ * Compiled expressions are thread safe, the namespace for each evaluation is
+ * supplied via the context (see {@link QuestionPredicateEvaluator}).
+ */
+public class QuestionPredicateCache {
+
+    private final JexlEngine jexl = new JexlBuilder().create();
+    private final Map<Long, Map<String, JexlExpression>> expressionsByTemplateId = new ConcurrentHashMap<>();
+
+
+    public JexlExpression get(long templateId, String predicate) {
+        return expressionsByTemplateId
+                .computeIfAbsent(templateId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(predicate, jexl::createExpression);
+    }
+
+
+    public void invalidate(long templateId) {
+        expressionsByTemplateId.remove(templateId);
+    }
+
+}
@@ -18,55 +18,69 @@
 
 package org.finos.waltz.service.survey.inclusion_evaluator;
 
-import org.apache.commons.jexl3.*;
-import org.finos.waltz.model.EntityReference;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
 import org.finos.waltz.model.survey.SurveyQuestion;
 import org.finos.waltz.model.survey.SurveyQuestionResponse;
-import org.jooq.DSLContext;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-import static org.finos.waltz.common.MapUtilities.newHashMap;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
+import static org.finos.waltz.common.StringUtilities.notEmpty;
 
 public class QuestionPredicateEvaluator {
 
-    public static List<SurveyQuestion> eval(DSLContext dsl,
-                                     List<SurveyQuestion> qs,
-                                     EntityReference subjectRef,
-                                     Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
+    public static List<SurveyQuestion> eval(QuestionPredicateCache predicateCache,
+                                            QuestionPredicateSubjectFacts subjectFacts,
+                                            List<SurveyQuestion> qs,
+                                            Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
 
-        QuestionBasePredicateNamespace namespace = mkPredicateNameSpace(dsl, qs, subjectRef, responsesByQuestionId);
+        QuestionBasePredicateNamespace namespace = mkPredicateNameSpace(subjectFacts, qs, responsesByQuestionId);
+        JexlContext ctx = new PredicateContext(namespace);
 
-        JexlBuilder builder = new JexlBuilder();
-        JexlEngine jexl = builder
-                .namespaces(newHashMap(null, namespace))
-                .create();
+        Predicate<SurveyQuestion> isIncluded = q -> q
+                .inclusionPredicate()
+                .map(p -> isEmpty(p)
+                        || Boolean.valueOf(String.valueOf(predicateCache
+                            .get(q.surveyTemplateId(), p)
+                            .evaluate(ctx))))
+                .orElse(true);
 
-        namespace.usingEvaluator(jexl);
+        namespace.usingEvaluator(isIncluded);
 
-        List<SurveyQuestion> activeQs = determineActiveQs(qs, jexl);
-
-        return activeQs;
+        return qs
+                .stream()
+                .filter(isIncluded)
+                .collect(Collectors.toList());
     }
 
 
+    public static boolean hasInclusionPredicates(Collection<SurveyQuestion> qs) {
+        return qs
+                .stream()
+                .anyMatch(q -> q
+                        .inclusionPredicate()
+                        .filter(p -> notEmpty(p))
+                        .isPresent());
+    }
 
 
-    private static QuestionBasePredicateNamespace mkPredicateNameSpace(DSLContext dsl, List<SurveyQuestion> qs, EntityReference subjectRef, Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
-        switch (subjectRef.kind()) {
+    private static QuestionBasePredicateNamespace mkPredicateNameSpace(QuestionPredicateSubjectFacts subjectFacts,
+                                                                       List<SurveyQuestion> qs,
+                                                                       Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
+        switch (subjectFacts.subjectRef().kind()) {
             case APPLICATION:
                 return new QuestionAppPredicateNamespace(
-                        dsl,
-                        subjectRef,
+                        subjectFacts,
                         qs,
                         responsesByQuestionId);
             case CHANGE_INITIATIVE:
                 return new QuestionChangeInitiativePredicateNamespace(
-                        dsl,
-                        subjectRef,
+                        subjectFacts,
                         qs,
                         responsesByQuestionId);
             default:
@@ -75,25 +89,26 @@ public class QuestionPredicateEvaluator {
     }
 
 
-    private static List<SurveyQuestion> determineActiveQs(List<SurveyQuestion> qs, JexlEngine jexl) {
-        List<SurveyQuestion> activeQs = qs
-                .stream()
-                .filter(q -> q
-                        .inclusionPredicate()
-                        .map(p -> {
-                            if (isEmpty(p)) {
-                                return true;
-                            } else {
-                                JexlExpression expr = jexl.createExpression(p);
-                                JexlContext jexlCtx = new MapContext();
-                                return Boolean.valueOf(expr.evaluate(jexlCtx).toString());
-                            }
-                        })
-                        .orElse(true))
-                .collect(Collectors.toList());
-        return activeQs;
-    }
+    /**
+     * Supplies the subject specific namespace as the default (unprefixed)
+     * namespace, this lets compiled predicates be shared between evaluations.
+     */
+    private static class PredicateContext extends MapContext implements JexlContext.NamespaceResolver {
+
+        private final QuestionBasePredicateNamespace namespace;
+
+
+        private PredicateContext(QuestionBasePredicateNamespace namespace) {
+            this.namespace = namespace;
+        }
 
 
+        @Override
+        public Object resolveNamespace(String name) {
+            return name == null
+                    ? namespace
+                    : null;
+        }
+    }
 
 }
@@ -0,0 +1,65 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.finos.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The facts about a survey subject which inclusion predicates may refer to.
+ * They are loaded once per evaluation (see {@link QuestionPredicateSubjectFactsLoader})
+ * so the predicate namespaces can answer every call from memory.
+ */
+@Value.Immutable
+public abstract class QuestionPredicateSubjectFacts {
+
+    public abstract EntityReference subjectRef();
+
+    /** e.g. the application kind (IN_HOUSE, EUC etc) */
+    public abstract Optional<String> kind();
+
+    public abstract Optional<String> lifecyclePhase();
+
+
+    @Value.Default
+    public boolean retiring() {
+        return false;
+    }
+
+
+    /** names and external ids of the subject's org unit and all of its ancestors */
+    public abstract Set<String> orgUnitNamesAndExternalIds();
+
+
+    /** usage kinds keyed by the name and code of each data type used (and their ancestors) */
+    public abstract Map<String, Set<String>> dataTypeUsageKinds();
+
+
+    /** rating codes keyed by the name and external id of the assessment definition */
+    public abstract Map<String, String> assessmentRatingCodes();
+
+
+    /** lower cased names of involvement kinds present against the subject */
+    public abstract Set<String> involvementKindNames();
+
+}
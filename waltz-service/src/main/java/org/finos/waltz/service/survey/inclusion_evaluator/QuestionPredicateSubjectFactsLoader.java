@@ -0,0 +1,211 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.schema.tables.DataType;
+import org.finos.waltz.schema.tables.DataTypeUsage;
+import org.finos.waltz.schema.tables.EntityHierarchy;
+import org.finos.waltz.schema.tables.OrganisationalUnit;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.finos.waltz.common.StringUtilities.lower;
+import static org.finos.waltz.schema.Tables.*;
+
+/**
+ * Loads the {@link QuestionPredicateSubjectFacts} for a survey subject with a
+ * small, fixed number of queries, regardless of how many predicates will
+ * later be evaluated against them.
+ */
+public class QuestionPredicateSubjectFactsLoader {
+
+    private static final Field<Boolean> IS_RETIRING = DSL.field(APPLICATION.PLANNED_RETIREMENT_DATE.isNotNull()
+            .and(APPLICATION.ACTUAL_RETIREMENT_DATE.isNull()
+                    .or(APPLICATION.ACTUAL_RETIREMENT_DATE.greaterOrEqual(DSL.now()))));
+
+
+    public static QuestionPredicateSubjectFacts load(DSLContext dsl,
+                                                     EntityReference subjectRef) {
+        ImmutableQuestionPredicateSubjectFacts.Builder builder = ImmutableQuestionPredicateSubjectFacts
+                .builder()
+                .subjectRef(subjectRef);
+
+        Long orgUnitId;
+
+        switch (subjectRef.kind()) {
+            case APPLICATION:
+                Record app = dsl
+                        .select(APPLICATION.KIND,
+                                APPLICATION.LIFECYCLE_PHASE,
+                                APPLICATION.ORGANISATIONAL_UNIT_ID,
+                                IS_RETIRING)
+                        .from(APPLICATION)
+                        .where(APPLICATION.ID.eq(subjectRef.id()))
+                        .fetchOne();
+
+                if (app == null) {
+                    return builder.build();
+                }
+
+                orgUnitId = app.get(APPLICATION.ORGANISATIONAL_UNIT_ID);
+                builder
+                        .kind(app.get(APPLICATION.KIND))
+                        .lifecyclePhase(app.get(APPLICATION.LIFECYCLE_PHASE))
+                        .retiring(Optional.ofNullable(app.get(IS_RETIRING)).orElse(false))
+                        .dataTypeUsageKinds(loadDataTypeUsageKinds(dsl, subjectRef));
+                break;
+            case CHANGE_INITIATIVE:
+                Record ci = dsl
+                        .select(CHANGE_INITIATIVE.LIFECYCLE_PHASE,
+                                CHANGE_INITIATIVE.ORGANISATIONAL_UNIT_ID)
+                        .from(CHANGE_INITIATIVE)
+                        .where(CHANGE_INITIATIVE.ID.eq(subjectRef.id()))
+                        .fetchOne();
+
+                if (ci == null) {
+                    return builder.build();
+                }
+
+                orgUnitId = ci.get(CHANGE_INITIATIVE.ORGANISATIONAL_UNIT_ID);
+                builder.lifecyclePhase(ci.get(CHANGE_INITIATIVE.LIFECYCLE_PHASE));
+                break;
+            default:
+                // other subject kinds only support the base (question/response) predicates
+                return builder.build();
+        }
+
+        return builder
+                .orgUnitNamesAndExternalIds(loadOrgUnitNamesAndExternalIds(dsl, orgUnitId))
+                .assessmentRatingCodes(loadAssessmentRatingCodes(dsl, subjectRef))
+                .involvementKindNames(loadInvolvementKindNames(dsl, subjectRef))
+                .build();
+    }
+
+
+    // --- HELPERS ---
+
+    private static Set<String> loadOrgUnitNamesAndExternalIds(DSLContext dsl,
+                                                              Long orgUnitId) {
+        Set<String> result = new HashSet<>();
+
+        if (orgUnitId == null) {
+            return result;
+        }
+
+        EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
+        OrganisationalUnit ou = ORGANISATIONAL_UNIT.as("ou");
+
+        dsl.select(ou.NAME, ou.EXTERNAL_ID)
+                .from(eh)
+                .innerJoin(ou).on(ou.ID.eq(eh.ANCESTOR_ID))
+                .where(eh.ID.eq(orgUnitId))
+                .and(eh.KIND.eq(EntityKind.ORG_UNIT.name()))
+                .forEach(r -> {
+                    addIfPresent(result, r.get(ou.NAME));
+                    addIfPresent(result, r.get(ou.EXTERNAL_ID));
+                });
+
+        return result;
+    }
+
+
+    private static Map<String, Set<String>> loadDataTypeUsageKinds(DSLContext dsl,
+                                                                   EntityReference subjectRef) {
+        DataTypeUsage dtu = DATA_TYPE_USAGE.as("dtu");
+        DataType dt = DATA_TYPE.as("dt");
+        EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
+
+        Condition subjectMatches = dtu.ENTITY_ID.eq(subjectRef.id())
+                .and(dtu.ENTITY_KIND.eq(subjectRef.kind().name()));
+
+        Map<String, Set<String>> result = new HashMap<>();
+
+        dsl.selectDistinct(dt.CODE, dt.NAME, dtu.USAGE_KIND)
+                .from(dtu)
+                .innerJoin(eh)
+                .on(eh.ID.eq(dtu.DATA_TYPE_ID).and(eh.KIND.eq(EntityKind.DATA_TYPE.name())))
+                .innerJoin(dt)
+                .on(dt.ID.eq(eh.ANCESTOR_ID))
+                .where(subjectMatches)
+                .forEach(r -> {
+                    String usageKind = r.get(dtu.USAGE_KIND);
+                    result.computeIfAbsent(r.get(dt.CODE), k -> new HashSet<>()).add(usageKind);
+                    result.computeIfAbsent(r.get(dt.NAME), k -> new HashSet<>()).add(usageKind);
+                });
+
+        return result;
+    }
+
+
+    private static Map<String, String> loadAssessmentRatingCodes(DSLContext dsl,
+                                                                 EntityReference subjectRef) {
+        Map<String, String> result = new HashMap<>();
+
+        dsl.select(ASSESSMENT_DEFINITION.NAME,
+                        ASSESSMENT_DEFINITION.EXTERNAL_ID,
+                        RATING_SCHEME_ITEM.CODE)
+                .from(ASSESSMENT_RATING)
+                .innerJoin(ASSESSMENT_DEFINITION).on(ASSESSMENT_DEFINITION.ID.eq(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID))
+                .innerJoin(RATING_SCHEME_ITEM).on(RATING_SCHEME_ITEM.ID.eq(ASSESSMENT_RATING.RATING_ID))
+                .where(ASSESSMENT_RATING.ENTITY_KIND.eq(subjectRef.kind().name()))
+                .and(ASSESSMENT_RATING.ENTITY_ID.eq(subjectRef.id()))
+                .orderBy(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID, ASSESSMENT_RATING.RATING_ID)
+                .forEach(r -> {
+                    String code = r.get(RATING_SCHEME_ITEM.CODE);
+                    Optional.ofNullable(r.get(ASSESSMENT_DEFINITION.NAME)).ifPresent(k -> result.putIfAbsent(k, code));
+                    Optional.ofNullable(r.get(ASSESSMENT_DEFINITION.EXTERNAL_ID)).ifPresent(k -> result.putIfAbsent(k, code));
+                });
+
+        return result;
+    }
+
+
+    private static Set<String> loadInvolvementKindNames(DSLContext dsl,
+                                                        EntityReference subjectRef) {
+        Set<String> result = new HashSet<>();
+
+        dsl.selectDistinct(INVOLVEMENT_KIND.NAME)
+                .from(INVOLVEMENT)
+                .innerJoin(INVOLVEMENT_KIND).on(INVOLVEMENT.KIND_ID.eq(INVOLVEMENT_KIND.ID))
+                .where(INVOLVEMENT.ENTITY_ID.eq(subjectRef.id()))
+                .and(INVOLVEMENT.ENTITY_KIND.eq(subjectRef.kind().name()))
+                .forEach(r -> addIfPresent(result, lower(r.get(INVOLVEMENT_KIND.NAME))));
+
+        return result;
+    }
+
+
+    private static void addIfPresent(Set<String> values, String value) {
+        if (value != null) {
+            values.add(value);
+        }
+    }
+
+}
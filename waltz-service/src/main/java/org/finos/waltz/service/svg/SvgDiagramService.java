@@ -18,28 +18,39 @@
 
 package org.finos.waltz.service.svg;
 
+import org.finos.waltz.common.DigestUtilities;
 import org.finos.waltz.common.SvgUtilities;
 import org.finos.waltz.data.svg.SvgDiagramDao;
 import org.finos.waltz.model.svg.ImmutableSvgDiagram;
 import org.finos.waltz.model.svg.SvgDiagram;
 import org.jooq.lambda.Unchecked;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPathExpressionException;
-import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.stream.Collectors.toList;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class SvgDiagramService {
 
     private final SvgDiagramDao svgDiagramDao;
 
+    /**
+     * Converted svg keyed by diagram id, the first element of the tuple is the
+     * version (a digest of the stored diagram) the conversion was made from.
+     * Diagrams are loaded outside of Waltz, so the version is what lets us
+     * notice an updated diagram and convert it again.
+     */
+    private final Map<Long, Tuple2<String, String>> convertedSvgById = new ConcurrentHashMap<>();
+
 
     @Autowired
     public SvgDiagramService(SvgDiagramDao svgDiagramDao) {
@@ -49,27 +60,37 @@ public class SvgDiagramService {
 
     public SvgDiagram getById(long id) {
         SvgDiagram diagram = svgDiagramDao.getById(id);
-        return Unchecked.supplier(() -> {
-            String updatedSvg = convertProductSpecificSvg(diagram);
-            return ImmutableSvgDiagram.copyOf(diagram)
-                    .withSvg(updatedSvg);
-        }).get();
+        return Unchecked.supplier(() -> withConvertedSvg(diagram)).get();
     }
 
 
     public Collection<SvgDiagram> findByGroups(String... groups) {
         return svgDiagramDao.findByGroups(groups)
                 .stream()
-                .map(Unchecked.function(diagram -> {
-                    String updatedSvg = convertProductSpecificSvg(diagram);
-                    return ImmutableSvgDiagram.copyOf(diagram)
-                            .withSvg(updatedSvg);
-                }))
+                .map(Unchecked.function(this::withConvertedSvg))
                 .collect(toList());
     }
 
 
-    private String convertProductSpecificSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
+    private SvgDiagram withConvertedSvg(SvgDiagram diagram) throws NoSuchAlgorithmException, XMLStreamException {
+        long id = diagram.id().get();
+        String version = mkVersion(diagram);
+
+        Tuple2<String, String> cached = convertedSvgById.get(id);
+        if (cached != null && cached.v1.equals(version)) {
+            return ImmutableSvgDiagram.copyOf(diagram)
+                    .withSvg(cached.v2);
+        }
+
+        String updatedSvg = convertProductSpecificSvg(diagram);
+        convertedSvgById.put(id, tuple(version, updatedSvg));
+
+        return ImmutableSvgDiagram.copyOf(diagram)
+                .withSvg(updatedSvg);
+    }
+
+
+    private String convertProductSpecificSvg(SvgDiagram diagram) throws XMLStreamException {
         switch (diagram.product()) {
             case "visio":
                 return convertVisioSvg(diagram);
@@ -79,11 +100,17 @@ public class SvgDiagramService {
     }
 
 
-    private String convertVisioSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
+    private String convertVisioSvg(SvgDiagram diagram) throws XMLStreamException {
         String key = diagram.keyProperty();
         String svgStr = diagram.svg();
 
         return SvgUtilities.convertVisioSvg(key, svgStr);
     }
 
+
+    private static String mkVersion(SvgDiagram diagram) throws NoSuchAlgorithmException {
+        String svgDigest = DigestUtilities.digest(diagram.svg().getBytes(StandardCharsets.UTF_8));
+        return String.join("|", diagram.product(), diagram.keyProperty(), svgDigest);
+    }
+
 }
\ No newline at end of file
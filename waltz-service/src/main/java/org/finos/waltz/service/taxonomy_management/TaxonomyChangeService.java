@@ -138,11 +138,11 @@ public class TaxonomyChangeService {
         if (command.changeDomain().kind() == EntityKind.MEASURABLE_CATEGORY
                 && isHierarchyChange(command)) {
             long categoryId = command.changeDomain().id();
-            int insertCount = entityHierarchyService.buildForMeasurableByCategory(categoryId);
+            int changeCount = entityHierarchyService.buildIncrementallyForMeasurableByCategory(categoryId);
             LOG.info(
-                    "Rebuilt measurable category: {},  inserted {} new records",
+                    "Rebuilt measurable category: {},  changed {} records",
                     categoryId,
-                    insertCount);
+                    changeCount);
         }
 
         return updatedCommand;
@@ -23,6 +23,7 @@ import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.data_type.DataTypeDao;
 import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
 import org.finos.waltz.data.data_type_usage.DataTypeUsageDao;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
@@ -33,19 +34,22 @@ import org.finos.waltz.model.usage_info.UsageInfo;
 import org.finos.waltz.model.usage_info.UsageKind;
 import org.jooq.Record1;
 import org.jooq.Select;
-import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import static org.finos.waltz.schema.tables.Actor.ACTOR;
-import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.common.CollectionUtilities.*;
 import static org.finos.waltz.common.SetUtilities.fromCollection;
 import static org.finos.waltz.model.usage_info.UsageInfoUtilities.mkChangeSet;
@@ -53,23 +57,44 @@ import static org.finos.waltz.model.usage_info.UsageInfoUtilities.mkChangeSet;
 @Service
 public class DataTypeUsageService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DataTypeUsageService.class);
+
+    /**
+     * The change window is widened by this amount to allow for clock differences
+     * between the servers writing flows and the one recalculating usages.
+     */
+    private static final Duration CHANGE_WINDOW_OVERLAP = Duration.ofMinutes(5);
+
     private final DataTypeUsageDao dataTypeUsageDao;
     private final DataTypeDao dataTypeDao;
-    private final ApplicationIdSelectorFactory appIdSelectorFactor = new ApplicationIdSelectorFactory();
-    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
+    private final ApplicationIdSelectorFactory appIdSelectorFactor;
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory;
     private final ChangeLogService changeLogService;
+    private final Duration fullRecalculationInterval;
+    private final int maxIncrementalEntities;
+
+    private volatile LocalDateTime lastRecalculatedAt = null;
+    private volatile LocalDateTime lastFullRecalculationAt = null;
 
 
     @Autowired
     public DataTypeUsageService(DataTypeUsageDao dataTypeUsageDao,
                                 DataTypeDao dataTypeDao,
-                                ChangeLogService changeLogService) {
+                                ChangeLogService changeLogService,
+                                EntityHierarchyIndexes entityHierarchyIndexes,
+                                @Value("${waltz.data_type_usage.full_recalc_hours:24}") int fullRecalculationHours,
+                                @Value("${waltz.data_type_usage.incremental.max_entities:5000}") int maxIncrementalEntities) {
         checkNotNull(dataTypeUsageDao, "dataTypeUsageDao cannot be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
         this.dataTypeUsageDao = dataTypeUsageDao;
         this.dataTypeDao = dataTypeDao;
         this.changeLogService = changeLogService;
+        this.fullRecalculationInterval = Duration.ofHours(fullRecalculationHours);
+        this.maxIncrementalEntities = maxIncrementalEntities;
+        this.appIdSelectorFactor = new ApplicationIdSelectorFactory(entityHierarchyIndexes);
+        this.dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory(entityHierarchyIndexes);
     }
 
 
@@ -150,6 +175,46 @@ public class DataTypeUsageService {
     }
 
 
+    /**
+     * Recalculates usages for the applications and actors whose flows, or flow
+     * decorators, have changed since the last run of this method.
+     *
+     * Falls back to a full recalculation ({@link #recalculateForAllApplications()})
+     * on the first run, when the last full recalculation is older than
+     * <code>waltz.data_type_usage.full_recalc_hours</code>, or when the number of
+     * changed entities exceeds <code>waltz.data_type_usage.incremental.max_entities</code>.
+     *
+     * @return true
+     */
+    public boolean recalculateForChangedEntities() {
+        LocalDateTime startedAt = nowUtc();
+        LocalDateTime since = lastRecalculatedAt;
+
+        boolean fullRecalculationDue = since == null
+                || lastFullRecalculationAt == null
+                || lastFullRecalculationAt.plus(fullRecalculationInterval).isBefore(startedAt);
+
+        if (fullRecalculationDue) {
+            LOG.info("Performing full data type usage recalculation");
+            recalculateForAllApplications();
+            lastFullRecalculationAt = startedAt;
+        } else {
+            Set<EntityReference> changed = dataTypeUsageDao.findEntitiesWithFlowChangesSince(since.minus(CHANGE_WINDOW_OVERLAP));
+            if (changed.size() > maxIncrementalEntities) {
+                LOG.info("{} entities have flow changes, performing full data type usage recalculation", changed.size());
+                recalculateForAllApplications();
+                lastFullRecalculationAt = startedAt;
+            } else {
+                LOG.info("Recalculating data type usages for {} entities with flow changes since: {}", changed.size(), since);
+                recalculateForApplications(changed);
+            }
+        }
+
+        lastRecalculatedAt = startedAt;
+        return true;
+    }
+
+
     public boolean recalculateForApplications(Collection<EntityReference> refs) {
         checkNotNull(refs, "refs cannot be null");
         Set<Long> appIds = refs
@@ -164,28 +229,15 @@ public class DataTypeUsageService {
                 .map(EntityReference::id)
                 .collect(Collectors.toSet());
 
-        if (isEmpty(appIds) && isEmpty(actorIds)) {
-            return true;
-        } else {
-            Select<Record1<Long>> appIdSelector = convertApplicationIdsToIdSelector(appIds);
-            Select<Record1<Long>> actorIdSelector = convertActorIdsToIdSelector(actorIds);
-            return dataTypeUsageDao.recalculateForIdSelector(EntityKind.APPLICATION, appIdSelector) &&
-                    dataTypeUsageDao.recalculateForIdSelector(EntityKind.ACTOR, actorIdSelector);
+        if (notEmpty(appIds)) {
+            dataTypeUsageDao.recalculateForEntities(EntityKind.APPLICATION, appIds);
         }
-    }
-
-
-    private Select<Record1<Long>> convertApplicationIdsToIdSelector(Set<Long> appIds) {
-        return DSL.select(APPLICATION.ID)
-                .from(APPLICATION)
-                .where(APPLICATION.ID.in(appIds));
-    }
 
+        if (notEmpty(actorIds)) {
+            dataTypeUsageDao.recalculateForEntities(EntityKind.ACTOR, actorIds);
+        }
 
-    private Select<Record1<Long>> convertActorIdsToIdSelector(Set<Long> actorIds) {
-        return DSL.select(ACTOR.ID)
-                .from(ACTOR)
-                .where(ACTOR.ID.in(actorIds));
+        return true;
     }
 
 
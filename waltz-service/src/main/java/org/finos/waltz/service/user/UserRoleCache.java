@@ -0,0 +1,121 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.user;
+
+import org.finos.waltz.common.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Holds the roles of recently active users so role checks do not need to query
+ * the database.  User names are matched case insensitively, mirroring
+ * {@link org.finos.waltz.data.user.UserRoleDao#getUserRoles(String)}.
+ *
+ * Entries are discarded when the roles of a user are changed via Waltz, see
+ * `invalidate`.  Changes made directly in the database (or by another Waltz
+ * instance) are reflected once the entry expires, or immediately if the cache
+ * is cleared via jmx.
+ */
+@Service
+@ManagedResource(description = "Cache of user roles")
+public class UserRoleCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserRoleCache.class);
+
+    private final ExpiringCache<String, Set<String>> cache;
+
+
+    @Autowired
+    public UserRoleCache(@Value("${waltz.user_role.cache.max_size:5000}") int maxSize,
+                         @Value("${waltz.user_role.cache.ttl_seconds:60}") int ttlSeconds) {
+        this.cache = new ExpiringCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+
+    public Set<String> get(String userName, Function<String, Set<String>> loader) {
+        checkNotNull(loader, "loader cannot be null");
+
+        if (userName == null) {
+            return loader.apply(null);
+        }
+
+        return cache.get(
+                toKey(userName),
+                k -> Collections.unmodifiableSet(new HashSet<>(loader.apply(userName))));
+    }
+
+
+    public void invalidate(String userName) {
+        if (userName != null) {
+            cache.invalidate(toKey(userName));
+        }
+    }
+
+
+    @ManagedOperation(description = "Remove all cached user roles")
+    public void invalidateAll() {
+        LOG.info("Clearing user role cache");
+        cache.invalidateAll();
+    }
+
+
+    @ManagedAttribute
+    public long getHitCount() {
+        return cache.hitCount();
+    }
+
+
+    @ManagedAttribute
+    public long getMissCount() {
+        return cache.missCount();
+    }
+
+
+    @ManagedAttribute
+    public long getEvictionCount() {
+        return cache.evictionCount();
+    }
+
+
+    @ManagedAttribute
+    public int getSize() {
+        return cache.size();
+    }
+
+
+    private static String toKey(String userName) {
+        return userName.toLowerCase();
+    }
+
+}
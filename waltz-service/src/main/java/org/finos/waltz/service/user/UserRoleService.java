@@ -61,15 +61,21 @@ public class UserRoleService {
 
     private final PersonService personService;
 
+    private final UserRoleCache userRoleCache;
+
 
     @Autowired
     public UserRoleService(UserRoleDao userRoleDao,
-                           ChangeLogService changeLogService, PersonService personService) {
+                           ChangeLogService changeLogService,
+                           PersonService personService,
+                           UserRoleCache userRoleCache) {
         this.personService = personService;
         checkNotNull(userRoleDao, "userRoleDao must not be null");
+        checkNotNull(userRoleCache, "userRoleCache must not be null");
 
         this.userRoleDao = userRoleDao;
         this.changeLogService = changeLogService;
+        this.userRoleCache = userRoleCache;
     }
 
 
@@ -85,7 +91,7 @@ public class UserRoleService {
 
 
     public boolean hasRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = getUserRoles(userName);
         return userRoles.containsAll(requiredRoles);
     }
 
@@ -100,7 +106,7 @@ public class UserRoleService {
     }
 
     public boolean hasAnyRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = getUserRoles(userName);
         return ! SetUtilities.intersection(userRoles, requiredRoles)
                     .isEmpty();
     }
@@ -114,7 +120,7 @@ public class UserRoleService {
     public User getByUserId(String userId) {
         return ImmutableUser.builder()
                 .userName(userId)
-                .addAllRoles(userRoleDao.getUserRoles(userId))
+                .addAllRoles(getUserRoles(userId))
                 .build();
     }
 
@@ -141,12 +147,17 @@ public class UserRoleService {
             changeLogService.write(logEntry);
         }
 
-        return userRoleDao.updateRoles(targetUserName, command.roles());
+        boolean updated = userRoleDao.updateRoles(targetUserName, command.roles());
+        userRoleCache.invalidate(targetUserName);
+        return updated;
     }
 
 
+    /**
+     * @return the (unmodifiable) roles of the user, served from the role cache where possible
+     */
     public Set<String> getUserRoles(String userName) {
-        return userRoleDao.getUserRoles(userName);
+        return userRoleCache.get(userName, userRoleDao::getUserRoles);
     }
 
 }
@@ -19,8 +19,10 @@
 package org.finos.waltz.service.user_agent_info;
 
 import org.finos.waltz.common.Checks;
+import org.finos.waltz.common.WriteBehindQueue;
 import org.finos.waltz.data.user_agent_info.UserAgentInfoDao;
 import org.finos.waltz.model.user_agent_info.UserAgentInfo;
+import org.finos.waltz.service.write_behind.WriteBehindQueues;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -33,18 +35,27 @@ import static org.finos.waltz.common.Checks.checkTrue;
 public class UserAgentInfoService {
 
     private final UserAgentInfoDao userAgentInfoDao;
+    private final WriteBehindQueue<UserAgentInfo> writeQueue;
 
 
     @Autowired
-    public UserAgentInfoService(UserAgentInfoDao userAgentInfoDao) {
+    public UserAgentInfoService(UserAgentInfoDao userAgentInfoDao,
+                                WriteBehindQueues writeBehindQueues) {
         checkNotNull(userAgentInfoDao, "userAgentInfoDao cannot be null");
+        checkNotNull(writeBehindQueues, "writeBehindQueues cannot be null");
         this.userAgentInfoDao = userAgentInfoDao;
+        this.writeQueue = writeBehindQueues.create("user_agent_info", userAgentInfoDao::save);
     }
 
 
+    /**
+     * Queues the login details to be written, see {@link WriteBehindQueues}.
+     *
+     * @return 1 if the details were accepted, 0 if they were dropped
+     */
     public int save(UserAgentInfo userAgentInfo) {
         checkNotNull(userAgentInfo, "userLogin cannot be null");
-        return userAgentInfoDao.save(userAgentInfo);
+        return writeQueue.offer(userAgentInfo) ? 1 : 0;
     }
 
 
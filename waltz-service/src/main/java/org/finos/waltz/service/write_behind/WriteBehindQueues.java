@@ -0,0 +1,176 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.write_behind;
+
+import org.finos.waltz.common.WriteBehindQueue;
+import org.finos.waltz.common.WriteBehindQueue.OverflowPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Creates and tracks the {@link WriteBehindQueue}s used for high volume,
+ * append-only writes (e.g. the access log), so that callers do not wait on
+ * the insert.
+ *
+ * All queues share the same capacity, batch size and overflow policy.  If
+ * write behind is disabled the queues are never started and records are
+ * written by the caller, as before.  Queues are closed, and any pending
+ * records written, when the application context is closed.
+ */
+@Service
+@ManagedResource(description = "Queues for asynchronous (write behind) inserts")
+public class WriteBehindQueues implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindQueues.class);
+
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Map<String, WriteBehindQueue<?>> queues = new ConcurrentSkipListMap<>();
+
+
+    @Autowired
+    public WriteBehindQueues(@Value("${waltz.write_behind.enabled:true}") boolean enabled,
+                             @Value("${waltz.write_behind.capacity:10000}") int capacity,
+                             @Value("${waltz.write_behind.batch_size:500}") int batchSize,
+                             @Value("${waltz.write_behind.overflow_policy:CALLER_WRITES}") OverflowPolicy overflowPolicy) {
+        checkTrue(capacity > 0, "capacity must be positive");
+        checkTrue(batchSize > 0, "batchSize must be positive");
+        checkNotNull(overflowPolicy, "overflowPolicy cannot be null");
+
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+
+    /**
+     * @param name  unique name for the queue, used for metrics and the writer thread name
+     * @param writer  writes a batch of records, typically via a jdbc batch insert
+     * @return  a queue which is running if write behind is enabled
+     */
+    public <T> WriteBehindQueue<T> create(String name, Consumer<List<T>> writer) {
+        return create(name, true, writer);
+    }
+
+
+    /**
+     * @param name  unique name for the queue, used for metrics and the writer thread name
+     * @param queueEnabled  if false the queue is never started, records are written by the caller
+     * @param writer  writes a batch of records, typically via a jdbc batch insert
+     * @return  a queue which is running if write behind is enabled, both globally and for this queue
+     */
+    public <T> WriteBehindQueue<T> create(String name, boolean queueEnabled, Consumer<List<T>> writer) {
+        checkNotEmpty(name, "name cannot be empty");
+        checkNotNull(writer, "writer cannot be null");
+        checkTrue(!queues.containsKey(name), "a write behind queue named: " + name + " already exists");
+
+        WriteBehindQueue<T> queue = new WriteBehindQueue<>(name, capacity, batchSize, overflowPolicy, writer);
+        queues.put(name, queue);
+
+        if (enabled && queueEnabled) {
+            queue.start();
+            LOG.info("Started write behind queue: {}, capacity: {}, batch size: {}, overflow policy: {}",
+                    name, capacity, batchSize, overflowPolicy);
+        }
+
+        return queue;
+    }
+
+
+    @ManagedAttribute(description = "Is write behind enabled, if not records are written by the caller")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    @ManagedAttribute(description = "Number of records waiting to be written, across all queues")
+    public int getQueueDepth() {
+        return queues.values().stream().mapToInt(WriteBehindQueue::getDepth).sum();
+    }
+
+
+    @ManagedAttribute(description = "Number of records dropped because a queue was full, across all queues")
+    public long getDroppedCount() {
+        return queues.values().stream().mapToLong(WriteBehindQueue::getDroppedCount).sum();
+    }
+
+
+    @ManagedAttribute(description = "Number of records which could not be written, across all queues")
+    public long getFailedCount() {
+        return queues.values().stream().mapToLong(WriteBehindQueue::getFailedCount).sum();
+    }
+
+
+    @ManagedAttribute(description = "Depth, counts and flush latencies for each queue")
+    public String getSummary() {
+        return queues
+                .values()
+                .stream()
+                .map(q -> format(
+                        "%s: depth=%d, enqueued=%d, written=%d, dropped=%d, failed=%d, batches=%d, flush ms (last/mean/max)=%.1f/%.1f/%.1f",
+                        q.getName(),
+                        q.getDepth(),
+                        q.getEnqueuedCount(),
+                        q.getWrittenCount(),
+                        q.getDroppedCount(),
+                        q.getFailedCount(),
+                        q.getBatchCount(),
+                        q.getLastFlushMillis(),
+                        q.getMeanFlushMillis(),
+                        q.getMaxFlushMillis()))
+                .collect(joining("\n"));
+    }
+
+
+    @ManagedOperation(description = "Write all pending records now")
+    public int flushAll() {
+        return queues.values().stream().mapToInt(WriteBehindQueue::flush).sum();
+    }
+
+
+    @Override
+    public void destroy() {
+        LOG.info("Closing write behind queues");
+        queues.values().forEach(WriteBehindQueue::close);
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.finos.waltz.service.entity_hierarchy;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.entity_hierarchy.EntityHierarchyItem;
+import org.finos.waltz.model.entity_hierarchy.ImmutableEntityHierarchyItem;
+import org.jooq.lambda.tuple.Tuple3;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntityHierarchyServiceTest {
+
+    @Test
+    public void identicalHierarchiesHaveNoDifferences() {
+        List<EntityHierarchyItem> items = asList(
+                mkItem(1, 1, 1, 1),
+                mkItem(2, 1, 1, 2),
+                mkItem(2, 2, 2, 2));
+
+        Tuple3<List<EntityHierarchyItem>, List<EntityHierarchyItem>, List<EntityHierarchyItem>> changes = EntityHierarchyService.diff(items, items);
+
+        assertTrue(changes.v1.isEmpty());
+        assertTrue(changes.v2.isEmpty());
+        assertTrue(changes.v3.isEmpty());
+    }
+
+
+    @Test
+    public void movedNodesAreAddedAndRemoved() {
+        // 3 moves from under 1 to under 2, where 2 is a child of 1
+        List<EntityHierarchyItem> existing = asList(
+                mkItem(1, 1, 1, 1),
+                mkItem(2, 1, 1, 2),
+                mkItem(2, 2, 2, 2),
+                mkItem(3, 1, 1, 2),
+                mkItem(3, 3, 2, 2));
+
+        List<EntityHierarchyItem> required = asList(
+                mkItem(1, 1, 1, 1),
+                mkItem(2, 1, 1, 2),
+                mkItem(2, 2, 2, 2),
+                mkItem(3, 1, 1, 3),
+                mkItem(3, 2, 2, 3),
+                mkItem(3, 3, 3, 3));
+
+        Tuple3<List<EntityHierarchyItem>, List<EntityHierarchyItem>, List<EntityHierarchyItem>> changes = EntityHierarchyService.diff(existing, required);
+
+        assertEquals(asList(mkItem(3, 2, 2, 3)), changes.v1);
+        assertEquals(2, changes.v2.size());
+        assertTrue(changes.v2.contains(mkItem(3, 1, 1, 3)));
+        assertTrue(changes.v2.contains(mkItem(3, 3, 3, 3)));
+        assertTrue(changes.v3.isEmpty());
+    }
+
+
+    @Test
+    public void obsoleteItemsAreRemoved() {
+        List<EntityHierarchyItem> existing = asList(
+                mkItem(1, 1, 1, 1),
+                mkItem(2, 1, 1, 2),
+                mkItem(2, 2, 2, 2));
+
+        Tuple3<List<EntityHierarchyItem>, List<EntityHierarchyItem>, List<EntityHierarchyItem>> changes = EntityHierarchyService.diff(
+                existing,
+                Collections.singletonList(mkItem(1, 1, 1, 1)));
+
+        assertTrue(changes.v1.isEmpty());
+        assertTrue(changes.v2.isEmpty());
+        assertEquals(2, changes.v3.size());
+    }
+
+
+    private static EntityHierarchyItem mkItem(long id, long parentId, int ancestorLevel, int descendantLevel) {
+        return ImmutableEntityHierarchyItem.builder()
+                .kind(EntityKind.MEASURABLE)
+                .id(id)
+                .parentId(parentId)
+                .ancestorLevel(ancestorLevel)
+                .descendantLevel(descendantLevel)
+                .build();
+    }
+
+}
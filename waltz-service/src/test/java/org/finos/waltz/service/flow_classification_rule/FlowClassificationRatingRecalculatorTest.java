@@ -0,0 +1,229 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.flow_classification_rule;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataType;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.datatype.ImmutableDataType;
+import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
+import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.model.flow_classification.ImmutableFlowClassification;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRule;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRule;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.finos.waltz.common.CollectionUtilities.first;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.common.MapUtilities.newHashMap;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.service.flow_classification_rule.FlowClassificationRatingRecalculator.determineChangedDecorators;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlowClassificationRatingRecalculatorTest {
+
+    private static final AuthoritativenessRatingValue PRIMARY = AuthoritativenessRatingValue.of("PRIMARY");
+
+    private final EntityReference ou = mkRef(EntityKind.ORG_UNIT, 1L);
+    private final EntityReference authSource = mkRef(EntityKind.APPLICATION, 10L);
+    private final EntityReference otherSource = mkRef(EntityKind.APPLICATION, 11L);
+    private final EntityReference consumer = mkRef(EntityKind.APPLICATION, 20L);
+
+    private final Map<Long, Long> orgUnitIdByAppId = newHashMap(20L, 1L);
+
+    private final FlowClassificationRuleResolver resolver = new FlowClassificationRuleResolver(newArrayList(
+            ImmutableFlowClassificationRuleVantagePoint.builder()
+                    .vantagePoint(ou)
+                    .vantagePointRank(1)
+                    .dataType(mkRef(EntityKind.DATA_TYPE, 100L))
+                    .dataTypeRank(1)
+                    .subjectReference(authSource)
+                    .classificationCode(PRIMARY.value())
+                    .ruleId(1L)
+                    .build()));
+
+    private final FlowClassificationRatingRecalculator.PointToPointRules noPointToPointRules = mkPointToPointRules();
+
+
+    @Test
+    public void unchangedDecoratorsAreNotReturned() {
+        LogicalFlow flow = mkFlow(1L, authSource, consumer);
+        DataTypeDecorator decorator = mkDecorator(1L, 100L, PRIMARY, Optional.of(1L));
+
+        Set<DataTypeDecorator> changed = determineChangedDecorators(
+                asList(decorator),
+                newHashMap(1L, flow),
+                orgUnitIdByAppId,
+                resolver,
+                noPointToPointRules);
+
+        assertTrue(changed.isEmpty());
+    }
+
+
+    @Test
+    public void decoratorsFromTheAuthSourceAreRatedByTheRule() {
+        LogicalFlow flow = mkFlow(1L, authSource, consumer);
+        DataTypeDecorator decorator = mkDecorator(1L, 100L, AuthoritativenessRatingValue.NO_OPINION, Optional.empty());
+
+        DataTypeDecorator changed = first(determineChangedDecorators(
+                asList(decorator),
+                newHashMap(1L, flow),
+                orgUnitIdByAppId,
+                resolver,
+                noPointToPointRules));
+
+        assertEquals(Optional.of(PRIMARY), changed.rating());
+        assertEquals(Optional.of(1L), changed.flowClassificationRuleId());
+    }
+
+
+    @Test
+    public void decoratorsFromOtherSourcesAreDiscouraged() {
+        LogicalFlow flow = mkFlow(1L, otherSource, consumer);
+        DataTypeDecorator decorator = mkDecorator(1L, 100L, PRIMARY, Optional.of(1L));
+
+        DataTypeDecorator changed = first(determineChangedDecorators(
+                asList(decorator),
+                newHashMap(1L, flow),
+                orgUnitIdByAppId,
+                resolver,
+                noPointToPointRules));
+
+        assertEquals(Optional.of(AuthoritativenessRatingValue.DISCOURAGED), changed.rating());
+        assertEquals(Optional.of(1L), changed.flowClassificationRuleId(), "discouraged decorators should reference the discouraging rule");
+    }
+
+
+    @Test
+    public void decoratorsWithoutAnApplicableRuleHaveNoOpinion() {
+        LogicalFlow flow = mkFlow(1L, otherSource, consumer);
+        DataTypeDecorator decorator = mkDecorator(1L, 999L, AuthoritativenessRatingValue.DISCOURAGED, Optional.empty());
+
+        DataTypeDecorator changed = first(determineChangedDecorators(
+                asList(decorator),
+                newHashMap(1L, flow),
+                orgUnitIdByAppId,
+                resolver,
+                noPointToPointRules));
+
+        assertEquals(Optional.of(AuthoritativenessRatingValue.NO_OPINION), changed.rating());
+    }
+
+
+    @Test
+    public void pointToPointRulesOverrideOrgUnitRules() {
+        FlowClassificationRatingRecalculator.PointToPointRules pointToPointRules = mkPointToPointRules(
+                ImmutableFlowClassificationRule.builder()
+                        .id(2L)
+                        .vantagePointReference(consumer)
+                        .subjectReference(otherSource)
+                        .dataTypeId(100L)
+                        .classificationId(5L)
+                        .lastUpdatedBy("test")
+                        .provenance("test")
+                        .build());
+
+        LogicalFlow flow = mkFlow(1L, otherSource, consumer);
+        // decorator type is a child of the type the rule is declared against
+        DataTypeDecorator decorator = mkDecorator(1L, 101L, AuthoritativenessRatingValue.DISCOURAGED, Optional.empty());
+
+        DataTypeDecorator changed = first(determineChangedDecorators(
+                asList(decorator),
+                newHashMap(1L, flow),
+                orgUnitIdByAppId,
+                resolver,
+                pointToPointRules));
+
+        assertEquals(Optional.of(PRIMARY), changed.rating());
+        assertEquals(Optional.of(2L), changed.flowClassificationRuleId());
+    }
+
+
+    // -- HELPERS ---
+
+    private static FlowClassificationRatingRecalculator.PointToPointRules mkPointToPointRules(FlowClassificationRule... rules) {
+        FlowClassification primary = ImmutableFlowClassification.builder()
+                .id(5L)
+                .name("Primary")
+                .code(PRIMARY.value())
+                .color("#0f0")
+                .position(1)
+                .isCustom(false)
+                .userSelectable(true)
+                .build();
+
+        DataType parent = ImmutableDataType.builder()
+                .id(100L)
+                .name("parent")
+                .code("PARENT")
+                .description("parent")
+                .build();
+
+        DataType child = ImmutableDataType.builder()
+                .id(101L)
+                .parentId(100L)
+                .name("child")
+                .code("CHILD")
+                .description("child")
+                .build();
+
+        return new FlowClassificationRatingRecalculator.PointToPointRules(
+                asList(rules),
+                Collections.singleton(primary),
+                asList(parent, child));
+    }
+
+
+    private static LogicalFlow mkFlow(long id, EntityReference source, EntityReference target) {
+        return ImmutableLogicalFlow.builder()
+                .id(id)
+                .source(source)
+                .target(target)
+                .lastUpdatedBy("test")
+                .build();
+    }
+
+
+    private static DataTypeDecorator mkDecorator(long flowId,
+                                                 long dataTypeId,
+                                                 AuthoritativenessRatingValue rating,
+                                                 Optional<Long> ruleId) {
+        return ImmutableDataTypeDecorator.builder()
+                .id(flowId * 1000 + dataTypeId)
+                .entityReference(mkRef(EntityKind.LOGICAL_DATA_FLOW, flowId))
+                .decoratorEntity(mkRef(EntityKind.DATA_TYPE, dataTypeId))
+                .rating(rating)
+                .flowClassificationRuleId(ruleId)
+                .lastUpdatedBy("test")
+                .build();
+    }
+
+}
@@ -0,0 +1,193 @@
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphNode;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.service.logical_flow.LogicalFlowGraph.UNBOUNDED;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogicalFlowGraphTest {
+
+    private static final long TRADE = 10L;
+    private static final long PRICE = 20L;
+
+    private static final EntityReference A = mkRef(EntityKind.APPLICATION, 1L);
+    private static final EntityReference B = mkRef(EntityKind.APPLICATION, 2L);
+    private static final EntityReference C = mkRef(EntityKind.APPLICATION, 3L);
+    private static final EntityReference D = mkRef(EntityKind.APPLICATION, 4L);
+    private static final EntityReference E = mkRef(EntityKind.ACTOR, 1L);
+
+    private LogicalFlowGraph graph;
+
+
+    /**
+     * a -(trade)-> b -(trade)-> d
+     * a -(price)-> c -(price)-> d
+     * b -(trade)-> c
+     * d -(trade)-> a              (cycle)
+     * e(actor) -(price)-> a
+     */
+    @BeforeEach
+    public void setup() {
+        graph = new LogicalFlowGraph();
+        addFlow(100, A, B, TRADE);
+        addFlow(101, B, D, TRADE);
+        addFlow(102, A, C, PRICE);
+        addFlow(103, C, D, PRICE);
+        addFlow(104, B, C, TRADE);
+        addFlow(105, D, A, TRADE);
+        addFlow(106, E, A, PRICE);
+    }
+
+
+    @Test
+    public void downstreamFindsAllReachableEntitiesWithDepths() {
+        LogicalFlowGraphTraversal result = graph.getDownstream(A, UNBOUNDED, null);
+
+        Map<EntityReference, Integer> depths = toDepths(result);
+        assertEquals(3, depths.size(), "a itself is not reported even though the cycle leads back to it");
+        assertEquals(1, depths.get(B));
+        assertEquals(1, depths.get(C));
+        assertEquals(2, depths.get(D));
+        assertEquals(asSet(100L, 101L, 102L, 103L, 104L, 105L), result.flowIds());
+    }
+
+
+    @Test
+    public void upstreamWalksAgainstFlowDirection() {
+        Map<EntityReference, Integer> depths = toDepths(graph.getUpstream(C, UNBOUNDED, null));
+
+        assertEquals(1, depths.get(A));
+        assertEquals(1, depths.get(B));
+        assertEquals(2, depths.get(D));
+        assertEquals(2, depths.get(E), "actors are nodes too");
+    }
+
+
+    @Test
+    public void maxDepthLimitsTraversal() {
+        Map<EntityReference, Integer> depths = toDepths(graph.getDownstream(A, 1, null));
+        assertEquals(asSet(B, C), depths.keySet());
+    }
+
+
+    @Test
+    public void dataTypeFilterOnlyFollowsDecoratedFlows() {
+        Map<EntityReference, Integer> depths = toDepths(graph.getDownstream(A, UNBOUNDED, new long[]{PRICE}));
+        assertEquals(asSet(C, D), depths.keySet());
+    }
+
+
+    @Test
+    public void unknownEntityHasEmptyTraversal() {
+        LogicalFlowGraphTraversal result = graph.getDownstream(mkRef(EntityKind.APPLICATION, 99L), UNBOUNDED, null);
+        assertTrue(result.nodes().isEmpty());
+        assertTrue(result.flowIds().isEmpty());
+    }
+
+
+    @Test
+    public void removedFlowsAreNotFollowedUntilRestored() {
+        graph.removeFlow(100);
+        graph.removeFlow(102);
+        assertTrue(graph.getDownstream(A, UNBOUNDED, null).nodes().isEmpty());
+        assertFalse(graph.isReachable(A, D, UNBOUNDED, null));
+        assertEquals(5, graph.flowCount());
+
+        graph.putFlow(100, A, B);
+        assertTrue(graph.isReachable(A, D, UNBOUNDED, null));
+        assertEquals(6, graph.flowCount());
+        assertTrue(graph.isReachable(A, D, UNBOUNDED, new long[]{TRADE}), "restored flows keep their data types");
+    }
+
+
+    @Test
+    public void reachabilityRespectsDirectionDepthAndDataTypes() {
+        assertTrue(graph.isReachable(E, D, UNBOUNDED, null));
+        assertFalse(graph.isReachable(D, E, UNBOUNDED, null));
+        assertFalse(graph.isReachable(E, D, 2, null));
+        assertTrue(graph.isReachable(E, D, 3, null));
+        assertFalse(graph.isReachable(E, B, UNBOUNDED, new long[]{PRICE}));
+        assertTrue(graph.isReachable(A, A, UNBOUNDED, null));
+    }
+
+
+    @Test
+    public void pathsAreReturnedShortestFirstWithoutLoops() {
+        List<LogicalFlowGraphPath> paths = graph.findPaths(A, D, 10, UNBOUNDED, null);
+
+        assertEquals(3, paths.size());
+        assertEquals(2, paths.get(0).flowIds().size());
+        assertEquals(2, paths.get(1).flowIds().size());
+        assertEquals(asList(A, B, C, D), paths.get(2).entities());
+        assertEquals(asList(100L, 104L, 103L), paths.get(2).flowIds());
+
+        List<List<Long>> flowIds = paths.stream().map(LogicalFlowGraphPath::flowIds).collect(toList());
+        assertTrue(flowIds.contains(asList(100L, 101L)));
+        assertTrue(flowIds.contains(asList(102L, 103L)));
+    }
+
+
+    @Test
+    public void pathsHonourLimitDepthAndDataTypes() {
+        assertEquals(1, graph.findPaths(A, D, 1, UNBOUNDED, null).size());
+        assertEquals(2, graph.findPaths(A, D, 10, 2, null).size());
+
+        List<LogicalFlowGraphPath> tradePaths = graph.findPaths(A, D, 10, UNBOUNDED, new long[]{TRADE});
+        assertEquals(1, tradePaths.size());
+        assertEquals(asList(100L, 101L), tradePaths.get(0).flowIds());
+
+        assertTrue(graph.findPaths(D, E, 10, UNBOUNDED, null).isEmpty());
+    }
+
+
+    @Test
+    public void dataTypesCanBeReplaced() {
+        graph.setDataTypes(102, new long[]{TRADE, PRICE});
+        Map<EntityReference, Integer> depths = toDepths(graph.getDownstream(A, 1, new long[]{TRADE}));
+        assertEquals(asSet(B, C), depths.keySet());
+    }
+
+
+    @Test
+    public void graphGrowsBeyondInitialCapacity() {
+        LogicalFlowGraph chain = new LogicalFlowGraph();
+        for (long i = 1; i < 500; i++) {
+            chain.putFlow(i, mkRef(EntityKind.APPLICATION, i), mkRef(EntityKind.APPLICATION, i + 1));
+        }
+
+        assertEquals(500, chain.nodeCount());
+        assertEquals(499, chain.getDownstream(mkRef(EntityKind.APPLICATION, 1L), UNBOUNDED, null).nodes().size());
+        assertEquals(499, chain.findPaths(mkRef(EntityKind.APPLICATION, 1L), mkRef(EntityKind.APPLICATION, 500L), 3, UNBOUNDED, null).get(0).flowIds().size());
+    }
+
+
+    // -- helpers
+
+    private void addFlow(long flowId, EntityReference source, EntityReference target, long dataTypeId) {
+        graph.putFlow(flowId, source, target);
+        graph.addDataType(flowId, dataTypeId);
+    }
+
+
+    private static Map<EntityReference, Integer> toDepths(LogicalFlowGraphTraversal traversal) {
+        return traversal
+                .nodes()
+                .stream()
+                .collect(toMap(LogicalFlowGraphNode::entityReference, LogicalFlowGraphNode::depth));
+    }
+
+}
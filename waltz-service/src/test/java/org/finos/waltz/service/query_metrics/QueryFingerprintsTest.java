@@ -0,0 +1,45 @@
+package org.finos.waltz.service.query_metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.finos.waltz.service.query_metrics.QueryFingerprints.fingerprint;
+import static org.finos.waltz.service.query_metrics.QueryFingerprints.normalise;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryFingerprintsTest {
+
+    @Test
+    public void literalsAreReplaced() {
+        assertEquals(
+                "select \"a\".\"id\" from \"app\" \"a\" where \"a\".\"name\" = ? and \"a\".\"id\" > ?",
+                normalise("select \"a\".\"id\"\n  from \"app\" \"a\"\n where \"a\".\"name\" = 'it''s' and \"a\".\"id\" > 42"));
+    }
+
+
+    @Test
+    public void identifiersContainingDigitsAreKept() {
+        assertEquals(
+                "select t1.col_2 from table3 t1 where t1.x = ?",
+                normalise("select t1.col_2 from table3 t1 where t1.x = 1.5"));
+    }
+
+
+    @Test
+    public void valueListsOfDifferingLengthsShareAFingerprint() {
+        String a = normalise("select id from app where id in (?, ?, ?)");
+        String b = normalise("select id from app where id in (1, 2)");
+        String c = normalise("select id from (values (1), (2), (3)) as t(id)");
+
+        assertEquals("select id from app where id in (?+)", a);
+        assertEquals(a, b);
+        assertEquals(fingerprint(a), fingerprint(b));
+        assertEquals("select id from (values (?)+) as t(id)", c);
+    }
+
+
+    @Test
+    public void nullSqlIsEmpty() {
+        assertEquals("", normalise(null));
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.finos.waltz.service.query_metrics;
+
+import org.finos.waltz.model.query_metrics.QueryMetricsSummary;
+import org.finos.waltz.model.query_metrics.QueryStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryMetricsRegistryTest {
+
+    private static final long ONE_MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+
+    @Test
+    public void executionsAreGroupedByFingerprint() {
+        QueryMetricsRegistry registry = new QueryMetricsRegistry(10);
+
+        registry.recordExecution("select * from app where id = 1", 2 * ONE_MS, ONE_MS, 1, false);
+        registry.recordExecution("select * from app where id = 2", 4 * ONE_MS, ONE_MS, 1, false);
+        registry.recordExecution("delete from app where id = ?", 20 * ONE_MS, 0, 3, true);
+
+        QueryMetricsSummary summary = registry.getSummary(10);
+        assertEquals(3, summary.executionCount());
+        assertEquals(2, summary.distinctStatementCount());
+
+        QueryStatistics mostExpensive = summary.statements().get(0);
+        assertEquals("delete from app where id = ?", mostExpensive.sql());
+        assertEquals(1, mostExpensive.errorCount());
+        assertEquals(3, mostExpensive.rowCount());
+
+        QueryStatistics select = summary.statements().get(1);
+        assertEquals(2, select.executionCount());
+        assertEquals(3.0, select.meanExecutionMillis(), 0.001);
+        assertEquals(4.0, select.maxExecutionMillis(), 0.001);
+        assertEquals(2.0, select.totalFetchMillis(), 0.001);
+        assertEquals(2L, select.executionHistogram().get("<=5ms"));
+    }
+
+
+    @Test
+    public void statementsBeyondTheLimitAreGroupedTogether() {
+        QueryMetricsRegistry registry = new QueryMetricsRegistry(2);
+
+        registry.recordExecution("select a from x", ONE_MS, 0, 0, false);
+        registry.recordExecution("select b from x", ONE_MS, 0, 0, false);
+        registry.recordExecution("select c from x", ONE_MS, 0, 0, false);
+        registry.recordExecution("select d from x", ONE_MS, 0, 0, false);
+
+        QueryMetricsSummary summary = registry.getSummary(10);
+        assertEquals(3, summary.distinctStatementCount());
+        assertEquals(4, summary.executionCount());
+    }
+
+
+    @Test
+    public void concurrentRecordingIsNotLost() {
+        QueryMetricsRegistry registry = new QueryMetricsRegistry(10);
+
+        IntStream.range(0, 10_000)
+                .parallel()
+                .forEach(i -> {
+                    registry.recordExecution("select * from app where id = " + i, ONE_MS, 0, 1, false);
+                    registry.recordConnectionAcquired(ONE_MS);
+                });
+
+        QueryMetricsSummary summary = registry.getSummary(1);
+        assertEquals(10_000, summary.executionCount());
+        assertEquals(10_000, summary.statements().get(0).rowCount());
+        assertEquals(10_000, summary.connectionPool().acquisitionCount());
+    }
+
+
+    @Test
+    public void resetDiscardsStatistics() {
+        QueryMetricsRegistry registry = new QueryMetricsRegistry(10);
+        registry.recordExecution("select 1", ONE_MS, 0, 1, false);
+        registry.recordConnectionTimeout();
+
+        registry.reset();
+
+        assertEquals(0, registry.getExecutionCount());
+        assertEquals(0, registry.getConnectionTimeoutCount());
+    }
+
+}
@@ -0,0 +1,156 @@
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.report_grid.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singletonList;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportGridCacheTest {
+
+    private static final EntityReference APP_GROUP = mkRef(EntityKind.APP_GROUP, 1L);
+    private static final IdSelectionOptions OPTS = mkOpts(APP_GROUP);
+
+
+    @Test
+    public void gridsAreCachedBySelectionAndDataVersion() {
+        ReportGridCache cache = new ReportGridCache(10, 60);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<ReportGrid> loader = () -> {
+            loads.incrementAndGet();
+            return mkGrid(5L, 10L);
+        };
+
+        ReportGrid grid = cache.get(5L, OPTS, "COST_KIND:1:2026-01-01", loader);
+        assertSame(grid, cache.get(5L, OPTS, "COST_KIND:1:2026-01-01", loader));
+        assertEquals(1, loads.get());
+
+        cache.get(5L, OPTS, "COST_KIND:2:2026-01-02", loader);
+        assertEquals(2, loads.get(), "changed data version should force a recalculation");
+
+        cache.get(5L, mkOpts(mkRef(EntityKind.APP_GROUP, 2L)), "COST_KIND:2:2026-01-02", loader);
+        assertEquals(3, loads.get(), "different selection should force a recalculation");
+    }
+
+
+    @Test
+    public void changesToGridSubjectsInvalidateEntries() {
+        ReportGridCache cache = new ReportGridCache(10, 60);
+        cache.get(5L, OPTS, "", () -> mkGrid(5L, 10L));
+        cache.get(6L, OPTS, "", () -> mkGrid(6L, 11L));
+
+        cache.onChangesLogged(singletonList(mkChangeLog(mkRef(EntityKind.APPLICATION, 10L))));
+
+        assertEquals(1, cache.getSize());
+        assertNotNull(cache.get(6L, OPTS, "", () -> null));
+    }
+
+
+    @Test
+    public void changesToGridsAndSelectionsInvalidateEntries() {
+        ReportGridCache cache = new ReportGridCache(10, 60);
+        cache.get(5L, OPTS, "", () -> mkGrid(5L, 10L));
+        cache.onChangesLogged(singletonList(mkChangeLog(APP_GROUP)));
+        assertEquals(0, cache.getSize());
+
+        cache.get(5L, OPTS, "", () -> mkGrid(5L, 10L));
+        cache.onChangesLogged(singletonList(mkChangeLog(mkRef(EntityKind.REPORT_GRID, 5L))));
+        assertEquals(0, cache.getSize());
+
+        cache.get(5L, OPTS, "", () -> mkGrid(5L, 10L));
+        cache.invalidateGrid(5L);
+        assertEquals(0, cache.getSize());
+    }
+
+
+    @Test
+    public void unrelatedChangesDoNotInvalidateEntries() {
+        ReportGridCache cache = new ReportGridCache(10, 60);
+        cache.get(5L, OPTS, "", () -> mkGrid(5L, 10L));
+
+        cache.onChangesLogged(singletonList(mkChangeLog(mkRef(EntityKind.APPLICATION, 99L))));
+        cache.invalidateGrid(6L);
+
+        assertEquals(1, cache.getSize());
+    }
+
+
+    @Test
+    public void unrelatedChangesWhilstCalculatingDoNotPreventCaching() {
+        ReportGridCache cache = new ReportGridCache(10, 60);
+
+        cache.get(5L, OPTS, "", () -> {
+            cache.onChangesLogged(singletonList(mkChangeLog(mkRef(EntityKind.APPLICATION, 99L))));
+            return mkGrid(5L, 10L);
+        });
+        assertEquals(1, cache.getSize());
+
+        cache.get(6L, OPTS, "", () -> {
+            cache.onChangesLogged(singletonList(mkChangeLog(mkRef(EntityKind.APPLICATION, 11L))));
+            return mkGrid(6L, 11L);
+        });
+        assertEquals(1, cache.getSize(), "grid whose subject changed whilst calculating should not be cached");
+    }
+
+
+    @Test
+    public void missingGridsAreNotCached() {
+        ReportGridCache cache = new ReportGridCache(10, 60);
+
+        assertNull(cache.get(5L, OPTS, "", () -> null));
+        assertEquals(0, cache.getSize());
+    }
+
+
+    // -- HELPERS ---
+
+    private static ReportGrid mkGrid(long gridId, long appId) {
+        ReportGridDefinition definition = ImmutableReportGridDefinition
+                .builder()
+                .id(gridId)
+                .name("test")
+                .subjectKind(EntityKind.APPLICATION)
+                .lastUpdatedAt(LocalDateTime.now())
+                .lastUpdatedBy("test")
+                .provenance("test")
+                .build();
+
+        ReportGridInstance instance = ImmutableReportGridInstance
+                .builder()
+                .addSubjects(ImmutableReportSubject
+                        .builder()
+                        .entityReference(mkRef(EntityKind.APPLICATION, appId, "app" + appId))
+                        .lifecyclePhase(LifecyclePhase.PRODUCTION)
+                        .build())
+                .build();
+
+        return ImmutableReportGrid
+                .builder()
+                .definition(definition)
+                .instance(instance)
+                .build();
+    }
+
+
+    private static ImmutableChangeLog mkChangeLog(EntityReference ref) {
+        return ImmutableChangeLog
+                .builder()
+                .parentReference(ref)
+                .message("test")
+                .userId("test")
+                .operation(Operation.UPDATE)
+                .build();
+    }
+}
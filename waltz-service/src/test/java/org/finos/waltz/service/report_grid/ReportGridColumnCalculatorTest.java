@@ -0,0 +1,151 @@
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.report_grid.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportGridColumnCalculatorTest {
+
+    @Test
+    public void referencedExtIdsAreFoundInCellFunctions() {
+        Set<String> extIds = ReportGridColumnCalculator.findReferencedExtIds(
+                "if (cell('A') && anyCellsProvided(\"B\", 'C')) { mkResult('D') }");
+
+        assertEquals(asSet("A", "B", "C"), extIds);
+    }
+
+
+    @Test
+    public void nonLiteralCellReferencesAreUnresolvable() {
+        assertFalse(ReportGridColumnCalculator.hasUnresolvableCellReferences("cell('A') && anyCellsProvided(\"B\", 'C')"));
+        assertFalse(ReportGridColumnCalculator.hasUnresolvableCellReferences("subjectName + 'x'"));
+        assertTrue(ReportGridColumnCalculator.hasUnresolvableCellReferences("var ref = 'A'; cell(ref)"));
+        assertTrue(ReportGridColumnCalculator.hasUnresolvableCellReferences("cell('A' + subjectId)"));
+        assertTrue(ReportGridColumnCalculator.hasUnresolvableCellReferences("getContext()['A']"));
+    }
+
+
+    @Test
+    public void dependentColumnsAreEvaluatedAfterTheirDependencies() {
+        ReportGridDefinition defn = mkDefinition(
+                mkDerivedCol(1L, "C", 0, "cell('B') == null ? 'missing' : 'C:' + cell('B').textValue()"),
+                mkDerivedCol(2L, "B", 1, "cell('A') == null ? 'missing' : 'B:' + cell('A').textValue()"),
+                mkDerivedCol(3L, "A", 2, "'a'"));
+
+        Map<Long, ReportGridCell> cellsByCol = indexBy(
+                ReportGridColumnCalculator.calculate(mkInstance(10L), defn),
+                ReportGridCell::columnDefinitionId);
+
+        assertEquals("a", cellsByCol.get(3L).textValue());
+        assertEquals("B:a", cellsByCol.get(2L).textValue());
+        assertEquals("C:B:a", cellsByCol.get(1L).textValue());
+    }
+
+
+    @Test
+    public void eachSubjectIsEvaluatedWithItsOwnContext() {
+        ReportGridDefinition defn = mkDefinition(
+                mkDerivedCol(1L, "ID", 0, "'' + subjectId"),
+                mkDerivedCol(2L, "ID_COPY", 1, "cell('ID').textValue()"));
+
+        Set<ReportGridCell> cells = ReportGridColumnCalculator.calculate(mkInstance(10L, 11L, 12L), defn);
+
+        assertEquals(6, cells.size());
+        cells.forEach(c -> assertEquals(
+                String.valueOf(c.subjectId()),
+                c.textValue()));
+    }
+
+
+    @Test
+    public void unresolvableReferencesFallBackToIterativeEvaluation() {
+        ReportGridDefinition defn = mkDefinition(
+                mkDerivedCol(1L, "C", 0, "var ref = 'B'; cell(ref) == null ? null : 'C:' + cell(ref).textValue()"),
+                mkDerivedCol(2L, "B", 1, "cell('A') == null ? null : 'B:' + cell('A').textValue()"),
+                mkDerivedCol(3L, "A", 2, "'a'"));
+
+        Map<Long, ReportGridCell> cellsByCol = indexBy(
+                ReportGridColumnCalculator.calculate(mkInstance(10L), defn),
+                ReportGridCell::columnDefinitionId);
+
+        assertEquals("a", cellsByCol.get(3L).textValue());
+        assertEquals("B:a", cellsByCol.get(2L).textValue());
+        assertEquals("C:B:a", cellsByCol.get(1L).textValue());
+    }
+
+
+    @Test
+    public void circularReferencesAreReportedAsErrors() {
+        ReportGridDefinition defn = mkDefinition(
+                mkDerivedCol(1L, "A", 0, "cell('B')"),
+                mkDerivedCol(2L, "B", 1, "cell('A')"),
+                mkDerivedCol(3L, "C", 2, "cell('A')"),
+                mkDerivedCol(4L, "D", 3, "'d'"));
+
+        Map<Long, ReportGridCell> cellsByCol = indexBy(
+                ReportGridColumnCalculator.calculate(mkInstance(10L), defn),
+                ReportGridCell::columnDefinitionId);
+
+        asList(1L, 2L, 3L).forEach(colId -> {
+            ReportGridCell cell = cellsByCol.get(colId);
+            assertEquals("CIRCULAR_REFERENCE_ERROR", cell.optionCode());
+            assertTrue(cell.errorValue().contains("A, B, C"));
+        });
+
+        assertEquals("d", cellsByCol.get(4L).textValue());
+    }
+
+
+    // -- HELPERS ---
+
+    private static ReportGridDerivedColumnDefinition mkDerivedCol(long id, String extId, int position, String script) {
+        return ImmutableReportGridDerivedColumnDefinition
+                .builder()
+                .gridColumnId(id)
+                .displayName(extId)
+                .externalId(extId)
+                .position(position)
+                .derivationScript(script)
+                .build();
+    }
+
+
+    private static ReportGridDefinition mkDefinition(ReportGridDerivedColumnDefinition... derivedCols) {
+        return ImmutableReportGridDefinition
+                .builder()
+                .name("test")
+                .subjectKind(EntityKind.APPLICATION)
+                .derivedColumnDefinitions(asList(derivedCols))
+                .lastUpdatedAt(LocalDateTime.now())
+                .lastUpdatedBy("test")
+                .provenance("test")
+                .build();
+    }
+
+
+    private static ReportGridInstance mkInstance(Long... subjectIds) {
+        ImmutableReportGridInstance.Builder builder = ImmutableReportGridInstance.builder();
+        for (Long subjectId : subjectIds) {
+            EntityReference ref = mkRef(EntityKind.APPLICATION, subjectId, "app" + subjectId);
+            builder.addSubjects(ImmutableReportSubject
+                    .builder()
+                    .entityReference(ref)
+                    .lifecyclePhase(LifecyclePhase.PRODUCTION)
+                    .build());
+        }
+        return builder.build();
+    }
+
+}
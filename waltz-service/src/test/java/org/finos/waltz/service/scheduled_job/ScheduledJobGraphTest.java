@@ -0,0 +1,134 @@
+package org.finos.waltz.service.scheduled_job;
+
+import org.finos.waltz.model.scheduled_job.JobKey;
+import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.scheduled_job.JobKey.*;
+import static org.finos.waltz.service.scheduled_job.ScheduledJob.mkJob;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduledJobGraphTest {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    private final ScheduledJobGraph graph = new ScheduledJobGraph(asList(
+            mkJob(HIERARCHY_REBUILD_DATA_TYPE, () -> {}, TIMEOUT),
+            mkJob(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL, () -> {}, TIMEOUT)
+                    .dependsOn(HIERARCHY_REBUILD_DATA_TYPE)
+                    .conflictsWith(DATA_TYPE_USAGE_RECALC_APPLICATION),
+            mkJob(DATA_TYPE_USAGE_RECALC_APPLICATION, () -> {}, TIMEOUT),
+            mkJob(AUTH_SOURCE_RECALC_FLOW_RATINGS, () -> {}, TIMEOUT)
+                    .dependsOn(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL),
+            mkJob(SURVEY_INSTANCE_REASSIGN_RECIPIENTS, () -> {}, TIMEOUT)));
+
+
+    @Test
+    public void independentJobsAreReadyTogether() {
+        Map<JobKey, JobLifecycleStatus> statuses = mkStatuses(
+                JobLifecycleStatus.RUNNABLE,
+                HIERARCHY_REBUILD_DATA_TYPE,
+                SURVEY_INSTANCE_REASSIGN_RECIPIENTS,
+                DATA_TYPE_USAGE_RECALC_APPLICATION);
+
+        assertEquals(
+                asList(HIERARCHY_REBUILD_DATA_TYPE, DATA_TYPE_USAGE_RECALC_APPLICATION, SURVEY_INSTANCE_REASSIGN_RECIPIENTS),
+                findReady(statuses, Collections.emptySet(), 10));
+    }
+
+
+    @Test
+    public void jobsWaitForPendingOrRunningDependencies() {
+        Map<JobKey, JobLifecycleStatus> statuses = mkStatuses(
+                JobLifecycleStatus.RUNNABLE,
+                HIERARCHY_REBUILD_DATA_TYPE,
+                DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
+                AUTH_SOURCE_RECALC_FLOW_RATINGS);
+
+        assertEquals(asList(HIERARCHY_REBUILD_DATA_TYPE), findReady(statuses, Collections.emptySet(), 10));
+
+        statuses.put(HIERARCHY_REBUILD_DATA_TYPE, JobLifecycleStatus.RUNNING);
+        assertEquals(asList(), findReady(statuses, asSet(HIERARCHY_REBUILD_DATA_TYPE), 10));
+
+        statuses.put(HIERARCHY_REBUILD_DATA_TYPE, JobLifecycleStatus.COMPLETED);
+        assertEquals(asList(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL), findReady(statuses, Collections.emptySet(), 10));
+    }
+
+
+    @Test
+    public void conflictingJobsDoNotRunTogether() {
+        Map<JobKey, JobLifecycleStatus> statuses = mkStatuses(
+                JobLifecycleStatus.RUNNABLE,
+                DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
+                DATA_TYPE_USAGE_RECALC_APPLICATION);
+
+        assertEquals(asList(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL), findReady(statuses, Collections.emptySet(), 10));
+
+        // conflicts are symmetric, the usage recalc waits whilst the ripple is running elsewhere
+        statuses.put(DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL, JobLifecycleStatus.RUNNING);
+        assertEquals(asList(), findReady(statuses, Collections.emptySet(), 10));
+    }
+
+
+    @Test
+    public void readyJobsAreLimited() {
+        Map<JobKey, JobLifecycleStatus> statuses = mkStatuses(
+                JobLifecycleStatus.RUNNABLE,
+                HIERARCHY_REBUILD_DATA_TYPE,
+                SURVEY_INSTANCE_REASSIGN_RECIPIENTS);
+
+        assertEquals(asList(HIERARCHY_REBUILD_DATA_TYPE), findReady(statuses, Collections.emptySet(), 1));
+    }
+
+
+    @Test
+    public void cyclesAreRejected() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ScheduledJobGraph(asList(
+                        mkJob(HIERARCHY_REBUILD_DATA_TYPE, () -> {}, TIMEOUT).dependsOn(AUTH_SOURCE_RECALC_FLOW_RATINGS),
+                        mkJob(AUTH_SOURCE_RECALC_FLOW_RATINGS, () -> {}, TIMEOUT).dependsOn(HIERARCHY_REBUILD_DATA_TYPE))));
+    }
+
+
+    @Test
+    public void undefinedDependenciesAreRejected() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ScheduledJobGraph(asList(
+                        mkJob(HIERARCHY_REBUILD_DATA_TYPE, () -> {}, TIMEOUT).dependsOn(AUTH_SOURCE_RECALC_FLOW_RATINGS))));
+    }
+
+
+    // -- HELPERS ---
+
+    private List<JobKey> findReady(Map<JobKey, JobLifecycleStatus> statuses,
+                                   Set<JobKey> runningLocally,
+                                   int limit) {
+        return graph
+                .findReady(statuses, runningLocally, limit)
+                .stream()
+                .map(ScheduledJob::key)
+                .collect(toList());
+    }
+
+
+    private static Map<JobKey, JobLifecycleStatus> mkStatuses(JobLifecycleStatus status, JobKey... keys) {
+        Map<JobKey, JobLifecycleStatus> statuses = new EnumMap<>(JobKey.class);
+        for (JobKey key : keys) {
+            statuses.put(key, status);
+        }
+        return statuses;
+    }
+
+}
@@ -0,0 +1,146 @@
+package org.finos.waltz.service.settings;
+
+import org.finos.waltz.data.settings.SettingsDao;
+import org.finos.waltz.model.settings.ImmutableSetting;
+import org.finos.waltz.model.settings.ImmutableUpdateSettingsCommand;
+import org.finos.waltz.model.settings.Setting;
+import org.finos.waltz.model.settings.UpdateSettingsCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.emptyList;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SettingsServiceTest {
+
+    @Test
+    public void lookupsAreServedFromSnapshot() {
+        StubSettingsDao dao = new StubSettingsDao();
+        dao.put(mkSetting("a", "1", false));
+        SettingsService svc = new SettingsService(dao, emptyList(), true);
+
+        assertEquals(Optional.of("1"), svc.getValue("a"));
+        assertEquals(Optional.empty(), svc.getValue("b"));
+        assertEquals(1, svc.findAll().size());
+        assertEquals(1, dao.loads.get());
+    }
+
+
+    @Test
+    public void updatesRefreshTheSnapshot() {
+        StubSettingsDao dao = new StubSettingsDao();
+        dao.put(mkSetting("a", "1", false));
+        SettingsService svc = new SettingsService(dao, emptyList(), true);
+        assertEquals(Optional.of("1"), svc.getValue("a"));
+
+        svc.update(ImmutableUpdateSettingsCommand.builder().name("a").value("2").build());
+
+        assertEquals(Optional.of("2"), svc.getValue("a"));
+    }
+
+
+    @Test
+    public void outOfBandChangesArePickedUpOnRefresh() {
+        StubSettingsDao dao = new StubSettingsDao();
+        dao.put(mkSetting("a", "1", false));
+        SettingsService svc = new SettingsService(dao, emptyList(), true);
+        assertEquals(Optional.of("1"), svc.getValue("a"));
+
+        dao.put(mkSetting("a", "2", false));
+        assertEquals(Optional.of("1"), svc.getValue("a"), "stale until refreshed");
+
+        svc.refresh();
+        assertEquals(Optional.of("2"), svc.getValue("a"));
+    }
+
+
+    @Test
+    public void overridesTakePrecedence() {
+        StubSettingsDao dao = new StubSettingsDao();
+        dao.put(mkSetting("a", "1", false));
+        SettingsService svc = new SettingsService(dao, newArrayList(mkSetting("a", "override", false)), true);
+
+        assertEquals(Optional.of("override"), svc.getValue("a"));
+        assertEquals(Optional.of("override"), svc.findAll().iterator().next().value());
+    }
+
+
+    @Test
+    public void indexByPrefixExcludesRestrictedSettings() {
+        StubSettingsDao dao = new StubSettingsDao();
+        dao.put(mkSetting("x.a", " 1 ", false));
+        dao.put(mkSetting("x.b", "2", true));
+        dao.put(mkSetting("y.c", "3", false));
+        SettingsService svc = new SettingsService(dao, emptyList(), true);
+
+        assertEquals(Collections.singletonMap("x.a", "1"), svc.indexByPrefix("x."));
+    }
+
+
+    @Test
+    public void disabledCacheQueriesEveryTime() {
+        StubSettingsDao dao = new StubSettingsDao();
+        dao.put(mkSetting("a", "1", false));
+        SettingsService svc = new SettingsService(dao, emptyList(), false);
+
+        svc.getValue("a");
+        svc.getValue("a");
+        assertEquals(0, dao.loads.get());
+        assertEquals(2, dao.lookups.get());
+    }
+
+
+    // -- helpers ---
+
+    private static Setting mkSetting(String name, String value, boolean restricted) {
+        return ImmutableSetting.builder()
+                .name(name)
+                .value(value)
+                .restricted(restricted)
+                .build();
+    }
+
+
+    private static class StubSettingsDao extends SettingsDao {
+
+        private final Map<String, Setting> settings = new HashMap<>();
+        private final AtomicInteger loads = new AtomicInteger();
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        private StubSettingsDao() {
+            super(null);
+        }
+
+        private void put(Setting setting) {
+            settings.put(setting.name(), setting);
+        }
+
+        @Override
+        public Collection<Setting> findAll() {
+            loads.incrementAndGet();
+            return new ArrayList<>(settings.values());
+        }
+
+        @Override
+        public Setting getByName(String name) {
+            lookups.incrementAndGet();
+            return settings.get(name);
+        }
+
+        @Override
+        public int update(UpdateSettingsCommand cmd) {
+            Setting existing = settings.get(cmd.name());
+            put(ImmutableSetting.copyOf(existing).withValue(cmd.value()));
+            return 1;
+        }
+    }
+
+}
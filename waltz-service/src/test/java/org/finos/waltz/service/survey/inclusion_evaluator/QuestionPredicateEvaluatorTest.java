@@ -0,0 +1,137 @@
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.survey.ImmutableSurveyQuestion;
+import org.finos.waltz.model.survey.ImmutableSurveyQuestionResponse;
+import org.finos.waltz.model.survey.SurveyQuestion;
+import org.finos.waltz.model.survey.SurveyQuestionFieldType;
+import org.finos.waltz.model.survey.SurveyQuestionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Collections.emptyMap;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.MapUtilities.newHashMap;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuestionPredicateEvaluatorTest {
+
+    private static final long TEMPLATE_ID = 1L;
+
+    private final QuestionPredicateSubjectFacts appFacts = ImmutableQuestionPredicateSubjectFacts
+            .builder()
+            .subjectRef(mkRef(EntityKind.APPLICATION, 10L))
+            .kind("EUC")
+            .lifecyclePhase("PRODUCTION")
+            .retiring(true)
+            .orgUnitNamesAndExternalIds(asSet("Group IT", "OU_1", "Markets"))
+            .dataTypeUsageKinds(newHashMap("Trade", asSet("CONSUMER"), "TRD", asSet("CONSUMER")))
+            .assessmentRatingCodes(newHashMap("Sensitivity", "H"))
+            .involvementKindNames(asSet("it architect"))
+            .build();
+
+
+    @Test
+    public void questionsWithoutPredicatesAreAlwaysIncluded() {
+        List<SurveyQuestion> qs = asList(
+                mkQuestion(1L, "q1", null),
+                mkQuestion(2L, "q2", ""));
+
+        assertFalse(QuestionPredicateEvaluator.hasInclusionPredicates(qs));
+        assertEquals(qs, eval(new QuestionPredicateCache(), appFacts, qs, emptyMap()));
+    }
+
+
+    @Test
+    public void subjectFactsAreUsedByAppPredicates() {
+        List<SurveyQuestion> qs = asList(
+                mkQuestion(1L, "kind", "isAppKind('EUC')"),
+                mkQuestion(2L, "wrongKind", "isAppKind('IN_HOUSE')"),
+                mkQuestion(3L, "ou", "belongsToOrgUnit('Group IT')"),
+                mkQuestion(4L, "wrongOu", "belongsToOrgUnit('Retail')"),
+                mkQuestion(5L, "dt", "hasDataType('TRD') && dataTypeUsages('Trade').contains('CONSUMER')"),
+                mkQuestion(6L, "wrongDt", "hasDataType('Party')"),
+                mkQuestion(7L, "assessment", "assessmentRating('Sensitivity') == 'H'"),
+                mkQuestion(8L, "involvement", "hasInvolvement('IT Architect')"),
+                mkQuestion(9L, "lifecycle", "hasLifecyclePhase('PRODUCTION') && isRetiring()"),
+                mkQuestion(10L, "defaultRating", "assessmentRating('Unknown', 'X') == 'X'"));
+
+        List<SurveyQuestion> active = eval(new QuestionPredicateCache(), appFacts, qs, emptyMap());
+
+        assertTrue(QuestionPredicateEvaluator.hasInclusionPredicates(qs));
+        assertEquals(
+                asSet("kind", "ou", "dt", "assessment", "involvement", "lifecycle", "defaultRating"),
+                map(active, q -> q.externalId().get()));
+    }
+
+
+    @Test
+    public void responsesAndDittoAreEvaluatedAgainstTheCurrentInstance() {
+        List<SurveyQuestion> qs = asList(
+                mkQuestion(1L, "toggle", null),
+                mkQuestion(2L, "dependent", "isChecked('toggle')"),
+                mkQuestion(3L, "sameAsDependent", "ditto('dependent')"));
+
+        QuestionPredicateCache cache = new QuestionPredicateCache();
+
+        Map<Long, SurveyQuestionResponse> checked = newHashMap(1L, mkBooleanResponse(1L, true));
+        Map<Long, SurveyQuestionResponse> unchecked = newHashMap(1L, mkBooleanResponse(1L, false));
+
+        assertEquals(3, eval(cache, appFacts, qs, checked).size());
+        assertEquals(1, eval(cache, appFacts, qs, unchecked).size(), "cached predicates should not retain earlier responses");
+    }
+
+
+    @Test
+    public void invalidatedTemplatesAreRecompiled() {
+        QuestionPredicateCache cache = new QuestionPredicateCache();
+
+        assertSame(
+                cache.get(TEMPLATE_ID, "isAppKind('EUC')"),
+                cache.get(TEMPLATE_ID, "isAppKind('EUC')"));
+
+        Object before = cache.get(TEMPLATE_ID, "isAppKind('EUC')");
+        cache.invalidate(TEMPLATE_ID);
+
+        assertNotSame(before, cache.get(TEMPLATE_ID, "isAppKind('EUC')"));
+    }
+
+
+    // -- HELPERS
+
+    private List<SurveyQuestion> eval(QuestionPredicateCache cache,
+                                      QuestionPredicateSubjectFacts facts,
+                                      List<SurveyQuestion> qs,
+                                      Map<Long, SurveyQuestionResponse> responses) {
+        return QuestionPredicateEvaluator.eval(cache, facts, qs, responses);
+    }
+
+
+    private static SurveyQuestion mkQuestion(long id, String extId, String predicate) {
+        return ImmutableSurveyQuestion
+                .builder()
+                .id(id)
+                .externalId(extId)
+                .surveyTemplateId(TEMPLATE_ID)
+                .questionText(extId)
+                .fieldType(SurveyQuestionFieldType.BOOLEAN)
+                .inclusionPredicate(Optional.ofNullable(predicate))
+                .build();
+    }
+
+
+    private static SurveyQuestionResponse mkBooleanResponse(long questionId, boolean value) {
+        return ImmutableSurveyQuestionResponse
+                .builder()
+                .questionId(questionId)
+                .booleanResponse(value)
+                .build();
+    }
+
+}
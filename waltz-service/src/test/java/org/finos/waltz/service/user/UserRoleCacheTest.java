@@ -0,0 +1,64 @@
+package org.finos.waltz.service.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UserRoleCacheTest {
+
+    @Test
+    public void rolesAreCachedCaseInsensitively() {
+        UserRoleCache cache = new UserRoleCache(10, 60);
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, Set<String>> loader = u -> {
+            loads.incrementAndGet();
+            return asSet("ADMIN");
+        };
+
+        assertEquals(asSet("ADMIN"), cache.get("Bob", loader));
+        assertEquals(asSet("ADMIN"), cache.get("bob", loader));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+    }
+
+
+    @Test
+    public void invalidatedUsersAreReloaded() {
+        UserRoleCache cache = new UserRoleCache(10, 60);
+        cache.get("bob", u -> asSet("ADMIN"));
+        cache.get("alice", u -> asSet("ADMIN"));
+
+        cache.invalidate("BOB");
+
+        assertEquals(asSet("BOOKMARK_EDITOR"), cache.get("bob", u -> asSet("BOOKMARK_EDITOR")));
+        assertEquals(asSet("ADMIN"), cache.get("alice", u -> asSet("BOOKMARK_EDITOR")));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getSize());
+    }
+
+
+    @Test
+    public void cachedRolesCannotBeModified() {
+        UserRoleCache cache = new UserRoleCache(10, 60);
+        Set<String> roles = cache.get("bob", u -> asSet("ADMIN"));
+
+        assertThrows(UnsupportedOperationException.class, () -> roles.add("BOOKMARK_EDITOR"));
+    }
+
+
+    @Test
+    public void nullUserNamesAreNotCached() {
+        UserRoleCache cache = new UserRoleCache(10, 60);
+
+        assertEquals(asSet(), cache.get(null, u -> asSet()));
+        assertEquals(0, cache.getSize());
+    }
+
+}
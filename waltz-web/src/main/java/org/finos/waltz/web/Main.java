@@ -108,6 +108,8 @@ public class Main {
         LoggingUtilities.configureLogging();
 
         ctx = new AnnotationConfigApplicationContext(DIConfiguration.class);
+        // ensures pending write behind records are flushed when the server is stopped
+        ctx.registerShutdownHook();
 
         Map<String, Endpoint> endpoints = ctx.getBeansOfType(Endpoint.class);
         endpoints.forEach((name, endpoint) -> {
@@ -263,6 +265,9 @@ public class Main {
                 }
             }));
 
+            // json routes write directly to the response, so compress as they are written
+            StreamingJsonWriter.enableGzip(minimumLength);
+
             LOG.info("Enabled GZIP (size: " + minimumLength + ")");
 
         } else {
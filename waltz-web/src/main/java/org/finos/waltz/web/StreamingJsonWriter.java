@@ -0,0 +1,239 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
+import static org.finos.waltz.web.WebUtilities.TYPE_JSON;
+
+
+/**
+ * Writes json responses directly to the servlet output stream rather than
+ * rendering them to an intermediate <code>String</code>.
+ *
+ * Once a value has been written the response is committed, so Spark will not
+ * attempt to serialise the (empty) value subsequently returned by the route.
+ *
+ * If gzip has been enabled (see <code>server.gzip.enabled</code>) and the client
+ * accepts it, bodies which grow beyond the configured minimum size are compressed
+ * as they are written.
+ */
+public class StreamingJsonWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingJsonWriter.class);
+
+    private static final JsonFactory JSON_FACTORY = getJsonMapper().getFactory();
+
+    // flushing after every value would push a chunk to the client per list item
+    private static final ObjectWriter JSON_WRITER = getJsonMapper()
+            .writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private static volatile int gzipMinimumSize = -1;
+
+
+    private StreamingJsonWriter() {
+    }
+
+
+    /**
+     * Compress streamed responses larger than the given size, if the client accepts gzip.
+     */
+    public static void enableGzip(int minimumSize) {
+        gzipMinimumSize = Math.max(minimumSize, 0);
+    }
+
+
+    public static void disableGzip() {
+        gzipMinimumSize = -1;
+    }
+
+
+    /**
+     * Writes the given value (which may be null) as the json body of the response.
+     */
+    public static void writeValue(Request request,
+                                  Response response,
+                                  Object value) throws IOException {
+        write(request, response, generator -> JSON_WRITER.writeValue(generator, value));
+    }
+
+
+    /**
+     * Writes the values as a json array, serialising each element as it is
+     * taken from the stream.  The stream is always closed.
+     */
+    public static <T> void writeValues(Request request,
+                                       Response response,
+                                       Stream<T> values) throws IOException {
+        checkNotNull(values, "values cannot be null");
+
+        try (Stream<T> toWrite = values) {
+            write(request, response, generator -> {
+                generator.writeStartArray();
+                Iterator<T> iterator = toWrite.iterator();
+                while (iterator.hasNext()) {
+                    JSON_WRITER.writeValue(generator, iterator.next());
+                }
+                generator.writeEndArray();
+            });
+        }
+    }
+
+
+    // -- helpers ---
+
+    @FunctionalInterface
+    private interface GeneratorCallback {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+
+    private static void write(Request request,
+                              Response response,
+                              GeneratorCallback callback) throws IOException {
+        checkNotNull(request, "request cannot be null");
+        checkNotNull(response, "response cannot be null");
+
+        HttpServletResponse rawResponse = response.raw();
+        rawResponse.setContentType(TYPE_JSON);
+
+        JsonGenerator generator = JSON_FACTORY.createGenerator(
+                mkOutputStream(request.raw(), rawResponse),
+                JsonEncoding.UTF8);
+
+        try {
+            callback.write(generator);
+            generator.close();
+        } catch (IOException | RuntimeException e) {
+            if (rawResponse.isCommitted()) {
+                LOG.warn("Failed to write response for: {}, the response has been truncated", request.uri(), e);
+            } else {
+                // nothing has reached the client, so let the exception handlers report the error
+                rawResponse.resetBuffer();
+                rawResponse.setHeader("Content-Encoding", null);
+            }
+            throw e;
+        }
+
+        rawResponse.flushBuffer();
+    }
+
+
+    private static OutputStream mkOutputStream(HttpServletRequest request,
+                                               HttpServletResponse response) throws IOException {
+        int minimumSize = gzipMinimumSize;
+        return minimumSize >= 0 && acceptsGzip(request)
+                ? new DeferredGzipOutputStream(response, minimumSize)
+                : response.getOutputStream();
+    }
+
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        return Collections
+                .list(request.getHeaders("Accept-Encoding"))
+                .stream()
+                .anyMatch(h -> h.toLowerCase().contains("gzip"));
+    }
+
+
+    /**
+     * Buffers output until it exceeds the threshold, at which point the response
+     * is marked as gzip encoded and the remaining output is compressed.  Smaller
+     * bodies are written uncompressed when the stream is closed.
+     */
+    private static class DeferredGzipOutputStream extends OutputStream {
+
+        private final HttpServletResponse response;
+        private final int threshold;
+
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream target = null;
+
+
+        private DeferredGzipOutputStream(HttpServletResponse response, int threshold) {
+            this.response = response;
+            this.threshold = threshold;
+        }
+
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (target == null) {
+                if (buffer.size() + length < threshold) {
+                    buffer.write(bytes, offset, length);
+                    return;
+                }
+                response.setHeader("Content-Encoding", "gzip");
+                target = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE);
+                buffer.writeTo(target);
+                buffer = null;
+            }
+            target.write(bytes, offset, length);
+        }
+
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            if (target == null) {
+                target = response.getOutputStream();
+                buffer.writeTo(target);
+                buffer = null;
+            }
+            target.close();
+        }
+    }
+
+}
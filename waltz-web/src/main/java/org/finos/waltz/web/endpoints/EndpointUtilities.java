@@ -18,11 +18,21 @@
 
 package org.finos.waltz.web.endpoints;
 
+import org.finos.waltz.common.DigestUtilities;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.StreamRoute;
+import org.finos.waltz.web.StreamingJsonWriter;
 import org.finos.waltz.web.WebUtilities;
 import spark.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.finos.waltz.common.StringUtilities.isEmpty;
 import static org.finos.waltz.web.WebUtilities.TYPE_JSON;
 
 
@@ -30,6 +40,8 @@ public class EndpointUtilities {
 
     private static final ResponseTransformer transformer = WebUtilities.transformer;
 
+    private static final int NOT_MODIFIED = 304;
+
 
     /**
      * Helper method to register a route which provides a list of items.
@@ -39,7 +51,7 @@ public class EndpointUtilities {
      * @param <T>
      */
     public static <T> void getForList(String path, ListRoute<T> handler) {
-        Spark.get(path, wrapListHandler(handler), transformer);
+        Spark.get(path, wrapListHandler(handler));
     }
 
 
@@ -52,31 +64,90 @@ public class EndpointUtilities {
      * @param <T>
      */
     public static <T> void getForDatum(String path, DatumRoute<T> handler) {
-        Spark.get(path, wrapDatumHandler(handler), transformer);
+        Spark.get(path, wrapDatumHandler(handler));
+    }
+
+
+    /**
+     * Registers a route which provides a list of items lazily, each item is
+     * serialised as it is taken from the stream so large (e.g. cursor backed)
+     * results never need to be held in memory as a whole.
+     * @param path
+     * @param handler
+     * @param <T>
+     */
+    public static <T> void getForStream(String path, StreamRoute<T> handler) {
+        Spark.get(path, wrapStreamHandler(handler));
+    }
+
+
+    public static <T> void postForStream(String path, StreamRoute<T> handler) {
+        Spark.post(path, wrapStreamHandler(handler));
+    }
+
+    /**
+     * Registers a list route which supports conditional GETs (<code>If-None-Match</code>).
+     *
+     * The <code>versionProvider</code> should cheaply return a value which changes
+     * whenever the result of the route may change (e.g. see
+     * <code>ClientCacheKeyService.findDataVersion</code>).  The ETag is derived from
+     * the version and the request uri, so if the client already holds the current
+     * version a 304 is returned without invoking the handler.  If the provider returns
+     * empty the ETag falls back to a hash of the serialised body.
+     *
+     * Responses are marked <code>private, no-cache</code> so clients revalidate on every use.
+     * If the result depends on the user then the version must include the username.
+     */
+    public static <T> void getForList(String path,
+                                      ListRoute<T> handler,
+                                      Function<Request, Optional<String>> versionProvider) {
+        Spark.get(path, wrapConditionalHandler(handler::apply, versionProvider));
+    }
+
+
+    /**
+     * Conditional GET variant of {@link #getForDatum(String, DatumRoute)},
+     * see {@link #getForList(String, ListRoute, Function)}.
+     */
+    public static <T> void getForDatum(String path,
+                                       DatumRoute<T> handler,
+                                       Function<Request, Optional<String>> versionProvider) {
+        Spark.get(path, wrapConditionalHandler(handler::apply, versionProvider));
+    }
+
+
+    /**
+     * Registers a list route which supports conditional GETs, using a hash of
+     * the serialised body as the ETag.  The handler is always invoked, but an
+     * unchanged body is not re-sent to the client.
+     */
+    public static <T> void getForListWithETag(String path, ListRoute<T> handler) {
+        getForList(path, handler, req -> Optional.empty());
     }
 
+
     public static <T> void postForDatum(String path, DatumRoute<T> handler) {
-        Spark.post(path, wrapDatumHandler(handler), transformer);
+        Spark.post(path, wrapDatumHandler(handler));
     }
 
     public static <T> void postForList(String path, ListRoute<T> handler) {
-        Spark.post(path, wrapListHandler(handler), transformer);
+        Spark.post(path, wrapListHandler(handler));
     }
 
     public static <T> void deleteForList(String path, ListRoute<T> handler) {
-        Spark.delete(path, wrapListHandler(handler), transformer);
+        Spark.delete(path, wrapListHandler(handler));
     }
 
     public static <T> void deleteForDatum(String path, DatumRoute<T> handler) {
-        Spark.delete(path, wrapDatumHandler(handler), transformer);
+        Spark.delete(path, wrapDatumHandler(handler));
     }
 
     public static <T> void putForDatum(String path, DatumRoute<T> handler) {
-        Spark.put(path, wrapDatumHandler(handler), transformer);
+        Spark.put(path, wrapDatumHandler(handler));
     }
 
     public static <T> void putForList(String path, ListRoute<T> handler) {
-        Spark.put(path, wrapListHandler(handler), transformer);
+        Spark.put(path, wrapListHandler(handler));
     }
 
     public static <T extends Exception> void addExceptionHandler(Class<T> exceptionClass, ExceptionHandler<T> handler) {
@@ -92,19 +163,91 @@ public class EndpointUtilities {
         ExceptionMapper.getInstance().map(exceptionClass, servletExceptionHandler);
     }
 
+    /**
+     * @param ifNoneMatch  value of the <code>If-None-Match</code> request header, may be null
+     * @param etag  the current (strong) ETag for the resource
+     * @return true if the client already holds the current representation
+     */
+    public static boolean isETagMatch(String ifNoneMatch, String etag) {
+        if (isEmpty(ifNoneMatch)) {
+            return false;
+        }
+
+        return Arrays
+                .stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(t -> t.startsWith("W/") ? t.substring(2) : t)  // If-None-Match uses weak comparison
+                .anyMatch(t -> t.equals("*") || t.equals(etag));
+    }
+
+
+    public static String mkETag(String value) {
+        try {
+            return "\"" + DigestUtilities.digest(value.getBytes(StandardCharsets.UTF_8)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot create ETag", e);
+        }
+    }
+
+
     // -- helpers ---
 
     private static <T> Route wrapListHandler(ListRoute<T> handler) {
         return (request, response) -> {
             response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            StreamingJsonWriter.writeValue(request, response, handler.apply(request, response));
+            return "";
         };
     }
 
     private static <T> Route wrapDatumHandler(DatumRoute<T> handler) {
         return (request, response) -> {
             response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            StreamingJsonWriter.writeValue(request, response, handler.apply(request, response));
+            return "";
+        };
+    }
+
+    private static <T> Route wrapStreamHandler(StreamRoute<T> handler) {
+        return (request, response) -> {
+            response.type(TYPE_JSON);
+            StreamingJsonWriter.writeValues(request, response, handler.apply(request, response));
+            return "";
+        };
+    }
+
+
+    private static Route wrapConditionalHandler(Route handler,
+                                                Function<Request, Optional<String>> versionProvider) {
+        return (request, response) -> {
+            response.type(TYPE_JSON);
+            response.header("Cache-Control", "private, no-cache");
+
+            Optional<String> version = versionProvider.apply(request);
+
+            if (version.isPresent()) {
+                String etag = mkETag(version.get() + "|" + request.uri() + "?" + request.queryString());
+                response.header("ETag", etag);
+
+                if (isETagMatch(request.headers("If-None-Match"), etag)) {
+                    response.status(NOT_MODIFIED);
+                    return "";
+                }
+
+                StreamingJsonWriter.writeValue(request, response, handler.handle(request, response));
+                return "";
+            } else {
+                String body = transformer.render(handler.handle(request, response));
+                String etag = mkETag(body);
+                response.header("ETag", etag);
+
+                if (isETagMatch(request.headers("If-None-Match"), etag)) {
+                    response.status(NOT_MODIFIED);
+                    return "";
+                }
+
+                return body;
+            }
         };
     }
 
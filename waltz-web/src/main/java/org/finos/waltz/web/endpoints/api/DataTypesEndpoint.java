@@ -18,6 +18,7 @@
 
 package org.finos.waltz.web.endpoints.api;
 
+import org.finos.waltz.service.client_cache_key.ClientCacheKeyService;
 import org.finos.waltz.service.data_type.DataTypeService;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
@@ -43,11 +44,15 @@ public class DataTypesEndpoint implements Endpoint {
     private static final String BASE_URL = WebUtilities.mkPath("api", "data-types");
 
     private final DataTypeService service;
+    private final ClientCacheKeyService clientCacheKeyService;
 
     @Autowired
-    public DataTypesEndpoint(DataTypeService service) {
+    public DataTypesEndpoint(DataTypeService service,
+                             ClientCacheKeyService clientCacheKeyService) {
         checkNotNull(service, "service must not be null");
+        checkNotNull(clientCacheKeyService, "clientCacheKeyService must not be null");
         this.service = service;
+        this.clientCacheKeyService = clientCacheKeyService;
     }
 
 
@@ -71,7 +76,10 @@ public class DataTypesEndpoint implements Endpoint {
         ListRoute<DataType> findSuggestedByEntityRefRoute = (req, res) ->
                 service.findSuggestedByEntityRef(getEntityReference(req));
 
-        getForList(BASE_URL, (request, response) -> service.findAll());
+        getForList(
+                BASE_URL,
+                (request, response) -> service.findAll(),
+                req -> clientCacheKeyService.findDataVersion(EntityKind.DATA_TYPE));
         postForList(searchPath, searchRoute);
         getForDatum(getDataTypeByIdPath, getDataTypeByIdRoute);
         getForDatum(getDataTypeByCodePath, getDataTypeByCodeRoute);
@@ -79,8 +79,11 @@ public class EntityHierarchyEndpoint implements Endpoint {
     private int buildByKindRoute(Request request, Response response) {
         requireRole(userRoleService, request, ADMIN);
         EntityKind kind = getKind(request);
-        LOG.info("Building entity hierarchy for kind: {}", kind);
-        return entityHierarchyService.buildFor(kind);
+        boolean incremental = Boolean.parseBoolean(request.queryParamOrDefault("incremental", "false"));
+        LOG.info("Building entity hierarchy for kind: {}, incremental: {}", kind, incremental);
+        return incremental
+                ? entityHierarchyService.buildIncrementallyFor(kind)
+                : entityHierarchyService.buildFor(kind);
     }
 
 }
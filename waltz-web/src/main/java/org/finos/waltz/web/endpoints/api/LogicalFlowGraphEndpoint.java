@@ -0,0 +1,79 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPathQuery;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphQuery;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
+import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+import static org.finos.waltz.web.WebUtilities.readBody;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.postForDatum;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.postForList;
+
+
+@Service
+public class LogicalFlowGraphEndpoint implements Endpoint {
+
+    private static final String BASE_URL = mkPath("api", "logical-flow-graph");
+
+    private final LogicalFlowGraphService logicalFlowGraphService;
+
+
+    @Autowired
+    public LogicalFlowGraphEndpoint(LogicalFlowGraphService logicalFlowGraphService) {
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
+        this.logicalFlowGraphService = logicalFlowGraphService;
+    }
+
+
+    @Override
+    public void register() {
+        String getUpstreamPath = mkPath(BASE_URL, "upstream");
+        String getDownstreamPath = mkPath(BASE_URL, "downstream");
+        String findPathsPath = mkPath(BASE_URL, "paths");
+        String isReachablePath = mkPath(BASE_URL, "reachable");
+
+        DatumRoute<LogicalFlowGraphTraversal> getUpstreamRoute = (request, response)
+                -> logicalFlowGraphService.getUpstream(readBody(request, LogicalFlowGraphQuery.class));
+
+        DatumRoute<LogicalFlowGraphTraversal> getDownstreamRoute = (request, response)
+                -> logicalFlowGraphService.getDownstream(readBody(request, LogicalFlowGraphQuery.class));
+
+        ListRoute<LogicalFlowGraphPath> findPathsRoute = (request, response)
+                -> logicalFlowGraphService.findPaths(readBody(request, LogicalFlowGraphPathQuery.class));
+
+        DatumRoute<Boolean> isReachableRoute = (request, response)
+                -> logicalFlowGraphService.isReachable(readBody(request, LogicalFlowGraphPathQuery.class));
+
+        postForDatum(getUpstreamPath, getUpstreamRoute);
+        postForDatum(getDownstreamPath, getDownstreamRoute);
+        postForList(findPathsPath, findPathsRoute);
+        postForDatum(isReachablePath, isReachableRoute);
+    }
+
+}
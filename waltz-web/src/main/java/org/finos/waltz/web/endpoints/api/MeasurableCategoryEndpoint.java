@@ -18,6 +18,8 @@
 
 package org.finos.waltz.web.endpoints.api;
 
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.service.client_cache_key.ClientCacheKeyService;
 import org.finos.waltz.service.measurable_category.MeasurableCategoryService;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
@@ -28,6 +30,8 @@ import org.finos.waltz.web.endpoints.EndpointUtilities;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import static org.finos.waltz.common.Checks.checkNotNull;
+
 
 @Service
 public class MeasurableCategoryEndpoint implements Endpoint {
@@ -35,11 +39,16 @@ public class MeasurableCategoryEndpoint implements Endpoint {
     private static final String BASE_URL = WebUtilities.mkPath("api", "measurable-category");
 
     private final MeasurableCategoryService measurableCategoryService;
+    private final ClientCacheKeyService clientCacheKeyService;
 
 
     @Autowired
-    public MeasurableCategoryEndpoint(MeasurableCategoryService measurableCategoryService) {
+    public MeasurableCategoryEndpoint(MeasurableCategoryService measurableCategoryService,
+                                      ClientCacheKeyService clientCacheKeyService) {
+        checkNotNull(measurableCategoryService, "measurableCategoryService cannot be null");
+        checkNotNull(clientCacheKeyService, "clientCacheKeyService cannot be null");
         this.measurableCategoryService = measurableCategoryService;
+        this.clientCacheKeyService = clientCacheKeyService;
     }
 
 
@@ -58,7 +67,10 @@ public class MeasurableCategoryEndpoint implements Endpoint {
         DatumRoute<MeasurableCategory> getByIdRoute = (request, response)
                 -> measurableCategoryService.getById(WebUtilities.getId(request));
 
-        EndpointUtilities.getForList(findAllPath, findAllRoute);
+        EndpointUtilities.getForList(
+                findAllPath,
+                findAllRoute,
+                req -> clientCacheKeyService.findDataVersion(EntityKind.MEASURABLE_CATEGORY));
         EndpointUtilities.getForList(getCategoriesByDirectOrgUnitPath, findCategoriesByDirectOrgUnitRoute);
         EndpointUtilities.getForDatum(getByIdPath, getByIdRoute);
     }
@@ -18,6 +18,8 @@
 
 package org.finos.waltz.web.endpoints.api;
 
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.service.client_cache_key.ClientCacheKeyService;
 import org.finos.waltz.service.measurable.MeasurableService;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
@@ -28,6 +30,7 @@ import org.springframework.stereotype.Service;
 
 import static org.finos.waltz.web.WebUtilities.*;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.*;
+import static org.finos.waltz.common.Checks.checkNotNull;
 
 
 @Service
@@ -36,11 +39,16 @@ public class MeasurableEndpoint implements Endpoint {
     private static final String BASE_URL = mkPath("api", "measurable");
 
     private final MeasurableService measurableService;
+    private final ClientCacheKeyService clientCacheKeyService;
 
 
     @Autowired
-    public MeasurableEndpoint(MeasurableService measurableService) {
+    public MeasurableEndpoint(MeasurableService measurableService,
+                              ClientCacheKeyService clientCacheKeyService) {
+        checkNotNull(measurableService, "measurableService cannot be null");
+        checkNotNull(clientCacheKeyService, "clientCacheKeyService cannot be null");
         this.measurableService = measurableService;
+        this.clientCacheKeyService = clientCacheKeyService;
     }
 
 
@@ -73,7 +81,7 @@ public class MeasurableEndpoint implements Endpoint {
                 -> measurableService.findByOrgUnitId(getId(request));
 
 
-        getForList(findAllPath, findAllRoute);
+        getForList(findAllPath, findAllRoute, req -> clientCacheKeyService.findDataVersion(EntityKind.MEASURABLE));
         getForList(findByExternalIdPath, findByExternalIdRoute);
         postForList(findByMeasurableIdSelectorPath, findByMeasurableIdSelectorRoute);
         getForDatum(getByIdPath, getByIdRoute);
@@ -18,7 +18,9 @@
 
 package org.finos.waltz.web.endpoints.api;
 
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.client_cache_key.ClientCacheKeyService;
 import org.finos.waltz.service.orgunit.OrganisationalUnitService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.DatumRoute;
@@ -44,19 +46,23 @@ public class OrganisationUnitEndpoint implements Endpoint {
     private final OrganisationalUnitService service;
     private final ChangeLogService changeLogService;
     private final UserRoleService userRoleService;
+    private final ClientCacheKeyService clientCacheKeyService;
 
 
     @Autowired
     public OrganisationUnitEndpoint(OrganisationalUnitService service,
                                     ChangeLogService changeLogService,
-                                    UserRoleService userRoleService) {
+                                    UserRoleService userRoleService,
+                                    ClientCacheKeyService clientCacheKeyService) {
         checkNotNull(service, "service must not be null");
         checkNotNull(changeLogService, "changeLogService must not be null");
         checkNotNull(userRoleService, "userRoleService must not be null");
+        checkNotNull(clientCacheKeyService, "clientCacheKeyService must not be null");
 
         this.service = service;
         this.changeLogService = changeLogService;
         this.userRoleService = userRoleService;
+        this.clientCacheKeyService = clientCacheKeyService;
     }
 
 
@@ -78,7 +84,7 @@ public class OrganisationUnitEndpoint implements Endpoint {
 
         DatumRoute<OrganisationalUnit> getByIdRoute = (request, response) -> service.getById(getId(request));
 
-        getForList(findAllPath, findAllRoute);
+        getForList(findAllPath, findAllRoute, req -> clientCacheKeyService.findDataVersion(EntityKind.ORG_UNIT));
         getForList(searchPath, searchRoute);
         getForList(findDescendantsPath, findDescendantsRoute);
         postForList(findByIdsPath, findByIdsRoute);
@@ -25,8 +25,11 @@ import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.eclipse.jetty.http.MimeTypes;
+import org.jooq.CSVFormat;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.JSONFormat;
+import org.jooq.Record;
 import org.jooq.Result;
 import org.jooq.Select;
 import org.jooq.lambda.Unchecked;
@@ -35,16 +38,33 @@ import spark.Request;
 import spark.Response;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.FunctionUtilities.time;
+import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.parseStreamingMode;
 
 
 public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
 
+    /**
+     * Number of rows the jdbc driver is asked to pull back per round trip when streaming
+     */
+    private static final int STREAMING_FETCH_SIZE = 1000;
+
+    /**
+     * Number of rows formatted (csv/json) before being flushed to the client when streaming
+     */
+    private static final int STREAMING_CHUNK_SIZE = 500;
+
 
     protected DSLContext dsl;
 
@@ -64,6 +84,9 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
             throw new IllegalArgumentException(String.format("Client specified format=%s. This endpoint does not support JSON."+
                     "This is to prevent unintentional usage as a public API",extractFormat));
         }
+        if (parseStreamingMode(request)) {
+            return writeStreamingExtract(extractFormat, suggestedFilenameStem, qry, response);
+        }
         return writeSupportedExtract(extractFormat, suggestedFilenameStem, qry, response);
 
     }
@@ -84,6 +107,138 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
         }
     }
 
+    /**
+     * Streams the results of the query directly to the servlet output stream.
+     *
+     * Rows are pulled from the database via a lazy cursor (with a bounded fetch size)
+     * rather than materialising the entire result. The query is executed in a
+     * transaction as some drivers (e.g. postgres) will only honour the fetch size
+     * when auto-commit is disabled.
+     *
+     * CSV and JSON output is written, and flushed, in chunks as the rows arrive.
+     * XLSX output is accumulated in an `SXSSFWorkbook` (which spills rows to disk)
+     * and written straight to the output stream once the cursor is exhausted.
+     */
+    private Object writeStreamingExtract(ExtractFormat extractFormat,
+                                         String suggestedFilenameStem,
+                                         Select<?> qry,
+                                         Response response) {
+        HttpServletResponse httpResponse = response.raw();
+
+        switch (extractFormat) {
+            case XLSX:
+                httpResponse.setHeader("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+                httpResponse.setHeader("Content-Disposition", "attachment; filename=" + suggestedFilenameStem + ".xlsx");
+                httpResponse.setHeader("Content-Transfer-Encoding", "7bit");
+                break;
+            case CSV:
+                httpResponse.setHeader("Content-Type", MimeTypes.Type.TEXT_PLAIN.asString());
+                httpResponse.setHeader("Content-Disposition", "attachment; filename=" + suggestedFilenameStem + ".csv");
+                break;
+            case JSON:
+                httpResponse.setHeader("Content-Type", MimeTypes.Type.APPLICATION_JSON_UTF_8.asString());
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot stream extract using unknown format: " + extractFormat);
+        }
+
+        time("streaming extract: " + suggestedFilenameStem, () -> dsl.transaction(ctx -> {
+            try (Cursor<?> cursor = ctx.dsl().fetchLazy(qry.fetchSize(STREAMING_FETCH_SIZE))) {
+                OutputStream outputStream = httpResponse.getOutputStream();
+                switch (extractFormat) {
+                    case XLSX:
+                        streamAsExcel(suggestedFilenameStem, qry, cursor, outputStream);
+                        break;
+                    case CSV:
+                        streamAsCSV(cursor, outputStream);
+                        break;
+                    case JSON:
+                        streamAsJson(cursor, outputStream);
+                        break;
+                }
+                outputStream.flush();
+                outputStream.close();
+            }
+        }));
+
+        return httpResponse;
+    }
+
+
+    private static void streamAsCSV(Cursor<?> cursor,
+                                    OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        boolean isFirstChunk = true;
+        do {
+            Result<?> chunk = cursor.fetchNext(STREAMING_CHUNK_SIZE);
+            chunk.formatCSV(writer, new CSVFormat().header(isFirstChunk));
+            writer.flush();
+            isFirstChunk = false;
+        } while (cursor.hasNext());
+    }
+
+
+    private static void streamAsJson(Cursor<?> cursor,
+                                     OutputStream outputStream) throws IOException {
+        JSONFormat format = new JSONFormat()
+                .header(false)
+                .recordFormat(JSONFormat.RecordFormat.OBJECT);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write("[");
+        boolean isFirstChunk = true;
+        while (cursor.hasNext()) {
+            StringWriter chunkWriter = new StringWriter();
+            cursor.fetchNext(STREAMING_CHUNK_SIZE).formatJSON(chunkWriter, format);
+
+            // each chunk is rendered as an array, we strip the brackets to splice it into the outer array
+            String chunkJson = chunkWriter.toString().trim();
+            String chunkBody = chunkJson.substring(1, chunkJson.length() - 1);
+            if (chunkBody.isEmpty()) {
+                continue;
+            }
+            if (! isFirstChunk) {
+                writer.write(",");
+            }
+            writer.write(chunkBody);
+            writer.flush();
+            isFirstChunk = false;
+        }
+        writer.write("]");
+        writer.flush();
+    }
+
+
+    private static void streamAsExcel(String suggestedFilenameStem,
+                                      Select<?> qry,
+                                      Cursor<?> cursor,
+                                      OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(2000);
+        try {
+            SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(suggestedFilenameStem));
+            writeExcelHeader(qry, sheet);
+
+            int colCount = qry.fields().length;
+            int rowNum = 1;
+            for (Record r : cursor) {
+                writeExcelRow(sheet.createRow(rowNum++), r, colCount);
+            }
+
+            int endFilterColumnIndex = colCount == 0
+                    ? 0
+                    : colCount - 1;
+
+            sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
+            sheet.createFreezePane(0, 1);
+
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+
     private String writeAsJson(Select<?> qry,
                                Response response) {
         response.type(MimeTypes.Type.APPLICATION_JSON_UTF_8.name());
@@ -193,18 +348,25 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
             records.forEach(r -> {
                 int rowNum = rowCounter.getAndIncrement();
                 Row row = sheet.createRow(rowNum);
-                for (int col = 0; col < colCount; col++) {
-                    Cell cell = row.createCell(col);
-                    Object val = r.get(col);
-                    if (val != null) {
-                        cell.setCellValue(val.toString());
-                    }
-                }
+                writeExcelRow(row, r, colCount);
             });
         });
     }
 
 
+    private static void writeExcelRow(Row row,
+                                      Record record,
+                                      int colCount) {
+        for (int col = 0; col < colCount; col++) {
+            Cell cell = row.createCell(col);
+            Object val = record.get(col);
+            if (val != null) {
+                cell.setCellValue(val.toString());
+            }
+        }
+    }
+
+
     public static void writeExcelHeader(Select<?> qry, SXSSFSheet sheet) {
         Row headerRow = sheet.createRow(0);
         AtomicInteger colNum = new AtomicInteger();
@@ -38,6 +38,23 @@ public class ExtractorUtilities {
     }
 
 
+    /**
+     * Determines if the client has requested the extract be streamed.  Expects as a
+     * param with the name `streaming`.  E.g. `my-extract?format=CSV&streaming=true`
+     *
+     * Streamed extracts are written directly to the response as rows are read from
+     * the database, rather than being materialised in memory first.
+     *
+     * Defaults to `false` if not found or not recognized.
+     *
+     * @param request  web request
+     * @return true if the extract should be streamed to the client
+     */
+    public static boolean parseStreamingMode(Request request) {
+        return Boolean.parseBoolean(request.queryParamOrDefault("streaming", "false"));
+    }
+
+
     /**
      * Removes illegal characters from sheetName.  Currently: `\ : ; * ? / `
      *
@@ -0,0 +1,180 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package org.finos.waltz.web;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spark.Request;
+import spark.RequestResponseFactory;
+import spark.Response;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StreamingJsonWriter_writeValuesTest {
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    private HttpServletRequest rawRequest;
+    private HttpServletResponse rawResponse;
+    private Request request;
+    private Response response;
+
+
+    @BeforeEach
+    public void setup() throws IOException {
+        rawRequest = mock(HttpServletRequest.class);
+        rawResponse = mock(HttpServletResponse.class);
+        when(rawRequest.getHeaders("Accept-Encoding")).thenReturn(Collections.enumeration(Collections.singletonList("gzip, deflate")));
+        when(rawResponse.getOutputStream()).thenReturn(new CapturingOutputStream());
+        request = RequestResponseFactory.create(rawRequest);
+        response = RequestResponseFactory.create(rawResponse);
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        StreamingJsonWriter.disableGzip();
+    }
+
+
+    @Test
+    public void writesValuesAsJsonArray() throws IOException {
+        StreamingJsonWriter.writeValues(request, response, Stream.of("a", "b", "c"));
+
+        assertEquals("[\"a\",\"b\",\"c\"]", written.toString("UTF-8"));
+        verify(rawResponse).setContentType(WebUtilities.TYPE_JSON);
+        verify(rawResponse).flushBuffer();
+    }
+
+
+    @Test
+    public void emptyStreamIsWrittenAsEmptyArray() throws IOException {
+        StreamingJsonWriter.writeValues(request, response, Stream.empty());
+        assertEquals("[]", written.toString("UTF-8"));
+    }
+
+
+    @Test
+    public void streamIsClosedOnceWritten() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        StreamingJsonWriter.writeValues(request, response, Stream.of(1, 2).onClose(() -> closed.set(true)));
+        assertTrue(closed.get());
+    }
+
+
+    @Test
+    public void streamIsClosedIfWritingFails() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Stream<Integer> failing = Stream
+                .of(1, 2)
+                .peek(x -> { throw new IllegalStateException("boom"); })
+                .onClose(() -> closed.set(true));
+
+        assertThrows(IllegalStateException.class, () -> StreamingJsonWriter.writeValues(request, response, failing));
+        assertTrue(closed.get());
+        verify(rawResponse).resetBuffer();
+    }
+
+
+    @Test
+    public void smallBodiesAreNotCompressed() throws IOException {
+        StreamingJsonWriter.enableGzip(1024);
+        StreamingJsonWriter.writeValue(request, response, "small");
+
+        assertEquals("\"small\"", written.toString("UTF-8"));
+        verify(rawResponse, never()).setHeader("Content-Encoding", "gzip");
+    }
+
+
+    @Test
+    public void largeBodiesAreCompressedWhenAccepted() throws IOException {
+        StreamingJsonWriter.enableGzip(16);
+        StreamingJsonWriter.writeValues(request, response, IntStream.range(0, 1000).boxed());
+
+        String expected = IntStream
+                .range(0, 1000)
+                .mapToObj(Integer::toString)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        assertEquals(expected, gunzip(written.toByteArray()));
+        verify(rawResponse).setHeader("Content-Encoding", "gzip");
+    }
+
+
+    @Test
+    public void bodiesAreNotCompressedIfClientDoesNotAcceptGzip() throws IOException {
+        when(rawRequest.getHeaders("Accept-Encoding")).thenReturn(Collections.emptyEnumeration());
+        StreamingJsonWriter.enableGzip(0);
+        StreamingJsonWriter.writeValue(request, response, "plain");
+
+        assertEquals("\"plain\"", written.toString("UTF-8"));
+        verify(rawResponse, never()).setHeader("Content-Encoding", "gzip");
+    }
+
+
+    // -- helpers ---
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), UTF_8);
+        }
+    }
+
+
+    private class CapturingOutputStream extends ServletOutputStream {
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) {
+            written.write(b);
+        }
+    }
+
+}
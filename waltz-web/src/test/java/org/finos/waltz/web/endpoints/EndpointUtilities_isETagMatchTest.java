@@ -0,0 +1,67 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints;
+
+
+import org.junit.jupiter.api.Test;
+
+import static org.finos.waltz.web.endpoints.EndpointUtilities.isETagMatch;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.mkETag;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EndpointUtilities_isETagMatchTest {
+
+    private static final String ETAG = mkETag("MEASURABLE:10:12345:abc");
+
+
+    @Test
+    public void etagsAreQuotedAndStable() {
+        assertTrue(ETAG.startsWith("\"") && ETAG.endsWith("\""));
+        assertEquals(ETAG, mkETag("MEASURABLE:10:12345:abc"));
+        assertNotEquals(ETAG, mkETag("MEASURABLE:11:12345:abc"));
+    }
+
+    @Test
+    public void missingHeaderDoesNotMatch() {
+        assertFalse(isETagMatch(null, ETAG));
+        assertFalse(isETagMatch("", ETAG));
+    }
+
+    @Test
+    public void exactTagMatches() {
+        assertTrue(isETagMatch(ETAG, ETAG));
+    }
+
+    @Test
+    public void weakTagMatches() {
+        assertTrue(isETagMatch("W/" + ETAG, ETAG));
+    }
+
+    @Test
+    public void anyTagInListMatches() {
+        assertTrue(isETagMatch("\"other\", " + ETAG, ETAG));
+        assertFalse(isETagMatch("\"other\", \"another\"", ETAG));
+    }
+
+    @Test
+    public void wildcardMatches() {
+        assertTrue(isETagMatch("*", ETAG));
+    }
+
+}
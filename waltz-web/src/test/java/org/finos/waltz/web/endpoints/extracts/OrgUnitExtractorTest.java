@@ -16,7 +16,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import spark.Request;
 import spark.Response;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 
 import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
@@ -33,6 +38,8 @@ class OrgUnitExtractorTest {
     private Request request;
     @Mock
     private Response response;
+    @Mock
+    private HttpServletResponse httpServletResponse;
 
     @BeforeEach
     public void setUp(){
@@ -59,6 +66,69 @@ class OrgUnitExtractorTest {
 
     }
 
+    @Test
+    void streamingJsonExtractIsWrittenToOutputStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        when(request.queryParams("format"))
+                .thenReturn("JSON");
+        when(request.queryParamOrDefault("streaming", "false"))
+                .thenReturn("true");
+        when(response.raw())
+                .thenReturn(httpServletResponse);
+        when(httpServletResponse.getOutputStream())
+                .thenReturn(mkServletOutputStream(bytes));
+
+        orgUnitExtractor.writeExtract("name",createDummyQuery(),request, response);
+
+        JsonNode node = JacksonUtilities.getJsonMapper().readTree(bytes.toString(StandardCharsets.UTF_8.name()));
+        assertEquals(1, node.size());
+        JsonNode arrElement = node.get(0);
+        assertEquals("1", arrElement.get("id").asText());
+        assertTrue(arrElement.has("parentId"));
+        assertTrue(arrElement.has("externalId"));
+    }
+
+
+    @Test
+    void streamingCsvExtractIsWrittenToOutputStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        when(request.queryParams("format"))
+                .thenReturn("CSV");
+        when(request.queryParamOrDefault("streaming", "false"))
+                .thenReturn("true");
+        when(response.raw())
+                .thenReturn(httpServletResponse);
+        when(httpServletResponse.getOutputStream())
+                .thenReturn(mkServletOutputStream(bytes));
+
+        orgUnitExtractor.writeExtract("name",createDummyQuery(),request, response);
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8.name()).split("\\R");
+        assertEquals(2, lines.length);
+        assertEquals("id,parentId,name,description,externalId,provenance", lines[0]);
+        assertTrue(lines[1].startsWith("1,"));
+    }
+
+
+    private static ServletOutputStream mkServletOutputStream(ByteArrayOutputStream bytes) {
+        return new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                bytes.write(b);
+            }
+        };
+    }
+
+
     private DSLContext createTestDslContext(){
         MockDataProvider provider = context -> {
             DSLContext create = DSL.using(SQLDialect.POSTGRES);